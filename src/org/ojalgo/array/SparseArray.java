@@ -49,6 +49,203 @@ import org.ojalgo.type.context.NumberContext;
  */
 public final class SparseArray<N extends Number> extends BasicArray<N> {
 
+    /**
+     * Accumulates (index, value) pairs in any order, and then creates the {@link SparseArray} in one go. That
+     * is much faster than calling {@link SparseArray#set(long, double)} or {@link SparseArray#add(long, double)}
+     * directly with unsorted indices - each such insert is O(n).
+     * <p>
+     * The values are stored in a dense array from the same factory as the sparse array's - primitive (double)
+     * for primitive factories, otherwise the factory's number type, so nothing is rounded or dropped. When the
+     * array is made the pairs are sorted by index (keeping the insertion order of duplicates) and merged:
+     * {@link #add(long, double)} sums and {@link #set(long, double)} replaces, exactly as if the calls had been
+     * made on the array in the same order.
+     */
+    public static final class Builder<N extends Number> {
+
+        private static boolean isSorted(final long[] indices, final int length) {
+            for (int k = 1; k < length; k++) {
+                if (indices[k] < indices[k - 1]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Stable (bottom-up merge) sort of the positions [0, length) by their index
+         */
+        private static int[] sort(final long[] indices, final int length) {
+
+            int[] tmpOrder = new int[length];
+            for (int k = 0; k < length; k++) {
+                tmpOrder[k] = k;
+            }
+
+            int[] tmpWork = new int[length];
+
+            for (int tmpWidth = 1; tmpWidth < length; tmpWidth += tmpWidth) {
+                for (int tmpFirst = 0; tmpFirst < length; tmpFirst += tmpWidth + tmpWidth) {
+
+                    final int tmpMiddle = Math.min(tmpFirst + tmpWidth, length);
+                    final int tmpLimit = Math.min(tmpMiddle + tmpWidth, length);
+
+                    int a = tmpFirst, b = tmpMiddle, k = tmpFirst;
+                    while ((a < tmpMiddle) && (b < tmpLimit)) {
+                        tmpWork[k++] = indices[tmpOrder[b]] < indices[tmpOrder[a]] ? tmpOrder[b++] : tmpOrder[a++];
+                    }
+                    while (a < tmpMiddle) {
+                        tmpWork[k++] = tmpOrder[a++];
+                    }
+                    while (b < tmpLimit) {
+                        tmpWork[k++] = tmpOrder[b++];
+                    }
+                }
+                final int[] tmpSwap = tmpOrder;
+                tmpOrder = tmpWork;
+                tmpWork = tmpSwap;
+            }
+
+            return tmpOrder;
+        }
+
+        private final SparseFactory<N> myFactory;
+        private long[] myIndices;
+        private int myLength = 0;
+        private final boolean myPrimitive;
+        private boolean[] myReplacing;
+        private final DenseCapacityStrategy<N> myStrategy;
+        private DenseArray<N> myValues;
+        private final N myZeroNumber;
+
+        Builder(final SparseFactory<N> factory, final int capacity) {
+
+            super();
+
+            myFactory = factory;
+            myStrategy = factory.getStrategy();
+
+            final int tmpCapacity = Math.max(16, capacity);
+            myIndices = new long[tmpCapacity];
+            myValues = myStrategy.make(tmpCapacity);
+            myReplacing = new boolean[tmpCapacity];
+
+            myPrimitive = myValues.isPrimitive();
+            myZeroNumber = myStrategy.scalar().zero().get();
+        }
+
+        public void add(final long index, final double addend) {
+            final int tmpPosition = this.append(index, false);
+            myValues.set(tmpPosition, addend);
+        }
+
+        public void add(final long index, final Number addend) {
+            final int tmpPosition = this.append(index, false);
+            myValues.set(tmpPosition, addend);
+        }
+
+        /**
+         * @return The number of (not yet merged) pairs
+         */
+        public int countPairs() {
+            return myLength;
+        }
+
+        public SparseArray<N> make() {
+            final SparseArray<N> retVal = myFactory.make();
+            this.supplyTo(retVal);
+            return retVal;
+        }
+
+        public void reset() {
+            myLength = 0;
+        }
+
+        public void set(final long index, final double value) {
+            final int tmpPosition = this.append(index, true);
+            myValues.set(tmpPosition, value);
+        }
+
+        public void set(final long index, final Number value) {
+            final int tmpPosition = this.append(index, true);
+            myValues.set(tmpPosition, value);
+        }
+
+        /**
+         * Replaces the contents of the receiver with the merged pairs.
+         */
+        public void supplyTo(final SparseArray<N> receiver) {
+
+            final int[] tmpOrder = Builder.isSorted(myIndices, myLength) ? null : Builder.sort(myIndices, myLength);
+
+            final long[] tmpIndices = new long[Math.max(myLength, myStrategy.initial())];
+            final DenseArray<N> tmpValues = myStrategy.make(tmpIndices.length);
+            int tmpCount = 0;
+
+            for (int k = 0; k < myLength;) {
+
+                final int tmpFirst = tmpOrder != null ? tmpOrder[k] : k;
+                final long tmpIndex = myIndices[tmpFirst];
+                this.copy(tmpFirst, tmpValues, tmpCount);
+                k++;
+
+                int tmpNext;
+                while ((k < myLength) && (myIndices[tmpNext = tmpOrder != null ? tmpOrder[k] : k] == tmpIndex)) {
+                    if (myReplacing[tmpNext]) {
+                        this.copy(tmpNext, tmpValues, tmpCount);
+                    } else if (myPrimitive) {
+                        tmpValues.add(tmpCount, myValues.doubleValue(tmpNext));
+                    } else {
+                        tmpValues.add(tmpCount, myValues.get(tmpNext));
+                    }
+                    k++;
+                }
+
+                if (myPrimitive ? (NumberContext.compare(tmpValues.doubleValue(tmpCount), PrimitiveMath.ZERO) != 0)
+                        : !tmpValues.get(tmpCount).equals(myZeroNumber)) {
+                    tmpIndices[tmpCount] = tmpIndex;
+                    tmpCount++;
+                } else {
+                    tmpValues.set(tmpCount, myZeroNumber);
+                }
+            }
+
+            Arrays.fill(tmpIndices, tmpCount, tmpIndices.length, Long.MAX_VALUE);
+
+            receiver.putAll(tmpIndices, tmpValues, tmpCount);
+        }
+
+        /**
+         * @return The position to store the value at
+         */
+        private int append(final long index, final boolean replacing) {
+
+            if (myLength == myIndices.length) {
+                final int tmpCapacity = myLength + myLength;
+                myIndices = Arrays.copyOf(myIndices, tmpCapacity);
+                myReplacing = Arrays.copyOf(myReplacing, tmpCapacity);
+                final DenseArray<N> tmpValues = myStrategy.make(tmpCapacity);
+                for (int k = 0; k < myLength; k++) {
+                    this.copy(k, tmpValues, k);
+                }
+                myValues = tmpValues;
+            }
+
+            myIndices[myLength] = index;
+            myReplacing[myLength] = replacing;
+
+            return myLength++;
+        }
+
+        private void copy(final int from, final DenseArray<N> destination, final int to) {
+            if (myPrimitive) {
+                destination.set(to, myValues.doubleValue(from));
+            } else {
+                destination.set(to, myValues.get(from));
+            }
+        }
+
+    }
+
     public static final class NonzeroView<N extends Number> implements ElementView1D<N, NonzeroView<N>> {
 
         private int myCursor = -1;
@@ -149,6 +346,14 @@ public final class SparseArray<N extends Number> extends BasicArray<N> {
             myCount = count;
         }
 
+        /**
+         * @param capacity The expected number of (index, value) pairs
+         * @return A builder that will make arrays using this factory
+         */
+        public Builder<N> builder(final int capacity) {
+            return new Builder<>(this, capacity);
+        }
+
         @Override
         public SparseArray<N> make() {
             return new SparseArray<>(myCount, this.getStrategy());
@@ -796,6 +1001,19 @@ public final class SparseArray<N extends Number> extends BasicArray<N> {
         return myIndices[myActualLength - 1];
     }
 
+    /**
+     * Replaces the entire contents with the (already sorted and unique) indices and values.
+     */
+    /**
+     * Takes ownership of the arrays - indices must be sorted, and padded with {@link Long#MAX_VALUE} beyond
+     * length. Both must have (the same) capacity of at least {@link DenseCapacityStrategy#initial()}.
+     */
+    void putAll(final long[] indices, final DenseArray<N> values, final int length) {
+        myIndices = indices;
+        myValues = values;
+        myActualLength = length;
+    }
+
     void put(final long key, final int index, final double value) {
         this.update(key, index, value, true);
     }
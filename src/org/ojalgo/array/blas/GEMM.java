@@ -0,0 +1,344 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array.blas;
+
+import org.ojalgo.OjAlgoUtils;
+import org.ojalgo.access.Access1D;
+import org.ojalgo.constant.PrimitiveMath;
+import org.ojalgo.machine.VirtualMachine;
+
+/**
+ * The ?gemm routines compute a scalar-matrix-matrix product and add the result to a scalar-matrix product.
+ * This implementation only does <code>C += A * B</code> with column-major double[] product storage. The
+ * operands are copied, block by block, into packed panels sized to fit the cache levels of
+ * {@linkplain OjAlgoUtils#ENVIRONMENT}, and the inner loop is a register tiled {@value #MR}x{@value #NR}
+ * micro-kernel.
+ *
+ * @author apete
+ */
+public abstract class GEMM implements BLAS3 {
+
+    /**
+     * Products where the number of rows, columns and the complexity are all at least this large will use the
+     * blocked implementation. Smaller products are better off with the simpler (AXPY based) code.
+     */
+    public static int THRESHOLD = 64;
+
+    static final int KC_MAX = 384;
+    static final int KC_MIN = 64;
+    static final int MR = 4;
+    static final int NR = 4;
+
+    /**
+     * @param product Column-major product, must already contain zeros (or whatever should be added to)
+     * @param firstColumn The first product column to calculate
+     * @param columnLimit The first product column NOT to calculate
+     * @param left Column-major left matrix with <code>product.length / columns</code> rows
+     * @param complexity The number of columns in left, and rows in right
+     * @param right Column-major right matrix
+     */
+    public static void invoke(final double[] product, final int firstColumn, final int columnLimit, final Access1D<?> left, final int complexity,
+            final Access1D<?> right) {
+
+        final int rows = ((int) left.count()) / complexity;
+
+        final VirtualMachine environment = OjAlgoUtils.ENVIRONMENT;
+        final int kc = GEMM.sizeKC(complexity);
+        final int mc = GEMM.sizeMC(environment, kc, rows);
+        final int nc = GEMM.sizeNC(environment, kc, columnLimit - firstColumn);
+
+        final double[] packedA = new double[GEMM.roundUp(mc, MR) * kc];
+        final double[] packedB = new double[GEMM.roundUp(nc, NR) * kc];
+
+        for (int jc = firstColumn; jc < columnLimit; jc += nc) {
+            final int ncb = Math.min(nc, columnLimit - jc);
+
+            for (int pc = 0; pc < complexity; pc += kc) {
+                final int kcb = Math.min(kc, complexity - pc);
+
+                GEMM.packB(packedB, right, complexity, pc, kcb, jc, ncb);
+
+                for (int ic = 0; ic < rows; ic += mc) {
+                    final int mcb = Math.min(mc, rows - ic);
+
+                    GEMM.packA(packedA, left, rows, ic, mcb, pc, kcb);
+
+                    GEMM.macro(product, rows, ic, mcb, jc, ncb, kcb, packedA, packedB);
+                }
+            }
+        }
+    }
+
+    public static void invoke(final double[] product, final int firstColumn, final int columnLimit, final double[] left, final int complexity,
+            final double[] right) {
+        GEMM.invoke(product, firstColumn, columnLimit, Access1D.wrap(left), complexity, Access1D.wrap(right));
+    }
+
+    /**
+     * <code>C += alpha * A * B</code> where each of A, B and C is a sub-block of a column-major double[]. This
+     * allows in-place updates such as the trailing submatrix updates of blocked matrix decompositions.
+     *
+     * @param product C
+     * @param productStructure The number of rows in the full product array
+     * @param productRow The first row of the C block
+     * @param productColumn The first column of the C block
+     * @param rowCount The number of rows in C (and A)
+     * @param columnCount The number of columns in C (and B)
+     * @param alpha Scalar multiplier applied to the A * B product
+     * @param left A
+     * @param leftStructure The number of rows in the full left array
+     * @param leftRow The first row of the A block
+     * @param leftColumn The first column of the A block
+     * @param complexity The number of columns in A, and rows in B
+     * @param right B
+     * @param rightStructure The number of rows in the full right array
+     * @param rightRow The first row of the B block
+     * @param rightColumn The first column of the B block
+     */
+    public static void invoke(final double[] product, final int productStructure, final int productRow, final int productColumn, final int rowCount,
+            final int columnCount, final double alpha, final double[] left, final int leftStructure, final int leftRow, final int leftColumn,
+            final int complexity, final double[] right, final int rightStructure, final int rightRow, final int rightColumn) {
+
+        if ((rowCount <= 0) || (columnCount <= 0) || (complexity <= 0)) {
+            return;
+        }
+
+        final Access1D<Double> tmpLeft = Access1D.wrap(left);
+        final Access1D<Double> tmpRight = Access1D.wrap(right);
+
+        final VirtualMachine environment = OjAlgoUtils.ENVIRONMENT;
+        final int kc = GEMM.sizeKC(complexity);
+        final int mc = GEMM.sizeMC(environment, kc, rowCount);
+        final int nc = GEMM.sizeNC(environment, kc, columnCount);
+
+        final double[] packedA = new double[GEMM.roundUp(mc, MR) * kc];
+        final double[] packedB = new double[GEMM.roundUp(nc, NR) * kc];
+
+        for (int jc = 0; jc < columnCount; jc += nc) {
+            final int ncb = Math.min(nc, columnCount - jc);
+
+            for (int pc = 0; pc < complexity; pc += kc) {
+                final int kcb = Math.min(kc, complexity - pc);
+
+                GEMM.packB(packedB, tmpRight, rightStructure, rightRow + pc, kcb, rightColumn + jc, ncb);
+
+                for (int ic = 0; ic < rowCount; ic += mc) {
+                    final int mcb = Math.min(mc, rowCount - ic);
+
+                    GEMM.packA(packedA, tmpLeft, leftStructure, leftRow + ic, mcb, leftColumn + pc, kcb);
+
+                    if (alpha != PrimitiveMath.ONE) {
+                        final int packedSize = GEMM.roundUp(mcb, MR) * kcb;
+                        for (int i = 0; i < packedSize; i++) {
+                            packedA[i] *= alpha;
+                        }
+                    }
+
+                    GEMM.macro(product, productStructure, productRow + ic, mcb, productColumn + jc, ncb, kcb, packedA, packedB);
+                }
+            }
+        }
+    }
+
+    static void macro(final double[] product, final int structure, final int firstRow, final int rowCount, final int firstColumn, final int columnCount,
+            final int depth, final double[] packedA, final double[] packedB) {
+
+        for (int jr = 0; jr < columnCount; jr += NR) {
+            final int nr = Math.min(NR, columnCount - jr);
+            final int offsetB = jr * depth;
+
+            for (int ir = 0; ir < rowCount; ir += MR) {
+                final int mr = Math.min(MR, rowCount - ir);
+                final int offsetA = ir * depth;
+
+                GEMM.micro(product, structure, firstRow + ir, mr, firstColumn + jr, nr, depth, packedA, offsetA, packedB, offsetB);
+            }
+        }
+    }
+
+    static void micro(final double[] product, final int structure, final int row, final int mr, final int col, final int nr, final int depth,
+            final double[] packedA, final int offsetA, final double[] packedB, final int offsetB) {
+
+        double c00 = PrimitiveMath.ZERO, c10 = PrimitiveMath.ZERO, c20 = PrimitiveMath.ZERO, c30 = PrimitiveMath.ZERO;
+        double c01 = PrimitiveMath.ZERO, c11 = PrimitiveMath.ZERO, c21 = PrimitiveMath.ZERO, c31 = PrimitiveMath.ZERO;
+        double c02 = PrimitiveMath.ZERO, c12 = PrimitiveMath.ZERO, c22 = PrimitiveMath.ZERO, c32 = PrimitiveMath.ZERO;
+        double c03 = PrimitiveMath.ZERO, c13 = PrimitiveMath.ZERO, c23 = PrimitiveMath.ZERO, c33 = PrimitiveMath.ZERO;
+
+        int a = offsetA;
+        int b = offsetB;
+        for (int p = 0; p < depth; p++) {
+
+            final double a0 = packedA[a];
+            final double a1 = packedA[a + 1];
+            final double a2 = packedA[a + 2];
+            final double a3 = packedA[a + 3];
+
+            final double b0 = packedB[b];
+            final double b1 = packedB[b + 1];
+            final double b2 = packedB[b + 2];
+            final double b3 = packedB[b + 3];
+
+            c00 += a0 * b0;
+            c10 += a1 * b0;
+            c20 += a2 * b0;
+            c30 += a3 * b0;
+            c01 += a0 * b1;
+            c11 += a1 * b1;
+            c21 += a2 * b1;
+            c31 += a3 * b1;
+            c02 += a0 * b2;
+            c12 += a1 * b2;
+            c22 += a2 * b2;
+            c32 += a3 * b2;
+            c03 += a0 * b3;
+            c13 += a1 * b3;
+            c23 += a2 * b3;
+            c33 += a3 * b3;
+
+            a += MR;
+            b += NR;
+        }
+
+        if ((mr == MR) && (nr == NR)) {
+
+            int index = row + (col * structure);
+            product[index] += c00;
+            product[index + 1] += c10;
+            product[index + 2] += c20;
+            product[index + 3] += c30;
+            index += structure;
+            product[index] += c01;
+            product[index + 1] += c11;
+            product[index + 2] += c21;
+            product[index + 3] += c31;
+            index += structure;
+            product[index] += c02;
+            product[index + 1] += c12;
+            product[index + 2] += c22;
+            product[index + 3] += c32;
+            index += structure;
+            product[index] += c03;
+            product[index + 1] += c13;
+            product[index + 2] += c23;
+            product[index + 3] += c33;
+
+        } else {
+
+            final double[] tile = { c00, c10, c20, c30, c01, c11, c21, c31, c02, c12, c22, c32, c03, c13, c23, c33 };
+
+            for (int j = 0; j < nr; j++) {
+                final int base = row + ((col + j) * structure);
+                for (int i = 0; i < mr; i++) {
+                    product[base + i] += tile[i + (j * MR)];
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the block <code>left[firstRow:firstRow+rowCount, firstCol:firstCol+depth]</code> into MR-row
+     * panels, each stored depth-first, padding the last panel with zeros.
+     */
+    static void packA(final double[] packed, final Access1D<?> left, final int structure, final int firstRow, final int rowCount, final int firstCol,
+            final int depth) {
+
+        int index = 0;
+
+        for (int ir = 0; ir < rowCount; ir += MR) {
+            final int mr = Math.min(MR, rowCount - ir);
+            final int row = firstRow + ir;
+
+            for (int p = 0; p < depth; p++) {
+                final long base = row + ((firstCol + p) * (long) structure);
+                for (int i = 0; i < mr; i++) {
+                    packed[index++] = left.doubleValue(base + i);
+                }
+                for (int i = mr; i < MR; i++) {
+                    packed[index++] = PrimitiveMath.ZERO;
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the block <code>right[firstRow:firstRow+depth, firstCol:firstCol+columnCount]</code> into
+     * NR-column panels, each stored depth-first, padding the last panel with zeros.
+     */
+    static void packB(final double[] packed, final Access1D<?> right, final int structure, final int firstRow, final int depth, final int firstCol,
+            final int columnCount) {
+
+        int index = 0;
+
+        for (int jr = 0; jr < columnCount; jr += NR) {
+            final int nr = Math.min(NR, columnCount - jr);
+            final int col = firstCol + jr;
+
+            for (int p = 0; p < depth; p++) {
+                final long base = firstRow + p + (col * (long) structure);
+                for (int j = 0; j < nr; j++) {
+                    packed[index++] = right.doubleValue(base + (j * (long) structure));
+                }
+                for (int j = nr; j < NR; j++) {
+                    packed[index++] = PrimitiveMath.ZERO;
+                }
+            }
+        }
+    }
+
+    static int roundUp(final int value, final int multiple) {
+        return ((value + multiple) - 1) / multiple * multiple;
+    }
+
+    /**
+     * A KC x NR sliver of B together with an MR x KC sliver of A should stay in L1 - the depth is kept within
+     * a range known to work well, and balanced so the last block is not tiny.
+     */
+    static int sizeKC(final int complexity) {
+        if (complexity <= KC_MAX) {
+            return complexity;
+        } else {
+            final int blocks = ((complexity + KC_MAX) - 1) / KC_MAX;
+            return Math.max(KC_MIN, ((complexity + blocks) - 1) / blocks);
+        }
+    }
+
+    /**
+     * The packed MC x KC block of A should occupy about half of one thread's share of the (top level) cache.
+     */
+    static int sizeMC(final VirtualMachine environment, final int kc, final int rows) {
+        final long threadsPerUnit = Math.max(1, environment.threads / Math.max(1, environment.units));
+        final long share = environment.cache / threadsPerUnit / 2L;
+        final int mc = (int) Math.max(MR, Math.min(rows, share / (8L * kc)));
+        return Math.max(MR, Math.min(GEMM.roundUp(mc, MR), GEMM.roundUp(rows, MR)));
+    }
+
+    /**
+     * The packed KC x NC block of B is shared by all MC blocks, and should occupy about half of one cache
+     * unit.
+     */
+    static int sizeNC(final VirtualMachine environment, final int kc, final int columns) {
+        final long share = environment.cache / 2L;
+        final int nc = (int) Math.max(NR, Math.min(columns, share / (8L * kc)));
+        return Math.max(NR, GEMM.roundUp(nc, NR));
+    }
+
+}
@@ -22,7 +22,9 @@
 package org.ojalgo.concurrent;
 
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
 
 import org.ojalgo.OjAlgoUtils;
 import org.ojalgo.ProgrammingError;
@@ -32,22 +34,115 @@ import org.ojalgo.ProgrammingError;
  */
 public abstract class DivideAndConquer extends Object {
 
+    /**
+     * How the divided parts are executed. In both cases the calling thread does (at least) half of the work
+     * itself rather than just waiting for the other threads to finish.
+     */
+    public static enum Mode {
+
+        /**
+         * Every split hands one half to the {@link DaemonPoolExecutor} and then blocks waiting for it to
+         * finish.
+         */
+        DAEMON_POOL,
+
+        /**
+         * Every split forks one half as a {@link RecursiveAction} on {@link ForkJoinPool#commonPool()}. A
+         * thread waiting for a part to finish will help out executing other (stolen) parts, which means
+         * nested parallel operations don't starve the pool.
+         */
+        FORK_JOIN;
+
+    }
+
+    /**
+     * The default execution mode, used when no mode is specified with the invocation.
+     */
+    public static Mode MODE = Mode.FORK_JOIN;
+
+    final class Part extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int myFirst;
+        private final int myLimit;
+        private final int myThreshold;
+        private final int myWorkers;
+
+        Part(final int first, final int limit, final int threshold, final int workers) {
+            super();
+            myFirst = first;
+            myLimit = limit;
+            myThreshold = threshold;
+            myWorkers = workers;
+        }
+
+        @Override
+        protected void compute() {
+
+            final int count = myLimit - myFirst;
+
+            if ((count > myThreshold) && (myWorkers > 1)) {
+
+                final int split = myFirst + (count / 2);
+                final int nextWorkers = myWorkers / 2;
+
+                final Part firstPart = new Part(myFirst, split, myThreshold, nextWorkers);
+                final Part secondPart = new Part(split, myLimit, myThreshold, nextWorkers);
+
+                secondPart.fork();
+                firstPart.compute();
+                secondPart.join();
+
+            } else {
+
+                DivideAndConquer.this.conquer(myFirst, myLimit);
+            }
+        }
+
+    }
+
     public DivideAndConquer() {
         super();
     }
 
     /**
-     * Synchronous execution - wait until it's finished.
+     * Synchronous execution - wait until it's finished. Uses the default {@link #MODE}.
      *
      * @param first The first index, in a range, to include.
      * @param limit The first index NOT to include - last (excl.) index in a range.
      * @param threshold
      */
     public final void invoke(final int first, final int limit, final int threshold) {
+        this.invoke(first, limit, threshold, MODE);
+    }
+
+    /**
+     * Synchronous execution - wait until it's finished.
+     *
+     * @param first The first index, in a range, to include.
+     * @param limit The first index NOT to include - last (excl.) index in a range.
+     * @param threshold
+     * @param mode How to execute the divided parts
+     */
+    public final void invoke(final int first, final int limit, final int threshold, final Mode mode) {
+
+        switch (mode) {
+
+        case FORK_JOIN:
+
+            new Part(first, limit, threshold, OjAlgoUtils.ENVIRONMENT.threads).invoke();
 
-        final int availableWorkers = OjAlgoUtils.ENVIRONMENT.threads - (DaemonPoolExecutor.INSTANCE.getActiveCount() / 2);
+            break;
 
-        this.divide(first, limit, threshold, availableWorkers);
+        default:
+
+            final int availableWorkers = OjAlgoUtils.ENVIRONMENT.threads - (DaemonPoolExecutor.INSTANCE.getActiveCount() / 2);
+
+            this.divide(first, limit, threshold, availableWorkers);
+
+            break;
+        }
     }
 
     protected abstract void conquer(final int first, final int limit);
@@ -61,11 +156,11 @@ public abstract class DivideAndConquer extends Object {
             final int split = first + (count / 2);
             final int nextWorkers = workers / 2;
 
-            final Future<?> firstPart = DaemonPoolExecutor.INSTANCE.submit(() -> this.divide(first, split, threshold, nextWorkers));
             final Future<?> secondPart = DaemonPoolExecutor.INSTANCE.submit(() -> this.divide(split, limit, threshold, nextWorkers));
 
+            this.divide(first, split, threshold, nextWorkers);
+
             try {
-                firstPart.get();
                 secondPart.get();
             } catch (final InterruptedException | ExecutionException exception) {
                 exception.printStackTrace();
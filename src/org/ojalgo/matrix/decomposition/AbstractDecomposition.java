@@ -66,6 +66,7 @@ abstract class AbstractDecomposition<N extends Number> implements MatrixDecompos
     }
 
     protected final boolean computed(final boolean computed) {
+        mySolvable = null;
         return (myComputed = computed);
     }
 
@@ -0,0 +1,310 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import java.util.Arrays;
+
+/**
+ * Fill-reducing symmetric ordering using approximate minimum degree on a quotient graph. Eliminated
+ * variables become elements, elements adjacent to the pivot are absorbed, and the degree of a variable is
+ * approximated by |A<sub>i</sub>| + |L<sub>p</sub> \ i| + &Sigma; |L<sub>e</sub> \ L<sub>p</sub>| rather
+ * than computed exactly. Dense rows are removed from the graph and ordered last. There is no supervariable
+ * detection or aggressive absorption.
+ *
+ * @author apete
+ */
+final class ApproximateMinimumDegree {
+
+    /**
+     * Rows/columns with more than max(DENSE_MINIMUM, DENSE_FACTOR * sqrt(n)) off-diagonal nonzeros are
+     * considered dense.
+     */
+    static double DENSE_FACTOR = 10.0;
+    static int DENSE_MINIMUM = 16;
+
+    /**
+     * @param dim The matrix dimension
+     * @param pointers Compressed column pointers
+     * @param indices Row indices, the pattern is assumed to be symmetric but only the union with its transpose
+     *        is used so only one of the triangles is strictly required
+     * @return The permutation, the k:th pivot is original row/column order[k]
+     */
+    static int[] order(final int dim, final int[] pointers, final int[] indices) {
+
+        final int[] retVal = new int[dim];
+
+        if (dim == 0) {
+            return retVal;
+        }
+
+        // Symmetric adjacency lists without the diagonal and without duplicates
+
+        final int[] tmpCount = new int[dim];
+        for (int j = 0; j < dim; j++) {
+            for (int p = pointers[j]; p < pointers[j + 1]; p++) {
+                final int i = indices[p];
+                if (i != j) {
+                    tmpCount[i]++;
+                    tmpCount[j]++;
+                }
+            }
+        }
+
+        final int[][] tmpAdjacent = new int[dim][];
+        for (int i = 0; i < dim; i++) {
+            tmpAdjacent[i] = new int[tmpCount[i]];
+        }
+        final int[] tmpAdjacentSize = new int[dim];
+        for (int j = 0; j < dim; j++) {
+            for (int p = pointers[j]; p < pointers[j + 1]; p++) {
+                final int i = indices[p];
+                if (i != j) {
+                    tmpAdjacent[i][tmpAdjacentSize[i]++] = j;
+                    tmpAdjacent[j][tmpAdjacentSize[j]++] = i;
+                }
+            }
+        }
+
+        final int[] tmpMark = new int[dim];
+        Arrays.fill(tmpMark, -1);
+        for (int i = 0; i < dim; i++) {
+            final int[] tmpList = tmpAdjacent[i];
+            int tmpSize = 0;
+            for (int q = 0; q < tmpAdjacentSize[i]; q++) {
+                final int v = tmpList[q];
+                if (tmpMark[v] != i) {
+                    tmpMark[v] = i;
+                    tmpList[tmpSize++] = v;
+                }
+            }
+            tmpAdjacentSize[i] = tmpSize;
+        }
+
+        // Dense rows are taken out of the graph and ordered last
+
+        final int tmpDenseLimit = (int) Math.max(DENSE_MINIMUM, DENSE_FACTOR * Math.sqrt(dim));
+        final boolean[] tmpDone = new boolean[dim];
+        int tmpDenseCount = 0;
+        for (int i = 0; i < dim; i++) {
+            if (tmpAdjacentSize[i] > tmpDenseLimit) {
+                tmpDone[i] = true;
+                retVal[dim - ++tmpDenseCount] = i;
+            }
+        }
+        if (tmpDenseCount > 0) {
+            for (int i = 0; i < dim; i++) {
+                if (!tmpDone[i]) {
+                    tmpAdjacentSize[i] = ApproximateMinimumDegree.remove(tmpAdjacent[i], tmpAdjacentSize[i], tmpDone);
+                }
+            }
+        }
+        final int tmpSparseCount = dim - tmpDenseCount;
+
+        // Degree lists (doubly linked, one per degree)
+
+        final int[] tmpDegree = new int[dim];
+        final int[] tmpHead = new int[dim];
+        final int[] tmpNext = new int[dim];
+        final int[] tmpPrevious = new int[dim];
+        Arrays.fill(tmpHead, -1);
+
+        for (int i = 0; i < dim; i++) {
+            if (!tmpDone[i]) {
+                tmpDegree[i] = tmpAdjacentSize[i];
+                ApproximateMinimumDegree.insert(i, tmpDegree[i], tmpHead, tmpNext, tmpPrevious);
+            }
+        }
+
+        // Quotient graph: elements adjacent to each variable, variables adjacent to each element
+
+        final int[][] tmpElements = new int[dim][4];
+        final int[] tmpElementsSize = new int[dim];
+        final int[][] tmpVariables = new int[dim][];
+        final boolean[] tmpAbsorbed = new boolean[dim];
+        final int[] tmpWeight = new int[dim];
+        final int[] tmpWeightMark = new int[dim];
+        Arrays.fill(tmpMark, -1);
+        Arrays.fill(tmpWeightMark, -1);
+
+        final int[] tmpPattern = new int[dim];
+        int tmpMinimum = 0;
+
+        for (int k = 0; k < tmpSparseCount; k++) {
+
+            while (tmpHead[tmpMinimum] < 0) {
+                tmpMinimum++;
+            }
+
+            final int tmpPivot = tmpHead[tmpMinimum];
+            ApproximateMinimumDegree.delete(tmpPivot, tmpDegree[tmpPivot], tmpHead, tmpNext, tmpPrevious);
+            tmpDone[tmpPivot] = true;
+            retVal[k] = tmpPivot;
+
+            // L_p = (A_p U all L_e for e in E_p) \ p
+
+            int tmpPatternSize = 0;
+            tmpMark[tmpPivot] = tmpPivot;
+
+            final int[] tmpPivotElements = tmpElements[tmpPivot];
+            for (int q = 0; q < tmpElementsSize[tmpPivot]; q++) {
+                final int e = tmpPivotElements[q];
+                if (!tmpAbsorbed[e]) {
+                    for (final int v : tmpVariables[e]) {
+                        if (!tmpDone[v] && (tmpMark[v] != tmpPivot)) {
+                            tmpMark[v] = tmpPivot;
+                            tmpPattern[tmpPatternSize++] = v;
+                        }
+                    }
+                    tmpAbsorbed[e] = true;
+                    tmpVariables[e] = null;
+                }
+            }
+
+            final int[] tmpPivotAdjacent = tmpAdjacent[tmpPivot];
+            for (int q = 0; q < tmpAdjacentSize[tmpPivot]; q++) {
+                final int v = tmpPivotAdjacent[q];
+                if (!tmpDone[v] && (tmpMark[v] != tmpPivot)) {
+                    tmpMark[v] = tmpPivot;
+                    tmpPattern[tmpPatternSize++] = v;
+                }
+            }
+
+            tmpVariables[tmpPivot] = Arrays.copyOf(tmpPattern, tmpPatternSize);
+            tmpAdjacent[tmpPivot] = null;
+            tmpAdjacentSize[tmpPivot] = 0;
+            tmpElements[tmpPivot] = null;
+            tmpElementsSize[tmpPivot] = 0;
+
+            // Update the adjacent variables: prune A_v, replace absorbed elements with p
+
+            for (int q = 0; q < tmpPatternSize; q++) {
+
+                final int v = tmpPattern[q];
+                ApproximateMinimumDegree.delete(v, tmpDegree[v], tmpHead, tmpNext, tmpPrevious);
+
+                int[] tmpList = tmpElements[v];
+                int tmpSize = 0;
+                for (int r = 0; r < tmpElementsSize[v]; r++) {
+                    final int e = tmpList[r];
+                    if (!tmpAbsorbed[e]) {
+                        tmpList[tmpSize++] = e;
+                    }
+                }
+                if (tmpSize == tmpList.length) {
+                    tmpList = tmpElements[v] = Arrays.copyOf(tmpList, 2 * tmpSize);
+                }
+                tmpList[tmpSize++] = tmpPivot;
+                tmpElementsSize[v] = tmpSize;
+
+                final int[] tmpVariableAdjacent = tmpAdjacent[v];
+                tmpSize = 0;
+                for (int r = 0; r < tmpAdjacentSize[v]; r++) {
+                    final int u = tmpVariableAdjacent[r];
+                    if (tmpMark[u] != tmpPivot) {
+                        tmpVariableAdjacent[tmpSize++] = u;
+                    }
+                }
+                tmpAdjacentSize[v] = tmpSize;
+            }
+
+            // |L_e \ L_p| for every element e adjacent to L_p
+
+            for (int q = 0; q < tmpPatternSize; q++) {
+                final int v = tmpPattern[q];
+                final int[] tmpList = tmpElements[v];
+                for (int r = 0; r < tmpElementsSize[v]; r++) {
+                    final int e = tmpList[r];
+                    if (e != tmpPivot) {
+                        if (tmpWeightMark[e] != tmpPivot) {
+                            tmpWeightMark[e] = tmpPivot;
+                            tmpWeight[e] = tmpVariables[e].length;
+                        }
+                        tmpWeight[e]--;
+                    }
+                }
+            }
+
+            // Approximate degrees
+
+            final int tmpRemaining = tmpSparseCount - k - 1;
+            for (int q = 0; q < tmpPatternSize; q++) {
+
+                final int v = tmpPattern[q];
+
+                long tmpApproximate = tmpAdjacentSize[v] + (tmpPatternSize - 1);
+                final int[] tmpList = tmpElements[v];
+                for (int r = 0; r < tmpElementsSize[v]; r++) {
+                    final int e = tmpList[r];
+                    if (e != tmpPivot) {
+                        tmpApproximate += tmpWeight[e];
+                    }
+                }
+
+                final long tmpBound = (long) tmpDegree[v] + (tmpPatternSize - 1);
+                final int tmpNew = (int) Math.min(tmpRemaining - 1, Math.min(tmpBound, tmpApproximate));
+                tmpDegree[v] = Math.max(tmpNew, 0);
+
+                ApproximateMinimumDegree.insert(v, tmpDegree[v], tmpHead, tmpNext, tmpPrevious);
+                if (tmpDegree[v] < tmpMinimum) {
+                    tmpMinimum = tmpDegree[v];
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    private static void delete(final int variable, final int degree, final int[] head, final int[] next, final int[] previous) {
+        if (previous[variable] >= 0) {
+            next[previous[variable]] = next[variable];
+        } else {
+            head[degree] = next[variable];
+        }
+        if (next[variable] >= 0) {
+            previous[next[variable]] = previous[variable];
+        }
+    }
+
+    private static void insert(final int variable, final int degree, final int[] head, final int[] next, final int[] previous) {
+        next[variable] = head[degree];
+        previous[variable] = -1;
+        if (head[degree] >= 0) {
+            previous[head[degree]] = variable;
+        }
+        head[degree] = variable;
+    }
+
+    private static int remove(final int[] list, final int size, final boolean[] removed) {
+        int retVal = 0;
+        for (int q = 0; q < size; q++) {
+            if (!removed[list[q]]) {
+                list[retVal++] = list[q];
+            }
+        }
+        return retVal;
+    }
+
+    private ApproximateMinimumDegree() {
+        super();
+    }
+
+}
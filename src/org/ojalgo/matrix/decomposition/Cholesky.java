@@ -23,6 +23,8 @@ package org.ojalgo.matrix.decomposition;
 
 import java.math.BigDecimal;
 
+import org.ojalgo.ProgrammingError;
+import org.ojalgo.access.Access1D;
 import org.ojalgo.access.Access2D;
 import org.ojalgo.array.DenseArray;
 import org.ojalgo.matrix.store.MatrixStore;
@@ -107,6 +109,36 @@ public interface Cholesky<N extends Number> extends LDU<N>, MatrixDecomposition.
         return tmpL.multiply(tmpL.conjugate());
     }
 
+    /**
+     * Inserts a new row and column (at the same index) in the decomposed matrix, and updates the
+     * decomposition accordingly - O(n<sup>2</sup>) rather than decomposing the new matrix from scratch. Only
+     * available for primitive (double) decompositions, others throw {@link UnsupportedOperationException}.
+     *
+     * @param index Where to insert - the new row and column get this index
+     * @param column The new column (= row transposed) including the new diagonal element at the index. It
+     *        has one more element than the previous matrix dimension.
+     * @return true if the new matrix is positive definite and the decomposition was updated; false if not
+     *         (the decomposition is then not changed)
+     */
+    default boolean addRowAndColumn(final int index, final Access1D<?> column) {
+        ProgrammingError.throwForUnsupportedOptionalOperation();
+        return false;
+    }
+
+    /**
+     * Rank k downdate: [A] := [A] - [X][X]<sup>T</sup> and the decomposition is updated accordingly -
+     * O(kn<sup>2</sup>) rather than decomposing the modified matrix from scratch. Only available for
+     * primitive (double) decompositions, others throw {@link UnsupportedOperationException}.
+     *
+     * @param vectors The k columns of [X] (n rows)
+     * @return true if the downdated matrix is positive definite and the decomposition was updated; false if
+     *         not (the decomposition is then not changed)
+     */
+    default boolean downdate(final Access2D<?> vectors) {
+        ProgrammingError.throwForUnsupportedOptionalOperation();
+        return false;
+    }
+
     /**
      * To use the Cholesky decomposition rather than the LU decomposition the matrix must be symmetric and
      * positive definite. It is recommended that the decomposition algorithm checks for this during
@@ -117,6 +149,32 @@ public interface Cholesky<N extends Number> extends LDU<N>, MatrixDecomposition.
      */
     public boolean isSPD();
 
+    /**
+     * Removes a row and column (the same index) from the decomposed matrix, and updates the decomposition
+     * accordingly - O(n<sup>2</sup>) rather than decomposing the new matrix from scratch. Only available for
+     * primitive (double) decompositions, others throw {@link UnsupportedOperationException}.
+     *
+     * @param index The row/column to remove
+     * @return true (the remaining matrix is always positive definite)
+     */
+    default boolean removeRowAndColumn(final int index) {
+        ProgrammingError.throwForUnsupportedOptionalOperation();
+        return false;
+    }
+
+    /**
+     * Rank k update: [A] := [A] + [X][X]<sup>T</sup> and the decomposition is updated accordingly -
+     * O(kn<sup>2</sup>) rather than decomposing the modified matrix from scratch. Only available for
+     * primitive (double) decompositions, others throw {@link UnsupportedOperationException}.
+     *
+     * @param vectors The k columns of [X] (n rows)
+     * @return true
+     */
+    default boolean update(final Access2D<?> vectors) {
+        ProgrammingError.throwForUnsupportedOptionalOperation();
+        return false;
+    }
+
     /**
      * Must implement either {@link #getL()} or {@link #getR()}.
      */
@@ -26,7 +26,9 @@ import static org.ojalgo.function.PrimitiveFunction.*;
 
 import java.math.BigDecimal;
 
+import org.ojalgo.ProgrammingError;
 import org.ojalgo.RecoverableCondition;
+import org.ojalgo.access.Access1D;
 import org.ojalgo.access.Access2D;
 import org.ojalgo.access.Access2D.Collectable;
 import org.ojalgo.access.Structure2D;
@@ -40,6 +42,7 @@ import org.ojalgo.matrix.store.GenericDenseStore;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.store.operation.ApplyCholesky;
 import org.ojalgo.scalar.ComplexNumber;
 import org.ojalgo.scalar.Quaternion;
 import org.ojalgo.scalar.RationalNumber;
@@ -94,6 +97,24 @@ abstract class CholeskyDecomposition<N extends Number> extends InPlaceDecomposit
         super(aFactory);
     }
 
+    public boolean addRowAndColumn(final int index, final Access1D<?> column) {
+
+        final PhysicalStore<Double> tmpLower = this.getPrimitiveInPlace();
+        if (tmpLower == null) {
+            return false;
+        }
+
+        final int tmpDim = this.getRowDim() + 1;
+        final PrimitiveDenseStore tmpTarget = PrimitiveDenseStore.FACTORY.makeZero(tmpDim, tmpDim);
+
+        if (LowRankUpdate.insertCholesky(tmpLower, index, column, tmpTarget)) {
+            this.setInPlace(this.wrap(tmpTarget).get());
+            return this.modified();
+        } else {
+            return false;
+        }
+    }
+
     public N calculateDeterminant(final Access2D<?> matrix) {
         this.decompose(this.wrap(matrix));
         return this.getDeterminant();
@@ -107,6 +128,31 @@ abstract class CholeskyDecomposition<N extends Number> extends InPlaceDecomposit
         return this.compute(aStore, false);
     }
 
+    public boolean downdate(final Access2D<?> vectors) {
+
+        final PhysicalStore<Double> tmpLower = this.getPrimitiveInPlace();
+        if (tmpLower == null) {
+            return false;
+        }
+
+        final PrimitiveDenseStore tmpBackup = PrimitiveDenseStore.FACTORY.copy(tmpLower);
+
+        final int tmpDim = this.getRowDim();
+        final double[] tmpVector = new double[tmpDim];
+
+        for (int j = 0, limit = (int) vectors.countColumns(); j < limit; j++) {
+            for (int i = 0; i < tmpDim; i++) {
+                tmpVector[i] = vectors.doubleValue(i, j);
+            }
+            if (!LowRankUpdate.downdateCholesky(tmpLower, 0, tmpVector)) {
+                tmpLower.fillMatching(tmpBackup);
+                return false;
+            }
+        }
+
+        return this.modified();
+    }
+
     public N getDeterminant() {
 
         final AggregatorFunction<N> tmpAggrFunc = this.aggregator().product2();
@@ -225,6 +271,22 @@ abstract class CholeskyDecomposition<N extends Number> extends InPlaceDecomposit
         return this.allocate(templateRHS.countRows(), templateRHS.countColumns());
     }
 
+    public boolean removeRowAndColumn(final int index) {
+
+        final PhysicalStore<Double> tmpLower = this.getPrimitiveInPlace();
+        if (tmpLower == null) {
+            return false;
+        }
+
+        final int tmpDim = this.getRowDim() - 1;
+        final PrimitiveDenseStore tmpTarget = PrimitiveDenseStore.FACTORY.makeZero(tmpDim, tmpDim);
+
+        LowRankUpdate.removeCholesky(tmpLower, index, tmpTarget);
+
+        this.setInPlace(this.wrap(tmpTarget).get());
+        return this.modified();
+    }
+
     @Override
     public void reset() {
 
@@ -255,11 +317,32 @@ abstract class CholeskyDecomposition<N extends Number> extends InPlaceDecomposit
         }
     }
 
+    public boolean update(final Access2D<?> vectors) {
+
+        final PhysicalStore<Double> tmpLower = this.getPrimitiveInPlace();
+        if (tmpLower == null) {
+            return false;
+        }
+
+        final int tmpDim = this.getRowDim();
+        final double[] tmpVector = new double[tmpDim];
+
+        for (int j = 0, limit = (int) vectors.countColumns(); j < limit; j++) {
+            for (int i = 0; i < tmpDim; i++) {
+                tmpVector[i] = vectors.doubleValue(i, j);
+            }
+            LowRankUpdate.updateCholesky(tmpLower, 0, tmpVector);
+        }
+
+        return this.modified();
+    }
+
     @Override
     protected boolean checkSolvability() {
         return mySPD && (myMinDiag > this.getAlgorithmEpsilon());
     }
 
+    @SuppressWarnings("unchecked")
     final boolean compute(final Access2D.Collectable<N, ? super PhysicalStore<N>> matrix, final boolean checkHermitian) {
 
         this.reset();
@@ -284,27 +367,45 @@ abstract class CholeskyDecomposition<N extends Number> extends InPlaceDecomposit
 
         final UnaryFunction<N> tmpSqrtFunc = this.function().sqrt();
 
-        // Main loop - along the diagonal
-        for (int ij = 0; tmpPositiveDefinite && (ij < tmpMinDim); ij++) {
+        // Large primitive matrices are decomposed one panel at a time
+        final int tmpBlock = ApplyCholesky.BLOCK;
+        final boolean tmpBlocked = (tmpBlock > 0) && (tmpMinDim >= (4 * tmpBlock)) && (tmpInPlace instanceof PrimitiveDenseStore);
+        final int tmpPanelWidth = tmpBlocked ? tmpBlock : tmpMinDim;
 
-            // Do the calculations...
-            final double tmpVal = tmpInPlace.doubleValue(ij, ij);
-            myMaxDiag = MAX.invoke(myMaxDiag, tmpVal);
-            myMinDiag = MIN.invoke(myMinDiag, tmpVal);
-            if (tmpVal > PrimitiveMath.ZERO) {
+        // Main loop - along the diagonal, panel by panel
+        for (int tmpPanelFirst = 0; tmpPositiveDefinite && (tmpPanelFirst < tmpMinDim); tmpPanelFirst += tmpPanelWidth) {
+            final int tmpPanelLimit = Math.min(tmpPanelFirst + tmpPanelWidth, tmpMinDim);
+
+            for (int ij = tmpPanelFirst; tmpPositiveDefinite && (ij < tmpPanelLimit); ij++) {
+
+                // Do the calculations...
+                final double tmpVal = tmpInPlace.doubleValue(ij, ij);
+                myMaxDiag = MAX.invoke(myMaxDiag, tmpVal);
+                myMinDiag = MIN.invoke(myMinDiag, tmpVal);
+                if (tmpVal > PrimitiveMath.ZERO) {
 
-                tmpInPlace.modifyOne(ij, ij, tmpSqrtFunc);
+                    tmpInPlace.modifyOne(ij, ij, tmpSqrtFunc);
 
-                // Calculate multipliers and copy to local column
-                // Current column, below the diagonal
-                tmpInPlace.divideAndCopyColumn(ij, ij, tmpMultipliers);
+                    // Calculate multipliers and copy to local column
+                    // Current column, below the diagonal
+                    tmpInPlace.divideAndCopyColumn(ij, ij, tmpMultipliers);
 
-                // Remaining columns, below the diagonal
-                tmpInPlace.applyCholesky(ij, tmpMultipliers);
+                    // Remaining columns (of the panel), below the diagonal
+                    if (tmpPanelLimit < tmpMinDim) {
+                        ((PrimitiveDenseStore) tmpInPlace).applyCholesky(ij, (BasicArray<Double>) tmpMultipliers, tmpPanelLimit);
+                    } else {
+                        tmpInPlace.applyCholesky(ij, tmpMultipliers);
+                    }
 
-            } else {
+                } else {
 
-                tmpPositiveDefinite = false;
+                    tmpPositiveDefinite = false;
+                }
+            }
+
+            // Everything to the right of the panel, using matrix-matrix operations
+            if (tmpPositiveDefinite && (tmpPanelLimit < tmpMinDim)) {
+                ((PrimitiveDenseStore) tmpInPlace).updateCholesky(tmpPanelFirst, tmpPanelLimit);
             }
         }
 
@@ -315,4 +416,38 @@ abstract class CholeskyDecomposition<N extends Number> extends InPlaceDecomposit
         return myMaxDiag * TEN * this.getDimensionalEpsilon();
     }
 
+    /**
+     * @return The in-place [L], if this is a successfully computed primitive decomposition - null if it is
+     *         not computed (not positive definite)
+     */
+    @SuppressWarnings("unchecked")
+    private PhysicalStore<Double> getPrimitiveInPlace() {
+
+        final DecompositionStore<N> tmpInPlace = this.getInPlace();
+
+        if (!(tmpInPlace instanceof PrimitiveDenseStore)) {
+            ProgrammingError.throwForUnsupportedOptionalOperation();
+        }
+
+        return this.isComputed() && mySPD ? (PhysicalStore<Double>) tmpInPlace : null;
+    }
+
+    /**
+     * The in-place [L] has been modified - recalculate the diagonal limits.
+     */
+    private boolean modified() {
+
+        final DecompositionStore<N> tmpInPlace = this.getInPlace();
+
+        myMaxDiag = ZERO;
+        myMinDiag = POSITIVE_INFINITY;
+        for (int ij = 0, limit = this.getMinDim(); ij < limit; ij++) {
+            final double tmpVal = tmpInPlace.doubleValue(ij, ij);
+            myMaxDiag = MAX.invoke(myMaxDiag, tmpVal * tmpVal);
+            myMinDiag = MIN.invoke(myMinDiag, tmpVal * tmpVal);
+        }
+
+        return this.computed(mySPD = true);
+    }
+
 }
@@ -154,6 +154,15 @@ public interface Eigenvalue<N extends Number>
 
     public static final Factory<ComplexNumber> COMPLEX = (typical, hermitian) -> hermitian ? new HermitianEvD.Complex() : null;
 
+    /**
+     * For symmetric matrices: Tridiagonal reduction followed by Cuppen's divide-and-conquer algorithm, always.
+     * The subproblems and the merge products are divided between threads. (The {@link #PRIMITIVE} factory
+     * switches to divide-and-conquer when the matrix is large enough.) Non-symmetric matrices are handled as
+     * by {@link #PRIMITIVE}.
+     */
+    public static final Factory<Double> DIVIDE_AND_CONQUER = (typical, hermitian) -> hermitian ? new RawEigenvalue.Symmetric(true)
+            : Eigenvalue.PRIMITIVE.make(typical, false);
+
     public static final Factory<Double> PRIMITIVE = new Factory<Double>() {
 
         public Eigenvalue<Double> make(final Structure2D typical) {
@@ -210,6 +219,19 @@ public interface Eigenvalue<N extends Number>
         }
     }
 
+    /**
+     * Only the k largest (in magnitude) eigenvalues and corresponding eigenvectors of a symmetric matrix -
+     * thick-restart Lanczos. Much faster than a full decomposition when k is small compared to the matrix
+     * dimension. The matrix is only used to form matrix-vector products, so any {@link MatrixStore} works
+     * including sparse and logical stores. [V] is n-by-k and [D] k-by-k. Returns null for non-symmetric
+     * matrices.
+     *
+     * @param numberOfEigenvalues k
+     */
+    public static Factory<Double> truncated(final int numberOfEigenvalues) {
+        return (typical, hermitian) -> hermitian ? new LanczosEvD(numberOfEigenvalues) : null;
+    }
+
     static <N extends Number> boolean equals(final MatrixStore<N> matrix, final Eigenvalue<N> decomposition, final NumberContext context) {
 
         final MatrixStore<N> tmpD = decomposition.getD();
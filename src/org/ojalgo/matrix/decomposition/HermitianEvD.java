@@ -25,6 +25,7 @@ import static org.ojalgo.constant.PrimitiveMath.*;
 import static org.ojalgo.function.PrimitiveFunction.*;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Optional;
 
 import org.ojalgo.ProgrammingError;
@@ -203,6 +204,10 @@ public abstract class HermitianEvD<N extends Number> extends EigenvalueDecomposi
 
     private double[] e;
     private transient MatrixStore<N> myInverse;
+    /**
+     * Only the primitive (double) implementations can use the divide-and-conquer algorithm
+     */
+    private final boolean myPrimitive;
     private final TridiagonalDecomposition<N> myTridiagonal;
 
     @SuppressWarnings("unused")
@@ -214,6 +219,7 @@ public abstract class HermitianEvD<N extends Number> extends EigenvalueDecomposi
 
         super(aFactory);
 
+        myPrimitive = (tridiagonal instanceof DeferredTridiagonal.Primitive) || (tridiagonal instanceof SimultaneousTridiagonal);
         myTridiagonal = tridiagonal;
     }
 
@@ -405,8 +411,20 @@ public abstract class HermitianEvD<N extends Number> extends EigenvalueDecomposi
 
         myTridiagonal.supplyDiagonalTo(d, e);
 
-        final RotateRight tmpRotateRight = valuesOnly ? RotateRight.NULL : myTridiagonal.getDecompositionQ();
-        HermitianEvD.tql2(d, e, tmpRotateRight);
+        final boolean tmpDivideAndConquer = myPrimitive && TridiagonalEvD.isDivideAndConquer(size);
+
+        if (valuesOnly) {
+            HermitianEvD.tql2(d, e, RotateRight.NULL);
+            if (tmpDivideAndConquer) {
+                // Same order as divide-and-conquer would have given
+                Arrays.sort(d);
+            }
+        } else if (tmpDivideAndConquer) {
+            TridiagonalEvD.divideAndConquer(d, e, ((PrimitiveDenseStore) myTridiagonal.getDecompositionQ()).data);
+            Arrays.fill(e, ZERO);
+        } else {
+            HermitianEvD.tql2(d, e, myTridiagonal.getDecompositionQ());
+        }
 
         if (this.isOrdered()) {
             final ExchangeColumns tmpExchangeColumns = valuesOnly ? ExchangeColumns.NULL : myTridiagonal.getDecompositionQ();
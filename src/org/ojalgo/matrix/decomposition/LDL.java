@@ -73,6 +73,14 @@ public interface LDL<N extends Number> extends LDU<N>, MatrixDecomposition.Hermi
 
     public static final Factory<RationalNumber> RATIONAL = typical -> new LDLDecomposition.Rational();
 
+    /**
+     * Sparse LDL with a fill-reducing (approximate minimum degree) ordering. The ordering and symbolic
+     * analysis are reused when decomposing matrices with the same nonzero pattern. There is no pivoting, the
+     * matrix should be positive definite or quasi-definite, and [L] is only triangular with respect to the
+     * fill-reducing order.
+     */
+    public static final Factory<Double> SPARSE = typical -> new SparseLDL();
+
     @SuppressWarnings("unchecked")
     public static <N extends Number> LDL<N> make(final Access2D<N> typical) {
 
@@ -23,6 +23,7 @@ package org.ojalgo.matrix.decomposition;
 
 import java.math.BigDecimal;
 
+import org.ojalgo.ProgrammingError;
 import org.ojalgo.access.Access2D;
 import org.ojalgo.array.DenseArray;
 import org.ojalgo.matrix.store.ElementsSupplier;
@@ -102,7 +103,15 @@ public interface LU<N extends Number> extends LDU<N> {
     }
 
     static <N extends Number> MatrixStore<N> reconstruct(final LU<N> decomposition) {
-        return decomposition.getL().multiply(decomposition.getU()).logical().row(decomposition.getPivotOrder()).get();
+
+        // Row i of [L][U] is row pivotOrder[i] of [A]
+        final int[] tmpPivotOrder = decomposition.getPivotOrder();
+        final int[] tmpInverseOrder = new int[tmpPivotOrder.length];
+        for (int i = 0; i < tmpPivotOrder.length; i++) {
+            tmpInverseOrder[tmpPivotOrder[i]] = i;
+        }
+
+        return decomposition.getL().multiply(decomposition.getU()).logical().row(tmpInverseOrder).get();
     }
 
     /**
@@ -113,6 +122,16 @@ public interface LU<N extends Number> extends LDU<N> {
      */
     boolean computeWithoutPivoting(ElementsSupplier<N> matrix);
 
+    /**
+     * Rank k downdate: [A] := [A] - [X][Y]<sup>T</sup>
+     *
+     * @see #update(Access2D, Access2D)
+     */
+    default boolean downdate(final Access2D<?> left, final Access2D<?> right) {
+        ProgrammingError.throwForUnsupportedOptionalOperation();
+        return false;
+    }
+
     MatrixStore<N> getL();
 
     /**
@@ -133,6 +152,24 @@ public interface LU<N extends Number> extends LDU<N> {
      */
     MatrixStore<N> getU();
 
+    /**
+     * Rank k update: [A] := [A] + [X][Y]<sup>T</sup> and the decomposition is updated accordingly -
+     * O(kn<sup>2</sup>) rather than decomposing the modified matrix from scratch. The pivot order is kept.
+     * Should the modified matrix need a different pivot order (the update becomes numerically unstable) it
+     * is instead decomposed again. Only square matrices are updated, otherwise the modified matrix is always
+     * decomposed again. Only available for primitive (double) decompositions, others throw
+     * {@link UnsupportedOperationException}.
+     *
+     * @param left The k columns of [X] (as many rows as [A])
+     * @param right The k columns of [Y] (as many rows as [A] has columns)
+     * @return The same as {@link #decompose(org.ojalgo.access.Access2D.Collectable)} would for the modified
+     *         matrix
+     */
+    default boolean update(final Access2D<?> left, final Access2D<?> right) {
+        ProgrammingError.throwForUnsupportedOptionalOperation();
+        return false;
+    }
+
     default MatrixStore<N> reconstruct() {
         return LU.reconstruct(this);
     }
@@ -25,6 +25,7 @@ import static org.ojalgo.constant.PrimitiveMath.*;
 
 import java.math.BigDecimal;
 
+import org.ojalgo.ProgrammingError;
 import org.ojalgo.RecoverableCondition;
 import org.ojalgo.access.Access2D;
 import org.ojalgo.access.Access2D.Collectable;
@@ -38,6 +39,7 @@ import org.ojalgo.matrix.store.GenericDenseStore;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.store.operation.ApplyLU;
 import org.ojalgo.scalar.ComplexNumber;
 import org.ojalgo.scalar.Quaternion;
 import org.ojalgo.scalar.RationalNumber;
@@ -104,6 +106,10 @@ abstract class LUDecomposition<N extends Number> extends InPlaceDecomposition<N>
         return this.compute(aStore, false);
     }
 
+    public boolean downdate(final Access2D<?> left, final Access2D<?> right) {
+        return this.modify(left, right, NEG);
+    }
+
     public N getDeterminant() {
 
         final AggregatorFunction<N> tmpAggrFunc = this.aggregator().product();
@@ -273,6 +279,11 @@ abstract class LUDecomposition<N extends Number> extends InPlaceDecomposition<N>
         }
     }
 
+    public boolean update(final Access2D<?> left, final Access2D<?> right) {
+        return this.modify(left, right, ONE);
+    }
+
+    @SuppressWarnings("unchecked")
     private final boolean compute(final Access2D.Collectable<N, ? super PhysicalStore<N>> aStore, final boolean assumeNoPivotingRequired) {
 
         this.reset();
@@ -287,37 +298,59 @@ abstract class LUDecomposition<N extends Number> extends InPlaceDecomposition<N>
 
         final BasicArray<N> tmpMultipliers = this.makeArray(tmpRowDim);
 
-        // Main loop - along the diagonal
-        for (int ij = 0; ij < tmpMinDim; ij++) {
+        // Large primitive matrices are decomposed one panel at a time
+        final int tmpBlock = ApplyLU.BLOCK;
+        final boolean tmpBlocked = (tmpBlock > 0) && (tmpMinDim >= (4 * tmpBlock)) && (tmpInPlace instanceof PrimitiveDenseStore);
+        final int tmpPanelWidth = tmpBlocked ? tmpBlock : tmpMinDim;
+
+        // Main loop - along the diagonal, panel by panel
+        for (int tmpPanelFirst = 0; tmpPanelFirst < tmpMinDim; tmpPanelFirst += tmpPanelWidth) {
+            final int tmpPanelLimit = Math.min(tmpPanelFirst + tmpPanelWidth, tmpMinDim);
 
-            if (!assumeNoPivotingRequired) {
-                // Find next pivot row
-                final int tmpPivotRow = (int) tmpInPlace.indexOfLargestInColumn(ij, ij);
+            for (int ij = tmpPanelFirst; ij < tmpPanelLimit; ij++) {
 
-                // Pivot?
-                if (tmpPivotRow != ij) {
-                    tmpInPlace.exchangeRows(tmpPivotRow, ij);
-                    myPivot.change(tmpPivotRow, ij);
+                if (!assumeNoPivotingRequired) {
+                    // Find next pivot row
+                    final int tmpPivotRow = (int) tmpInPlace.indexOfLargestInColumn(ij, ij);
+
+                    // Pivot?
+                    if (tmpPivotRow != ij) {
+                        tmpInPlace.exchangeRows(tmpPivotRow, ij);
+                        myPivot.change(tmpPivotRow, ij);
+                    }
                 }
-            }
 
-            // Do the calculations...
-            // if (!tmpInPlace.isZero(ij, ij)) {
-            // if (tmpInPlace.doubleValue(ij, ij) != PrimitiveMath.ZERO) {
-            if (NumberContext.compare(tmpInPlace.doubleValue(ij, ij), PrimitiveMath.ZERO) != 0) {
+                // Do the calculations...
+                // if (!tmpInPlace.isZero(ij, ij)) {
+                // if (tmpInPlace.doubleValue(ij, ij) != PrimitiveMath.ZERO) {
+                if (NumberContext.compare(tmpInPlace.doubleValue(ij, ij), PrimitiveMath.ZERO) != 0) {
+
+                    // Calculate multipliers and copy to local column
+                    // Current column, below the diagonal
+                    tmpInPlace.divideAndCopyColumn(ij, ij, tmpMultipliers);
 
-                // Calculate multipliers and copy to local column
-                // Current column, below the diagonal
-                tmpInPlace.divideAndCopyColumn(ij, ij, tmpMultipliers);
+                    // Apply transformations to everything below and to the right of the pivot element (within the panel)
+                    if (tmpPanelLimit < tmpMinDim) {
+                        ((PrimitiveDenseStore) tmpInPlace).applyLU(ij, (BasicArray<Double>) tmpMultipliers, tmpPanelLimit);
+                    } else {
+                        tmpInPlace.applyLU(ij, tmpMultipliers);
+                    }
 
-                // Apply transformations to everything below and to the right of the pivot element
-                tmpInPlace.applyLU(ij, tmpMultipliers);
+                } else {
 
-            } else {
+                    tmpInPlace.set(ij, ij, ZERO);
 
-                tmpInPlace.set(ij, ij, ZERO);
+                    if (tmpPanelLimit < tmpMinDim) {
+                        // The trailing update uses the whole panel - this column must not contribute
+                        tmpInPlace.fillColumn(ij + 1, ij, this.scalar().zero().get());
+                    }
+                }
             }
 
+            // Everything to the right of the panel, using matrix-matrix operations
+            if (tmpPanelLimit < tmpMinDim) {
+                ((PrimitiveDenseStore) tmpInPlace).updateLU(tmpPanelFirst, tmpPanelLimit);
+            }
         }
 
         return this.computed(true);
@@ -356,4 +389,25 @@ abstract class LUDecomposition<N extends Number> extends InPlaceDecomposition<N>
         return retVal;
     }
 
+    @SuppressWarnings("unchecked")
+    private boolean modify(final Access2D<?> left, final Access2D<?> right, final double sign) {
+
+        final DecompositionStore<N> tmpInPlace = this.getInPlace();
+
+        if (!(tmpInPlace instanceof PrimitiveDenseStore)) {
+            ProgrammingError.throwForUnsupportedOptionalOperation();
+        }
+
+        if (!this.isComputed()) {
+            return false;
+        }
+
+        if ((this.getRowDim() == this.getColDim())
+                && LowRankUpdate.updateLU((PhysicalStore<Double>) tmpInPlace, myPivot.getOrder(), left, right, sign)) {
+            return this.computed(true);
+        } else {
+            return this.decompose(this.wrap(LowRankUpdate.modified(this.reconstruct(), left, right, sign)).get());
+        }
+    }
+
 }
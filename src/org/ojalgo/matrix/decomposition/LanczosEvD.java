@@ -0,0 +1,333 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
+
+import org.ojalgo.ProgrammingError;
+import org.ojalgo.access.Access2D.Collectable;
+import org.ojalgo.array.Array1D;
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.array.blas.DOT;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.scalar.ComplexNumber;
+
+/**
+ * The k largest (in magnitude) eigenvalues, and corresponding eigenvectors, of a symmetric matrix. The
+ * matrix is only used to form products with vectors - it is never copied or modified - so it can be any
+ * {@link MatrixStore} including sparse and logical stores.
+ * <p>
+ * Thick-restart Lanczos (Wu &amp; Simon), mathematically equivalent to the implicitly restarted Lanczos
+ * method. A Krylov subspace of dimension m &gt; k is built with full reorthogonalisation. When the wanted Ritz
+ * pairs have not yet converged the subspace is restarted from the best Ritz vectors (more than k of them)
+ * plus the current residual vector.
+ * </p>
+ * <p>
+ * The eigenvalues are ordered in descending magnitude. [V] is n-by-k and [D] k-by-k. Determinant, trace and
+ * reconstruction all refer to the rank k approximation [V][D][V]<sup>T</sup>.
+ * </p>
+ *
+ * @author apete
+ */
+final class LanczosEvD extends EigenvalueDecomposition<Double> {
+
+    /**
+     * The maximum number of restarts
+     */
+    static int RESTARTS = 500;
+
+    private static final double TOLERANCE = Math.pow(MACHINE_EPSILON, TWO / THREE);
+
+    private static void orthogonalise(final double[] basis, final int dim, final int count, final double[] vector, final double[] coefficients) {
+        for (int i = 0; i < count; i++) {
+            final double tmpVal = DOT.invoke(basis, i * dim, vector, 0, 0, dim);
+            coefficients[i] += tmpVal;
+            final int tmpBase = i * dim;
+            for (int r = 0; r < dim; r++) {
+                vector[r] -= tmpVal * basis[tmpBase + r];
+            }
+        }
+    }
+
+    private double[] d = null;
+    private final int myNumberOfEigenvalues;
+    private PrimitiveDenseStore myV = null;
+
+    LanczosEvD(final int numberOfEigenvalues) {
+
+        super(PrimitiveDenseStore.FACTORY);
+
+        if (numberOfEigenvalues < 1) {
+            throw new ProgrammingError("Must ask for at least 1 eigenvalue!");
+        }
+
+        myNumberOfEigenvalues = numberOfEigenvalues;
+    }
+
+    public Double getDeterminant() {
+        if (d.length == myV.countRows()) {
+            double retVal = ONE;
+            for (int i = 0; i < d.length; i++) {
+                retVal *= d[i];
+            }
+            return retVal;
+        } else {
+            return ZERO;
+        }
+    }
+
+    public void getEigenvalues(final double[] realParts, final Optional<double[]> imaginaryParts) {
+
+        final int length = Math.min(realParts.length, d.length);
+
+        System.arraycopy(d, 0, realParts, 0, length);
+
+        if (imaginaryParts.isPresent()) {
+            Arrays.fill(imaginaryParts.get(), 0, length, ZERO);
+        }
+    }
+
+    public ComplexNumber getTrace() {
+        double retVal = ZERO;
+        for (int i = 0; i < d.length; i++) {
+            retVal += d[i];
+        }
+        return ComplexNumber.valueOf(retVal);
+    }
+
+    public boolean isHermitian() {
+        return true;
+    }
+
+    public boolean isOrdered() {
+        return true;
+    }
+
+    @Override
+    public void reset() {
+
+        super.reset();
+
+        d = null;
+        myV = null;
+    }
+
+    @Override
+    protected boolean doGeneral(final Collectable<Double, ? super PhysicalStore<Double>> matrix, final boolean eigenvaluesOnly) {
+        ProgrammingError.throwForUnsupportedOptionalOperation();
+        return false;
+    }
+
+    @Override
+    protected boolean doHermitian(final Collectable<Double, ? super PhysicalStore<Double>> matrix, final boolean eigenvaluesOnly) {
+
+        final MatrixOperator tmpOperator = MatrixOperator.of(matrix);
+
+        final int n = tmpOperator.countRows();
+        final int k = Math.min(myNumberOfEigenvalues, n);
+        final int m = Math.min(Math.max(k + k + 1, k + 20), n);
+
+        final double[] tmpBasis = new double[n * (m + 1)];
+        final double[][] tmpT = new double[m][m];
+
+        final PrimitiveDenseStore tmpX = PrimitiveDenseStore.FACTORY.makeZero(n, 1);
+        final PrimitiveDenseStore tmpW = PrimitiveDenseStore.FACTORY.makeZero(n, 1);
+        final double[] tmpCoefficients = new double[m + 1];
+
+        final Random tmpRandom = new Random(n);
+        this.randomVector(tmpRandom, tmpBasis, n, 0, tmpCoefficients);
+
+        final RawEigenvalue.Symmetric tmpSmall = new RawEigenvalue.Symmetric();
+        final double[] tmpValues = new double[m];
+        final Integer[] tmpOrder = new Integer[m];
+        MatrixStore<Double> tmpY = null;
+
+        double tmpNorm = ZERO;
+        double tmpResidual = ZERO;
+        boolean tmpConverged = false;
+
+        int tmpStart = 0;
+        for (int tmpRestart = 0; !tmpConverged && (tmpRestart <= RESTARTS); tmpRestart++) {
+
+            for (int j = tmpStart; j < m; j++) {
+
+                System.arraycopy(tmpBasis, j * n, tmpX.data, 0, n);
+                tmpOperator.multiply(tmpX, tmpW);
+                final double[] w = tmpW.data;
+
+                tmpNorm = Math.max(tmpNorm, Math.sqrt(DOT.invoke(w, 0, w, 0, 0, n)));
+
+                // Classical Gram-Schmidt, twice, against the full basis
+                Arrays.fill(tmpCoefficients, 0, j + 1, ZERO);
+                LanczosEvD.orthogonalise(tmpBasis, n, j + 1, w, tmpCoefficients);
+                LanczosEvD.orthogonalise(tmpBasis, n, j + 1, w, tmpCoefficients);
+
+                // Rayleigh-Ritz: includes the coupling between kept Ritz vectors and the residual vector
+                for (int i = 0; i <= j; i++) {
+                    tmpT[i][j] = tmpT[j][i] = tmpCoefficients[i];
+                }
+
+                tmpResidual = Math.sqrt(DOT.invoke(w, 0, w, 0, 0, n));
+
+                if (tmpResidual > (n * MACHINE_EPSILON * tmpNorm)) {
+                    final int tmpBase = (j + 1) * n;
+                    for (int r = 0; r < n; r++) {
+                        tmpBasis[tmpBase + r] = w[r] / tmpResidual;
+                    }
+                } else {
+                    // Invariant subspace found - continue with some new direction
+                    tmpResidual = ZERO;
+                    if ((j + 1) < m) {
+                        this.randomVector(tmpRandom, tmpBasis, n, j + 1, tmpCoefficients);
+                    }
+                }
+            }
+
+            tmpSmall.decompose(PrimitiveDenseStore.FACTORY.rows(tmpT));
+            tmpSmall.getEigenvalues(tmpValues, Optional.empty());
+            tmpY = tmpSmall.getV();
+
+            for (int i = 0; i < m; i++) {
+                tmpOrder[i] = i;
+            }
+            Arrays.sort(tmpOrder, (i1, i2) -> Double.compare(Math.abs(tmpValues[i2]), Math.abs(tmpValues[i1])));
+
+            final double tmpLimit = TOLERANCE * Math.max(Math.abs(tmpValues[tmpOrder[0]]), MACHINE_SMALLEST);
+            tmpConverged = true;
+            for (int i = 0; tmpConverged && (i < k); i++) {
+                tmpConverged = (tmpResidual * Math.abs(tmpY.doubleValue(m - 1, tmpOrder[i]))) <= tmpLimit;
+            }
+
+            if (!tmpConverged) {
+
+                final int tmpKeep = Math.min(k + ((m - k) / 2), m - 1);
+
+                this.rotate(tmpBasis, n, m, tmpY, tmpOrder, tmpKeep);
+                System.arraycopy(tmpBasis, m * n, tmpBasis, tmpKeep * n, n);
+
+                for (int i = 0; i < m; i++) {
+                    Arrays.fill(tmpT[i], ZERO);
+                }
+                for (int i = 0; i < tmpKeep; i++) {
+                    tmpT[i][i] = tmpValues[tmpOrder[i]];
+                }
+
+                tmpStart = tmpKeep;
+            }
+        }
+
+        d = new double[k];
+        for (int i = 0; i < k; i++) {
+            d[i] = tmpValues[tmpOrder[i]];
+        }
+
+        if (!eigenvaluesOnly) {
+            this.rotate(tmpBasis, n, m, tmpY, tmpOrder, k);
+            myV = PrimitiveDenseStore.FACTORY.makeZero(n, k);
+            System.arraycopy(tmpBasis, 0, myV.data, 0, n * k);
+        } else {
+            myV = null;
+        }
+
+        return this.computed(tmpConverged);
+    }
+
+    @Override
+    protected double getDimensionalEpsilon() {
+        return d.length * MACHINE_EPSILON;
+    }
+
+    @Override
+    protected MatrixStore<Double> makeD() {
+        final DiagonalBasicArray<Double> tmpDiagonal = new DiagonalBasicArray<>(Primitive64Array.wrap(d), null, null, ZERO);
+        return this.wrap(tmpDiagonal).diagonal(false).get();
+    }
+
+    @Override
+    protected Array1D<ComplexNumber> makeEigenvalues() {
+
+        final int length = d.length;
+
+        final Array1D<ComplexNumber> retVal = Array1D.COMPLEX.makeZero(length);
+
+        for (int ij = 0; ij < length; ij++) {
+            retVal.set(ij, ComplexNumber.valueOf(d[ij]));
+        }
+
+        return retVal;
+    }
+
+    @Override
+    protected MatrixStore<Double> makeV() {
+        return myV;
+    }
+
+    /**
+     * A new random, normalised, basis vector orthogonal to the previous ones.
+     */
+    private void randomVector(final Random random, final double[] basis, final int dim, final int index, final double[] coefficients) {
+
+        final double[] tmpVector = new double[dim];
+        for (int r = 0; r < dim; r++) {
+            tmpVector[r] = random.nextDouble() - HALF;
+        }
+
+        LanczosEvD.orthogonalise(basis, dim, index, tmpVector, coefficients);
+        LanczosEvD.orthogonalise(basis, dim, index, tmpVector, coefficients);
+
+        final double tmpNorm = Math.sqrt(DOT.invoke(tmpVector, 0, tmpVector, 0, 0, dim));
+        for (int r = 0; r < dim; r++) {
+            basis[(index * dim) + r] = tmpVector[r] / tmpNorm;
+        }
+    }
+
+    /**
+     * Replace the first count basis vectors with the Ritz vectors [V][Y] (columns in the given order).
+     */
+    private void rotate(final double[] basis, final int dim, final int size, final MatrixStore<Double> y, final Integer[] order, final int count) {
+
+        final double[] tmpRitz = new double[dim * count];
+
+        for (int j = 0; j < count; j++) {
+            final int tmpCol = order[j];
+            final int tmpBase = j * dim;
+            for (int i = 0; i < size; i++) {
+                final double tmpVal = y.doubleValue(i, tmpCol);
+                if (tmpVal != ZERO) {
+                    final int tmpOffset = i * dim;
+                    for (int r = 0; r < dim; r++) {
+                        tmpRitz[tmpBase + r] += tmpVal * basis[tmpOffset + r];
+                    }
+                }
+            }
+        }
+
+        System.arraycopy(tmpRitz, 0, basis, 0, dim * count);
+    }
+
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import org.ojalgo.access.Access1D;
+import org.ojalgo.access.Access2D;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+
+/**
+ * Modifications of existing (in-place) Cholesky and LU factors, each O(n<sup>2</sup>) rather than the
+ * O(n<sup>3</sup>) of decomposing again.
+ *
+ * @author apete
+ */
+abstract class LowRankUpdate {
+
+    /**
+     * Bennett's algorithm does not pivot. If any multiplier in [L] grows larger than this the LU update is
+     * abandoned (and the matrix decomposed again).
+     */
+    static double GROWTH_LIMIT = 1000.0;
+
+    /**
+     * [L][L]<sup>T</sup> := [L][L]<sup>T</sup> - [x][x]<sup>T</sup> for the trailing block starting at
+     * (first, first). The vector is destroyed.
+     *
+     * @return false if the downdated matrix is not positive definite - [L] is then partially modified and no
+     *         longer valid
+     */
+    static boolean downdateCholesky(final PhysicalStore<Double> lower, final int first, final double[] vector) {
+
+        final int tmpDim = (int) lower.countRows();
+
+        for (int k = first; k < tmpDim; k++) {
+
+            final double tmpDiag = lower.doubleValue(k, k);
+            final double tmpSquare = (tmpDiag - vector[k]) * (tmpDiag + vector[k]);
+
+            if (!(tmpSquare > ZERO)) {
+                return false;
+            }
+
+            final double r = Math.sqrt(tmpSquare);
+            final double c = r / tmpDiag;
+            final double s = vector[k] / tmpDiag;
+            lower.set(k, k, r);
+
+            for (int i = k + 1; i < tmpDim; i++) {
+                final double tmpVal = (lower.doubleValue(i, k) - (s * vector[i])) / c;
+                lower.set(i, k, tmpVal);
+                vector[i] = (c * vector[i]) - (s * tmpVal);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Copies [L] to the one row/column larger target, inserting a row and column at the index, such that
+     * [L'][L']<sup>T</sup> equals [L][L]<sup>T</sup> with the new row/column inserted. The column must have
+     * one more element than [L] has rows - the new diagonal element is at the index.
+     *
+     * @return false if the new matrix is not positive definite
+     */
+    static boolean insertCholesky(final PhysicalStore<Double> lower, final int index, final Access1D<?> column, final PhysicalStore<Double> target) {
+
+        final int tmpDim = (int) lower.countRows();
+
+        // The new row, left of the diagonal: [L11][l12] = [c1]
+        final double[] tmpRow = new double[index];
+        for (int j = 0; j < index; j++) {
+            double tmpVal = column.doubleValue(j);
+            for (int i = 0; i < j; i++) {
+                tmpVal -= lower.doubleValue(j, i) * tmpRow[i];
+            }
+            tmpRow[j] = tmpVal / lower.doubleValue(j, j);
+        }
+
+        double tmpSquare = column.doubleValue(index);
+        for (int j = 0; j < index; j++) {
+            tmpSquare -= tmpRow[j] * tmpRow[j];
+        }
+        if (!(tmpSquare > ZERO)) {
+            return false;
+        }
+        final double tmpDiag = Math.sqrt(tmpSquare);
+
+        // The new column, below the diagonal: ([c3] - [L21][l12]) / l22
+        final double[] tmpColumn = new double[tmpDim + 1];
+        for (int i = index; i < tmpDim; i++) {
+            double tmpVal = column.doubleValue(i + 1);
+            for (int j = 0; j < index; j++) {
+                tmpVal -= lower.doubleValue(i, j) * tmpRow[j];
+            }
+            tmpColumn[i + 1] = tmpVal / tmpDiag;
+        }
+
+        for (int j = 0; j < tmpDim; j++) {
+            final int tmpTargetCol = j < index ? j : j + 1;
+            for (int i = j; i < tmpDim; i++) {
+                target.set(i < index ? i : i + 1, tmpTargetCol, lower.doubleValue(i, j));
+            }
+        }
+        for (int j = 0; j < index; j++) {
+            target.set(index, j, tmpRow[j]);
+        }
+        target.set(index, index, tmpDiag);
+        for (int i = index + 1; i <= tmpDim; i++) {
+            target.set(i, index, tmpColumn[i]);
+        }
+
+        // [L22'][L22']<sup>T</sup> = [L22][L22]<sup>T</sup> - [l32][l32]<sup>T</sup>
+        return LowRankUpdate.downdateCholesky(target, index + 1, tmpColumn);
+    }
+
+    /**
+     * @return A copy of [A] + sign * [X][Y]<sup>T</sup>
+     */
+    static PrimitiveDenseStore modified(final Access2D<?> matrix, final Access2D<?> left, final Access2D<?> right, final double sign) {
+
+        final PrimitiveDenseStore retVal = PrimitiveDenseStore.FACTORY.copy(matrix);
+
+        final int tmpRowDim = (int) retVal.countRows();
+        final int tmpColDim = (int) retVal.countColumns();
+
+        for (int k = 0, limit = (int) left.countColumns(); k < limit; k++) {
+            for (int j = 0; j < tmpColDim; j++) {
+                final double tmpVal = sign * right.doubleValue(j, k);
+                for (int i = 0; i < tmpRowDim; i++) {
+                    retVal.add(i, j, left.doubleValue(i, k) * tmpVal);
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Copies [L] to the one row/column smaller target, removing the row and column at the index, such that
+     * [L'][L']<sup>T</sup> equals [L][L]<sup>T</sup> with that row/column removed.
+     */
+    static void removeCholesky(final PhysicalStore<Double> lower, final int index, final PhysicalStore<Double> target) {
+
+        final int tmpDim = (int) lower.countRows();
+
+        final double[] tmpColumn = new double[tmpDim - 1];
+
+        for (int j = 0; j < tmpDim; j++) {
+            if (j != index) {
+                final int tmpTargetCol = j < index ? j : j - 1;
+                for (int i = Math.max(j, index); i < tmpDim; i++) {
+                    if (i != index) {
+                        target.set(i < index ? i : i - 1, tmpTargetCol, lower.doubleValue(i, j));
+                    }
+                }
+                for (int i = j; i < index; i++) {
+                    target.set(i, tmpTargetCol, lower.doubleValue(i, j));
+                }
+            }
+        }
+        for (int i = index + 1; i < tmpDim; i++) {
+            tmpColumn[i - 1] = lower.doubleValue(i, index);
+        }
+
+        // [L22'][L22']<sup>T</sup> = [L22][L22]<sup>T</sup> + [l32][l32]<sup>T</sup>
+        LowRankUpdate.updateCholesky(target, index, tmpColumn);
+    }
+
+    /**
+     * [L][L]<sup>T</sup> := [L][L]<sup>T</sup> + [x][x]<sup>T</sup> for the trailing block starting at
+     * (first, first). The vector is destroyed.
+     */
+    static void updateCholesky(final PhysicalStore<Double> lower, final int first, final double[] vector) {
+
+        final int tmpDim = (int) lower.countRows();
+
+        for (int k = first; k < tmpDim; k++) {
+
+            final double tmpDiag = lower.doubleValue(k, k);
+
+            final double r = Math.hypot(tmpDiag, vector[k]);
+            final double c = r / tmpDiag;
+            final double s = vector[k] / tmpDiag;
+            lower.set(k, k, r);
+
+            for (int i = k + 1; i < tmpDim; i++) {
+                final double tmpVal = (lower.doubleValue(i, k) + (s * vector[i])) / c;
+                lower.set(i, k, tmpVal);
+                vector[i] = (c * vector[i]) - (s * tmpVal);
+            }
+        }
+    }
+
+    /**
+     * Bennett's algorithm: [L][U] := [L][U] + sign * [X][Y]<sup>T</sup> with [L] (unit diagonal, not stored)
+     * and [U] sharing the same square store. The pivot order is not changed.
+     *
+     * @return false if a pivot became zero, or a multiplier too large - the factors are then restored to what
+     *         they were before
+     */
+    static boolean updateLU(final PhysicalStore<Double> inPlace, final int[] pivotOrder, final Access2D<?> left, final Access2D<?> right,
+            final double sign) {
+
+        final int tmpDim = (int) inPlace.countRows();
+        final PrimitiveDenseStore tmpBackup = PrimitiveDenseStore.FACTORY.copy(inPlace);
+
+        final double[] x = new double[tmpDim];
+        final double[] y = new double[tmpDim];
+
+        for (int j = 0, limit = (int) left.countColumns(); j < limit; j++) {
+
+            for (int i = 0; i < tmpDim; i++) {
+                x[i] = sign * left.doubleValue(pivotOrder[i], j);
+                y[i] = right.doubleValue(i, j);
+            }
+
+            if (!LowRankUpdate.bennett(inPlace, x, y)) {
+                inPlace.fillMatching(tmpBackup);
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean bennett(final PhysicalStore<Double> inPlace, final double[] x, final double[] y) {
+
+        final int tmpDim = (int) inPlace.countRows();
+
+        for (int i = 0; i < tmpDim; i++) {
+
+            final double tmpPivot = inPlace.doubleValue(i, i) + (x[i] * y[i]);
+            if (tmpPivot == ZERO) {
+                return false;
+            }
+            inPlace.set(i, i, tmpPivot);
+
+            final double tmpX = x[i];
+            final double tmpY = y[i] /= tmpPivot;
+
+            for (int j = i + 1; j < tmpDim; j++) {
+
+                final double tmpU = inPlace.doubleValue(i, j) + (tmpX * y[j]);
+                inPlace.set(i, j, tmpU);
+                y[j] -= tmpY * tmpU;
+
+                x[j] -= tmpX * inPlace.doubleValue(j, i);
+                final double tmpL = inPlace.doubleValue(j, i) + (tmpY * x[j]);
+                if (Math.abs(tmpL) > GROWTH_LIMIT) {
+                    return false;
+                }
+                inPlace.set(j, i, tmpL);
+            }
+        }
+
+        return true;
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import org.ojalgo.access.Access2D.Collectable;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveCSR;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.store.SparseStore;
+
+/**
+ * A matrix only used to multiply with (blocks of) vectors - [A][X] and [A]<sup>T</sup>[X]. Any
+ * {@link MatrixStore} is used as is, without copying, except a {@link SparseStore} that is compressed (once)
+ * to make the repeated products faster and parallel. Anything else is collected to a
+ * {@link PrimitiveDenseStore}.
+ *
+ * @author apete
+ */
+final class MatrixOperator {
+
+    @SuppressWarnings("unchecked")
+    static MatrixOperator of(final Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+        if (matrix instanceof SparseStore) {
+            return new MatrixOperator(PrimitiveCSR.make((SparseStore<Double>) matrix));
+        } else if (matrix instanceof MatrixStore) {
+            return new MatrixOperator((MatrixStore<Double>) matrix);
+        } else {
+            return new MatrixOperator(matrix.collect(PrimitiveDenseStore.FACTORY));
+        }
+    }
+
+    private final MatrixStore<Double> myMatrix;
+    private MatrixStore<Double> myTransposed = null;
+
+    MatrixOperator(final MatrixStore<Double> matrix) {
+        super();
+        myMatrix = matrix;
+    }
+
+    int countColumns() {
+        return (int) myMatrix.countColumns();
+    }
+
+    int countRows() {
+        return (int) myMatrix.countRows();
+    }
+
+    /**
+     * [product] = [A][right]
+     */
+    void multiply(final PrimitiveDenseStore right, final PrimitiveDenseStore product) {
+        myMatrix.multiply(right, product);
+    }
+
+    /**
+     * [product] = [A]<sup>T</sup>[right]
+     */
+    void multiplyTransposed(final PrimitiveDenseStore right, final PrimitiveDenseStore product) {
+        if (myTransposed == null) {
+            myTransposed = myMatrix.transpose();
+        }
+        myTransposed.multiply(right, product);
+    }
+
+}
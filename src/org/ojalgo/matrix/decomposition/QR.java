@@ -26,6 +26,7 @@ import java.math.BigDecimal;
 import org.ojalgo.access.Access2D;
 import org.ojalgo.array.DenseArray;
 import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.operation.HouseholderBlock;
 import org.ojalgo.scalar.ComplexNumber;
 import org.ojalgo.scalar.Quaternion;
 import org.ojalgo.scalar.RationalNumber;
@@ -64,8 +65,12 @@ public interface QR<N extends Number> extends MatrixDecomposition<N>, MatrixDeco
     public static final Factory<ComplexNumber> COMPLEX = typical -> new QRDecomposition.Complex();
 
     public static final Factory<Double> PRIMITIVE = typical -> {
-        if (typical.isFat() || ((256L < typical.countColumns()) && (typical.count() <= DenseArray.MAX_ARRAY_SIZE))) {
+        final long tmpColumns = typical.countColumns();
+        final boolean tmpBlocked = (HouseholderBlock.BLOCK > 0) && ((4L * HouseholderBlock.BLOCK) <= tmpColumns);
+        if (typical.isFat() || (((256L < tmpColumns) || tmpBlocked) && (typical.count() <= DenseArray.MAX_ARRAY_SIZE))) {
             return new QRDecomposition.Primitive();
+        } else if (TallSkinnyQR.countLeaves(typical.countRows(), tmpColumns) > 1) {
+            return new TallSkinnyQR();
         } else {
             return new RawQR();
         }
@@ -75,6 +80,12 @@ public interface QR<N extends Number> extends MatrixDecomposition<N>, MatrixDeco
 
     public static final Factory<RationalNumber> RATIONAL = typical -> new QRDecomposition.Rational();
 
+    /**
+     * Tall-skinny QR (TSQR) for matrices with many more rows than columns. The rows are split into blocks that
+     * are decomposed in parallel, and the R factors are then combined in a reduction tree.
+     */
+    public static final Factory<Double> TALL_SKINNY = typical -> new TallSkinnyQR();
+
     @SuppressWarnings("unchecked")
     public static <N extends Number> QR<N> make(final Access2D<N> typical) {
 
@@ -33,6 +33,7 @@ import org.ojalgo.matrix.store.GenericDenseStore;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.store.operation.HouseholderBlock;
 import org.ojalgo.matrix.transformation.Householder;
 import org.ojalgo.matrix.transformation.HouseholderReference;
 import org.ojalgo.scalar.ComplexNumber;
@@ -93,6 +94,7 @@ abstract class QRDecomposition<N extends Number> extends InPlaceDecomposition<N>
         return this.getDeterminant();
     }
 
+    @SuppressWarnings("unchecked")
     public boolean decompose(final Access2D.Collectable<N, ? super PhysicalStore<N>> matrix) {
 
         this.reset();
@@ -106,10 +108,30 @@ abstract class QRDecomposition<N extends Number> extends InPlaceDecomposition<N>
 
         final int tmpLimit = Math.min(tmpRowDim, tmpColDim);
 
-        for (int ij = 0; ij < tmpLimit; ij++) {
-            if (((ij + 1) < tmpRowDim) && tmpStore.generateApplyAndCopyHouseholderColumn(ij, ij, tmpHouseholder)) {
-                tmpStore.transformLeft(tmpHouseholder, ij + 1);
-                myNumberOfHouseholderTransformations++;
+        // Large primitive matrices accumulate the reflectors in blocks
+        final int tmpBlockSize = this.getBlockSize();
+
+        for (int tmpBlockFirst = 0; tmpBlockFirst < tmpLimit; tmpBlockFirst += tmpBlockSize) {
+            final int tmpBlockLimit = Math.min(tmpBlockFirst + tmpBlockSize, tmpLimit);
+            final boolean tmpLastBlock = tmpBlockLimit == tmpLimit;
+
+            for (int ij = tmpBlockFirst; ij < tmpBlockLimit; ij++) {
+                if (((ij + 1) < tmpRowDim) && tmpStore.generateApplyAndCopyHouseholderColumn(ij, ij, tmpHouseholder)) {
+                    if (tmpLastBlock) {
+                        tmpStore.transformLeft(tmpHouseholder, ij + 1);
+                    } else {
+                        ((PrimitiveDenseStore) tmpStore).transformLeft((Householder<Double>) tmpHouseholder, ij + 1, tmpBlockLimit);
+                    }
+                    myNumberOfHouseholderTransformations++;
+                } else if (!tmpLastBlock) {
+                    // The block reflector must not include this (non) transformation
+                    tmpStore.fillColumn(ij + 1, ij, this.scalar().zero().get());
+                }
+            }
+
+            // Everything to the right of the block, using matrix-matrix operations
+            if (!tmpLastBlock) {
+                ((PrimitiveDenseStore) tmpStore).transformLeft((PrimitiveDenseStore) tmpStore, tmpBlockFirst, tmpBlockLimit, tmpBlockLimit, true);
             }
         }
 
@@ -138,14 +160,28 @@ abstract class QRDecomposition<N extends Number> extends InPlaceDecomposition<N>
 
         final DecompositionStore<N> retVal = this.makeEye(this.getRowDim(), myFullSize ? this.getRowDim() : this.getMinDim());
 
-        final HouseholderReference<N> tmpReference = HouseholderReference.makeColumn(this.getInPlace());
+        final int tmpBlockSize = this.getBlockSize();
 
-        for (int j = this.getMinDim() - 1; j >= 0; j--) {
+        if (tmpBlockSize < this.getMinDim()) {
 
-            tmpReference.point(j, j);
+            final PrimitiveDenseStore tmpReflectors = (PrimitiveDenseStore) this.getInPlace();
 
-            if (!tmpReference.isZero()) {
-                retVal.transformLeft(tmpReference, j);
+            for (int tmpBlockFirst = ((this.getMinDim() - 1) / tmpBlockSize) * tmpBlockSize; tmpBlockFirst >= 0; tmpBlockFirst -= tmpBlockSize) {
+                final int tmpBlockLimit = Math.min(tmpBlockFirst + tmpBlockSize, this.getMinDim());
+                ((PrimitiveDenseStore) retVal).transformLeft(tmpReflectors, tmpBlockFirst, tmpBlockLimit, tmpBlockFirst, false);
+            }
+
+        } else {
+
+            final HouseholderReference<N> tmpReference = HouseholderReference.makeColumn(this.getInPlace());
+
+            for (int j = this.getMinDim() - 1; j >= 0; j--) {
+
+                tmpReference.point(j, j);
+
+                if (!tmpReference.isZero()) {
+                    retVal.transformLeft(tmpReference, j);
+                }
             }
         }
 
@@ -207,17 +243,7 @@ abstract class QRDecomposition<N extends Number> extends InPlaceDecomposition<N>
         final int tmpRowDim = this.getRowDim();
         final int tmpColDim = this.getColDim();
 
-        final HouseholderReference<N> tmpReference = HouseholderReference.makeColumn(tmpStore);
-
-        final int tmpLimit = this.getMinDim();
-        for (int j = 0; j < tmpLimit; j++) {
-
-            tmpReference.point(j, j);
-
-            if (!tmpReference.isZero()) {
-                preallocated.transformLeft(tmpReference, 0);
-            }
-        }
+        this.transformTransposedQ(preallocated);
 
         preallocated.substituteBackwards(tmpStore, false, false, false);
 
@@ -331,4 +357,50 @@ abstract class QRDecomposition<N extends Number> extends InPlaceDecomposition<N>
         return retVal;
     }
 
+    /**
+     * @return The number of reflectors per block, or the full (min) dimension if not blocked
+     */
+    int getBlockSize() {
+        final int tmpMinDim = this.getMinDim();
+        final int tmpBlock = HouseholderBlock.BLOCK;
+        if ((tmpBlock > 0) && (tmpMinDim >= (4 * tmpBlock)) && (this.getInPlace() instanceof PrimitiveDenseStore)) {
+            return tmpBlock;
+        } else {
+            return Math.max(1, tmpMinDim);
+        }
+    }
+
+    /**
+     * [target] = [Q]<sup>T</sup>[target]
+     */
+    void transformTransposedQ(final PhysicalStore<N> target) {
+
+        final DecompositionStore<N> tmpStore = this.getInPlace();
+
+        final int tmpLimit = this.getMinDim();
+        final int tmpBlockSize = this.getBlockSize();
+
+        if ((tmpBlockSize < tmpLimit) && (target instanceof PrimitiveDenseStore) && ((4L * target.countColumns()) >= tmpBlockSize)) {
+
+            // Wide enough target to make it worthwhile to form the block reflectors
+            for (int tmpBlockFirst = 0; tmpBlockFirst < tmpLimit; tmpBlockFirst += tmpBlockSize) {
+                final int tmpBlockLimit = Math.min(tmpBlockFirst + tmpBlockSize, tmpLimit);
+                ((PrimitiveDenseStore) target).transformLeft((PrimitiveDenseStore) tmpStore, tmpBlockFirst, tmpBlockLimit, 0, true);
+            }
+
+        } else {
+
+            final HouseholderReference<N> tmpReference = HouseholderReference.makeColumn(tmpStore);
+
+            for (int j = 0; j < tmpLimit; j++) {
+
+                tmpReference.point(j, j);
+
+                if (!tmpReference.isZero()) {
+                    target.transformLeft(tmpReference, 0);
+                }
+            }
+        }
+    }
+
 }
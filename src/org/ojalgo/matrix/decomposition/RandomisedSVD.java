@@ -0,0 +1,387 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.Random;
+
+import org.ojalgo.ProgrammingError;
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.access.Access2D;
+import org.ojalgo.access.Access2D.Collectable;
+import org.ojalgo.access.Structure2D;
+import org.ojalgo.array.Array1D;
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.netio.BasicLogger;
+
+/**
+ * The k largest singular values, and corresponding singular vectors, using a randomised range finder
+ * (Halko, Martinsson &amp; Tropp). The matrix is only used to form products with (blocks of) vectors - it is
+ * never copied or modified - so it can be any {@link MatrixStore} including sparse and logical stores.
+ * <ol>
+ * <li>[Y] = [A][&Omega;] with a random Gaussian [&Omega;] of k + {@link #OVERSAMPLING} columns</li>
+ * <li>{@link #POWER_ITERATIONS} rounds of [Y] = [A][A]<sup>T</sup>[Y], re-orthonormalising (QR) in
+ * between</li>
+ * <li>[Q] an orthonormal basis for the range of [Y]</li>
+ * <li>A (small) full SVD of [B] = [Q]<sup>T</sup>[A] = [W][D][Z]<sup>T</sup></li>
+ * <li>[A] &asymp; [Q][W][D][Z]<sup>T</sup> truncated to k factors</li>
+ * </ol>
+ * <p>
+ * Always economy sized: [Q1] is m-by-k, [D] k-by-k and [Q2] n-by-k. Norms, rank, inverse and solutions all
+ * refer to the rank k approximation.
+ * </p>
+ *
+ * @author apete
+ */
+final class RandomisedSVD extends GenericDecomposition<Double> implements SingularValue<Double> {
+
+    /**
+     * The number of extra random vectors used to sample the range
+     */
+    static int OVERSAMPLING = 10;
+
+    /**
+     * The number of power (subspace) iterations - improves accuracy when the singular values decay slowly
+     */
+    static int POWER_ITERATIONS = 2;
+
+    private static PrimitiveDenseStore orthonormalise(final PrimitiveDenseStore matrix) {
+
+        final QR<Double> tmpQR = QR.PRIMITIVE.make(matrix);
+        tmpQR.decompose(matrix);
+
+        return PrimitiveDenseStore.FACTORY.copy(tmpQR.getQ());
+    }
+
+    private MatrixStore<Double> myD = null;
+    private MatrixStore<Double> myInverse = null;
+    private int myMaxDim = 0;
+    private int myMinDim = 0;
+    private final int myNumberOfSingularValues;
+    private PrimitiveDenseStore myQ1 = null;
+    private PrimitiveDenseStore myQ2 = null;
+    private Array1D<Double> mySingularValues = null;
+    private double[] s = null;
+
+    RandomisedSVD(final int numberOfSingularValues) {
+
+        super(PrimitiveDenseStore.FACTORY);
+
+        if (numberOfSingularValues < 1) {
+            throw new ProgrammingError("Must ask for at least 1 singular value!");
+        }
+
+        myNumberOfSingularValues = numberOfSingularValues;
+    }
+
+    public boolean computeValuesOnly(final Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+        return this.compute(matrix, true);
+    }
+
+    public boolean decompose(final Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+        return this.compute(matrix, false);
+    }
+
+    public double getCondition() {
+        return s[0] / s[s.length - 1];
+    }
+
+    public MatrixStore<Double> getD() {
+
+        if ((myD == null) && this.isComputed()) {
+            final DiagonalBasicArray<Double> tmpDiagonal = new DiagonalBasicArray<>(Primitive64Array.wrap(s), null, null, ZERO);
+            myD = this.wrap(tmpDiagonal).diagonal(false).get();
+        }
+
+        return myD;
+    }
+
+    public double getFrobeniusNorm() {
+
+        double retVal = ZERO;
+
+        for (int i = s.length - 1; i >= 0; i--) {
+            retVal += s[i] * s[i];
+        }
+
+        return Math.sqrt(retVal);
+    }
+
+    public MatrixStore<Double> getInverse() {
+        return this.getInverse(this.allocate(myQ2.countRows(), myQ1.countRows()));
+    }
+
+    public MatrixStore<Double> getInverse(final PhysicalStore<Double> preallocated) {
+
+        if (myInverse == null) {
+
+            final int rank = this.getRank();
+
+            final PhysicalStore<Double> tmpMtrx = myQ2.logical().limits(-1, rank).copy();
+
+            for (int j = 0; j < rank; j++) {
+                tmpMtrx.modifyColumn(0L, j, PrimitiveFunction.DIVIDE.second(s[j]));
+            }
+
+            preallocated.fillByMultiplying(tmpMtrx, myQ1.logical().limits(-1, rank).transpose().get());
+            myInverse = preallocated;
+        }
+
+        return myInverse;
+    }
+
+    public double getKyFanNorm(final int k) {
+
+        double retVal = ZERO;
+
+        for (int i = Math.min(s.length, k) - 1; i >= 0; i--) {
+            retVal += s[i];
+        }
+
+        return retVal;
+    }
+
+    public double getOperatorNorm() {
+        return s[0];
+    }
+
+    public MatrixStore<Double> getQ1() {
+        return myQ1;
+    }
+
+    public MatrixStore<Double> getQ2() {
+        return myQ2;
+    }
+
+    public int getRank() {
+        final double tolerance = s[0] * this.getDimensionalEpsilon();
+        int rank = 0;
+        for (int i = 0; i < s.length; i++) {
+            if (s[i] > tolerance) {
+                rank++;
+            }
+        }
+        return rank;
+    }
+
+    public Array1D<Double> getSingularValues() {
+
+        if ((mySingularValues == null) && this.isComputed()) {
+            mySingularValues = Array1D.PRIMITIVE64.wrap(Primitive64Array.wrap(s));
+        }
+
+        return mySingularValues;
+    }
+
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs) {
+        return this.getInverse().multiply(this.collect(rhs));
+    }
+
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs, final PhysicalStore<Double> preallocated) {
+        preallocated.fillByMultiplying(this.getInverse(), this.collect(rhs));
+        return preallocated;
+    }
+
+    public double getTraceNorm() {
+        return this.getKyFanNorm(s.length);
+    }
+
+    public MatrixStore<Double> invert(final Access2D<?> original) throws RecoverableCondition {
+
+        this.decompose(this.wrap(original));
+
+        if (this.isSolvable()) {
+            return this.getInverse();
+        } else {
+            throw RecoverableCondition.newMatrixNotInvertible();
+        }
+    }
+
+    public MatrixStore<Double> invert(final Access2D<?> original, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        this.decompose(this.wrap(original));
+
+        if (this.isSolvable()) {
+            return this.getInverse(preallocated);
+        } else {
+            throw RecoverableCondition.newMatrixNotInvertible();
+        }
+    }
+
+    public boolean isFullRank() {
+        return this.getRank() == myMinDim;
+    }
+
+    /**
+     * Always economy sized
+     */
+    public boolean isFullSize() {
+        return false;
+    }
+
+    public boolean isOrdered() {
+        return true;
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D template) {
+        return this.allocate(template.countColumns(), template.countRows());
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D templateBody, final Structure2D templateRHS) {
+        return this.allocate(templateBody.countColumns(), templateRHS.countColumns());
+    }
+
+    @Override
+    public void reset() {
+
+        super.reset();
+
+        myD = null;
+        myInverse = null;
+        myQ1 = null;
+        myQ2 = null;
+        mySingularValues = null;
+        s = null;
+    }
+
+    /**
+     * Setting full size has no effect - always economy sized
+     */
+    public void setFullSize(final boolean fullSize) {
+        // Always economy sized
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs) throws RecoverableCondition {
+
+        this.decompose(this.wrap(body));
+
+        if (this.isSolvable()) {
+            return this.getSolution(this.wrap(rhs));
+        } else {
+            throw RecoverableCondition.newEquationSystemNotSolvable();
+        }
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        this.decompose(this.wrap(body));
+
+        if (this.isSolvable()) {
+            return this.getSolution(this.wrap(rhs), preallocated);
+        } else {
+            throw RecoverableCondition.newEquationSystemNotSolvable();
+        }
+    }
+
+    @Override
+    protected boolean checkSolvability() {
+        return this.isComputed();
+    }
+
+    @Override
+    protected double getDimensionalEpsilon() {
+        return myMaxDim * MACHINE_EPSILON;
+    }
+
+    private boolean compute(final Collectable<Double, ? super PhysicalStore<Double>> matrix, final boolean valuesOnly) {
+
+        this.reset();
+
+        boolean retVal = false;
+
+        try {
+
+            retVal = this.doCompute(MatrixOperator.of(matrix), valuesOnly);
+
+        } catch (final Exception exc) {
+
+            BasicLogger.error(exc.toString());
+
+            this.reset();
+
+            retVal = false;
+        }
+
+        return this.computed(retVal);
+    }
+
+    private boolean doCompute(final MatrixOperator operator, final boolean valuesOnly) {
+
+        final int m = operator.countRows();
+        final int n = operator.countColumns();
+
+        myMaxDim = Math.max(m, n);
+        myMinDim = Math.min(m, n);
+
+        final int k = Math.min(myNumberOfSingularValues, myMinDim);
+        final int l = Math.min(k + OVERSAMPLING, myMinDim);
+
+        final Random tmpRandom = new Random(myMaxDim);
+        final PrimitiveDenseStore tmpOmega = PrimitiveDenseStore.FACTORY.makeZero(n, l);
+        for (int i = 0; i < tmpOmega.data.length; i++) {
+            tmpOmega.data[i] = tmpRandom.nextGaussian();
+        }
+
+        final PrimitiveDenseStore tmpY = PrimitiveDenseStore.FACTORY.makeZero(m, l);
+        final PrimitiveDenseStore tmpZ = PrimitiveDenseStore.FACTORY.makeZero(n, l);
+
+        operator.multiply(tmpOmega, tmpY);
+        PrimitiveDenseStore tmpQ = RandomisedSVD.orthonormalise(tmpY);
+
+        for (int p = 0; p < POWER_ITERATIONS; p++) {
+            operator.multiplyTransposed(tmpQ, tmpZ);
+            operator.multiply(RandomisedSVD.orthonormalise(tmpZ), tmpY);
+            tmpQ = RandomisedSVD.orthonormalise(tmpY);
+        }
+
+        // [B]<sup>T</sup> = [A]<sup>T</sup>[Q] = [Z][D][W]<sup>T</sup> is n-by-l (tall)
+        operator.multiplyTransposed(tmpQ, tmpZ);
+
+        final SingularValue<Double> tmpSmall = SingularValue.PRIMITIVE.make(tmpZ);
+
+        if (valuesOnly) {
+            tmpSmall.computeValuesOnly(tmpZ);
+        } else {
+            tmpSmall.decompose(tmpZ);
+        }
+
+        s = new double[k];
+        final Array1D<Double> tmpSingularValues = tmpSmall.getSingularValues();
+        for (int i = 0; i < k; i++) {
+            s[i] = tmpSingularValues.doubleValue(i);
+        }
+
+        if (!valuesOnly) {
+            myQ1 = PrimitiveDenseStore.FACTORY.makeZero(m, k);
+            myQ1.fillByMultiplying(tmpQ, tmpSmall.getQ2().logical().limits(l, k).get());
+            myQ2 = PrimitiveDenseStore.FACTORY.copy(tmpSmall.getQ1().logical().limits(n, k).get());
+        }
+
+        return true;
+    }
+
+}
@@ -25,6 +25,7 @@ import static org.ojalgo.constant.PrimitiveMath.*;
 import static org.ojalgo.function.PrimitiveFunction.*;
 
 import org.ojalgo.RecoverableCondition;
+import org.ojalgo.access.Access1D;
 import org.ojalgo.access.Access2D;
 import org.ojalgo.access.Access2D.Collectable;
 import org.ojalgo.access.Structure2D;
@@ -48,6 +49,22 @@ final class RawCholesky extends RawDecomposition implements Cholesky<Double> {
         super();
     }
 
+    public boolean addRowAndColumn(final int index, final Access1D<?> column) {
+
+        if (!this.isComputed() || !mySPD) {
+            return false;
+        }
+
+        final int tmpDim = this.getRowDim() + 1;
+        final RawStore tmpTarget = RawStore.FACTORY.makeZero(tmpDim, tmpDim);
+
+        if (LowRankUpdate.insertCholesky(this.getRawInPlaceStore(), index, column, tmpTarget)) {
+            return this.modified(tmpTarget);
+        } else {
+            return false;
+        }
+    }
+
     public Double calculateDeterminant(final Access2D<?> matrix) {
 
         final double[][] retVal = this.reset(matrix, false);
@@ -84,6 +101,31 @@ final class RawCholesky extends RawDecomposition implements Cholesky<Double> {
         return this.doDecompose(retVal, tmpRawInPlaceStore);
     }
 
+    public boolean downdate(final Access2D<?> vectors) {
+
+        if (!this.isComputed() || !mySPD) {
+            return false;
+        }
+
+        final RawStore tmpLower = this.getRawInPlaceStore();
+        final RawStore tmpBackup = tmpLower.copy();
+
+        final int tmpDim = this.getRowDim();
+        final double[] tmpVector = new double[tmpDim];
+
+        for (int j = 0, limit = (int) vectors.countColumns(); j < limit; j++) {
+            for (int i = 0; i < tmpDim; i++) {
+                tmpVector[i] = vectors.doubleValue(i, j);
+            }
+            if (!LowRankUpdate.downdateCholesky(tmpLower, 0, tmpVector)) {
+                tmpLower.fillMatching(tmpBackup);
+                return false;
+            }
+        }
+
+        return this.modified(tmpLower);
+    }
+
     public Double getDeterminant() {
 
         final double[][] tmpData = this.getRawInPlaceData();
@@ -171,6 +213,20 @@ final class RawCholesky extends RawDecomposition implements Cholesky<Double> {
         return this.allocate(templateBody.countRows(), templateRHS.countColumns());
     }
 
+    public boolean removeRowAndColumn(final int index) {
+
+        if (!this.isComputed() || !mySPD) {
+            return false;
+        }
+
+        final int tmpDim = this.getRowDim() - 1;
+        final RawStore tmpTarget = RawStore.FACTORY.makeZero(tmpDim, tmpDim);
+
+        LowRankUpdate.removeCholesky(this.getRawInPlaceStore(), index, tmpTarget);
+
+        return this.modified(tmpTarget);
+    }
+
     @Override
     public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
 
@@ -189,6 +245,27 @@ final class RawCholesky extends RawDecomposition implements Cholesky<Double> {
         }
     }
 
+    public boolean update(final Access2D<?> vectors) {
+
+        if (!this.isComputed() || !mySPD) {
+            return false;
+        }
+
+        final RawStore tmpLower = this.getRawInPlaceStore();
+
+        final int tmpDim = this.getRowDim();
+        final double[] tmpVector = new double[tmpDim];
+
+        for (int j = 0, limit = (int) vectors.countColumns(); j < limit; j++) {
+            for (int i = 0; i < tmpDim; i++) {
+                tmpVector[i] = vectors.doubleValue(i, j);
+            }
+            LowRankUpdate.updateCholesky(tmpLower, 0, tmpVector);
+        }
+
+        return this.modified(tmpLower);
+    }
+
     private boolean doDecompose(final double[][] data, final Access2D<?> input) {
 
         final int tmpDiagDim = this.getRowDim();
@@ -249,4 +326,27 @@ final class RawCholesky extends RawDecomposition implements Cholesky<Double> {
         return myMaxDiag * TEN * this.getDimensionalEpsilon();
     }
 
+    /**
+     * [L] has been modified - possibly resized.
+     */
+    private boolean modified(final RawStore lower) {
+
+        final double[][] tmpData = lower == this.getRawInPlaceStore() ? lower.data : this.reset(lower, false);
+        if (tmpData != lower.data) {
+            for (int i = 0; i < tmpData.length; i++) {
+                System.arraycopy(lower.data[i], 0, tmpData[i], 0, tmpData[i].length);
+            }
+        }
+
+        myMaxDiag = ZERO;
+        myMinDiag = POSITIVE_INFINITY;
+        for (int ij = 0; ij < tmpData.length; ij++) {
+            final double tmpVal = tmpData[ij][ij];
+            myMaxDiag = MAX.invoke(myMaxDiag, tmpVal * tmpVal);
+            myMinDiag = MIN.invoke(myMinDiag, tmpVal * tmpVal);
+        }
+
+        return this.computed(mySPD = true);
+    }
+
 }
@@ -121,8 +121,18 @@ abstract class RawEigenvalue extends RawDecomposition implements Eigenvalue<Doub
 
     static final class Symmetric extends RawEigenvalue implements MatrixDecomposition.Solver<Double> {
 
+        private final boolean myDivideAndConquer;
+
         Symmetric() {
+            this(false);
+        }
+
+        /**
+         * @param divideAndConquer Always use the divide-and-conquer algorithm, regardless of matrix size
+         */
+        Symmetric(final boolean divideAndConquer) {
             super();
+            myDivideAndConquer = divideAndConquer;
         }
 
         public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs) {
@@ -156,6 +166,11 @@ abstract class RawEigenvalue extends RawDecomposition implements Eigenvalue<Doub
             return this.computed(true);
         }
 
+        @Override
+        boolean isDivideAndConquer(final int size) {
+            return myDivideAndConquer || super.isDivideAndConquer(size);
+        }
+
     }
 
     /**
@@ -536,26 +551,44 @@ abstract class RawEigenvalue extends RawDecomposition implements Eigenvalue<Doub
 
         // Tridiagonalize > Diagonalize
 
-        final RotateRight tmpRotateRight = valuesOnly ? RotateRight.NULL : new RotateRight() {
+        if (!valuesOnly && this.isDivideAndConquer(size)) {
 
-            public void rotateRight(final int low, final int high, final double cos, final double sin) {
-                final double[] tmpVi0 = data[low];
-                double tmpVi0k;
-                final double[] tmpVi1 = data[high];
-                double tmpVi1k;
+            // The rows of 'data' are the columns of V
+            final double[] tmpV = new double[size * size];
+            for (int j = 0; j < size; j++) {
+                System.arraycopy(data[j], 0, tmpV, size * j, size);
+            }
 
-                for (int k = 0; k < size; k++) {
+            TridiagonalEvD.divideAndConquer(d, e, tmpV);
+            Arrays.fill(e, ZERO);
 
-                    tmpVi0k = tmpVi0[k];
-                    tmpVi1k = tmpVi1[k];
+            for (int j = 0; j < size; j++) {
+                System.arraycopy(tmpV, size * j, data[j], 0, size);
+            }
 
-                    tmpVi0[k] = (cos * tmpVi0k) - (sin * tmpVi1k);
-                    tmpVi1[k] = (sin * tmpVi0k) + (cos * tmpVi1k);
-                }
+        } else {
 
-            }
-        };
-        HermitianEvD.tql2(d, e, tmpRotateRight);
+            final RotateRight tmpRotateRight = valuesOnly ? RotateRight.NULL : new RotateRight() {
+
+                public void rotateRight(final int low, final int high, final double cos, final double sin) {
+                    final double[] tmpVi0 = data[low];
+                    double tmpVi0k;
+                    final double[] tmpVi1 = data[high];
+                    double tmpVi1k;
+
+                    for (int k = 0; k < size; k++) {
+
+                        tmpVi0k = tmpVi0[k];
+                        tmpVi1k = tmpVi1[k];
+
+                        tmpVi0[k] = (cos * tmpVi0k) - (sin * tmpVi1k);
+                        tmpVi1[k] = (sin * tmpVi0k) + (cos * tmpVi1k);
+                    }
+
+                }
+            };
+            HermitianEvD.tql2(d, e, tmpRotateRight);
+        }
 
         // Diagonalize > Sort
 
@@ -592,4 +625,12 @@ abstract class RawEigenvalue extends RawDecomposition implements Eigenvalue<Doub
         return d;
     }
 
+    /**
+     * Should the eigenvectors of the tridiagonal matrix be calculated using the divide-and-conquer algorithm
+     * (rather than QL iterations)?
+     */
+    boolean isDivideAndConquer(final int size) {
+        return TridiagonalEvD.isDivideAndConquer(size);
+    }
+
 }
@@ -78,6 +78,10 @@ final class RawLU extends RawDecomposition implements LU<Double> {
         return this.doDecompose(tmpData);
     }
 
+    public boolean downdate(final Access2D<?> left, final Access2D<?> right) {
+        return this.modify(left, right, NEG);
+    }
+
     public Double getDeterminant() {
         final int m = this.getRowDim();
         final int n = this.getColDim();
@@ -216,6 +220,10 @@ final class RawLU extends RawDecomposition implements LU<Double> {
         }
     }
 
+    public boolean update(final Access2D<?> left, final Access2D<?> right) {
+        return this.modify(left, right, ONE);
+    }
+
     /**
      * Use a "left-looking", dot-product, Crout/Doolittle algorithm, essentially copied from JAMA.
      *
@@ -305,4 +313,17 @@ final class RawLU extends RawDecomposition implements LU<Double> {
         return (this.getRowDim() == this.getColDim()) && this.isFullRank();
     }
 
+    private boolean modify(final Access2D<?> left, final Access2D<?> right, final double sign) {
+
+        if (!this.isComputed()) {
+            return false;
+        }
+
+        if ((this.getRowDim() == this.getColDim()) && LowRankUpdate.updateLU(this.getRawInPlaceStore(), myPivot.getOrder(), left, right, sign)) {
+            return this.computed(true);
+        } else {
+            return this.decompose(LowRankUpdate.modified(this.reconstruct(), left, right, sign));
+        }
+    }
+
 }
@@ -94,6 +94,19 @@ public interface SingularValue<N extends Number> extends MatrixDecomposition<N>,
         }
     }
 
+    /**
+     * Only the k largest singular values and corresponding singular vectors - a randomised range finder
+     * followed by a small full SVD. Much faster than a full decomposition when k is small compared to the
+     * matrix dimensions. The matrix is only used to form products with (blocks of) vectors, so any
+     * {@link MatrixStore} works including sparse and logical stores. The resulting decomposition is always
+     * economy sized: [Q1] is m-by-k, [D] k-by-k and [Q2] n-by-k.
+     *
+     * @param numberOfSingularValues k
+     */
+    public static Factory<Double> truncated(final int numberOfSingularValues) {
+        return typical -> new RandomisedSVD(numberOfSingularValues);
+    }
+
     static <N extends Number> boolean equals(final MatrixStore<N> matrix, final SingularValue<N> decomposition, final NumberContext context) {
 
         final int tmpRowDim = (int) matrix.countRows();
@@ -0,0 +1,427 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.access.Access2D;
+import org.ojalgo.access.Access2D.Collectable;
+import org.ojalgo.access.ElementView2D;
+import org.ojalgo.access.Structure2D;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveCSC;
+import org.ojalgo.matrix.store.PrimitiveCSR;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.store.SparseStore;
+
+/**
+ * Sparse (up-looking) LDL<sup>T</sup> decomposition of a symmetric matrix, preceded by a fill-reducing
+ * {@link ApproximateMinimumDegree} ordering. Factorises P[A]P<sup>T</sup> = [L][D][L]<sup>T</sup>.
+ * <p>
+ * The ordering, the elimination tree and the column counts of [L] are computed once per nonzero pattern.
+ * Decomposing another matrix with exactly the same (compressed column) pattern only redoes the numeric
+ * factorisation. No pivoting is done for stability, so the matrix should be positive definite or
+ * quasi-definite (like the KKT systems of interior point methods) – a zero pivot makes the decomposition
+ * fail.
+ * <p>
+ * The matrix must be symmetric, and both triangles need to be stored (entries below the diagonal of the
+ * permuted matrix are ignored).
+ *
+ * @author apete
+ */
+final class SparseLDL extends AbstractDecomposition<Double> implements LDL<Double> {
+
+    private double[] myD = null;
+    private int myDim = 0;
+    private int[] myIndices = null;
+    private int[] myLi = null;
+    private int[] myLp = null;
+    private double[] myLx = null;
+    private int[] myOrder = null;
+    private int[] myParent = null;
+    private int[] myPointers = null;
+    private int[] myPosition = null;
+    private boolean myReused = false;
+
+    SparseLDL() {
+        super();
+    }
+
+    public Double calculateDeterminant(final Access2D<?> matrix) {
+        this.doDecompose(matrix);
+        return this.getDeterminant();
+    }
+
+    public boolean decompose(final Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+        if (matrix instanceof Access2D) {
+            return this.doDecompose((Access2D<?>) matrix);
+        } else {
+            return this.doDecompose(matrix.collect(PrimitiveDenseStore.FACTORY));
+        }
+    }
+
+    public MatrixStore<Double> getD() {
+        final SparseStore.Builder<Double> tmpBuilder = SparseStore.builder(PrimitiveDenseStore.FACTORY, myDim, myDim, myDim);
+        for (int k = 0; k < myDim; k++) {
+            tmpBuilder.set(k, k, myD[k]);
+        }
+        return tmpBuilder.make();
+    }
+
+    public Double getDeterminant() {
+        double retVal = ONE;
+        for (int k = 0; k < myDim; k++) {
+            retVal *= myD[k];
+        }
+        return retVal;
+    }
+
+    public MatrixStore<Double> getInverse() {
+        return this.getInverse(PrimitiveDenseStore.FACTORY.makeZero(myDim, myDim));
+    }
+
+    public MatrixStore<Double> getInverse(final PhysicalStore<Double> preallocated) {
+        preallocated.fillAll(ZERO);
+        preallocated.fillDiagonal(0L, 0L, ONE);
+        return this.doSolve(preallocated);
+    }
+
+    /**
+     * The rows are permuted back to the original order, [A] = [L][D][L]<sup>T</sup> holds but [L] is only
+     * triangular with respect to the fill-reducing order.
+     */
+    public MatrixStore<Double> getL() {
+        final SparseStore.Builder<Double> tmpBuilder = SparseStore.builder(PrimitiveDenseStore.FACTORY, myDim, myDim, myDim + myLp[myDim]);
+        for (int j = 0; j < myDim; j++) {
+            tmpBuilder.set(myOrder[j], j, ONE);
+            for (int p = myLp[j]; p < myLp[j + 1]; p++) {
+                tmpBuilder.set(myOrder[myLi[p]], j, myLx[p]);
+            }
+        }
+        return tmpBuilder.make();
+    }
+
+    public int getRank() {
+        int retVal = 0;
+        if (this.isComputed()) {
+            double tmpLargest = ZERO;
+            for (int k = 0; k < myDim; k++) {
+                tmpLargest = Math.max(tmpLargest, Math.abs(myD[k]));
+            }
+            final double tmpLimit = tmpLargest * this.getDimensionalEpsilon();
+            for (int k = 0; k < myDim; k++) {
+                if (Math.abs(myD[k]) > tmpLimit) {
+                    retVal++;
+                }
+            }
+        }
+        return retVal;
+    }
+
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs) {
+        return this.getSolution(rhs, PrimitiveDenseStore.FACTORY.makeZero(rhs.countRows(), rhs.countColumns()));
+    }
+
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs, final PhysicalStore<Double> preallocated) {
+        rhs.supplyTo(preallocated);
+        return this.doSolve(preallocated);
+    }
+
+    public MatrixStore<Double> invert(final Access2D<?> original, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+        if (this.doDecompose(original) && this.isSolvable()) {
+            return this.getInverse(preallocated);
+        } else {
+            throw RecoverableCondition.newMatrixNotInvertible();
+        }
+    }
+
+    public boolean isFullRank() {
+        return this.getRank() == myDim;
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D template) {
+        return PrimitiveDenseStore.FACTORY.makeZero(template.countRows(), template.countRows());
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D templateBody, final Structure2D templateRHS) {
+        return PrimitiveDenseStore.FACTORY.makeZero(templateBody.countRows(), templateRHS.countColumns());
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        myIndices = null;
+        myPointers = null;
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+        if (this.doDecompose(body) && this.isSolvable()) {
+            return this.getSolution(MatrixStore.PRIMITIVE.makeWrapper(rhs), preallocated);
+        } else {
+            throw RecoverableCondition.newEquationSystemNotSolvable();
+        }
+    }
+
+    @Override
+    protected DecompositionStore<Double> allocate(final long numberOfRows, final long numberOfColumns) {
+        return PrimitiveDenseStore.FACTORY.makeZero(numberOfRows, numberOfColumns);
+    }
+
+    @Override
+    protected boolean checkSolvability() {
+        return myDim > 0;
+    }
+
+    @Override
+    protected double getDimensionalEpsilon() {
+        return myDim * MACHINE_EPSILON;
+    }
+
+    /**
+     * The nonzero count of [L] (excluding the unit diagonal)
+     */
+    int countNonzeros() {
+        return myLp != null ? myLp[myDim] : 0;
+    }
+
+    /**
+     * Was the symbolic analysis (ordering and elimination tree) reused from the previous decomposition?
+     */
+    boolean isSymbolicReused() {
+        return myReused;
+    }
+
+    /**
+     * Fill-reducing ordering, elimination tree and column counts
+     */
+    private void analyse(final int dim, final int[] pointers, final int[] indices) {
+
+        myDim = dim;
+        myPointers = pointers;
+        myIndices = indices;
+
+        myOrder = ApproximateMinimumDegree.order(dim, pointers, indices);
+        myPosition = new int[dim];
+        for (int k = 0; k < dim; k++) {
+            myPosition[myOrder[k]] = k;
+        }
+
+        myParent = new int[dim];
+        final int[] tmpFlag = new int[dim];
+        final int[] tmpCount = new int[dim];
+
+        for (int k = 0; k < dim; k++) {
+            myParent[k] = -1;
+            tmpFlag[k] = k;
+            final int tmpColumn = myOrder[k];
+            for (int p = pointers[tmpColumn]; p < pointers[tmpColumn + 1]; p++) {
+                for (int i = myPosition[indices[p]]; (i < k) && (tmpFlag[i] != k); i = myParent[i]) {
+                    if (myParent[i] == -1) {
+                        myParent[i] = k;
+                    }
+                    tmpCount[i]++;
+                    tmpFlag[i] = k;
+                }
+            }
+        }
+
+        myLp = new int[dim + 1];
+        for (int k = 0; k < dim; k++) {
+            myLp[k + 1] = myLp[k] + tmpCount[k];
+        }
+
+        myLi = new int[myLp[dim]];
+        myLx = new double[myLp[dim]];
+        myD = new double[dim];
+    }
+
+    private boolean doDecompose(final Access2D<?> matrix) {
+
+        final int tmpDim = (int) matrix.countRows();
+
+        final int[] tmpPointers;
+        final int[] tmpIndices;
+        final double[] tmpValues;
+
+        if (matrix instanceof PrimitiveCSC) {
+            final PrimitiveCSC tmpCompressed = (PrimitiveCSC) matrix;
+            tmpPointers = tmpCompressed.getPointers();
+            tmpIndices = tmpCompressed.getIndices();
+            tmpValues = tmpCompressed.getValues();
+        } else if (matrix instanceof PrimitiveCSR) {
+            // The CSR of a symmetric matrix is also its CSC
+            final PrimitiveCSR tmpCompressed = (PrimitiveCSR) matrix;
+            tmpPointers = tmpCompressed.getPointers();
+            tmpIndices = tmpCompressed.getIndices();
+            tmpValues = tmpCompressed.getValues();
+        } else if (matrix instanceof SparseStore) {
+            @SuppressWarnings("unchecked")
+            final PrimitiveCSC tmpCompressed = PrimitiveCSC.make((SparseStore<Double>) matrix);
+            tmpPointers = tmpCompressed.getPointers();
+            tmpIndices = tmpCompressed.getIndices();
+            tmpValues = tmpCompressed.getValues();
+        } else {
+            int tmpCount = 0;
+            for (int j = 0; j < tmpDim; j++) {
+                for (int i = 0; i < tmpDim; i++) {
+                    if (matrix.doubleValue(i, j) != ZERO) {
+                        tmpCount++;
+                    }
+                }
+            }
+            tmpPointers = new int[tmpDim + 1];
+            tmpIndices = new int[tmpCount];
+            tmpValues = new double[tmpCount];
+            tmpCount = 0;
+            for (int j = 0; j < tmpDim; j++) {
+                for (int i = 0; i < tmpDim; i++) {
+                    final double tmpValue = matrix.doubleValue(i, j);
+                    if (tmpValue != ZERO) {
+                        tmpIndices[tmpCount] = i;
+                        tmpValues[tmpCount++] = tmpValue;
+                    }
+                }
+                tmpPointers[j + 1] = tmpCount;
+            }
+        }
+
+        myReused = (tmpDim == myDim) && Arrays.equals(tmpPointers, myPointers) && Arrays.equals(tmpIndices, myIndices);
+        if (!myReused) {
+            this.analyse(tmpDim, tmpPointers, tmpIndices);
+        }
+
+        return this.computed(this.factorise(tmpValues));
+    }
+
+    /**
+     * Solves in place, column by column: P<sup>T</sup>L<sup>-T</sup>D<sup>-1</sup>L<sup>-1</sup>P
+     */
+    private PhysicalStore<Double> doSolve(final PhysicalStore<Double> rhs) {
+
+        final int tmpColumns = (int) rhs.countColumns();
+        final double[] tmpWork = new double[myDim];
+
+        for (int c = 0; c < tmpColumns; c++) {
+
+            for (int k = 0; k < myDim; k++) {
+                tmpWork[k] = rhs.doubleValue(myOrder[k], c);
+            }
+
+            for (int j = 0; j < myDim; j++) {
+                final double tmpValue = tmpWork[j];
+                if (tmpValue != ZERO) {
+                    for (int p = myLp[j]; p < myLp[j + 1]; p++) {
+                        tmpWork[myLi[p]] -= myLx[p] * tmpValue;
+                    }
+                }
+            }
+
+            for (int j = 0; j < myDim; j++) {
+                tmpWork[j] /= myD[j];
+            }
+
+            for (int j = myDim - 1; j >= 0; j--) {
+                double tmpValue = tmpWork[j];
+                for (int p = myLp[j]; p < myLp[j + 1]; p++) {
+                    tmpValue -= myLx[p] * tmpWork[myLi[p]];
+                }
+                tmpWork[j] = tmpValue;
+            }
+
+            for (int k = 0; k < myDim; k++) {
+                rhs.set(myOrder[k], c, tmpWork[k]);
+            }
+        }
+
+        return rhs;
+    }
+
+    /**
+     * Up-looking numeric factorisation, row k of [L] is computed with a sparse triangular solve along the
+     * elimination tree.
+     */
+    private boolean factorise(final double[] values) {
+
+        final int tmpDim = myDim;
+        final int[] tmpPointers = myPointers;
+        final int[] tmpIndices = myIndices;
+
+        final double[] tmpY = new double[tmpDim];
+        final int[] tmpPattern = new int[tmpDim];
+        final int[] tmpFlag = new int[tmpDim];
+        final int[] tmpCount = new int[tmpDim];
+
+        for (int k = 0; k < tmpDim; k++) {
+
+            tmpY[k] = ZERO;
+            int tmpTop = tmpDim;
+            tmpFlag[k] = k;
+            tmpCount[k] = 0;
+
+            final int tmpColumn = myOrder[k];
+            for (int p = tmpPointers[tmpColumn]; p < tmpPointers[tmpColumn + 1]; p++) {
+                int i = myPosition[tmpIndices[p]];
+                if (i <= k) {
+                    tmpY[i] += values[p];
+                    int tmpLength = 0;
+                    for (; tmpFlag[i] != k; i = myParent[i]) {
+                        tmpPattern[tmpLength++] = i;
+                        tmpFlag[i] = k;
+                    }
+                    while (tmpLength > 0) {
+                        tmpPattern[--tmpTop] = tmpPattern[--tmpLength];
+                    }
+                }
+            }
+
+            double tmpDiagonal = tmpY[k];
+            tmpY[k] = ZERO;
+
+            for (; tmpTop < tmpDim; tmpTop++) {
+                final int i = tmpPattern[tmpTop];
+                final double tmpYi = tmpY[i];
+                tmpY[i] = ZERO;
+                final int tmpLimit = myLp[i] + tmpCount[i];
+                for (int p = myLp[i]; p < tmpLimit; p++) {
+                    tmpY[myLi[p]] -= myLx[p] * tmpYi;
+                }
+                final double tmpLki = tmpYi / myD[i];
+                tmpDiagonal -= tmpLki * tmpYi;
+                myLi[tmpLimit] = k;
+                myLx[tmpLimit] = tmpLki;
+                tmpCount[i]++;
+            }
+
+            if (tmpDiagonal == ZERO) {
+                return false;
+            }
+            myD[k] = tmpDiagonal;
+        }
+
+        return true;
+    }
+
+}
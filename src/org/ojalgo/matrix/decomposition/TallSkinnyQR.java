@@ -0,0 +1,457 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.ojalgo.OjAlgoUtils;
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.access.Access2D;
+import org.ojalgo.access.Access2D.Collectable;
+import org.ojalgo.access.Structure2D;
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.machine.VirtualMachine;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+
+/**
+ * Tall-skinny (communication avoiding) QR, TSQR. The rows are split into blocks (leaves) that are decomposed
+ * in parallel. The resulting R factors are then stacked pairwise and decomposed again, level by level, in a
+ * reduction tree until there is only one R left. Each leaf block is sized to fit in cache.
+ * <p>
+ * [Q] is never formed unless explicitly asked for - least squares solutions apply the transposed Q of each
+ * tree node directly to the right hand side. Only the economy sized decomposition is tree-reduced. If full
+ * size is set, or the matrix is not tall enough to split, the decomposition is done in one piece.
+ * </p>
+ *
+ * @author apete
+ */
+final class TallSkinnyQR extends GenericDecomposition<Double> implements QR<Double> {
+
+    /**
+     * Each leaf must have at least this many times as many rows as there are columns.
+     */
+    static final int MIN_ASPECT_RATIO = 4;
+    /**
+     * Each leaf must have at least this many elements (rows * columns). Smaller blocks are not worth the
+     * overhead of the parallel reduction - the decomposition is then done in one piece.
+     */
+    static int THRESHOLD = 16384;
+
+    /**
+     * The number of leaves to use for a matrix of the given size - 1 means no splitting.
+     */
+    static int countLeaves(final long rows, final long columns) {
+
+        final VirtualMachine tmpEnvironment = OjAlgoUtils.ENVIRONMENT;
+
+        final long tmpMaxLeaves = Math.min(rows / (MIN_ASPECT_RATIO * Math.max(1L, columns)), (rows * columns) / THRESHOLD);
+
+        final long tmpCacheRows = Math.max(1L, tmpEnvironment.cache / (16L * Math.max(1L, columns)));
+        final long tmpWanted = Math.max(tmpEnvironment.threads, (rows + tmpCacheRows - 1L) / tmpCacheRows);
+
+        return (int) Math.max(1L, Math.min(tmpWanted, tmpMaxLeaves));
+    }
+
+    private int myColDim = 0;
+    private boolean myFullSize = false;
+    private final int myLeaves;
+    /**
+     * The reduction tree, level by level. Level 0 are the leaves, the last level is the root (a single node).
+     * Node i at level k (k > 0) has the children 2i and 2i+1 at level k-1.
+     */
+    private QRDecomposition.Primitive[][] myLevels = null;
+    /**
+     * The first row of each leaf, and (last) the total number of rows.
+     */
+    private int[] myOffsets = null;
+
+    TallSkinnyQR() {
+        this(0);
+    }
+
+    /**
+     * @param leaves The number of leaves to split into, 0 means decide based on the matrix size
+     */
+    TallSkinnyQR(final int leaves) {
+        super(PrimitiveDenseStore.FACTORY);
+        myLeaves = leaves;
+    }
+
+    public Double calculateDeterminant(final Access2D<?> matrix) {
+        this.decompose(this.wrap(matrix));
+        return this.getDeterminant();
+    }
+
+    public boolean decompose(final Access2D.Collectable<Double, ? super PhysicalStore<Double>> matrix) {
+
+        this.reset();
+
+        // The leaves are logical row-block views, copied only by their own decompositions
+        final MatrixStore<Double> tmpMatrix;
+        if (matrix instanceof MatrixStore.LogicalBuilder) {
+            @SuppressWarnings("unchecked")
+            final MatrixStore.LogicalBuilder<Double> tmpBuilder = (MatrixStore.LogicalBuilder<Double>) matrix;
+            tmpMatrix = tmpBuilder.get();
+        } else {
+            tmpMatrix = this.collect(matrix);
+        }
+
+        final int tmpRowDim = (int) tmpMatrix.countRows();
+        final int tmpColDim = (int) tmpMatrix.countColumns();
+
+        int tmpLeaves = myLeaves > 0 ? myLeaves : TallSkinnyQR.countLeaves(tmpRowDim, tmpColDim);
+        if (myFullSize || (tmpRowDim < (2 * MIN_ASPECT_RATIO * tmpColDim))) {
+            tmpLeaves = 1;
+        }
+
+        myColDim = tmpColDim;
+
+        myOffsets = new int[tmpLeaves + 1];
+        for (int l = 0; l <= tmpLeaves; l++) {
+            myOffsets[l] = (int) ((l * (long) tmpRowDim) / tmpLeaves);
+        }
+
+        int tmpLevelCount = 1;
+        for (int tmpCount = tmpLeaves; tmpCount > 1; tmpCount = (tmpCount + 1) / 2) {
+            tmpLevelCount++;
+        }
+        myLevels = new QRDecomposition.Primitive[tmpLevelCount][];
+
+        // Leaves - blocks of rows
+        final QRDecomposition.Primitive[] tmpLeafNodes = myLevels[0] = new QRDecomposition.Primitive[tmpLeaves];
+        final DivideAndConquer tmpLeafConquerer = new DivideAndConquer() {
+
+            @Override
+            protected void conquer(final int first, final int limit) {
+                for (int l = first; l < limit; l++) {
+                    final QRDecomposition.Primitive tmpNode = new QRDecomposition.Primitive();
+                    tmpNode.setFullSize(myFullSize);
+                    tmpNode.decompose(tmpMatrix.logical().offsets(myOffsets[l], 0).limits(myOffsets[l + 1] - myOffsets[l], tmpColDim).get());
+                    tmpLeafNodes[l] = tmpNode;
+                }
+            }
+        };
+        tmpLeafConquerer.invoke(0, tmpLeaves, 1);
+
+        // Reduction tree - stacked pairs of R
+        for (int k = 1; k < tmpLevelCount; k++) {
+
+            final QRDecomposition.Primitive[] tmpChildren = myLevels[k - 1];
+            final QRDecomposition.Primitive[] tmpParents = myLevels[k] = new QRDecomposition.Primitive[(tmpChildren.length + 1) / 2];
+
+            final DivideAndConquer tmpTreeConquerer = new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int first, final int limit) {
+                    for (int p = first; p < limit; p++) {
+
+                        final int tmpFirstChild = 2 * p;
+                        final int tmpChildLimit = Math.min(tmpFirstChild + 2, tmpChildren.length);
+
+                        final PrimitiveDenseStore tmpStacked = PrimitiveDenseStore.FACTORY.makeZero((tmpChildLimit - tmpFirstChild) * tmpColDim,
+                                tmpColDim);
+                        for (int c = tmpFirstChild; c < tmpChildLimit; c++) {
+                            final MatrixStore<Double> tmpR = tmpChildren[c].getR();
+                            final int tmpRowOffset = (c - tmpFirstChild) * tmpColDim;
+                            for (int j = 0; j < tmpColDim; j++) {
+                                for (int i = 0; i <= j; i++) {
+                                    tmpStacked.set(tmpRowOffset + i, j, tmpR.doubleValue(i, j));
+                                }
+                            }
+                        }
+
+                        final QRDecomposition.Primitive tmpNode = new QRDecomposition.Primitive();
+                        tmpNode.decompose(tmpStacked);
+                        tmpParents[p] = tmpNode;
+                    }
+                }
+            };
+            tmpTreeConquerer.invoke(0, tmpParents.length, 1);
+        }
+
+        return this.computed(true);
+    }
+
+    /**
+     * Only meaningful for square matrices, and those are never split.
+     */
+    public Double getDeterminant() {
+        return this.getRoot().getDeterminant();
+    }
+
+    public MatrixStore<Double> getInverse() {
+        return this.getInverse(this.allocate(this.getRowDim(), this.getRowDim()));
+    }
+
+    public MatrixStore<Double> getInverse(final PhysicalStore<Double> preallocated) {
+        return this.getSolution(this.makeIdentity(this.getRowDim()), preallocated);
+    }
+
+    public MatrixStore<Double> getQ() {
+
+        if (myLevels.length == 1) {
+            return this.getRoot().getQ();
+        }
+
+        final int tmpColDim = myColDim;
+
+        // Top-down: the product of the Q:s from the root down to (and including) each node
+        List<MatrixStore<Double>> tmpProducts = Collections.singletonList(this.getRoot().getQ());
+
+        for (int k = myLevels.length - 2; k >= 0; k--) {
+
+            final QRDecomposition.Primitive[] tmpNodes = myLevels[k];
+            final List<MatrixStore<Double>> tmpParentProducts = tmpProducts;
+            final List<MatrixStore<Double>> tmpNodeProducts = new ArrayList<>(Collections.nCopies(tmpNodes.length, null));
+
+            final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int first, final int limit) {
+                    for (int i = first; i < limit; i++) {
+                        final MatrixStore<Double> tmpParent = tmpParentProducts.get(i / 2);
+                        final MatrixStore<Double> tmpSlice = tmpParent.logical().offsets((i % 2) * tmpColDim, 0).limits(tmpColDim, tmpColDim).get();
+                        tmpNodeProducts.set(i, tmpNodes[i].getQ().multiply(tmpSlice));
+                    }
+                }
+            };
+            tmpConquerer.invoke(0, tmpNodes.length, 1);
+
+            tmpProducts = tmpNodeProducts;
+        }
+
+        final PrimitiveDenseStore retVal = PrimitiveDenseStore.FACTORY.makeZero(this.getRowDim(), tmpColDim);
+        for (int l = 0; l < tmpProducts.size(); l++) {
+            final MatrixStore<Double> tmpLeafProduct = tmpProducts.get(l);
+            final int tmpRowOffset = myOffsets[l];
+            final int tmpRowCount = myOffsets[l + 1] - tmpRowOffset;
+            for (int j = 0; j < tmpColDim; j++) {
+                for (int i = 0; i < tmpRowCount; i++) {
+                    retVal.set(tmpRowOffset + i, j, tmpLeafProduct.doubleValue(i, j));
+                }
+            }
+        }
+        return retVal;
+    }
+
+    public MatrixStore<Double> getR() {
+        if (myLevels.length == 1) {
+            return this.getRoot().getR();
+        } else {
+            return this.getRoot().getR().logical().limits(myColDim, myColDim).get();
+        }
+    }
+
+    public int getRank() {
+        return this.getRoot().getRank();
+    }
+
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs) {
+        return this.getSolution(rhs, this.allocate(this.getRowDim(), rhs.countColumns()));
+    }
+
+    /**
+     * Solve [A]*[X]=[B] by applying [Q]<sup>T</sup> of each tree node, from the leaves to the root, and then
+     * solving [R]*[X]=[Y] at the root. [X] minimises the 2-norm of [Q]*[R]*[X]-[B].
+     */
+    @Override
+    public MatrixStore<Double> getSolution(final Collectable<Double, ? super PhysicalStore<Double>> rhs, final PhysicalStore<Double> preallocated) {
+
+        if (myLevels.length == 1) {
+            return this.getRoot().getSolution(rhs, preallocated);
+        }
+
+        final int tmpColDim = myColDim;
+
+        rhs.supplyTo(preallocated);
+        final int tmpRHSColumns = (int) preallocated.countColumns();
+
+        // The top tmpColDim rows of [Q]<sup>T</sup>[B] for each node
+        PrimitiveDenseStore[] tmpReduced = new PrimitiveDenseStore[myLevels[0].length];
+
+        for (int k = 0; k < (myLevels.length - 1); k++) {
+
+            final QRDecomposition.Primitive[] tmpNodes = myLevels[k];
+            final PrimitiveDenseStore[] tmpChildren = tmpReduced;
+            final PrimitiveDenseStore[] tmpNodeReduced = new PrimitiveDenseStore[tmpNodes.length];
+            final boolean tmpLeaves = k == 0;
+
+            final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int first, final int limit) {
+                    for (int i = first; i < limit; i++) {
+
+                        final PrimitiveDenseStore tmpBlock;
+                        if (tmpLeaves) {
+                            tmpBlock = PrimitiveDenseStore.FACTORY.copy(preallocated.logical().offsets(myOffsets[i], 0)
+                                    .limits(myOffsets[i + 1] - myOffsets[i], tmpRHSColumns).get());
+                        } else {
+                            tmpBlock = TallSkinnyQR.this.stack(tmpChildren, 2 * i, tmpRHSColumns);
+                        }
+
+                        tmpNodes[i].transformTransposedQ(tmpBlock);
+
+                        tmpNodeReduced[i] = PrimitiveDenseStore.FACTORY.copy(tmpBlock.logical().limits(tmpColDim, tmpRHSColumns).get());
+                    }
+                }
+            };
+            tmpConquerer.invoke(0, tmpNodes.length, 1);
+
+            tmpReduced = tmpNodeReduced;
+        }
+
+        final PrimitiveDenseStore tmpRootRHS = this.stack(tmpReduced, 0, tmpRHSColumns);
+        final MatrixStore<Double> tmpSolution = this.getRoot().getSolution(tmpRootRHS, tmpRootRHS);
+
+        for (int j = 0; j < tmpRHSColumns; j++) {
+            for (int i = 0; i < tmpColDim; i++) {
+                preallocated.set(i, j, tmpSolution.doubleValue(i, j));
+            }
+        }
+
+        return preallocated.logical().limits(tmpColDim, tmpRHSColumns).get();
+    }
+
+    public MatrixStore<Double> invert(final Access2D<?> original) throws RecoverableCondition {
+
+        this.decompose(this.wrap(original));
+
+        if (this.isSolvable()) {
+            return this.getInverse();
+        } else {
+            throw RecoverableCondition.newMatrixNotInvertible();
+        }
+    }
+
+    public MatrixStore<Double> invert(final Access2D<?> original, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        this.decompose(this.wrap(original));
+
+        if (this.isSolvable()) {
+            return this.getInverse(preallocated);
+        } else {
+            throw RecoverableCondition.newMatrixNotInvertible();
+        }
+    }
+
+    public boolean isFullRank() {
+        return this.getRank() == Math.min(this.getRowDim(), myColDim);
+    }
+
+    public boolean isFullSize() {
+        return myFullSize;
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D template) {
+        return this.allocate(template.countRows(), template.countRows());
+    }
+
+    public PhysicalStore<Double> preallocate(final Structure2D templateBody, final Structure2D templateRHS) {
+        return this.allocate(templateBody.countRows(), templateRHS.countColumns());
+    }
+
+    @Override
+    public void reset() {
+
+        super.reset();
+
+        myColDim = 0;
+        myLevels = null;
+        myOffsets = null;
+    }
+
+    public void setFullSize(final boolean fullSize) {
+        myFullSize = fullSize;
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs) throws RecoverableCondition {
+
+        this.decompose(this.wrap(body));
+
+        if (this.isSolvable()) {
+            return this.getSolution(this.wrap(rhs));
+        } else {
+            throw RecoverableCondition.newEquationSystemNotSolvable();
+        }
+    }
+
+    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
+
+        this.decompose(this.wrap(body));
+
+        if (this.isSolvable()) {
+            return this.getSolution(this.wrap(rhs), preallocated);
+        } else {
+            throw RecoverableCondition.newEquationSystemNotSolvable();
+        }
+    }
+
+    @Override
+    protected boolean checkSolvability() {
+        return this.isComputed() && this.getRoot().isSolvable();
+    }
+
+    @Override
+    protected double getDimensionalEpsilon() {
+        return this.getRoot().getDimensionalEpsilon();
+    }
+
+    /**
+     * The number of leaves the latest decomposition was split into.
+     */
+    int countLeaves() {
+        return myLevels != null ? myLevels[0].length : 0;
+    }
+
+    private QRDecomposition.Primitive getRoot() {
+        return myLevels[myLevels.length - 1][0];
+    }
+
+    private int getRowDim() {
+        return myOffsets[myOffsets.length - 1];
+    }
+
+    private PrimitiveDenseStore stack(final PrimitiveDenseStore[] blocks, final int first, final int columns) {
+
+        final int tmpLimit = Math.min(first + 2, blocks.length);
+
+        final PrimitiveDenseStore retVal = PrimitiveDenseStore.FACTORY.makeZero((tmpLimit - first) * myColDim, columns);
+
+        for (int b = first; b < tmpLimit; b++) {
+            final PrimitiveDenseStore tmpBlock = blocks[b];
+            final int tmpRowOffset = (b - first) * myColDim;
+            for (int j = 0; j < columns; j++) {
+                for (int i = 0; i < myColDim; i++) {
+                    retVal.set(tmpRowOffset + i, j, tmpBlock.doubleValue(i, j));
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+}
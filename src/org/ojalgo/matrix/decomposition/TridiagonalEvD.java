@@ -0,0 +1,576 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+import static org.ojalgo.function.PrimitiveFunction.*;
+
+import java.util.Arrays;
+
+import org.ojalgo.OjAlgoUtils;
+import org.ojalgo.array.blas.GEMM;
+import org.ojalgo.concurrent.DivideAndConquer;
+
+/**
+ * Eigenvalues and eigenvectors of a symmetric tridiagonal matrix using Cuppen's divide-and-conquer method.
+ * The matrix is split in two halves, connected by a rank-one modification. The halves are solved recursively
+ * (in parallel), and then merged by solving the secular equation of the rank-one modified diagonal matrix.
+ * Eigenvalues that are (numerically) unaffected by the modification are deflated. The eigenvectors of the
+ * merged problem are the eigenvectors of the halves multiplied by the eigenvectors of the rank-one
+ * modification - that matrix multiplication is where almost all of the work is done, and it is done by
+ * {@link GEMM}.
+ * <p>
+ * The eigenvectors of the modification are computed from recalculated (Gu-Eisenstat) weights, which keeps
+ * them numerically orthogonal even when eigenvalues are close.
+ *
+ * @author apete
+ */
+abstract class TridiagonalEvD {
+
+    /**
+     * Subproblems of this size, or smaller, are solved with implicit QL iterations.
+     */
+    static int LEAF = 32;
+    /**
+     * Matrices smaller than this are better off with implicit QL iterations all the way. The QL iterations
+     * can't be parallelised, but with a single thread they're competitive up to a few thousand rows/columns.
+     */
+    static int MINIMUM = OjAlgoUtils.ENVIRONMENT.threads > 1 ? 256 : 4096;
+    /**
+     * Subproblems (and merge products) larger than this are divided between threads.
+     */
+    static int THRESHOLD = 128;
+
+    /**
+     * @param d The main diagonal. On return the eigenvalues in ascending order.
+     * @param e The off-diagonal, e[i] couples i and i+1. Destroyed on return.
+     * @param q Column-major d.length x d.length. On input the orthogonal matrix that reduced the original
+     *        matrix to tridiagonal form (or the identity). On return it has been multiplied by the eigenvectors
+     *        of the tridiagonal matrix - the columns are then the eigenvectors of the original matrix, in the
+     *        same order as the eigenvalues.
+     */
+    static void divideAndConquer(final double[] d, final double[] e, final double[] q) {
+
+        final int tmpDim = d.length;
+
+        // Scale to unit norm - the deflation tolerances are absolute
+        double tmpNorm = ZERO;
+        for (int i = 0; i < tmpDim; i++) {
+            tmpNorm = MAX.invoke(tmpNorm, MAX.invoke(ABS.invoke(d[i]), ABS.invoke(e[i])));
+        }
+        if (tmpNorm == ZERO) {
+            tmpNorm = ONE;
+        }
+        for (int i = 0; i < tmpDim; i++) {
+            d[i] /= tmpNorm;
+            e[i] /= tmpNorm;
+        }
+
+        final double[] tmpVectors = new double[tmpDim * tmpDim];
+        TridiagonalEvD.solve(d, e, tmpVectors, tmpDim, 0, tmpDim);
+
+        for (int i = 0; i < tmpDim; i++) {
+            d[i] *= tmpNorm;
+        }
+
+        final double[] tmpProduct = new double[tmpDim * tmpDim];
+        TridiagonalEvD.multiply(tmpProduct, tmpDim, 0, 0, tmpDim, tmpDim, q, tmpDim, 0, 0, tmpDim, tmpVectors, tmpDim, 0);
+
+        System.arraycopy(tmpProduct, 0, q, 0, tmpDim * tmpDim);
+    }
+
+    static boolean isDivideAndConquer(final int dim) {
+        return dim >= MINIMUM;
+    }
+
+    /**
+     * poles[i] - (root j)
+     */
+    private static double delta(final double[] poles, final int[] origins, final double[] shifts, final int i, final int j) {
+        return (poles[i] - poles[origins[j]]) - shifts[j];
+    }
+
+    private static void leaf(final double[] d, final double[] e, final double[] q, final int structure, final int first, final int limit) {
+
+        final int tmpSize = limit - first;
+
+        final double[] tmpD = Arrays.copyOfRange(d, first, limit);
+        final double[] tmpE = new double[tmpSize];
+        System.arraycopy(e, first, tmpE, 0, tmpSize - 1);
+
+        for (int ij = first; ij < limit; ij++) {
+            q[ij + (structure * ij)] = ONE;
+        }
+
+        HermitianEvD.tql2(tmpD, tmpE, (low, high, cos, sin) -> {
+            final int tmpLow = structure * (first + low);
+            final int tmpHigh = structure * (first + high);
+            double tmpValLow, tmpValHigh;
+            for (int i = first; i < limit; i++) {
+                tmpValLow = q[tmpLow + i];
+                tmpValHigh = q[tmpHigh + i];
+                q[tmpLow + i] = (cos * tmpValLow) - (sin * tmpValHigh);
+                q[tmpHigh + i] = (sin * tmpValLow) + (cos * tmpValHigh);
+            }
+        });
+
+        // Sort ascending
+        for (int j = 0; j < tmpSize; j++) {
+            int tmpMin = j;
+            for (int i = j + 1; i < tmpSize; i++) {
+                if (tmpD[i] < tmpD[tmpMin]) {
+                    tmpMin = i;
+                }
+            }
+            if (tmpMin != j) {
+                final double tmpVal = tmpD[j];
+                tmpD[j] = tmpD[tmpMin];
+                tmpD[tmpMin] = tmpVal;
+                final int tmpColJ = structure * (first + j);
+                final int tmpColMin = structure * (first + tmpMin);
+                for (int i = first; i < limit; i++) {
+                    final double tmpElement = q[tmpColJ + i];
+                    q[tmpColJ + i] = q[tmpColMin + i];
+                    q[tmpColMin + i] = tmpElement;
+                }
+            }
+        }
+
+        System.arraycopy(tmpD, 0, d, first, tmpSize);
+    }
+
+    /**
+     * Merge the solutions of [first,split) and [split,limit) that are stored in the diagonal blocks of q. The
+     * off-diagonal element that connected the two halves is rho, and it has already been subtracted (as
+     * |rho|) from the diagonal elements on either side of the split.
+     */
+    private static void merge(final double[] d, final double[] q, final int structure, final int first, final int split, final int limit, final double rho) {
+
+        final int tmpSize = limit - first;
+        final int tmpSize1 = split - first;
+
+        // The merged problem is diag(d) + tmpRho * z * z^T with |z| = 1
+
+        final double tmpRho = TWO * ABS.invoke(rho);
+        final double tmpSign = rho < ZERO ? -ONE : ONE;
+
+        final double[] tmpD = Arrays.copyOfRange(d, first, limit);
+        final double[] tmpZ = new double[tmpSize];
+        for (int j = 0; j < tmpSize1; j++) {
+            tmpZ[j] = q[(split - 1) + (structure * (first + j))] / SQRT_TWO;
+        }
+        for (int j = tmpSize1; j < tmpSize; j++) {
+            tmpZ[j] = (tmpSign * q[split + (structure * (first + j))]) / SQRT_TWO;
+        }
+
+        // Local copy of the block columns, these are rotated when deflating
+
+        final double[] tmpColumns = new double[tmpSize * tmpSize];
+        for (int j = 0; j < tmpSize; j++) {
+            System.arraycopy(q, first + (structure * (first + j)), tmpColumns, tmpSize * j, tmpSize);
+        }
+        // 1: nonzero in the upper rows only, 3: nonzero in the lower rows only, 2: both
+        final int[] tmpTypes = new int[tmpSize];
+        Arrays.fill(tmpTypes, 0, tmpSize1, 1);
+        Arrays.fill(tmpTypes, tmpSize1, tmpSize, 3);
+
+        // The two halves are already sorted - merge them
+
+        final int[] tmpOrder = new int[tmpSize];
+        for (int i = 0, i1 = 0, i2 = tmpSize1; i < tmpSize; i++) {
+            if ((i2 >= tmpSize) || ((i1 < tmpSize1) && (tmpD[i1] <= tmpD[i2]))) {
+                tmpOrder[i] = i1++;
+            } else {
+                tmpOrder[i] = i2++;
+            }
+        }
+
+        // Deflate
+
+        double tmpMaxD = ZERO, tmpMaxZ = ZERO;
+        for (int j = 0; j < tmpSize; j++) {
+            tmpMaxD = MAX.invoke(tmpMaxD, ABS.invoke(tmpD[j]));
+            tmpMaxZ = MAX.invoke(tmpMaxZ, ABS.invoke(tmpZ[j]));
+        }
+        final double tmpTolerance = EIGHT * MACHINE_EPSILON * MAX.invoke(tmpMaxD, tmpMaxZ);
+
+        final int[] tmpKept = new int[tmpSize];
+        final int[] tmpDeflated = new int[tmpSize];
+        int tmpKeptCount = 0, tmpDeflatedCount = 0;
+
+        if ((tmpRho * tmpMaxZ) <= tmpTolerance) {
+
+            System.arraycopy(tmpOrder, 0, tmpDeflated, 0, tmpSize);
+            tmpDeflatedCount = tmpSize;
+
+        } else {
+
+            int tmpPrevious = -1;
+            for (int p = 0; p < tmpSize; p++) {
+                final int j = tmpOrder[p];
+                if ((tmpRho * ABS.invoke(tmpZ[j])) <= tmpTolerance) {
+                    tmpDeflated[tmpDeflatedCount++] = j;
+                } else if (tmpPrevious < 0) {
+                    tmpPrevious = j;
+                } else {
+                    final double tmpTau = HYPOT.invoke(tmpZ[j], tmpZ[tmpPrevious]);
+                    final double tmpCos = tmpZ[j] / tmpTau;
+                    final double tmpSin = -tmpZ[tmpPrevious] / tmpTau;
+                    final double tmpDiff = tmpD[j] - tmpD[tmpPrevious];
+                    if (ABS.invoke(tmpDiff * tmpCos * tmpSin) <= tmpTolerance) {
+                        // Close eigenvalues - rotate so that one of the z elements becomes 0
+                        tmpZ[j] = tmpTau;
+                        tmpZ[tmpPrevious] = ZERO;
+                        final int tmpColP = tmpSize * tmpPrevious;
+                        final int tmpColJ = tmpSize * j;
+                        for (int i = 0; i < tmpSize; i++) {
+                            final double tmpValP = tmpColumns[tmpColP + i];
+                            final double tmpValJ = tmpColumns[tmpColJ + i];
+                            tmpColumns[tmpColP + i] = (tmpCos * tmpValP) + (tmpSin * tmpValJ);
+                            tmpColumns[tmpColJ + i] = (tmpCos * tmpValJ) - (tmpSin * tmpValP);
+                        }
+                        if (tmpTypes[tmpPrevious] != tmpTypes[j]) {
+                            tmpTypes[tmpPrevious] = 2;
+                            tmpTypes[j] = 2;
+                        }
+                        final double tmpCos2 = tmpCos * tmpCos;
+                        final double tmpSin2 = tmpSin * tmpSin;
+                        final double tmpValue = (tmpD[tmpPrevious] * tmpCos2) + (tmpD[j] * tmpSin2);
+                        tmpD[j] = (tmpD[tmpPrevious] * tmpSin2) + (tmpD[j] * tmpCos2);
+                        tmpD[tmpPrevious] = tmpValue;
+                        tmpDeflated[tmpDeflatedCount++] = tmpPrevious;
+                    } else {
+                        tmpKept[tmpKeptCount++] = tmpPrevious;
+                    }
+                    tmpPrevious = j;
+                }
+            }
+            if (tmpPrevious >= 0) {
+                tmpKept[tmpKeptCount++] = tmpPrevious;
+            }
+        }
+
+        final int tmpK = tmpKeptCount;
+        final int tmpDeflatedK = tmpDeflatedCount;
+
+        // Deflated eigenvalues may have been modified by the rotations - sort them (insertion sort, they're almost sorted)
+        for (int p = 1; p < tmpDeflatedK; p++) {
+            final int j = tmpDeflated[p];
+            int i = p - 1;
+            while ((i >= 0) && (tmpD[tmpDeflated[i]] > tmpD[j])) {
+                tmpDeflated[i + 1] = tmpDeflated[i];
+                i--;
+            }
+            tmpDeflated[i + 1] = j;
+        }
+
+        // Solve the secular equation for the remaining (kept) part
+
+        final double[] tmpPoles = new double[tmpK];
+        final double[] tmpWeights = new double[tmpK];
+        for (int i = 0; i < tmpK; i++) {
+            tmpPoles[i] = tmpD[tmpKept[i]];
+            tmpWeights[i] = tmpZ[tmpKept[i]];
+        }
+
+        final int[] tmpOrigins = new int[tmpK];
+        final double[] tmpShifts = new double[tmpK];
+        for (int j = 0; j < tmpK; j++) {
+            TridiagonalEvD.secular(tmpPoles, tmpWeights, tmpRho, j, tmpOrigins, tmpShifts);
+        }
+
+        // Recalculate the weights (Gu-Eisenstat) and the eigenvectors of the modification
+
+        final double[] tmpVectors = new double[tmpK * tmpK];
+
+        for (int i = 0; i < tmpK; i++) {
+            double tmpProduct = -TridiagonalEvD.delta(tmpPoles, tmpOrigins, tmpShifts, i, i) / tmpRho;
+            for (int j = 0; j < tmpK; j++) {
+                if (j != i) {
+                    tmpProduct *= -TridiagonalEvD.delta(tmpPoles, tmpOrigins, tmpShifts, i, j) / (tmpPoles[j] - tmpPoles[i]);
+                }
+            }
+            tmpWeights[i] = Math.copySign(SQRT.invoke(MAX.invoke(tmpProduct, ZERO)), tmpWeights[i]);
+        }
+
+        for (int j = 0; j < tmpK; j++) {
+            final int tmpCol = tmpK * j;
+            double tmpNorm2 = ZERO;
+            for (int i = 0; i < tmpK; i++) {
+                final double tmpVal = tmpWeights[i] / TridiagonalEvD.delta(tmpPoles, tmpOrigins, tmpShifts, i, j);
+                tmpVectors[tmpCol + i] = tmpVal;
+                tmpNorm2 += tmpVal * tmpVal;
+            }
+            final double tmpNorm = SQRT.invoke(tmpNorm2);
+            for (int i = 0; i < tmpK; i++) {
+                tmpVectors[tmpCol + i] /= tmpNorm;
+            }
+        }
+
+        // Multiply - the kept columns grouped by type so that the zero blocks can be skipped
+
+        final int[] tmpGrouped = new int[tmpK];
+        int tmpCount1 = 0, tmpCount2 = 0;
+        for (int tmpType = 1, g = 0; tmpType <= 3; tmpType++) {
+            for (int i = 0; i < tmpK; i++) {
+                if (tmpTypes[tmpKept[i]] == tmpType) {
+                    tmpGrouped[g++] = i;
+                    if (tmpType == 1) {
+                        tmpCount1++;
+                    } else if (tmpType == 2) {
+                        tmpCount2++;
+                    }
+                }
+            }
+        }
+
+        final double[] tmpLeft = new double[tmpSize * tmpK];
+        final double[] tmpRight = new double[tmpK * tmpK];
+        for (int g = 0; g < tmpK; g++) {
+            final int i = tmpGrouped[g];
+            System.arraycopy(tmpColumns, tmpSize * tmpKept[i], tmpLeft, tmpSize * g, tmpSize);
+            for (int j = 0; j < tmpK; j++) {
+                tmpRight[g + (tmpK * j)] = tmpVectors[i + (tmpK * j)];
+            }
+        }
+
+        final double[] tmpProduct = new double[tmpSize * tmpK];
+        TridiagonalEvD.multiply(tmpProduct, tmpSize, 0, 0, tmpSize1, tmpK, tmpLeft, tmpSize, 0, 0, tmpCount1 + tmpCount2, tmpRight, tmpK, 0);
+        TridiagonalEvD.multiply(tmpProduct, tmpSize, tmpSize1, 0, tmpSize - tmpSize1, tmpK, tmpLeft, tmpSize, tmpSize1, tmpCount1, tmpK - tmpCount1, tmpRight,
+                tmpK, tmpCount1);
+
+        // Write back, all eigenvalues in ascending order
+
+        for (int p = 0, j = 0, r = 0; p < tmpSize; p++) {
+            final int tmpDestination = first + (structure * (first + p));
+            if ((r >= tmpDeflatedK) || ((j < tmpK) && ((tmpPoles[tmpOrigins[j]] + tmpShifts[j]) <= tmpD[tmpDeflated[r]]))) {
+                d[first + p] = tmpPoles[tmpOrigins[j]] + tmpShifts[j];
+                System.arraycopy(tmpProduct, tmpSize * j, q, tmpDestination, tmpSize);
+                j++;
+            } else {
+                d[first + p] = tmpD[tmpDeflated[r]];
+                System.arraycopy(tmpColumns, tmpSize * tmpDeflated[r], q, tmpDestination, tmpSize);
+                r++;
+            }
+        }
+    }
+
+    /**
+     * C += A * B on sub-blocks of column-major arrays, divided between threads by columns of C.
+     */
+    private static void multiply(final double[] product, final int productStructure, final int productRow, final int productColumn, final int rowCount,
+            final int columnCount, final double[] left, final int leftStructure, final int leftRow, final int leftColumn, final int complexity,
+            final double[] right, final int rightStructure, final int rightRow) {
+
+        if ((rowCount > THRESHOLD) && (columnCount > THRESHOLD)) {
+
+            final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int first, final int limit) {
+                    GEMM.invoke(product, productStructure, productRow, productColumn + first, rowCount, limit - first, ONE, left, leftStructure, leftRow,
+                            leftColumn, complexity, right, rightStructure, rightRow, first);
+                }
+
+            };
+
+            tmpConquerer.invoke(0, columnCount, THRESHOLD);
+
+        } else {
+
+            GEMM.invoke(product, productStructure, productRow, productColumn, rowCount, columnCount, ONE, left, leftStructure, leftRow, leftColumn,
+                    complexity, right, rightStructure, rightRow, 0);
+        }
+    }
+
+    /**
+     * Root number j of the secular equation 1 + rho * sum(w[i]^2 / (d[i] - x)) = 0, where d is strictly
+     * increasing and rho > 0. The root is stored as a pole index (origin) and the distance from that pole
+     * (shift), so that the differences d[i] - x can be calculated accurately.
+     */
+    private static void secular(final double[] poles, final double[] weights, final double rho, final int j, final int[] origins, final double[] shifts) {
+
+        final int tmpK = poles.length;
+        final boolean tmpLast = j == (tmpK - 1);
+
+        int tmpOrigin;
+        double tmpLower, tmpUpper;
+
+        if (tmpLast) {
+
+            double tmpNorm2 = ZERO;
+            for (int i = 0; i < tmpK; i++) {
+                tmpNorm2 += weights[i] * weights[i];
+            }
+            tmpOrigin = j;
+            tmpLower = ZERO;
+            tmpUpper = rho * tmpNorm2;
+
+        } else {
+
+            final double tmpHalfGap = HALF * (poles[j + 1] - poles[j]);
+            double tmpValue = ONE;
+            for (int i = 0; i < tmpK; i++) {
+                tmpValue += (rho * weights[i] * weights[i]) / ((poles[i] - poles[j]) - tmpHalfGap);
+            }
+            if (tmpValue >= ZERO) {
+                tmpOrigin = j;
+                tmpLower = ZERO;
+                tmpUpper = tmpHalfGap;
+            } else {
+                tmpOrigin = j + 1;
+                tmpLower = -tmpHalfGap;
+                tmpUpper = ZERO;
+            }
+        }
+
+        final double tmpPole = poles[tmpOrigin];
+
+        double tmpShift = HALF * (tmpLower + tmpUpper);
+
+        for (int iter = 0; iter < 100; iter++) {
+
+            double tmpPsi = ZERO, tmpDerPsi = ZERO, tmpPhi = ZERO, tmpDerPhi = ZERO;
+            for (int i = 0; i <= j; i++) {
+                final double tmpTerm = (rho * weights[i]) / ((poles[i] - tmpPole) - tmpShift);
+                tmpPsi += tmpTerm * weights[i];
+                tmpDerPsi += (tmpTerm * tmpTerm) / rho;
+            }
+            for (int i = j + 1; i < tmpK; i++) {
+                final double tmpTerm = (rho * weights[i]) / ((poles[i] - tmpPole) - tmpShift);
+                tmpPhi += tmpTerm * weights[i];
+                tmpDerPhi += (tmpTerm * tmpTerm) / rho;
+            }
+
+            final double tmpValue = ONE + tmpPsi + tmpPhi;
+            final double tmpError = (EIGHT * (tmpPhi - tmpPsi)) + TWO + (THREE * ABS.invoke(tmpShift) * (tmpDerPsi + tmpDerPhi));
+
+            if (ABS.invoke(tmpValue) <= (MACHINE_EPSILON * tmpError)) {
+                break;
+            }
+
+            if (tmpValue < ZERO) {
+                tmpLower = tmpShift;
+            } else {
+                tmpUpper = tmpShift;
+            }
+
+            // Approximate with the 2 nearest poles (1 for the last root), matching value and derivative
+
+            final double tmpDelta1 = (poles[j] - tmpPole) - tmpShift;
+            double tmpStep;
+
+            if (tmpLast) {
+
+                final double tmpConstant = tmpValue - (tmpDerPsi * tmpDelta1);
+                tmpStep = tmpDelta1 + ((tmpDerPsi * tmpDelta1 * tmpDelta1) / tmpConstant);
+
+            } else {
+
+                final double tmpDelta2 = (poles[j + 1] - tmpPole) - tmpShift;
+                final double tmpS1 = tmpDerPsi * tmpDelta1 * tmpDelta1;
+                final double tmpS2 = tmpDerPhi * tmpDelta2 * tmpDelta2;
+                final double tmpA = tmpValue - (tmpDerPsi * tmpDelta1) - (tmpDerPhi * tmpDelta2);
+                final double tmpB = (tmpA * (tmpDelta1 + tmpDelta2)) + tmpS1 + tmpS2;
+                final double tmpC = (tmpA * tmpDelta1 * tmpDelta2) + (tmpS1 * tmpDelta2) + (tmpS2 * tmpDelta1);
+
+                // A * step^2 - B * step + C = 0
+                final double tmpDiscriminant = (tmpB * tmpB) - (FOUR * tmpA * tmpC);
+                if (tmpDiscriminant < ZERO) {
+                    tmpStep = NaN;
+                } else {
+                    final double tmpQ = HALF * (tmpB + Math.copySign(SQRT.invoke(tmpDiscriminant), tmpB));
+                    final double tmpStep1 = tmpQ / tmpA;
+                    final double tmpStep2 = tmpC / tmpQ;
+                    final boolean tmpInside1 = ((tmpShift + tmpStep1) > tmpLower) && ((tmpShift + tmpStep1) < tmpUpper);
+                    final boolean tmpInside2 = ((tmpShift + tmpStep2) > tmpLower) && ((tmpShift + tmpStep2) < tmpUpper);
+                    if (tmpInside1 && (!tmpInside2 || (ABS.invoke(tmpStep1) < ABS.invoke(tmpStep2)))) {
+                        tmpStep = tmpStep1;
+                    } else {
+                        tmpStep = tmpStep2;
+                    }
+                }
+            }
+
+            double tmpNext = tmpShift + tmpStep;
+            if (!((tmpNext > tmpLower) && (tmpNext < tmpUpper))) {
+                tmpNext = HALF * (tmpLower + tmpUpper);
+            }
+
+            final boolean tmpConverged = ABS.invoke(tmpNext - tmpShift) <= (TWO * MACHINE_EPSILON * ABS.invoke(tmpNext));
+            tmpShift = tmpNext;
+            if (tmpConverged || ((tmpUpper - tmpLower) <= (TWO * MACHINE_EPSILON * MAX.invoke(ABS.invoke(tmpLower), ABS.invoke(tmpUpper))))) {
+                break;
+            }
+        }
+
+        origins[j] = tmpOrigin;
+        shifts[j] = tmpShift;
+    }
+
+    private static void solve(final double[] d, final double[] e, final double[] q, final int structure, final int first, final int limit) {
+
+        final int tmpSize = limit - first;
+
+        if (tmpSize <= MAX.invoke(LEAF, 2)) {
+
+            TridiagonalEvD.leaf(d, e, q, structure, first, limit);
+
+        } else {
+
+            final int tmpSplit = first + (tmpSize / 2);
+
+            final double tmpRho = e[tmpSplit - 1];
+            final double tmpAbsRho = ABS.invoke(tmpRho);
+            d[tmpSplit - 1] -= tmpAbsRho;
+            d[tmpSplit] -= tmpAbsRho;
+
+            if (tmpSize > THRESHOLD) {
+
+                final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+                    @Override
+                    protected void conquer(final int firstHalf, final int limitHalf) {
+                        for (int h = firstHalf; h < limitHalf; h++) {
+                            if (h == 0) {
+                                TridiagonalEvD.solve(d, e, q, structure, first, tmpSplit);
+                            } else {
+                                TridiagonalEvD.solve(d, e, q, structure, tmpSplit, limit);
+                            }
+                        }
+                    }
+
+                };
+
+                tmpConquerer.invoke(0, 2, 1);
+
+            } else {
+
+                TridiagonalEvD.solve(d, e, q, structure, first, tmpSplit);
+                TridiagonalEvD.solve(d, e, q, structure, tmpSplit, limit);
+            }
+
+            TridiagonalEvD.merge(d, q, structure, first, tmpSplit, limit, tmpRho);
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import java.util.Arrays;
+
+import org.ojalgo.constant.PrimitiveMath;
+import org.ojalgo.matrix.store.operation.MultiplyBoth;
+
+/**
+ * Common parts of the compressed (CSR and CSC) sparse formats. The elements are stored "major" by "major" -
+ * row by row for CSR and column by column for CSC. The nonzeros of major i are at positions
+ * <code>[pointers[i], pointers[i+1])</code> in the indices and values arrays, with the (minor) indices in
+ * increasing order.
+ * <p>
+ * Instances are immutable, and may share their internal arrays with other instances - that's how
+ * {@link #transpose()} is implemented.
+ *
+ * @author apete
+ */
+abstract class CompressedSparseStore extends FactoryStore<Double> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The minimum number of (major) rows/columns per parallel part.
+     */
+    static int threshold() {
+        return MultiplyBoth.THRESHOLD * MultiplyBoth.THRESHOLD;
+    }
+
+    /**
+     * Copy the nonzero elements of a column-major dense product to the target
+     */
+    static void supply(final double[] product, final int rowDim, final int columnDim, final ElementsConsumer<Double> target) {
+        target.reset();
+        for (int j = 0; j < columnDim; j++) {
+            final int tmpBase = j * rowDim;
+            for (int i = 0; i < rowDim; i++) {
+                final double tmpValue = product[tmpBase + i];
+                if (tmpValue != PrimitiveMath.ZERO) {
+                    target.set(i, j, tmpValue);
+                }
+            }
+        }
+    }
+
+    final int[] myIndices;
+    final int[] myPointers;
+    final double[] myValues;
+
+    CompressedSparseStore(final int rowsCount, final int columnsCount, final int[] pointers, final int[] indices, final double[] values) {
+
+        super(PrimitiveDenseStore.FACTORY, rowsCount, columnsCount);
+
+        myPointers = pointers;
+        myIndices = indices;
+        myValues = values;
+    }
+
+    public int countNonzeros() {
+        return myPointers[myPointers.length - 1];
+    }
+
+    public final Double get(final long row, final long col) {
+        return this.doubleValue(row, col);
+    }
+
+    public int[] getIndices() {
+        return myIndices.clone();
+    }
+
+    public int[] getPointers() {
+        return myPointers.clone();
+    }
+
+    public double[] getValues() {
+        return myValues.clone();
+    }
+
+    final int first(final int major, final int minorDim) {
+        final int tmpPointer = myPointers[major];
+        return tmpPointer < myPointers[major + 1] ? myIndices[tmpPointer] : minorDim;
+    }
+
+    final int limit(final int major) {
+        final int tmpPointer = myPointers[major + 1];
+        return tmpPointer > myPointers[major] ? myIndices[tmpPointer - 1] + 1 : 0;
+    }
+
+    final double value(final int major, final int minor) {
+        final int tmpIndex = Arrays.binarySearch(myIndices, myPointers[major], myPointers[major + 1], minor);
+        return tmpIndex >= 0 ? myValues[tmpIndex] : PrimitiveMath.ZERO;
+    }
+
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import org.ojalgo.access.Access1D;
+import org.ojalgo.access.ElementView2D;
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.constant.PrimitiveMath;
+
+/**
+ * Compressed Sparse Column (CSC) format. An immutable sparse matrix primarily intended as the (right) operator
+ * in vector-matrix and dense-sparse matrix multiplications. Those multiplications are partitioned by columns
+ * and executed in parallel without any locking.
+ *
+ * @author apete
+ */
+public final class PrimitiveCSC extends CompressedSparseStore {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param source Any sparse store
+     * @return A CSC copy of the source
+     */
+    public static PrimitiveCSC make(final SparseStore<Double> source) {
+
+        final int tmpRowDim = (int) source.countRows();
+        final int tmpColDim = (int) source.countColumns();
+
+        final int[] tmpPointers = new int[tmpColDim + 1];
+        for (final ElementView2D<Double, ?> nonzero : source.nonzeros()) {
+            tmpPointers[(int) nonzero.column() + 1]++;
+        }
+        for (int j = 0; j < tmpColDim; j++) {
+            tmpPointers[j + 1] += tmpPointers[j];
+        }
+
+        final int tmpNumberOfNonzeros = tmpPointers[tmpColDim];
+        final int[] tmpIndices = new int[tmpNumberOfNonzeros];
+        final double[] tmpValues = new double[tmpNumberOfNonzeros];
+
+        // SparseStore is column-major, the nonzeros already come in CSC order
+        int tmpPosition = 0;
+        for (final ElementView2D<Double, ?> nonzero : source.nonzeros()) {
+            tmpIndices[tmpPosition] = (int) nonzero.row();
+            tmpValues[tmpPosition] = nonzero.doubleValue();
+            tmpPosition++;
+        }
+
+        return new PrimitiveCSC(tmpRowDim, tmpColDim, tmpPointers, tmpIndices, tmpValues);
+    }
+
+    /**
+     * product[:, j] = this * right[:, j] for j in [firstColumn, columnLimit)
+     */
+    static void multiply(final int[] pointers, final int[] indices, final double[] values, final int rowDim, final int complexity,
+            final Access1D<?> right, final int firstColumn, final int columnLimit, final double[] product) {
+
+        for (int j = firstColumn; j < columnLimit; j++) {
+            final long tmpRightBase = j * (long) complexity;
+            final int tmpProductBase = j * rowDim;
+            for (int i = 0; i < rowDim; i++) {
+                product[tmpProductBase + i] = PrimitiveMath.ZERO;
+            }
+            for (int c = 0; c < complexity; c++) {
+                final double tmpFactor = right.doubleValue(tmpRightBase + c);
+                if (tmpFactor != PrimitiveMath.ZERO) {
+                    for (int k = pointers[c], limit = pointers[c + 1]; k < limit; k++) {
+                        product[tmpProductBase + indices[k]] += values[k] * tmpFactor;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * product[:, j] = left * this[:, j] for j in [firstColumn, columnLimit)
+     */
+    static void premultiply(final int[] pointers, final int[] indices, final double[] values, final int rowDim, final Access1D<?> left,
+            final int firstColumn, final int columnLimit, final double[] product) {
+
+        for (int j = firstColumn; j < columnLimit; j++) {
+            final int tmpProductBase = j * rowDim;
+            for (int i = 0; i < rowDim; i++) {
+                double tmpSum = PrimitiveMath.ZERO;
+                for (int k = pointers[j], limit = pointers[j + 1]; k < limit; k++) {
+                    tmpSum += left.doubleValue(i + (indices[k] * (long) rowDim)) * values[k];
+                }
+                product[tmpProductBase + i] = tmpSum;
+            }
+        }
+    }
+
+    PrimitiveCSC(final int rowsCount, final int columnsCount, final int[] pointers, final int[] indices, final double[] values) {
+        super(rowsCount, columnsCount, pointers, indices, values);
+    }
+
+    public double doubleValue(final long row, final long col) {
+        return this.value((int) col, (int) row);
+    }
+
+    @Override
+    public int firstInColumn(final int col) {
+        return this.first(col, this.getRowDim());
+    }
+
+    @Override
+    public int limitOfColumn(final int col) {
+        return this.limit(col);
+    }
+
+    /**
+     * If the target is a {@link PrimitiveDenseStore} the product columns are calculated in parallel, writing
+     * directly to its internal array.
+     */
+    @Override
+    public void multiply(final Access1D<Double> right, final ElementsConsumer<Double> target) {
+
+        final int tmpRowDim = this.getRowDim();
+        final int tmpComplexity = this.getColDim();
+        final int tmpColDim = (int) (right.count() / tmpComplexity);
+
+        final double[] tmpProduct;
+        if (target instanceof PrimitiveDenseStore) {
+            tmpProduct = ((PrimitiveDenseStore) target).data;
+        } else {
+            tmpProduct = new double[tmpRowDim * tmpColDim];
+        }
+
+        if ((tmpColDim > 1) && (((long) this.countNonzeros() * tmpColDim) > CompressedSparseStore.threshold())) {
+
+            final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+                @Override
+                public void conquer(final int first, final int limit) {
+                    PrimitiveCSC.multiply(myPointers, myIndices, myValues, tmpRowDim, tmpComplexity, right, first, limit, tmpProduct);
+                }
+            };
+
+            tmpConquerer.invoke(0, tmpColDim, 1);
+
+        } else {
+
+            PrimitiveCSC.multiply(myPointers, myIndices, myValues, tmpRowDim, tmpComplexity, right, 0, tmpColDim, tmpProduct);
+        }
+
+        if (!(target instanceof PrimitiveDenseStore)) {
+            CompressedSparseStore.supply(tmpProduct, tmpRowDim, tmpColDim, target);
+        }
+    }
+
+    @Override
+    public PrimitiveCSC multiply(final double scalar) {
+
+        final double[] tmpValues = new double[myValues.length];
+        for (int k = 0; k < tmpValues.length; k++) {
+            tmpValues[k] = scalar * myValues[k];
+        }
+
+        return new PrimitiveCSC(this.getRowDim(), this.getColDim(), myPointers, myIndices, tmpValues);
+    }
+
+    @Override
+    public PrimitiveDenseStore multiply(final MatrixStore<Double> right) {
+
+        final PrimitiveDenseStore retVal = PrimitiveDenseStore.FACTORY.makeZero(this.countRows(), right.countColumns());
+
+        this.multiply(right, retVal);
+
+        return retVal;
+    }
+
+    @Override
+    public PrimitiveCSC multiply(final Double scalar) {
+        return this.multiply(scalar.doubleValue());
+    }
+
+    /**
+     * The columns of the product are calculated in parallel.
+     */
+    @Override
+    public PrimitiveDenseStore premultiply(final Access1D<Double> left) {
+
+        final int tmpComplexity = this.getRowDim();
+        final int tmpColDim = this.getColDim();
+        final int tmpRowDim = (int) (left.count() / tmpComplexity);
+
+        final PrimitiveDenseStore retVal = PrimitiveDenseStore.FACTORY.makeZero(tmpRowDim, tmpColDim);
+        final double[] tmpProduct = retVal.data;
+
+        if ((tmpColDim > 1) && (((long) this.countNonzeros() * tmpRowDim) > CompressedSparseStore.threshold())) {
+
+            final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+                @Override
+                public void conquer(final int first, final int limit) {
+                    PrimitiveCSC.premultiply(myPointers, myIndices, myValues, tmpRowDim, left, first, limit, tmpProduct);
+                }
+            };
+
+            tmpConquerer.invoke(0, tmpColDim, 1);
+
+        } else {
+
+            PrimitiveCSC.premultiply(myPointers, myIndices, myValues, tmpRowDim, left, 0, tmpColDim, tmpProduct);
+        }
+
+        return retVal;
+    }
+
+    public void supplyTo(final ElementsConsumer<Double> receiver) {
+
+        receiver.reset();
+
+        for (int j = 0; j < this.getColDim(); j++) {
+            for (int k = myPointers[j], limit = myPointers[j + 1]; k < limit; k++) {
+                receiver.set(myIndices[k], j, myValues[k]);
+            }
+        }
+    }
+
+    /**
+     * The transpose of a CSC matrix is a CSR matrix with the exact same internal arrays. Nothing is copied.
+     */
+    @Override
+    public PrimitiveCSR transpose() {
+        return new PrimitiveCSR(this.getColDim(), this.getRowDim(), myPointers, myIndices, myValues);
+    }
+
+}
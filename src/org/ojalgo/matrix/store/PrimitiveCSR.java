@@ -0,0 +1,211 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import org.ojalgo.access.Access1D;
+import org.ojalgo.access.ElementView2D;
+import org.ojalgo.concurrent.DivideAndConquer;
+import org.ojalgo.constant.PrimitiveMath;
+
+/**
+ * Compressed Sparse Row (CSR) format. An immutable sparse matrix primarily intended as the (left) operator in
+ * matrix-vector and sparse-dense matrix multiplications. Those multiplications are partitioned by rows and
+ * executed in parallel without any locking.
+ *
+ * @author apete
+ */
+public final class PrimitiveCSR extends CompressedSparseStore {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param source Any sparse store
+     * @return A CSR copy of the source
+     */
+    public static PrimitiveCSR make(final SparseStore<Double> source) {
+
+        final int tmpRowDim = (int) source.countRows();
+        final int tmpColDim = (int) source.countColumns();
+
+        final int[] tmpPointers = new int[tmpRowDim + 1];
+        for (final ElementView2D<Double, ?> nonzero : source.nonzeros()) {
+            tmpPointers[(int) nonzero.row() + 1]++;
+        }
+        for (int i = 0; i < tmpRowDim; i++) {
+            tmpPointers[i + 1] += tmpPointers[i];
+        }
+
+        final int tmpNumberOfNonzeros = tmpPointers[tmpRowDim];
+        final int[] tmpIndices = new int[tmpNumberOfNonzeros];
+        final double[] tmpValues = new double[tmpNumberOfNonzeros];
+
+        // The nonzeros are iterated column by column, which means the column indices come in increasing order within each row
+        final int[] tmpCursors = new int[tmpRowDim];
+        System.arraycopy(tmpPointers, 0, tmpCursors, 0, tmpRowDim);
+        for (final ElementView2D<Double, ?> nonzero : source.nonzeros()) {
+            final int tmpPosition = tmpCursors[(int) nonzero.row()]++;
+            tmpIndices[tmpPosition] = (int) nonzero.column();
+            tmpValues[tmpPosition] = nonzero.doubleValue();
+        }
+
+        return new PrimitiveCSR(tmpRowDim, tmpColDim, tmpPointers, tmpIndices, tmpValues);
+    }
+
+    static void multiply(final int[] pointers, final int[] indices, final double[] values, final int firstRow, final int rowLimit, final int rowDim,
+            final int complexity, final Access1D<?> right, final int columnDim, final double[] product) {
+
+        if (right instanceof PrimitiveDenseStore) {
+
+            final double[] tmpRight = ((PrimitiveDenseStore) right).data;
+
+            for (int j = 0; j < columnDim; j++) {
+                final int tmpRightBase = j * complexity;
+                final int tmpProductBase = j * rowDim;
+                for (int i = firstRow; i < rowLimit; i++) {
+                    double tmpSum = PrimitiveMath.ZERO;
+                    for (int k = pointers[i], limit = pointers[i + 1]; k < limit; k++) {
+                        tmpSum += values[k] * tmpRight[tmpRightBase + indices[k]];
+                    }
+                    product[tmpProductBase + i] = tmpSum;
+                }
+            }
+
+        } else {
+
+            for (int j = 0; j < columnDim; j++) {
+                final long tmpRightBase = j * (long) complexity;
+                final int tmpProductBase = j * rowDim;
+                for (int i = firstRow; i < rowLimit; i++) {
+                    double tmpSum = PrimitiveMath.ZERO;
+                    for (int k = pointers[i], limit = pointers[i + 1]; k < limit; k++) {
+                        tmpSum += values[k] * right.doubleValue(tmpRightBase + indices[k]);
+                    }
+                    product[tmpProductBase + i] = tmpSum;
+                }
+            }
+        }
+    }
+
+    PrimitiveCSR(final int rowsCount, final int columnsCount, final int[] pointers, final int[] indices, final double[] values) {
+        super(rowsCount, columnsCount, pointers, indices, values);
+    }
+
+    public double doubleValue(final long row, final long col) {
+        return this.value((int) row, (int) col);
+    }
+
+    @Override
+    public int firstInRow(final int row) {
+        return this.first(row, this.getColDim());
+    }
+
+    @Override
+    public int limitOfRow(final int row) {
+        return this.limit(row);
+    }
+
+    /**
+     * If the target is a {@link PrimitiveDenseStore} the rows are calculated in parallel, writing directly to
+     * its internal array.
+     */
+    @Override
+    public void multiply(final Access1D<Double> right, final ElementsConsumer<Double> target) {
+
+        final int tmpRowDim = this.getRowDim();
+        final int tmpComplexity = this.getColDim();
+        final int tmpColDim = (int) (right.count() / tmpComplexity);
+
+        final double[] tmpProduct;
+        if (target instanceof PrimitiveDenseStore) {
+            tmpProduct = ((PrimitiveDenseStore) target).data;
+        } else {
+            tmpProduct = new double[tmpRowDim * tmpColDim];
+        }
+
+        if (tmpRowDim > CompressedSparseStore.threshold()) {
+
+            final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+                @Override
+                public void conquer(final int first, final int limit) {
+                    PrimitiveCSR.multiply(myPointers, myIndices, myValues, first, limit, tmpRowDim, tmpComplexity, right, tmpColDim, tmpProduct);
+                }
+            };
+
+            tmpConquerer.invoke(0, tmpRowDim, CompressedSparseStore.threshold());
+
+        } else {
+
+            PrimitiveCSR.multiply(myPointers, myIndices, myValues, 0, tmpRowDim, tmpRowDim, tmpComplexity, right, tmpColDim, tmpProduct);
+        }
+
+        if (!(target instanceof PrimitiveDenseStore)) {
+            CompressedSparseStore.supply(tmpProduct, tmpRowDim, tmpColDim, target);
+        }
+    }
+
+    @Override
+    public PrimitiveCSR multiply(final double scalar) {
+
+        final double[] tmpValues = new double[myValues.length];
+        for (int k = 0; k < tmpValues.length; k++) {
+            tmpValues[k] = scalar * myValues[k];
+        }
+
+        return new PrimitiveCSR(this.getRowDim(), this.getColDim(), myPointers, myIndices, tmpValues);
+    }
+
+    @Override
+    public PrimitiveDenseStore multiply(final MatrixStore<Double> right) {
+
+        final PrimitiveDenseStore retVal = PrimitiveDenseStore.FACTORY.makeZero(this.countRows(), right.countColumns());
+
+        this.multiply(right, retVal);
+
+        return retVal;
+    }
+
+    @Override
+    public PrimitiveCSR multiply(final Double scalar) {
+        return this.multiply(scalar.doubleValue());
+    }
+
+    public void supplyTo(final ElementsConsumer<Double> receiver) {
+
+        receiver.reset();
+
+        for (int i = 0; i < this.getRowDim(); i++) {
+            for (int k = myPointers[i], limit = myPointers[i + 1]; k < limit; k++) {
+                receiver.set(i, myIndices[k], myValues[k]);
+            }
+        }
+    }
+
+    /**
+     * The transpose of a CSR matrix is a CSC matrix with the exact same internal arrays. Nothing is copied.
+     */
+    @Override
+    public PrimitiveCSC transpose() {
+        return new PrimitiveCSC(this.getColDim(), this.getRowDim(), myPointers, myIndices, myValues);
+    }
+
+}
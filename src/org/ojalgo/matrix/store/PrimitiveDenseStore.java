@@ -515,6 +515,14 @@ public final class PrimitiveDenseStore extends Primitive64Array implements Physi
         }
     }
 
+    /**
+     * Same as {@link #applyCholesky(int, BasicArray)} but only transforms the columns before columnLimit. Used
+     * within the panels of the blocked algorithm.
+     */
+    public void applyCholesky(final int iterationPoint, final BasicArray<Double> multipliers, final int columnLimit) {
+        ApplyCholesky.invoke(data, myRowDim, iterationPoint + 1, columnLimit, ((Primitive64Array) multipliers).data);
+    }
+
     public void applyLDL(final int iterationPoint, final BasicArray<Double> multipliers) {
 
         final double[] tmpData = data;
@@ -561,6 +569,14 @@ public final class PrimitiveDenseStore extends Primitive64Array implements Physi
         }
     }
 
+    /**
+     * Same as {@link #applyLU(int, BasicArray)} but only transforms the columns before columnLimit. Used
+     * within the panels of the blocked algorithm.
+     */
+    public void applyLU(final int iterationPoint, final BasicArray<Double> multipliers, final int columnLimit) {
+        ApplyLU.invoke(data, myRowDim, iterationPoint + 1, columnLimit, ((Primitive64Array) multipliers).data, iterationPoint);
+    }
+
     public Array1D<Double> asList() {
         return myUtility.asArray1D();
     }
@@ -1110,6 +1126,56 @@ public final class PrimitiveDenseStore extends Primitive64Array implements Physi
         }
     }
 
+    /**
+     * Same as {@link #transformLeft(Householder, int)} but only transforms the columns before columnLimit.
+     * Used within the blocks of the blocked QR decomposition.
+     */
+    public void transformLeft(final Householder<Double> transformation, final int firstColumn, final int columnLimit) {
+        HouseholderLeft.invoke(data, myRowDim, firstColumn, columnLimit, PrimitiveDenseStore.cast(transformation));
+    }
+
+    /**
+     * Applies a block of Householder reflectors, in compact WY form, to the columns [firstColumn,colDim) of
+     * this store. The reflector vectors are stored, QR decomposition style, in the columns [first,limit) of
+     * reflectors, that must have the same number of rows as this store.
+     *
+     * @param reflectors Stores the reflector vectors below its diagonal
+     * @param first The first reflector (column) of the block
+     * @param limit The first reflector (column) NOT part of the block
+     * @param firstColumn The first column of this store to transform
+     * @param transpose false to transform with H<sub>first</sub>...H<sub>limit-1</sub>, true to transform
+     *        with the transpose of that
+     * @see HouseholderBlock
+     */
+    public void transformLeft(final PrimitiveDenseStore reflectors, final int first, final int limit, final int firstColumn, final boolean transpose) {
+
+        final double[] tmpData = data;
+        final int tmpRowDim = myRowDim;
+        final int tmpDepth = limit - first;
+
+        final double[] tmpVectors = HouseholderBlock.vectors(reflectors.data, tmpRowDim, first, limit);
+        final double[] tmpTransposed = HouseholderBlock.transpose(tmpVectors, tmpRowDim - first, tmpDepth);
+        final double[] tmpFactor = HouseholderBlock.factor(tmpVectors, tmpRowDim - first, tmpDepth);
+
+        if ((myColDim - firstColumn) > HouseholderBlock.THRESHOLD) {
+
+            final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+                @Override
+                public void conquer(final int firstCol, final int limitCol) {
+                    HouseholderBlock.invoke(tmpData, tmpRowDim, firstCol, limitCol, first, tmpDepth, tmpVectors, tmpTransposed, tmpFactor, transpose);
+                }
+
+            };
+
+            tmpConquerer.invoke(firstColumn, myColDim, HouseholderBlock.THRESHOLD);
+
+        } else {
+
+            HouseholderBlock.invoke(tmpData, tmpRowDim, firstColumn, myColDim, first, tmpDepth, tmpVectors, tmpTransposed, tmpFactor, transpose);
+        }
+    }
+
     public void transformLeft(final Rotation<Double> transformation) {
 
         final Rotation.Primitive tmpTransf = PrimitiveDenseStore.cast(transformation);
@@ -1200,6 +1266,58 @@ public final class PrimitiveDenseStore extends Primitive64Array implements Physi
         HouseholderHermitian.tred2j(data, ((Primitive64Array) mainDiagonal).data, ((Primitive64Array) offDiagonal).data, yesvecs);
     }
 
+    /**
+     * Blocked Cholesky: Applies the transformations of the already decomposed panel [panelFirst,panelLimit)
+     * to all columns to the right of it.
+     */
+    public void updateCholesky(final int panelFirst, final int panelLimit) {
+
+        final double[] tmpData = data;
+
+        if ((myColDim - panelLimit) > ApplyCholesky.THRESHOLD) {
+
+            final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int first, final int limit) {
+                    ApplyCholesky.invoke(tmpData, myRowDim, first, limit, panelFirst, panelLimit);
+                }
+            };
+
+            tmpConquerer.invoke(panelLimit, myColDim, ApplyCholesky.THRESHOLD);
+
+        } else {
+
+            ApplyCholesky.invoke(tmpData, myRowDim, panelLimit, myColDim, panelFirst, panelLimit);
+        }
+    }
+
+    /**
+     * Blocked LU: Applies the transformations of the already decomposed panel [panelFirst,panelLimit) to all
+     * columns to the right of it.
+     */
+    public void updateLU(final int panelFirst, final int panelLimit) {
+
+        final double[] tmpData = data;
+
+        if ((myColDim - panelLimit) > ApplyLU.THRESHOLD) {
+
+            final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+                @Override
+                protected void conquer(final int first, final int limit) {
+                    ApplyLU.invoke(tmpData, myRowDim, first, limit, panelFirst, panelLimit);
+                }
+            };
+
+            tmpConquerer.invoke(panelLimit, myColDim, ApplyLU.THRESHOLD);
+
+        } else {
+
+            ApplyLU.invoke(tmpData, myRowDim, panelLimit, myColDim, panelFirst, panelLimit);
+        }
+    }
+
     public void visitColumn(final long row, final long col, final VoidFunction<Double> visitor) {
         myUtility.visitColumn(row, col, visitor);
     }
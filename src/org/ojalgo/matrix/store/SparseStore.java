@@ -42,6 +42,72 @@ import org.ojalgo.type.context.NumberContext;
 
 public final class SparseStore<N extends Number> extends FactoryStore<N> implements ElementsConsumer<N> {
 
+    /**
+     * Collects (row, column, value) triplets in any order (COO format) and then creates the {@link SparseStore}
+     * in one go. See {@link SparseArray.Builder} for how duplicates are handled.
+     */
+    public static final class Builder<N extends Number> {
+
+        private final int myColumnsCount;
+        private final SparseArray.Builder<N> myDelegate;
+        private final PhysicalStore.Factory<N, ?> myFactory;
+        private final int myRowsCount;
+
+        Builder(final PhysicalStore.Factory<N, ?> factory, final int rowsCount, final int columnsCount, final int capacity) {
+
+            super();
+
+            myFactory = factory;
+            myRowsCount = rowsCount;
+            myColumnsCount = columnsCount;
+
+            myDelegate = SparseArray.factory(factory.array(), rowsCount * (long) columnsCount).builder(capacity);
+        }
+
+        public void add(final long row, final long col, final double addend) {
+            myDelegate.add(Structure2D.index(myRowsCount, row, col), addend);
+        }
+
+        public void add(final long row, final long col, final Number addend) {
+            myDelegate.add(Structure2D.index(myRowsCount, row, col), addend);
+        }
+
+        /**
+         * @return The number of (not yet merged) triplets
+         */
+        public int countTriplets() {
+            return myDelegate.countPairs();
+        }
+
+        public SparseStore<N> make() {
+
+            final SparseStore<N> retVal = new SparseStore<>(myFactory, myRowsCount, myColumnsCount);
+
+            myDelegate.supplyTo(retVal.myElements);
+
+            final SparseArray.NonzeroView<N> tmpNonzeros = retVal.myElements.nonzeros();
+            while (tmpNonzeros.hasNext()) {
+                final long tmpIndex = tmpNonzeros.next().index();
+                retVal.updateNonZeros((int) (tmpIndex % myRowsCount), (int) (tmpIndex / myRowsCount));
+            }
+
+            return retVal;
+        }
+
+        public void reset() {
+            myDelegate.reset();
+        }
+
+        public void set(final long row, final long col, final double value) {
+            myDelegate.set(Structure2D.index(myRowsCount, row, col), value);
+        }
+
+        public void set(final long row, final long col, final Number value) {
+            myDelegate.set(Structure2D.index(myRowsCount, row, col), value);
+        }
+
+    }
+
     public static interface Factory<N extends Number> {
 
         SparseStore<N> make(long rowsCount, long columnsCount);
@@ -54,6 +120,14 @@ public final class SparseStore<N extends Number> extends FactoryStore<N> impleme
 
     public static final SparseStore.Factory<Double> PRIMITIVE = (rowsCount, columnsCount) -> SparseStore.makePrimitive((int) rowsCount, (int) columnsCount);
 
+    /**
+     * @param capacity The expected number of triplets
+     */
+    public static <N extends Number> SparseStore.Builder<N> builder(final PhysicalStore.Factory<N, ?> factory, final int rowsCount, final int columnsCount,
+            final int capacity) {
+        return new SparseStore.Builder<>(factory, rowsCount, columnsCount, capacity);
+    }
+
     public static SparseStore<BigDecimal> makeBig(final int rowsCount, final int columnsCount) {
         return new SparseStore<>(BigDenseStore.FACTORY, rowsCount, columnsCount);
     }
@@ -66,6 +140,7 @@ public final class SparseStore<N extends Number> extends FactoryStore<N> impleme
         return new SparseStore<>(PrimitiveDenseStore.FACTORY, rowsCount, columnsCount);
     }
 
+    private transient volatile PrimitiveCSR myCSR = null;
     private final SparseArray<N> myElements;
     private final int[] myFirsts;
     private final int[] myLimits;
@@ -218,9 +293,20 @@ public final class SparseStore<N extends Number> extends FactoryStore<N> impleme
         }
     }
 
+    @SuppressWarnings("unchecked")
     public void multiply(final Access1D<N> right, final ElementsConsumer<N> target) {
 
-        if (this.isPrimitive()) {
+        if (this.isPrimitive() && (target instanceof PrimitiveDenseStore)) {
+
+            PrimitiveCSR tmpCSR = myCSR;
+            if (tmpCSR == null) {
+                tmpCSR = PrimitiveCSR.make((SparseStore<Double>) this);
+                myCSR = tmpCSR;
+            }
+
+            tmpCSR.multiply((Access1D<Double>) right, (PrimitiveDenseStore) target);
+
+        } else if (this.isPrimitive()) {
 
             final long structure = this.countColumns();
             final long numberOfColumns = target.countColumns();
@@ -345,6 +431,7 @@ public final class SparseStore<N extends Number> extends FactoryStore<N> impleme
 
     public void reset() {
         myElements.reset();
+        myCSR = null;
         Arrays.fill(myFirsts, this.getColDim());
         Arrays.fill(myLimits, 0);
     }
@@ -371,6 +458,7 @@ public final class SparseStore<N extends Number> extends FactoryStore<N> impleme
     }
 
     void updateNonZeros(final int row, final int col) {
+        myCSR = null;
         myFirsts[row] = Math.min(col, myFirsts[row]);
         myLimits[row] = Math.max(col + 1, myLimits[row]);
     }
@@ -24,10 +24,19 @@ package org.ojalgo.matrix.store.operation;
 import java.math.BigDecimal;
 
 import org.ojalgo.array.blas.AXPY;
+import org.ojalgo.array.blas.GEMM;
+import org.ojalgo.constant.PrimitiveMath;
 import org.ojalgo.scalar.Scalar;
 
 public final class ApplyCholesky extends MatrixOperation {
 
+    /**
+     * The panel width of the blocked (right-looking) algorithm. Primitive matrices with at least 4 panels are
+     * decomposed one panel at a time, and the trailing submatrix is updated using {@link GEMM}. Set to 0 to
+     * always use the unblocked algorithm.
+     */
+    public static int BLOCK = 64;
+
     public static final ApplyCholesky SETUP = new ApplyCholesky();
 
     public static int THRESHOLD = 128;
@@ -44,6 +53,46 @@ public final class ApplyCholesky extends MatrixOperation {
         }
     }
 
+    /**
+     * Blocked (trailing submatrix) update. The panel columns [panelFirst,panelLimit) already contain L below
+     * the diagonal. Their contribution is subtracted from the lower triangular part of the columns
+     * [firstColumn,columnLimit), all of which are to the right of the panel.
+     */
+    public static void invoke(final double[] data, final int structure, final int firstColumn, final int columnLimit, final int panelFirst,
+            final int panelLimit) {
+
+        final int tmpDepth = panelLimit - panelFirst;
+        final int tmpStep = Math.max(GEMM.THRESHOLD, tmpDepth);
+
+        // The rows of the panel corresponding to the columns, transposed
+        final double[] tmpTransposed = new double[tmpDepth * Math.min(tmpStep, columnLimit - firstColumn)];
+
+        for (int tmpFirst = firstColumn; tmpFirst < columnLimit; tmpFirst += tmpStep) {
+            final int tmpLimit = Math.min(tmpFirst + tmpStep, columnLimit);
+            final int tmpWidth = tmpLimit - tmpFirst;
+
+            for (int j = 0; j < tmpWidth; j++) {
+                for (int p = 0; p < tmpDepth; p++) {
+                    tmpTransposed[p + (j * tmpDepth)] = data[tmpFirst + j + ((panelFirst + p) * structure)];
+                }
+            }
+
+            // The diagonal block - lower triangular part only
+            for (int j = tmpFirst; j < tmpLimit; j++) {
+                for (int p = 0; p < tmpDepth; p++) {
+                    final double tmpFactor = tmpTransposed[p + ((j - tmpFirst) * tmpDepth)];
+                    if (tmpFactor != PrimitiveMath.ZERO) {
+                        AXPY.invoke(data, j * structure, -tmpFactor, data, (panelFirst + p) * structure, j, tmpLimit);
+                    }
+                }
+            }
+
+            // Everything below the diagonal block
+            GEMM.invoke(data, structure, tmpLimit, tmpFirst, structure - tmpLimit, tmpWidth, PrimitiveMath.NEG, data, structure, tmpLimit, panelFirst,
+                    tmpDepth, tmpTransposed, tmpDepth, 0, 0);
+        }
+    }
+
     public static <N extends Number & Scalar<N>> void invoke(final N[] data, final int structure, final int firstColumn, final int columnLimit,
             final N[] multipliers) {
         for (int j = firstColumn; j < columnLimit; j++) {
@@ -24,10 +24,19 @@ package org.ojalgo.matrix.store.operation;
 import java.math.BigDecimal;
 
 import org.ojalgo.array.blas.AXPY;
+import org.ojalgo.array.blas.GEMM;
+import org.ojalgo.constant.PrimitiveMath;
 import org.ojalgo.scalar.Scalar;
 
 public final class ApplyLU extends MatrixOperation {
 
+    /**
+     * The panel width of the blocked (right-looking) algorithm. Primitive matrices with at least 4 panels are
+     * decomposed one panel at a time, and the trailing submatrix is updated using {@link GEMM}. Set to 0 to
+     * always use the unblocked algorithm.
+     */
+    public static int BLOCK = 64;
+
     public static final ApplyLU SETUP = new ApplyLU();
 
     public static int THRESHOLD = 256;
@@ -46,6 +55,29 @@ public final class ApplyLU extends MatrixOperation {
         }
     }
 
+    /**
+     * Blocked (trailing submatrix) update. The panel columns [panelFirst,panelLimit) already contain L (unit
+     * diagonal) and U. For the columns [firstColumn,columnLimit), all to the right of the panel, the panel
+     * rows are first transformed to U by forward substitution, and then their contribution is subtracted from
+     * all rows below the panel.
+     */
+    public static void invoke(final double[] data, final int structure, final int firstColumn, final int columnLimit, final int panelFirst,
+            final int panelLimit) {
+
+        for (int j = firstColumn; j < columnLimit; j++) {
+            final int tmpColumn = j * structure;
+            for (int p = panelFirst; p < panelLimit; p++) {
+                final double tmpFactor = data[p + tmpColumn];
+                if (tmpFactor != PrimitiveMath.ZERO) {
+                    AXPY.invoke(data, tmpColumn, -tmpFactor, data, p * structure, p + 1, panelLimit);
+                }
+            }
+        }
+
+        GEMM.invoke(data, structure, panelLimit, firstColumn, structure - panelLimit, columnLimit - firstColumn, PrimitiveMath.NEG, data, structure,
+                panelLimit, panelFirst, panelLimit - panelFirst, data, structure, panelFirst, firstColumn);
+    }
+
     public static <N extends Number & Scalar<N>> void invoke(final N[] data, final int structure, final int firstColumn, final int columnLimit,
             final N[] multipliers, final int iterationPoint) {
         for (int j = firstColumn; j < columnLimit; j++) {
@@ -0,0 +1,202 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store.operation;
+
+import org.ojalgo.array.blas.DOT;
+import org.ojalgo.array.blas.GEMM;
+import org.ojalgo.constant.PrimitiveMath;
+import org.ojalgo.scalar.PrimitiveScalar;
+
+/**
+ * A block of consecutive Householder reflectors, H<sub>0</sub>H<sub>1</sub>...H<sub>b-1</sub>, in compact WY
+ * form: I - V T V<sup>T</sup> where V holds the reflector vectors and T is upper triangular. Applying the
+ * block is done with matrix-matrix operations.
+ *
+ * @author apete
+ */
+public final class HouseholderBlock extends MatrixOperation {
+
+    /**
+     * The number of reflectors in each block. Primitive QR decompositions with at least 4 blocks worth of
+     * columns accumulate their reflectors in blocks. Set to 0 to always apply the reflectors one at a time.
+     */
+    public static int BLOCK = 32;
+
+    public static final HouseholderBlock SETUP = new HouseholderBlock();
+
+    public static int THRESHOLD = 64;
+
+    /**
+     * Applies the block (or its transpose) to the columns [firstColumn,columnLimit) of data - only the rows
+     * [first,structure) are affected.
+     *
+     * @param data The matrix to transform
+     * @param structure The number of rows in data (and in the reflector vectors)
+     * @param firstColumn The first column to transform
+     * @param columnLimit The first column NOT to transform
+     * @param first The first row of the block, where the first reflector vector starts
+     * @param depth The number of reflectors in the block
+     * @param vectors The reflector vectors, V, as created by {@link #vectors(double[], int, int, int)}
+     * @param transposed V<sup>T</sup>, as created by {@link #transpose(double[], int, int)}
+     * @param factor The triangular factor, T, as created by {@link #factor(double[], int, int)}
+     * @param transpose true to apply I - V T<sup>T</sup> V<sup>T</sup> rather than I - V T V<sup>T</sup>
+     */
+    public static void invoke(final double[] data, final int structure, final int firstColumn, final int columnLimit, final int first, final int depth,
+            final double[] vectors, final double[] transposed, final double[] factor, final boolean transpose) {
+
+        final int tmpRows = structure - first;
+        final int tmpDepth = depth;
+        final int tmpWidth = columnLimit - firstColumn;
+
+        // W = V^T C
+        final double[] tmpWork = new double[tmpDepth * tmpWidth];
+        GEMM.invoke(tmpWork, tmpDepth, 0, 0, tmpDepth, tmpWidth, PrimitiveMath.ONE, transposed, tmpDepth, 0, 0, tmpRows, data, structure, first,
+                firstColumn);
+
+        // W = T W or W = T^T W
+        for (int j = 0; j < tmpWidth; j++) {
+            final int tmpBase = j * tmpDepth;
+            if (transpose) {
+                for (int i = tmpDepth - 1; i >= 0; i--) {
+                    double tmpSum = PrimitiveMath.ZERO;
+                    for (int p = 0; p <= i; p++) {
+                        tmpSum += factor[p + (i * tmpDepth)] * tmpWork[tmpBase + p];
+                    }
+                    tmpWork[tmpBase + i] = tmpSum;
+                }
+            } else {
+                for (int i = 0; i < tmpDepth; i++) {
+                    double tmpSum = PrimitiveMath.ZERO;
+                    for (int p = i; p < tmpDepth; p++) {
+                        tmpSum += factor[i + (p * tmpDepth)] * tmpWork[tmpBase + p];
+                    }
+                    tmpWork[tmpBase + i] = tmpSum;
+                }
+            }
+        }
+
+        // C -= V W
+        GEMM.invoke(data, structure, first, firstColumn, tmpRows, tmpWidth, PrimitiveMath.NEG, vectors, tmpRows, 0, 0, tmpDepth, tmpWork, tmpDepth, 0,
+                0);
+    }
+
+    /**
+     * @param vectors The reflector vectors, as created by {@link #vectors(double[], int, int, int)}
+     * @param rows The number of rows in vectors
+     * @param depth The number of reflector vectors
+     * @return The upper triangular factor T (depth x depth, column-major)
+     */
+    public static double[] factor(final double[] vectors, final int rows, final int depth) {
+
+        final double[] retVal = new double[depth * depth];
+        final double[] tmpProducts = new double[depth];
+
+        for (int j = 0; j < depth; j++) {
+
+            final int tmpBaseJ = j * rows;
+
+            final double tmpNorm2 = DOT.invoke(vectors, tmpBaseJ, vectors, tmpBaseJ, j, rows);
+            final double tmpBeta = tmpNorm2 > PrimitiveMath.ZERO ? PrimitiveMath.TWO / tmpNorm2 : PrimitiveMath.ZERO;
+
+            if (tmpBeta != PrimitiveMath.ZERO) {
+
+                for (int p = 0; p < j; p++) {
+                    tmpProducts[p] = DOT.invoke(vectors, p * rows, vectors, tmpBaseJ, j, rows);
+                }
+
+                // T[0:j,j] = -beta T[0:j,0:j] V[:,0:j]^T v
+                for (int i = 0; i < j; i++) {
+                    double tmpSum = PrimitiveMath.ZERO;
+                    for (int p = i; p < j; p++) {
+                        tmpSum += retVal[i + (p * depth)] * tmpProducts[p];
+                    }
+                    retVal[i + (j * depth)] = -tmpBeta * tmpSum;
+                }
+            }
+
+            retVal[j + (j * depth)] = tmpBeta;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * @param vectors The reflector vectors, as created by {@link #vectors(double[], int, int, int)}
+     * @param rows The number of rows in vectors
+     * @param depth The number of reflector vectors
+     * @return V<sup>T</sup>
+     */
+    public static double[] transpose(final double[] vectors, final int rows, final int depth) {
+        final double[] retVal = new double[depth * rows];
+        for (int j = 0; j < depth; j++) {
+            for (int i = j; i < rows; i++) {
+                retVal[j + (i * depth)] = vectors[i + (j * rows)];
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Copies the reflector vectors stored (below the diagonal, with an implicit unit diagonal element) in the
+     * columns [first,limit) of data. Vectors that are small (compared to 1) are considered to be zero, just
+     * as when the reflectors are applied one at a time.
+     *
+     * @return V with the rows [first,structure) and the columns [first,limit) of data
+     */
+    public static double[] vectors(final double[] data, final int structure, final int first, final int limit) {
+
+        final int tmpRows = structure - first;
+        final int tmpDepth = limit - first;
+
+        final double[] retVal = new double[tmpRows * tmpDepth];
+
+        for (int j = 0; j < tmpDepth; j++) {
+
+            final int tmpSource = first + ((first + j) * structure);
+            final int tmpDestination = j * tmpRows;
+
+            boolean tmpZero = true;
+            for (int i = j + 1; tmpZero && (i < tmpRows); i++) {
+                tmpZero &= PrimitiveScalar.isSmall(PrimitiveMath.ONE, data[tmpSource + i]);
+            }
+
+            if (!tmpZero) {
+                retVal[tmpDestination + j] = PrimitiveMath.ONE;
+                for (int i = j + 1; i < tmpRows; i++) {
+                    retVal[tmpDestination + i] = data[tmpSource + i];
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    private HouseholderBlock() {
+        super();
+    }
+
+    @Override
+    public int threshold() {
+        return THRESHOLD;
+    }
+
+}
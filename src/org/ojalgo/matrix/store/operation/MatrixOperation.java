@@ -23,6 +23,7 @@ package org.ojalgo.matrix.store.operation;
 
 import org.ojalgo.OjAlgoUtils;
 import org.ojalgo.array.blas.AXPY;
+import org.ojalgo.array.blas.GEMM;
 
 /**
  * @author apete
@@ -51,9 +52,11 @@ public abstract class MatrixOperation {
         ApplyLU.THRESHOLD = Math.min(maxValue, ApplyLU.THRESHOLD);
         FillMatchingDual.THRESHOLD = Math.min(maxValue, FillMatchingDual.THRESHOLD);
         FillMatchingSingle.THRESHOLD = Math.min(maxValue, FillMatchingSingle.THRESHOLD);
+        GEMM.THRESHOLD = Math.min(maxValue, GEMM.THRESHOLD);
         GenerateApplyAndCopyHouseholderColumn.THRESHOLD = Math.min(maxValue, GenerateApplyAndCopyHouseholderColumn.THRESHOLD);
         GenerateApplyAndCopyHouseholderRow.THRESHOLD = Math.min(maxValue, GenerateApplyAndCopyHouseholderRow.THRESHOLD);
         HermitianRank2Update.THRESHOLD = Math.min(maxValue, HermitianRank2Update.THRESHOLD);
+        HouseholderBlock.THRESHOLD = Math.min(maxValue, HouseholderBlock.THRESHOLD);
         HouseholderLeft.THRESHOLD = Math.min(maxValue, HouseholderLeft.THRESHOLD);
         HouseholderRight.THRESHOLD = Math.min(maxValue, HouseholderRight.THRESHOLD);
         AXPY.THRESHOLD = Math.min(maxValue, AXPY.THRESHOLD);
@@ -80,9 +83,11 @@ public abstract class MatrixOperation {
         ApplyLU.THRESHOLD = Math.max(minValue, ApplyLU.THRESHOLD);
         FillMatchingDual.THRESHOLD = Math.max(minValue, FillMatchingDual.THRESHOLD);
         FillMatchingSingle.THRESHOLD = Math.max(minValue, FillMatchingSingle.THRESHOLD);
+        GEMM.THRESHOLD = Math.max(minValue, GEMM.THRESHOLD);
         GenerateApplyAndCopyHouseholderColumn.THRESHOLD = Math.max(minValue, GenerateApplyAndCopyHouseholderColumn.THRESHOLD);
         GenerateApplyAndCopyHouseholderRow.THRESHOLD = Math.max(minValue, GenerateApplyAndCopyHouseholderRow.THRESHOLD);
         HermitianRank2Update.THRESHOLD = Math.max(minValue, HermitianRank2Update.THRESHOLD);
+        HouseholderBlock.THRESHOLD = Math.max(minValue, HouseholderBlock.THRESHOLD);
         HouseholderLeft.THRESHOLD = Math.max(minValue, HouseholderLeft.THRESHOLD);
         HouseholderRight.THRESHOLD = Math.max(minValue, HouseholderRight.THRESHOLD);
         AXPY.THRESHOLD = Math.max(minValue, AXPY.THRESHOLD);
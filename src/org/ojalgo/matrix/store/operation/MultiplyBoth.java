@@ -23,10 +23,12 @@ package org.ojalgo.matrix.store.operation;
 
 import java.lang.reflect.Array;
 import java.math.BigDecimal;
+import java.util.Arrays;
 
 import org.ojalgo.ProgrammingError;
 import org.ojalgo.access.Access1D;
 import org.ojalgo.array.blas.AXPY;
+import org.ojalgo.array.blas.GEMM;
 import org.ojalgo.concurrent.DivideAndConquer;
 import org.ojalgo.constant.BigMath;
 import org.ojalgo.constant.PrimitiveMath;
@@ -35,6 +37,7 @@ import org.ojalgo.matrix.MatrixUtils;
 import org.ojalgo.matrix.store.BigDenseStore.BigMultiplyBoth;
 import org.ojalgo.matrix.store.ElementsConsumer;
 import org.ojalgo.matrix.store.GenericDenseStore.GenericMultiplyBoth;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
 import org.ojalgo.matrix.store.PrimitiveDenseStore.PrimitiveMultiplyBoth;
 import org.ojalgo.scalar.Scalar;
 
@@ -562,6 +565,45 @@ public final class MultiplyBoth extends MatrixOperation {
         }
     };
 
+    static final PrimitiveMultiplyBoth PRIMITIVE_BLOCKED = (product, left, complexity, right) -> {
+
+        if (complexity < GEMM.THRESHOLD) {
+            MultiplyBoth.PRIMITIVE_MT.invoke(product, left, complexity, right);
+            return;
+        }
+
+        final int tmpRowDim = ((int) left.count()) / complexity;
+        final int tmpColDim = (int) (right.count() / complexity);
+
+        final boolean tmpInPlace = (product instanceof PrimitiveDenseStore) && (product.count() == (tmpRowDim * tmpColDim));
+
+        final double[] tmpProduct;
+        if (tmpInPlace) {
+            tmpProduct = ((PrimitiveDenseStore) product).data;
+            Arrays.fill(tmpProduct, PrimitiveMath.ZERO);
+        } else {
+            tmpProduct = new double[tmpRowDim * tmpColDim];
+        }
+
+        final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+            @Override
+            public void conquer(final int first, final int limit) {
+                GEMM.invoke(tmpProduct, first, limit, left, complexity, right);
+            }
+        };
+
+        tmpConquerer.invoke(0, tmpColDim, GEMM.THRESHOLD);
+
+        if (!tmpInPlace) {
+            for (int j = 0; j < tmpColDim; j++) {
+                for (int i = 0; i < tmpRowDim; i++) {
+                    product.set(i, j, tmpProduct[i + (j * tmpRowDim)]);
+                }
+            }
+        }
+    };
+
     static final PrimitiveMultiplyBoth PRIMITIVE_MT = (product, left, complexity, right) -> {
 
         final DivideAndConquer tmpConquerer = new DivideAndConquer() {
@@ -607,7 +649,9 @@ public final class MultiplyBoth extends MatrixOperation {
     }
 
     public static PrimitiveMultiplyBoth getPrimitive(final long rows, final long columns) {
-        if (rows > THRESHOLD) {
+        if ((rows >= GEMM.THRESHOLD) && (columns >= GEMM.THRESHOLD)) {
+            return PRIMITIVE_BLOCKED;
+        } else if (rows > THRESHOLD) {
             return PRIMITIVE_MT;
         } else if (rows == 10) {
             return PRIMITIVE_0XN;
@@ -26,6 +26,7 @@ import java.util.Arrays;
 
 import org.ojalgo.access.Access1D;
 import org.ojalgo.array.blas.AXPY;
+import org.ojalgo.array.blas.GEMM;
 import org.ojalgo.concurrent.DivideAndConquer;
 import org.ojalgo.constant.BigMath;
 import org.ojalgo.constant.PrimitiveMath;
@@ -562,6 +563,28 @@ public final class MultiplyLeft extends MatrixOperation {
         }
     };
 
+    static final PrimitiveMultiplyLeft PRIMITIVE_BLOCKED = (product, left, complexity, right) -> {
+
+        if (complexity < GEMM.THRESHOLD) {
+            MultiplyLeft.PRIMITIVE_MT.invoke(product, left, complexity, right);
+            return;
+        }
+
+        Arrays.fill(product, 0.0);
+
+        final Access1D<Double> tmpRight = Access1D.wrap(right);
+
+        final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+            @Override
+            public void conquer(final int first, final int limit) {
+                GEMM.invoke(product, first, limit, left, complexity, tmpRight);
+            }
+        };
+
+        tmpConquerer.invoke(0, right.length / complexity, GEMM.THRESHOLD);
+    };
+
     static final PrimitiveMultiplyLeft PRIMITIVE_MT = (product, left, complexity, right) -> {
 
         Arrays.fill(product, 0.0);
@@ -616,7 +639,9 @@ public final class MultiplyLeft extends MatrixOperation {
     }
 
     public static PrimitiveMultiplyLeft getPrimitive(final long rows, final long columns) {
-        if (rows > THRESHOLD) {
+        if ((rows >= GEMM.THRESHOLD) && (columns >= GEMM.THRESHOLD)) {
+            return PRIMITIVE_BLOCKED;
+        } else if (rows > THRESHOLD) {
             return PRIMITIVE_MT;
         } else if (rows == 10) {
             return PRIMITIVE_0XN;
@@ -24,7 +24,9 @@ package org.ojalgo.matrix.store.operation;
 import java.math.BigDecimal;
 import java.util.Arrays;
 
+import org.ojalgo.access.Access1D;
 import org.ojalgo.array.blas.AXPY;
+import org.ojalgo.array.blas.GEMM;
 import org.ojalgo.concurrent.DivideAndConquer;
 import org.ojalgo.constant.BigMath;
 import org.ojalgo.constant.PrimitiveMath;
@@ -560,6 +562,29 @@ public final class MultiplyNeither extends MatrixOperation {
         }
     };
 
+    static final PrimitiveMultiplyNeither PRIMITIVE_BLOCKED = (product, left, complexity, right) -> {
+
+        if (complexity < GEMM.THRESHOLD) {
+            MultiplyNeither.PRIMITIVE_MT.invoke(product, left, complexity, right);
+            return;
+        }
+
+        Arrays.fill(product, 0.0);
+
+        final Access1D<Double> tmpLeft = Access1D.wrap(left);
+        final Access1D<Double> tmpRight = Access1D.wrap(right);
+
+        final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+            @Override
+            public void conquer(final int first, final int limit) {
+                GEMM.invoke(product, first, limit, tmpLeft, complexity, tmpRight);
+            }
+        };
+
+        tmpConquerer.invoke(0, right.length / complexity, GEMM.THRESHOLD);
+    };
+
     static final PrimitiveMultiplyNeither PRIMITIVE_MT = (product, left, complexity, right) -> {
 
         Arrays.fill(product, 0.0);
@@ -614,7 +639,9 @@ public final class MultiplyNeither extends MatrixOperation {
     }
 
     public static PrimitiveMultiplyNeither getPrimitive(final long rows, final long columns) {
-        if (rows > THRESHOLD) {
+        if ((rows >= GEMM.THRESHOLD) && (columns >= GEMM.THRESHOLD)) {
+            return PRIMITIVE_BLOCKED;
+        } else if (rows > THRESHOLD) {
             return PRIMITIVE_MT;
         } else if (rows == 10) {
             return PRIMITIVE_0XN;
@@ -0,0 +1,450 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store.operation;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+
+import org.ojalgo.OjAlgoUtils;
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.array.blas.AXPY;
+import org.ojalgo.array.blas.GEMM;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.function.aggregator.Aggregator;
+import org.ojalgo.matrix.MatrixUtils;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.transformation.Householder;
+import org.ojalgo.random.Uniform;
+
+/**
+ * A set of {@link MatrixOperation} thresholds - the matrix size at which each operation switches from
+ * sequential to parallel execution. A profile can be calibrated on the current hardware, applied, saved to
+ * and loaded from a (properties) file. Typically you'd do something like this once, at startup:
+ *
+ * <pre>
+ * ThresholdProfile.loadOrCalibrate(new File("ojalgo-thresholds.properties")).apply();
+ * </pre>
+ *
+ * @author apete
+ */
+public final class ThresholdProfile {
+
+    static final class Entry {
+
+        final IntSupplier getter;
+        final IntConsumer setter;
+        /**
+         * Given a matrix size, prepares input data and returns a task that executes the operation once. May
+         * be null for operations that don't (yet) have any parallel implementation.
+         */
+        final IntFunction<Runnable> workload;
+
+        Entry(final IntSupplier getter, final IntConsumer setter, final IntFunction<Runnable> workload) {
+            super();
+            this.getter = getter;
+            this.setter = setter;
+            this.workload = workload;
+        }
+
+    }
+
+    /**
+     * The default largest matrix size used when calibrating.
+     */
+    public static final int DEFAULT_MAX_DIM = 256;
+
+    static final int MIN_DIM = 8;
+    static final int REPETITIONS = 5;
+    static final int WARMUP = 2;
+
+    private static final Map<String, Entry> ENTRIES = new LinkedHashMap<>();
+
+    static {
+
+        ENTRIES.put(AggregateAll.class.getSimpleName(), new Entry(() -> AggregateAll.THRESHOLD, value -> AggregateAll.THRESHOLD = value, dim -> {
+            final PrimitiveDenseStore tmpStore = ThresholdProfile.random(dim, dim);
+            return () -> tmpStore.aggregateAll(Aggregator.SUM);
+        }));
+
+        ENTRIES.put(ApplyCholesky.class.getSimpleName(), new Entry(() -> ApplyCholesky.THRESHOLD, value -> ApplyCholesky.THRESHOLD = value, dim -> {
+            final PrimitiveDenseStore tmpStore = MatrixUtils.makeSPD(dim);
+            final Primitive64Array tmpMultipliers = ThresholdProfile.multipliers(dim);
+            return () -> tmpStore.applyCholesky(0, tmpMultipliers);
+        }));
+
+        ENTRIES.put(ApplyLDL.class.getSimpleName(), new Entry(() -> ApplyLDL.THRESHOLD, value -> ApplyLDL.THRESHOLD = value, dim -> {
+            final PrimitiveDenseStore tmpStore = MatrixUtils.makeSPD(dim);
+            final Primitive64Array tmpMultipliers = ThresholdProfile.multipliers(dim);
+            return () -> tmpStore.applyLDL(0, tmpMultipliers);
+        }));
+
+        ENTRIES.put(ApplyLU.class.getSimpleName(), new Entry(() -> ApplyLU.THRESHOLD, value -> ApplyLU.THRESHOLD = value, dim -> {
+            final PrimitiveDenseStore tmpStore = ThresholdProfile.random(dim, dim);
+            final Primitive64Array tmpMultipliers = ThresholdProfile.multipliers(dim);
+            return () -> tmpStore.applyLU(0, tmpMultipliers);
+        }));
+
+        ENTRIES.put(AXPY.class.getSimpleName(), new Entry(() -> AXPY.THRESHOLD, value -> AXPY.THRESHOLD = value, null));
+
+        ENTRIES.put(FillMatchingDual.class.getSimpleName(),
+                new Entry(() -> FillMatchingDual.THRESHOLD, value -> FillMatchingDual.THRESHOLD = value, dim -> {
+                    final PrimitiveDenseStore tmpTarget = PrimitiveDenseStore.FACTORY.makeZero(dim, dim);
+                    final PrimitiveDenseStore tmpLeft = ThresholdProfile.random(dim, dim);
+                    final PrimitiveDenseStore tmpRight = ThresholdProfile.random(dim, dim);
+                    return () -> tmpTarget.fillMatching(tmpLeft, PrimitiveFunction.ADD, tmpRight);
+                }));
+
+        ENTRIES.put(FillMatchingSingle.class.getSimpleName(),
+                new Entry(() -> FillMatchingSingle.THRESHOLD, value -> FillMatchingSingle.THRESHOLD = value, dim -> {
+                    final PrimitiveDenseStore tmpTarget = PrimitiveDenseStore.FACTORY.makeZero(dim, dim);
+                    final PrimitiveDenseStore tmpSource = ThresholdProfile.random(dim, dim);
+                    return () -> tmpTarget.fillMatching(tmpSource);
+                }));
+
+        ENTRIES.put(GenerateApplyAndCopyHouseholderColumn.class.getSimpleName(), new Entry(() -> GenerateApplyAndCopyHouseholderColumn.THRESHOLD,
+                value -> GenerateApplyAndCopyHouseholderColumn.THRESHOLD = value, null));
+
+        ENTRIES.put(GenerateApplyAndCopyHouseholderRow.class.getSimpleName(), new Entry(() -> GenerateApplyAndCopyHouseholderRow.THRESHOLD,
+                value -> GenerateApplyAndCopyHouseholderRow.THRESHOLD = value, null));
+
+        ENTRIES.put(HermitianRank2Update.class.getSimpleName(),
+                new Entry(() -> HermitianRank2Update.THRESHOLD, value -> HermitianRank2Update.THRESHOLD = value, dim -> {
+                    final PrimitiveDenseStore tmpStore = MatrixUtils.makeSPD(dim);
+                    final Householder.Primitive tmpHouseholder = ThresholdProfile.householder(dim);
+                    return () -> tmpStore.transformSymmetric(tmpHouseholder);
+                }));
+
+        ENTRIES.put(HouseholderLeft.class.getSimpleName(), new Entry(() -> HouseholderLeft.THRESHOLD, value -> HouseholderLeft.THRESHOLD = value, dim -> {
+            final PrimitiveDenseStore tmpStore = ThresholdProfile.random(dim, dim);
+            final Householder.Primitive tmpHouseholder = ThresholdProfile.householder(dim);
+            return () -> tmpStore.transformLeft(tmpHouseholder, 0);
+        }));
+
+        ENTRIES.put(HouseholderRight.class.getSimpleName(), new Entry(() -> HouseholderRight.THRESHOLD, value -> HouseholderRight.THRESHOLD = value, dim -> {
+            final PrimitiveDenseStore tmpStore = ThresholdProfile.random(dim, dim);
+            final Householder.Primitive tmpHouseholder = ThresholdProfile.householder(dim);
+            return () -> tmpStore.transformRight(tmpHouseholder, 0);
+        }));
+
+        ENTRIES.put(ModifyAll.class.getSimpleName(), new Entry(() -> ModifyAll.THRESHOLD, value -> ModifyAll.THRESHOLD = value, dim -> {
+            final PrimitiveDenseStore tmpStore = ThresholdProfile.random(dim, dim);
+            return () -> tmpStore.modifyAll(PrimitiveFunction.NEGATE);
+        }));
+
+        ENTRIES.put(MultiplyBoth.class.getSimpleName(), new Entry(() -> MultiplyBoth.THRESHOLD, value -> MultiplyBoth.THRESHOLD = value, dim -> {
+            final PrimitiveDenseStore tmpProduct = PrimitiveDenseStore.FACTORY.makeZero(dim, dim);
+            final MatrixStore<Double> tmpLeft = ThresholdProfile.random(dim, dim).logical().transpose().get();
+            final MatrixStore<Double> tmpRight = ThresholdProfile.random(dim, dim).logical().transpose().get();
+            return () -> tmpProduct.fillByMultiplying(tmpLeft, tmpRight);
+        }));
+
+        ENTRIES.put(MultiplyHermitianAndVector.class.getSimpleName(),
+                new Entry(() -> MultiplyHermitianAndVector.THRESHOLD, value -> MultiplyHermitianAndVector.THRESHOLD = value, dim -> {
+                    final PrimitiveDenseStore tmpStore = MatrixUtils.makeSPD(dim);
+                    final Householder.Primitive tmpHouseholder = ThresholdProfile.householder(dim);
+                    return () -> tmpStore.transformSymmetric(tmpHouseholder);
+                }));
+
+        ENTRIES.put(MultiplyLeft.class.getSimpleName(), new Entry(() -> MultiplyLeft.THRESHOLD, value -> MultiplyLeft.THRESHOLD = value, dim -> {
+            final PrimitiveDenseStore tmpProduct = PrimitiveDenseStore.FACTORY.makeZero(dim, dim);
+            final MatrixStore<Double> tmpLeft = ThresholdProfile.random(dim, dim).logical().transpose().get();
+            final PrimitiveDenseStore tmpRight = ThresholdProfile.random(dim, dim);
+            return () -> tmpProduct.fillByMultiplying(tmpLeft, tmpRight);
+        }));
+
+        ENTRIES.put(MultiplyNeither.class.getSimpleName(), new Entry(() -> MultiplyNeither.THRESHOLD, value -> MultiplyNeither.THRESHOLD = value, dim -> {
+            final PrimitiveDenseStore tmpProduct = PrimitiveDenseStore.FACTORY.makeZero(dim, dim);
+            final PrimitiveDenseStore tmpLeft = ThresholdProfile.random(dim, dim);
+            final PrimitiveDenseStore tmpRight = ThresholdProfile.random(dim, dim);
+            return () -> tmpProduct.fillByMultiplying(tmpLeft, tmpRight);
+        }));
+
+        ENTRIES.put(MultiplyRight.class.getSimpleName(), new Entry(() -> MultiplyRight.THRESHOLD, value -> MultiplyRight.THRESHOLD = value, dim -> {
+            final PrimitiveDenseStore tmpProduct = PrimitiveDenseStore.FACTORY.makeZero(dim, dim);
+            final PrimitiveDenseStore tmpLeft = ThresholdProfile.random(dim, dim);
+            final MatrixStore<Double> tmpRight = ThresholdProfile.random(dim, dim).logical().transpose().get();
+            return () -> tmpProduct.fillByMultiplying(tmpLeft, tmpRight);
+        }));
+
+        ENTRIES.put(RotateLeft.class.getSimpleName(), new Entry(() -> RotateLeft.THRESHOLD, value -> RotateLeft.THRESHOLD = value, null));
+
+        ENTRIES.put(RotateRight.class.getSimpleName(), new Entry(() -> RotateRight.THRESHOLD, value -> RotateRight.THRESHOLD = value, null));
+
+        ENTRIES.put(SubstituteBackwards.class.getSimpleName(),
+                new Entry(() -> SubstituteBackwards.THRESHOLD, value -> SubstituteBackwards.THRESHOLD = value, dim -> {
+                    final PrimitiveDenseStore tmpBody = ThresholdProfile.triangular(dim);
+                    final PrimitiveDenseStore tmpTarget = ThresholdProfile.random(dim, dim);
+                    return () -> tmpTarget.substituteBackwards(tmpBody, false, false, false);
+                }));
+
+        ENTRIES.put(SubstituteForwards.class.getSimpleName(),
+                new Entry(() -> SubstituteForwards.THRESHOLD, value -> SubstituteForwards.THRESHOLD = value, dim -> {
+                    final PrimitiveDenseStore tmpBody = PrimitiveDenseStore.FACTORY.transpose(ThresholdProfile.triangular(dim));
+                    final PrimitiveDenseStore tmpTarget = ThresholdProfile.random(dim, dim);
+                    return () -> tmpTarget.substituteForwards(tmpBody, false, false, false);
+                }));
+    }
+
+    /**
+     * Calibrate using {@link #DEFAULT_MAX_DIM}.
+     *
+     * @see #calibrate(int)
+     */
+    public static ThresholdProfile calibrate() {
+        return ThresholdProfile.calibrate(DEFAULT_MAX_DIM);
+    }
+
+    /**
+     * Micro-benchmarks each operation on the current hardware ({@link OjAlgoUtils#ENVIRONMENT}). For each
+     * candidate threshold T (8, 16, 32... up to maxDim/2) a problem of size 2T is executed sequentially and
+     * then split in parts of size T. The smallest T where splitting pays off becomes the threshold. If it
+     * never does the threshold is set to maxDim. Operations without a parallel implementation keep their
+     * current value.
+     * <p>
+     * This takes a while (seconds to minutes) and should not be done while other (heavy) work is running.
+     * The currently active thresholds are not changed - call {@link #apply()} on the returned profile.
+     *
+     * @param maxDim The largest matrix size to test
+     * @return A new profile with calibrated thresholds
+     */
+    public static ThresholdProfile calibrate(final int maxDim) {
+
+        final ThresholdProfile retVal = ThresholdProfile.current();
+
+        final boolean tmpMultiThread = OjAlgoUtils.ENVIRONMENT.isMultiThread();
+
+        final int tmpBlockingThreshold = GEMM.THRESHOLD;
+        // The blocked multiplication has its own parallel execution, and must not interfere
+        GEMM.THRESHOLD = Integer.MAX_VALUE;
+
+        try {
+
+            for (final Map.Entry<String, Entry> tmpEntry : ENTRIES.entrySet()) {
+
+                final Entry tmpOperation = tmpEntry.getValue();
+
+                if (tmpOperation.workload != null) {
+
+                    int tmpChosen = maxDim;
+
+                    if (tmpMultiThread) {
+
+                        final int tmpOriginal = tmpOperation.getter.getAsInt();
+
+                        for (int tmpCandidate = MIN_DIM; (tmpCandidate + tmpCandidate) <= maxDim; tmpCandidate += tmpCandidate) {
+
+                            tmpOperation.setter.accept(Integer.MAX_VALUE);
+                            final long tmpSequential = ThresholdProfile.measure(tmpOperation.workload, tmpCandidate + tmpCandidate);
+
+                            tmpOperation.setter.accept(tmpCandidate);
+                            final long tmpParallel = ThresholdProfile.measure(tmpOperation.workload, tmpCandidate + tmpCandidate);
+
+                            if (tmpParallel < tmpSequential) {
+                                tmpChosen = tmpCandidate;
+                                break;
+                            }
+                        }
+
+                        tmpOperation.setter.accept(tmpOriginal);
+                    }
+
+                    retVal.myThresholds.put(tmpEntry.getKey(), tmpChosen);
+                }
+            }
+
+        } finally {
+            GEMM.THRESHOLD = tmpBlockingThreshold;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * @return A profile with the currently active thresholds
+     */
+    public static ThresholdProfile current() {
+
+        final ThresholdProfile retVal = new ThresholdProfile();
+
+        for (final Map.Entry<String, Entry> tmpEntry : ENTRIES.entrySet()) {
+            retVal.myThresholds.put(tmpEntry.getKey(), tmpEntry.getValue().getter.getAsInt());
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Thresholds not specified in the file are set to the currently active values. Unknown keys are
+     * ignored.
+     */
+    public static ThresholdProfile load(final File file) throws IOException {
+
+        final ThresholdProfile retVal = ThresholdProfile.current();
+
+        final Properties tmpProperties = new Properties();
+
+        try (Reader tmpReader = new FileReader(file)) {
+            tmpProperties.load(tmpReader);
+        }
+
+        for (final String tmpKey : tmpProperties.stringPropertyNames()) {
+            if (ENTRIES.containsKey(tmpKey)) {
+                retVal.myThresholds.put(tmpKey, Integer.parseInt(tmpProperties.getProperty(tmpKey).trim()));
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Loads the profile if the file exists, otherwise calibrates a new profile and saves it to that file.
+     */
+    public static ThresholdProfile loadOrCalibrate(final File file) throws IOException {
+        if (file.exists()) {
+            return ThresholdProfile.load(file);
+        } else {
+            final ThresholdProfile retVal = ThresholdProfile.calibrate();
+            retVal.save(file);
+            return retVal;
+        }
+    }
+
+    static Householder.Primitive householder(final int dim) {
+
+        final Householder.Primitive retVal = new Householder.Primitive(dim);
+
+        double tmpSum2 = 0.0;
+        for (int i = 0; i < dim; i++) {
+            final double tmpVal = Math.random();
+            retVal.vector[i] = tmpVal;
+            tmpSum2 += tmpVal * tmpVal;
+        }
+        retVal.beta = 2.0 / tmpSum2;
+
+        return retVal;
+    }
+
+    static long measure(final IntFunction<Runnable> workload, final int dim) {
+
+        final Runnable tmpTask = workload.apply(dim);
+
+        for (int w = 0; w < WARMUP; w++) {
+            tmpTask.run();
+        }
+
+        long retVal = Long.MAX_VALUE;
+
+        for (int r = 0; r < REPETITIONS; r++) {
+            final long tmpStart = System.nanoTime();
+            tmpTask.run();
+            retVal = Math.min(retVal, System.nanoTime() - tmpStart);
+        }
+
+        return retVal;
+    }
+
+    static Primitive64Array multipliers(final int dim) {
+        final Primitive64Array retVal = Primitive64Array.make(dim);
+        retVal.fillAll(new Uniform());
+        return retVal;
+    }
+
+    static PrimitiveDenseStore random(final int rows, final int columns) {
+        return PrimitiveDenseStore.FACTORY.makeFilled(rows, columns, new Uniform());
+    }
+
+    /**
+     * Upper triangular with a dominant diagonal, so that repeated substitutions don't overflow.
+     */
+    static PrimitiveDenseStore triangular(final int dim) {
+
+        final PrimitiveDenseStore retVal = PrimitiveDenseStore.FACTORY.makeZero(dim, dim);
+
+        final Uniform tmpOffDiagonal = new Uniform(0.0, 1.0 / dim);
+        for (int j = 0; j < dim; j++) {
+            for (int i = 0; i < j; i++) {
+                retVal.set(i, j, tmpOffDiagonal.doubleValue());
+            }
+            retVal.set(j, j, 1.0);
+        }
+
+        return retVal;
+    }
+
+    private final Map<String, Integer> myThresholds = new LinkedHashMap<>();
+
+    private ThresholdProfile() {
+        super();
+    }
+
+    /**
+     * Make this profile's thresholds the active ones.
+     */
+    public void apply() {
+        for (final Map.Entry<String, Integer> tmpEntry : myThresholds.entrySet()) {
+            ENTRIES.get(tmpEntry.getKey()).setter.accept(tmpEntry.getValue());
+        }
+    }
+
+    /**
+     * @param operation The (simple) class name of a {@link MatrixOperation} or {@link AXPY}
+     * @return The threshold
+     */
+    public int get(final String operation) {
+        return myThresholds.get(operation);
+    }
+
+    public Map<String, Integer> getThresholds() {
+        return Collections.unmodifiableMap(myThresholds);
+    }
+
+    public void save(final File file) throws IOException {
+
+        final Properties tmpProperties = new Properties();
+
+        for (final Map.Entry<String, Integer> tmpEntry : myThresholds.entrySet()) {
+            tmpProperties.setProperty(tmpEntry.getKey(), tmpEntry.getValue().toString());
+        }
+
+        try (Writer tmpWriter = new FileWriter(file)) {
+            tmpProperties.store(tmpWriter, "ojAlgo MatrixOperation thresholds for " + OjAlgoUtils.ENVIRONMENT);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return myThresholds.toString();
+    }
+
+}
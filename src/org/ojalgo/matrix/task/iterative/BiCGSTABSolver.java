@@ -0,0 +1,135 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.List;
+
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * BiCGSTAB, right preconditioned, for general (nonsymmetric) systems. Short recurrences – fixed memory and two
+ * matrix-vector products per iteration – but the residual does not decrease monotonically. On a breakdown the
+ * shadow residual is reset to the current residual.
+ *
+ * @author apete
+ */
+public final class BiCGSTABSolver extends KrylovSubspaceSolver {
+
+    public BiCGSTABSolver() {
+        super();
+    }
+
+    public double resolve(final List<Equation> equations, final PhysicalStore<Double> solution) {
+
+        final int tmpLength = (int) solution.count();
+
+        final Preconditioner tmpPreconditioner = this.getPreconditioner();
+        tmpPreconditioner.prepare(equations);
+
+        final PrimitiveDenseStore tmpResidual = KrylovSubspaceSolver.zeros(solution);
+        final PrimitiveDenseStore tmpShadow = KrylovSubspaceSolver.zeros(solution);
+        final PrimitiveDenseStore tmpDirection = KrylovSubspaceSolver.zeros(solution);
+        final PrimitiveDenseStore tmpPreconditionedDirection = KrylovSubspaceSolver.zeros(solution);
+        final PrimitiveDenseStore tmpProduct = KrylovSubspaceSolver.zeros(solution);
+        final PrimitiveDenseStore tmpPreconditionedResidual = KrylovSubspaceSolver.zeros(solution);
+        final PrimitiveDenseStore tmpStabilising = KrylovSubspaceSolver.zeros(solution);
+
+        final double[] r = tmpResidual.data;
+        final double[] p = tmpDirection.data;
+        final double[] v = tmpProduct.data;
+
+        final double tmpNormRHS = PrimitiveFunction.HYPOT.invoke(ONE, KrylovSubspaceSolver.normOfRHS(equations));
+        double tmpNormErr = KrylovSubspaceSolver.residual(equations, solution, tmpResidual);
+        tmpShadow.fillMatching(tmpResidual);
+
+        double rho = ONE;
+        double alpha = ONE;
+        double omega = ONE;
+
+        int tmpIterations = 0;
+        final int tmpLimit = this.getIterationsLimit();
+        final NumberContext tmpCntxt = this.getAccuracyContext();
+
+        while ((tmpIterations < tmpLimit) && !tmpCntxt.isSmall(tmpNormRHS, tmpNormErr) && (tmpNormErr != ZERO) && !Double.isNaN(tmpNormErr)) {
+
+            double tmpRho = KrylovSubspaceSolver.dot(tmpShadow, tmpResidual);
+            if ((tmpRho == ZERO) || (omega == ZERO)) {
+                // Breakdown - restart
+                tmpShadow.fillMatching(tmpResidual);
+                tmpDirection.fillAll(ZERO);
+                tmpProduct.fillAll(ZERO);
+                tmpRho = KrylovSubspaceSolver.dot(tmpShadow, tmpResidual);
+                rho = alpha = omega = ONE;
+            }
+
+            // p = r + beta * (p - omega * v)
+            final double beta = (tmpRho / rho) * (alpha / omega);
+            final double tmpOmega = omega;
+            IterativeSolverTask.reduce(tmpLength, (first, limit) -> {
+                for (int i = first; i < limit; i++) {
+                    p[i] = r[i] + (beta * (p[i] - (tmpOmega * v[i])));
+                }
+                return ZERO;
+            });
+
+            tmpPreconditioner.apply(tmpDirection, tmpPreconditionedDirection);
+            KrylovSubspaceSolver.multiply(equations, tmpPreconditionedDirection, tmpProduct);
+
+            alpha = tmpRho / KrylovSubspaceSolver.dot(tmpShadow, tmpProduct);
+
+            // s = r - alpha * v (in place of r)
+            KrylovSubspaceSolver.axpy(-alpha, tmpProduct, tmpResidual);
+            KrylovSubspaceSolver.update(equations, solution, alpha, tmpPreconditionedDirection);
+
+            tmpNormErr = KrylovSubspaceSolver.norm(tmpResidual);
+            tmpIterations++;
+
+            if (!tmpCntxt.isSmall(tmpNormRHS, tmpNormErr)) {
+
+                tmpPreconditioner.apply(tmpResidual, tmpPreconditionedResidual);
+                KrylovSubspaceSolver.multiply(equations, tmpPreconditionedResidual, tmpStabilising);
+
+                final double tmpTT = KrylovSubspaceSolver.dot(tmpStabilising, tmpStabilising);
+                omega = tmpTT != ZERO ? KrylovSubspaceSolver.dot(tmpStabilising, tmpResidual) / tmpTT : ZERO;
+
+                KrylovSubspaceSolver.update(equations, solution, omega, tmpPreconditionedResidual);
+                KrylovSubspaceSolver.axpy(-omega, tmpStabilising, tmpResidual);
+
+                tmpNormErr = KrylovSubspaceSolver.norm(tmpResidual);
+            }
+
+            rho = tmpRho;
+
+            if (this.isDebugPrinterSet()) {
+                this.debug(tmpIterations, solution);
+            }
+        }
+
+        return tmpNormErr / tmpNormRHS;
+    }
+
+}
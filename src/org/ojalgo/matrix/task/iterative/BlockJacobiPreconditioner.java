@@ -0,0 +1,120 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.ojalgo.matrix.decomposition.LU;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+
+/**
+ * The equations are partitioned in blocks of consecutive rows. Each diagonal block is LU decomposed, and
+ * solved exactly when the preconditioner is applied. Singular blocks fall back to dividing by the diagonal.
+ *
+ * @author apete
+ */
+final class BlockJacobiPreconditioner extends CompressedPreconditioner {
+
+    private final int myBlockSize;
+    private List<LU<Double>> myBlocks = null;
+    private PrimitiveDenseStore[] myRHS = null;
+    private PrimitiveDenseStore[] mySolutions = null;
+
+    BlockJacobiPreconditioner(final int blockSize) {
+        super();
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("The block size must be at least 1!");
+        }
+        myBlockSize = blockSize;
+    }
+
+    @Override
+    void factorise() {
+
+        final int tmpNumberOfBlocks = ((myDim + myBlockSize) - 1) / myBlockSize;
+        myBlocks = new ArrayList<>(Collections.nCopies(tmpNumberOfBlocks, null));
+        myRHS = new PrimitiveDenseStore[tmpNumberOfBlocks];
+        mySolutions = new PrimitiveDenseStore[tmpNumberOfBlocks];
+
+        for (int b = 0; b < tmpNumberOfBlocks; b++) {
+
+            final int tmpFirst = b * myBlockSize;
+            final int tmpLimit = Math.min(tmpFirst + myBlockSize, myDim);
+            final int tmpSize = tmpLimit - tmpFirst;
+
+            final PrimitiveDenseStore tmpBlock = PrimitiveDenseStore.FACTORY.makeZero(tmpSize, tmpSize);
+            for (int i = tmpFirst; i < tmpLimit; i++) {
+                for (int p = myPointers[i]; p < myPointers[i + 1]; p++) {
+                    final int j = myColumns[p];
+                    if ((tmpFirst <= j) && (j < tmpLimit)) {
+                        tmpBlock.set(i - tmpFirst, j - tmpFirst, myValues[p]);
+                    }
+                }
+            }
+
+            final LU<Double> tmpLU = LU.PRIMITIVE.make(tmpBlock);
+            if (tmpLU.decompose(tmpBlock) && tmpLU.isSolvable()) {
+                myBlocks.set(b, tmpLU);
+                myRHS[b] = PrimitiveDenseStore.FACTORY.makeZero(tmpSize, 1L);
+                mySolutions[b] = PrimitiveDenseStore.FACTORY.makeZero(tmpSize, 1L);
+            }
+        }
+    }
+
+    @Override
+    void solve(final double[] work) {
+
+        for (int b = 0; b < myBlocks.size(); b++) {
+
+            final int tmpFirst = b * myBlockSize;
+            final int tmpLimit = Math.min(tmpFirst + myBlockSize, myDim);
+            final LU<Double> tmpLU = myBlocks.get(b);
+
+            if (tmpLU != null) {
+
+                final PrimitiveDenseStore tmpRHS = myRHS[b];
+                for (int i = tmpFirst; i < tmpLimit; i++) {
+                    tmpRHS.set(i - tmpFirst, work[i]);
+                }
+
+                final PrimitiveDenseStore tmpSolution = mySolutions[b];
+                tmpLU.getSolution(tmpRHS, tmpSolution);
+
+                for (int i = tmpFirst; i < tmpLimit; i++) {
+                    work[i] = tmpSolution.doubleValue(i - tmpFirst);
+                }
+
+            } else {
+
+                for (int i = tmpFirst; i < tmpLimit; i++) {
+                    final double tmpPivot = myValues[myDiagonal[i]];
+                    work[i] = tmpPivot != ZERO ? work[i] / tmpPivot : work[i];
+                }
+            }
+        }
+    }
+
+}
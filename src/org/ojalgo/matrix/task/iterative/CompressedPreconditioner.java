@@ -0,0 +1,173 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.ojalgo.access.Access1D;
+import org.ojalgo.array.SparseArray.NonzeroView;
+import org.ojalgo.matrix.store.PhysicalStore;
+
+/**
+ * Copies the equations to a compressed sparse row structure, local to the equations: row/column k refers to
+ * the k:th equation, and elements in columns without a matching equation are dropped. The column indices of
+ * each row are sorted, and every row has a (possibly zero) diagonal element.
+ *
+ * @author apete
+ */
+abstract class CompressedPreconditioner implements Preconditioner {
+
+    int[] myColumns = null;
+    /**
+     * The position of the diagonal element in each row
+     */
+    int[] myDiagonal = null;
+    int myDim = 0;
+    int[] myIndices = null;
+    int[] myPointers = null;
+    double[] myValues = null;
+    private double[] myWork = null;
+
+    CompressedPreconditioner() {
+        super();
+    }
+
+    public final void apply(final Access1D<?> residual, final PhysicalStore<Double> preconditioned) {
+
+        final double[] tmpWork = myWork;
+
+        for (int k = 0; k < myDim; k++) {
+            tmpWork[k] = residual.doubleValue(myIndices[k]);
+        }
+
+        this.solve(tmpWork);
+
+        for (int k = 0; k < myDim; k++) {
+            preconditioned.set(myIndices[k], tmpWork[k]);
+        }
+    }
+
+    public final void prepare(final List<Equation> equations) {
+
+        final int tmpDim = equations.size();
+
+        int tmpMaxIndex = -1;
+        long tmpNonzeros = 0L;
+        for (int k = 0; k < tmpDim; k++) {
+            final Equation tmpRow = equations.get(k);
+            tmpMaxIndex = Math.max(tmpMaxIndex, tmpRow.index);
+            tmpNonzeros += tmpRow.countNonzeros();
+        }
+
+        final int[] tmpPosition = new int[Math.max(tmpMaxIndex + 1, 0)];
+        Arrays.fill(tmpPosition, -1);
+        final int[] tmpIndices = new int[tmpDim];
+        for (int k = 0; k < tmpDim; k++) {
+            tmpIndices[k] = equations.get(k).index;
+            tmpPosition[tmpIndices[k]] = k;
+        }
+
+        final int[] tmpPointers = new int[tmpDim + 1];
+        int[] tmpColumns = new int[(int) tmpNonzeros + tmpDim];
+        double[] tmpValues = new double[(int) tmpNonzeros + tmpDim];
+        final int[] tmpDiagonal = new int[tmpDim];
+
+        int tmpCount = 0;
+        for (int k = 0; k < tmpDim; k++) {
+            final int tmpFirst = tmpCount;
+            boolean tmpDiagonalFound = false;
+            final NonzeroView<Double> tmpNonzero = equations.get(k).nonzeros();
+            while (tmpNonzero.hasNext()) {
+                tmpNonzero.next();
+                final long tmpIndex = tmpNonzero.index();
+                final int tmpColumn = tmpIndex < tmpPosition.length ? tmpPosition[(int) tmpIndex] : -1;
+                final double tmpValue = tmpNonzero.doubleValue();
+                if ((tmpColumn >= 0) && ((tmpValue != ZERO) || (tmpColumn == k))) {
+                    tmpDiagonalFound |= (tmpColumn == k);
+                    tmpColumns[tmpCount] = tmpColumn;
+                    tmpValues[tmpCount++] = tmpValue;
+                }
+            }
+            if (!tmpDiagonalFound) {
+                tmpColumns[tmpCount] = k;
+                tmpValues[tmpCount++] = ZERO;
+            }
+            // The equations need not be sorted by index
+            CompressedPreconditioner.sort(tmpColumns, tmpValues, tmpFirst, tmpCount);
+            for (int p = tmpFirst; p < tmpCount; p++) {
+                if (tmpColumns[p] == k) {
+                    tmpDiagonal[k] = p;
+                }
+            }
+            tmpPointers[k + 1] = tmpCount;
+        }
+
+        if (tmpCount < tmpColumns.length) {
+            tmpColumns = Arrays.copyOf(tmpColumns, tmpCount);
+            tmpValues = Arrays.copyOf(tmpValues, tmpCount);
+        }
+
+        myDim = tmpDim;
+        myIndices = tmpIndices;
+        myPointers = tmpPointers;
+        myColumns = tmpColumns;
+        myValues = tmpValues;
+        myDiagonal = tmpDiagonal;
+        if ((myWork == null) || (myWork.length != tmpDim)) {
+            myWork = new double[tmpDim];
+        }
+
+        this.factorise();
+    }
+
+    /**
+     * Called at the end of {@link #prepare(List)} when the compressed structure has been set up.
+     */
+    abstract void factorise();
+
+    /**
+     * Solve [M][x] = [b] in place. The argument is [b] when called and must be [x] on return.
+     */
+    abstract void solve(double[] work);
+
+    /**
+     * Insertion sort of the (column, value) pairs in the range - usually already sorted.
+     */
+    private static void sort(final int[] columns, final double[] values, final int first, final int limit) {
+        for (int p = first + 1; p < limit; p++) {
+            final int tmpColumn = columns[p];
+            final double tmpValue = values[p];
+            int q = p - 1;
+            while ((q >= first) && (columns[q] > tmpColumn)) {
+                columns[q + 1] = columns[q];
+                values[q + 1] = values[q];
+                q--;
+            }
+            columns[q + 1] = tmpColumn;
+            values[q + 1] = tmpValue;
+        }
+    }
+
+}
@@ -25,21 +25,19 @@ import static org.ojalgo.constant.PrimitiveMath.*;
 
 import java.util.List;
 
-import org.ojalgo.RecoverableCondition;
-import org.ojalgo.access.Access2D;
 import org.ojalgo.access.Structure1D;
 import org.ojalgo.function.PrimitiveFunction;
-import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.matrix.store.PrimitiveDenseStore;
 import org.ojalgo.type.context.NumberContext;
 
 /**
- * A (Jacobi) preconditioned conjugate gradient solver.
+ * A preconditioned conjugate gradient solver, iterating in parallel when the system is large. The preconditioner must be symmetric positive definite (when
+ * [A] is), which rules out {@link Preconditioner#incompleteLU()} unless [A] is symmetric.
  *
  * @author apete
  */
-public final class ConjugateGradientSolver extends KrylovSubspaceSolver implements IterativeSolverTask.SparseDelegate {
+public final class ConjugateGradientSolver extends KrylovSubspaceSolver {
 
     private transient PrimitiveDenseStore myDirection = null;
     private transient PrimitiveDenseStore myPreconditioned = null;
@@ -52,16 +50,17 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
 
     public double resolve(final List<Equation> equations, final PhysicalStore<Double> solution) {
 
-        final int tmpCountRows = equations.size();
-
         double tmpNormErr = POSITIVE_INFINITY;
-        double tmpNormRHS = ONE;
+        final double tmpNormRHS = PrimitiveFunction.HYPOT.invoke(ONE, KrylovSubspaceSolver.normOfRHS(equations));
 
         final PrimitiveDenseStore tmpResidual = this.residual(solution);
         final PrimitiveDenseStore tmpDirection = this.direction(solution);
         final PrimitiveDenseStore tmpPreconditioned = this.preconditioned(solution);
         final PrimitiveDenseStore tmpVector = this.vector(solution);
 
+        final Preconditioner tmpPreconditioner = this.getPreconditioner();
+        tmpPreconditioner.prepare(equations);
+
         double tmpStepLength;
         double tmpGradientCorrectionFactor;
 
@@ -69,14 +68,8 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
         double zr1 = 1;
         double pAp0 = 0;
 
-        for (int r = 0; r < tmpCountRows; r++) {
-            final Equation tmpRow = equations.get(r);
-            double tmpVal = tmpRow.getRHS();
-            tmpNormRHS = PrimitiveFunction.HYPOT.invoke(tmpNormRHS, tmpVal);
-            tmpVal -= tmpRow.dot(solution);
-            tmpResidual.set(tmpRow.index, tmpVal);
-            tmpPreconditioned.set(tmpRow.index, tmpVal / tmpRow.getPivot()); // precondition
-        }
+        KrylovSubspaceSolver.residual(equations, solution, tmpResidual);
+        tmpPreconditioner.apply(tmpResidual, tmpPreconditioned);
 
         tmpDirection.fillMatching(tmpPreconditioned); // tmpPreconditioned.supplyNonZerosTo(tmpDirection);
 
@@ -84,47 +77,42 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
         final int tmpLimit = this.getIterationsLimit();
         final NumberContext tmpCntxt = this.getAccuracyContext();
 
-        // zr1 = tmpPreconditioned.transpose().multiply(tmpResidual).doubleValue(0L);
-        zr1 = tmpPreconditioned.dot(tmpResidual);
+        zr1 = KrylovSubspaceSolver.dot(tmpPreconditioned, tmpResidual);
 
         do {
 
             zr0 = zr1;
 
-            for (int i = 0; i < tmpCountRows; i++) {
-                final Equation tmpRow = equations.get(i);
-                final double tmpVal = tmpRow.dot(tmpDirection);
-                tmpVector.set(tmpRow.index, tmpVal);
-            }
+            KrylovSubspaceSolver.multiply(equations, tmpDirection, tmpVector);
 
-            // pAp0 = tmpVector.multiplyLeft(tmpDirection.transpose()).get().doubleValue(0L);
-            pAp0 = tmpDirection.dot(tmpVector);
+            pAp0 = KrylovSubspaceSolver.dot(tmpDirection, tmpVector);
 
             tmpStepLength = zr0 / pAp0;
 
             if (!Double.isNaN(tmpStepLength)) {
 
-                // solution.maxpy(tmpStepLength, tmpDirection);
-                tmpDirection.axpy(tmpStepLength, solution);
+                KrylovSubspaceSolver.update(equations, solution, tmpStepLength, tmpDirection);
 
-                // tmpResidual.maxpy(-tmpStepLength, tmpVector);
-                tmpVector.axpy(-tmpStepLength, tmpResidual);
+                KrylovSubspaceSolver.axpy(-tmpStepLength, tmpVector, tmpResidual);
             }
 
-            tmpNormErr = ZERO;
+            tmpNormErr = KrylovSubspaceSolver.norm(tmpResidual);
 
-            for (int r = 0; r < tmpCountRows; r++) {
-                final Equation tmpRow = equations.get(r);
-                final double tmpValue = tmpResidual.doubleValue(tmpRow.index);
-                tmpNormErr = PrimitiveFunction.HYPOT.invoke(tmpNormErr, tmpValue);
-                tmpPreconditioned.set(tmpRow.index, tmpValue / tmpRow.getPivot());
-            }
+            tmpPreconditioner.apply(tmpResidual, tmpPreconditioned);
 
-            zr1 = tmpPreconditioned.dot(tmpResidual);
+            zr1 = KrylovSubspaceSolver.dot(tmpPreconditioned, tmpResidual);
             tmpGradientCorrectionFactor = zr1 / zr0;
 
-            tmpDirection.modifyAll(PrimitiveFunction.MULTIPLY.second(tmpGradientCorrectionFactor));
-            tmpDirection.modifyMatching(PrimitiveFunction.ADD, tmpPreconditioned);
+            // direction = preconditioned + factor * direction
+            final double[] tmpDirectionData = tmpDirection.data;
+            final double[] tmpPreconditionedData = tmpPreconditioned.data;
+            final double tmpFactor = tmpGradientCorrectionFactor;
+            IterativeSolverTask.reduce(tmpDirectionData.length, (first, limit) -> {
+                for (int i = first; i < limit; i++) {
+                    tmpDirectionData[i] = tmpPreconditionedData[i] + (tmpFactor * tmpDirectionData[i]);
+                }
+                return ZERO;
+            });
 
             tmpIterations++;
 
@@ -139,15 +127,6 @@ public final class ConjugateGradientSolver extends KrylovSubspaceSolver implemen
         return tmpNormErr / tmpNormRHS;
     }
 
-    public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated) throws RecoverableCondition {
-
-        final List<Equation> tmpRows = IterativeSolverTask.toListOfRows(body, rhs);
-
-        this.resolve(tmpRows, preallocated);
-
-        return preallocated;
-    }
-
     private PrimitiveDenseStore direction(final Structure1D structure) {
         if ((myDirection == null) || (myDirection.count() != structure.count())) {
             myDirection = PrimitiveDenseStore.FACTORY.makeZero(structure.count(), 1L);
@@ -142,6 +142,11 @@ public final class Equation implements Comparable<Equation>, Access1D<Double>, M
         this.calculate(x, ZERO, ONE);
     }
 
+    @Override
+    public SparseArray.NonzeroView<Double> nonzeros() {
+        return myElements.nonzeros();
+    }
+
     public void set(final long index, final double value) {
         myElements.set(index, value);
         if (index == this.index) {
@@ -158,6 +163,10 @@ public final class Equation implements Comparable<Equation>, Access1D<Double>, M
         return index + ": " + myElements.toString();
     }
 
+    int countNonzeros() {
+        return (int) myElements.countNonzeros();
+    }
+
     private double calculate(final PhysicalStore<Double> x, final double rhs, final double relaxation) {
 
         double tmpIncrement = rhs;
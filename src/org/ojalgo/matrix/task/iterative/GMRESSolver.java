@@ -0,0 +1,183 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.List;
+
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Restarted GMRES(m), right preconditioned, for general (nonsymmetric) systems. The Arnoldi basis is
+ * orthogonalised with modified Gram-Schmidt and the least squares problem is updated with Givens rotations,
+ * so the residual norm is known in each iteration without forming the solution.
+ *
+ * @author apete
+ */
+public final class GMRESSolver extends KrylovSubspaceSolver {
+
+    private int myRestart = 30;
+
+    public GMRESSolver() {
+        super();
+    }
+
+    /**
+     * @return The maximum size of the Krylov subspace before restarting
+     */
+    public int getRestart() {
+        return myRestart;
+    }
+
+    public double resolve(final List<Equation> equations, final PhysicalStore<Double> solution) {
+
+        final int tmpRestart = myRestart;
+
+        final Preconditioner tmpPreconditioner = this.getPreconditioner();
+        tmpPreconditioner.prepare(equations);
+
+        final PrimitiveDenseStore[] tmpBasis = new PrimitiveDenseStore[tmpRestart + 1];
+        final double[][] tmpHessenberg = new double[tmpRestart + 1][tmpRestart];
+        final double[] tmpCos = new double[tmpRestart];
+        final double[] tmpSin = new double[tmpRestart];
+        final double[] tmpRotated = new double[tmpRestart + 1];
+        final double[] tmpCoefficients = new double[tmpRestart];
+
+        final PrimitiveDenseStore tmpPreconditioned = KrylovSubspaceSolver.zeros(solution);
+        final PrimitiveDenseStore tmpCombined = KrylovSubspaceSolver.zeros(solution);
+
+        final double tmpNormRHS = PrimitiveFunction.HYPOT.invoke(ONE, KrylovSubspaceSolver.normOfRHS(equations));
+        double tmpNormErr = POSITIVE_INFINITY;
+
+        int tmpIterations = 0;
+        final int tmpLimit = this.getIterationsLimit();
+        final NumberContext tmpCntxt = this.getAccuracyContext();
+
+        while (tmpIterations < tmpLimit) {
+
+            if (tmpBasis[0] == null) {
+                tmpBasis[0] = KrylovSubspaceSolver.zeros(solution);
+            }
+            tmpNormErr = KrylovSubspaceSolver.residual(equations, solution, tmpBasis[0]);
+            if (tmpCntxt.isSmall(tmpNormRHS, tmpNormErr) || (tmpNormErr == ZERO)) {
+                break;
+            }
+            tmpBasis[0].modifyAll(PrimitiveFunction.DIVIDE.second(tmpNormErr));
+            tmpRotated[0] = tmpNormErr;
+
+            int tmpSize = 0;
+            boolean tmpDone = false;
+
+            while ((tmpSize < tmpRestart) && (tmpIterations < tmpLimit) && !tmpDone) {
+
+                final int j = tmpSize;
+
+                if (tmpBasis[j + 1] == null) {
+                    tmpBasis[j + 1] = KrylovSubspaceSolver.zeros(solution);
+                }
+                final PrimitiveDenseStore tmpNext = tmpBasis[j + 1];
+
+                tmpPreconditioner.apply(tmpBasis[j], tmpPreconditioned);
+                KrylovSubspaceSolver.multiply(equations, tmpPreconditioned, tmpNext);
+
+                // Modified Gram-Schmidt
+                for (int i = 0; i <= j; i++) {
+                    final double tmpProjection = KrylovSubspaceSolver.dot(tmpNext, tmpBasis[i]);
+                    tmpHessenberg[i][j] = tmpProjection;
+                    KrylovSubspaceSolver.axpy(-tmpProjection, tmpBasis[i], tmpNext);
+                }
+                final double tmpNorm = KrylovSubspaceSolver.norm(tmpNext);
+                tmpHessenberg[j + 1][j] = tmpNorm;
+
+                // Previous rotations on the new column, then a new rotation to eliminate the subdiagonal
+                for (int i = 0; i < j; i++) {
+                    final double tmpUpper = tmpHessenberg[i][j];
+                    final double tmpLower = tmpHessenberg[i + 1][j];
+                    tmpHessenberg[i][j] = (tmpCos[i] * tmpUpper) + (tmpSin[i] * tmpLower);
+                    tmpHessenberg[i + 1][j] = (-tmpSin[i] * tmpUpper) + (tmpCos[i] * tmpLower);
+                }
+                final double tmpDiagonal = tmpHessenberg[j][j];
+                final double tmpRadius = Math.hypot(tmpDiagonal, tmpNorm);
+                tmpCos[j] = tmpRadius != ZERO ? tmpDiagonal / tmpRadius : ONE;
+                tmpSin[j] = tmpRadius != ZERO ? tmpNorm / tmpRadius : ZERO;
+                tmpHessenberg[j][j] = tmpRadius;
+                tmpHessenberg[j + 1][j] = ZERO;
+                tmpRotated[j + 1] = -tmpSin[j] * tmpRotated[j];
+                tmpRotated[j] = tmpCos[j] * tmpRotated[j];
+
+                tmpSize++;
+                tmpIterations++;
+
+                tmpNormErr = Math.abs(tmpRotated[j + 1]);
+
+                if ((tmpNorm == ZERO) || tmpCntxt.isSmall(tmpNormRHS, tmpNormErr)) {
+                    // Happy breakdown or converged
+                    tmpDone = true;
+                } else {
+                    tmpNext.modifyAll(PrimitiveFunction.DIVIDE.second(tmpNorm));
+                }
+            }
+
+            // Back substitution with the (rotated) upper triangular Hessenberg matrix
+            for (int i = tmpSize - 1; i >= 0; i--) {
+                double tmpValue = tmpRotated[i];
+                for (int k = i + 1; k < tmpSize; k++) {
+                    tmpValue -= tmpHessenberg[i][k] * tmpCoefficients[k];
+                }
+                tmpCoefficients[i] = tmpHessenberg[i][i] != ZERO ? tmpValue / tmpHessenberg[i][i] : ZERO;
+            }
+
+            tmpCombined.fillAll(ZERO);
+            for (int i = 0; i < tmpSize; i++) {
+                KrylovSubspaceSolver.axpy(tmpCoefficients[i], tmpBasis[i], tmpCombined);
+            }
+            tmpPreconditioner.apply(tmpCombined, tmpPreconditioned);
+            KrylovSubspaceSolver.update(equations, solution, ONE, tmpPreconditioned);
+
+            if (this.isDebugPrinterSet()) {
+                this.debug(tmpIterations, solution);
+            }
+
+            if (tmpDone) {
+                tmpNormErr = KrylovSubspaceSolver.residual(equations, solution, tmpCombined);
+                break;
+            }
+        }
+
+        return tmpNormErr / tmpNormRHS;
+    }
+
+    /**
+     * @param restart The maximum size of the Krylov subspace before restarting
+     */
+    public void setRestart(final int restart) {
+        if (restart < 1) {
+            throw new IllegalArgumentException("The restart must be at least 1!");
+        }
+        myRestart = restart;
+    }
+
+}
@@ -23,17 +23,121 @@ package org.ojalgo.matrix.task.iterative;
 
 import static org.ojalgo.constant.PrimitiveMath.*;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.ojalgo.RecoverableCondition;
 import org.ojalgo.access.Access2D;
+import org.ojalgo.array.SparseArray.NonzeroView;
 import org.ojalgo.function.PrimitiveFunction;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
 import org.ojalgo.type.context.NumberContext;
 
+/**
+ * Gauss-Seidel is inherently sequential. Large systems of equations are instead (greedy) multicoloured, so
+ * that no two equations of the same colour reference each other, and then swept one colour at a time with
+ * the equations of each colour updated in parallel. For a 5-point grid that is the red-black ordering. The
+ * converged solution is the same, but the iterates differ from the natural ordering.
+ *
+ * @author apete
+ */
 public final class GaussSeidelSolver extends StationaryIterativeSolver implements IterativeSolverTask.SparseDelegate {
 
+    /**
+     * @param equations The equations to colour
+     * @param order Will be filled with the positions (in the list of equations) ordered by colour
+     * @param pointers Will be filled with the start of each colour in order, and the end of the last colour
+     * @return The number of colours
+     */
+    static int colour(final List<Equation> equations, final int[] order, final int[] pointers) {
+
+        final int tmpDim = equations.size();
+
+        int tmpMaxIndex = -1;
+        for (int k = 0; k < tmpDim; k++) {
+            tmpMaxIndex = Math.max(tmpMaxIndex, equations.get(k).index);
+        }
+        final int[] tmpPosition = new int[tmpMaxIndex + 1];
+        Arrays.fill(tmpPosition, -1);
+        for (int k = 0; k < tmpDim; k++) {
+            tmpPosition[equations.get(k).index] = k;
+        }
+
+        // The adjacency of the (symmetrised) pattern: rows and columns
+
+        final int[][] tmpRows = new int[tmpDim][];
+        final int[] tmpColumnCounts = new int[tmpDim];
+        final int[] tmpWork = new int[tmpDim];
+        for (int k = 0; k < tmpDim; k++) {
+            int tmpCount = 0;
+            final NonzeroView<Double> tmpNonzero = equations.get(k).nonzeros();
+            while (tmpNonzero.hasNext()) {
+                tmpNonzero.next();
+                final long tmpIndex = tmpNonzero.index();
+                final int j = tmpIndex <= tmpMaxIndex ? tmpPosition[(int) tmpIndex] : -1;
+                if ((j >= 0) && (j != k)) {
+                    tmpWork[tmpCount++] = j;
+                    tmpColumnCounts[j]++;
+                }
+            }
+            tmpRows[k] = Arrays.copyOf(tmpWork, tmpCount);
+        }
+        final int[][] tmpColumns = new int[tmpDim][];
+        for (int j = 0; j < tmpDim; j++) {
+            tmpColumns[j] = new int[tmpColumnCounts[j]];
+            tmpColumnCounts[j] = 0;
+        }
+        for (int k = 0; k < tmpDim; k++) {
+            for (final int j : tmpRows[k]) {
+                tmpColumns[j][tmpColumnCounts[j]++] = k;
+            }
+        }
+
+        // Greedy colouring in the natural order
+
+        final int[] tmpColour = new int[tmpDim];
+        Arrays.fill(tmpColour, -1);
+        final int[] tmpUsed = new int[tmpDim + 1];
+        Arrays.fill(tmpUsed, -1);
+        int retVal = 0;
+
+        for (int k = 0; k < tmpDim; k++) {
+            for (final int j : tmpRows[k]) {
+                if (tmpColour[j] >= 0) {
+                    tmpUsed[tmpColour[j]] = k;
+                }
+            }
+            for (final int j : tmpColumns[k]) {
+                if (tmpColour[j] >= 0) {
+                    tmpUsed[tmpColour[j]] = k;
+                }
+            }
+            int c = 0;
+            while (tmpUsed[c] == k) {
+                c++;
+            }
+            tmpColour[k] = c;
+            retVal = Math.max(retVal, c + 1);
+        }
+
+        // Counting sort by colour
+
+        Arrays.fill(pointers, 0, retVal + 1, 0);
+        for (int k = 0; k < tmpDim; k++) {
+            pointers[tmpColour[k] + 1]++;
+        }
+        for (int c = 0; c < retVal; c++) {
+            pointers[c + 1] += pointers[c];
+        }
+        System.arraycopy(pointers, 0, tmpWork, 0, retVal);
+        for (int k = 0; k < tmpDim; k++) {
+            order[tmpWork[tmpColour[k]]++] = k;
+        }
+
+        return retVal;
+    }
+
     public GaussSeidelSolver() {
         super();
     }
@@ -48,6 +152,11 @@ public final class GaussSeidelSolver extends StationaryIterativeSolver implement
             tmpNormRHS = PrimitiveFunction.HYPOT.invoke(tmpNormRHS, equations.get(r).getRHS());
         }
 
+        final boolean tmpParallel = tmpCountRows > IterativeSolverTask.THRESHOLD;
+        final int[] tmpOrder = tmpParallel ? new int[tmpCountRows] : null;
+        final int[] tmpPointers = tmpParallel ? new int[tmpCountRows + 1] : null;
+        final int tmpNumberOfColours = tmpParallel ? GaussSeidelSolver.colour(equations, tmpOrder, tmpPointers) : 0;
+
         int tmpIterations = 0;
         final int tmpLimit = this.getIterationsLimit();
         final NumberContext tmpCntxt = this.getAccuracyContext();
@@ -55,10 +164,31 @@ public final class GaussSeidelSolver extends StationaryIterativeSolver implement
 
         do {
 
-            tmpNormErr = ZERO;
+            if (tmpParallel) {
+
+                double tmpSquares = ZERO;
+
+                for (int c = 0; c < tmpNumberOfColours; c++) {
+                    final int tmpFirst = tmpPointers[c];
+                    tmpSquares += IterativeSolverTask.reduce(tmpPointers[c + 1] - tmpFirst, (first, limit) -> {
+                        double tmpSum = ZERO;
+                        for (int k = tmpFirst + first, last = tmpFirst + limit; k < last; k++) {
+                            final double tmpError = equations.get(tmpOrder[k]).adjust(solution, tmpRelaxationFactor);
+                            tmpSum += tmpError * tmpError;
+                        }
+                        return tmpSum;
+                    });
+                }
+
+                tmpNormErr = Math.sqrt(tmpSquares);
+
+            } else {
+
+                tmpNormErr = ZERO;
 
-            for (int r = 0; r < tmpCountRows; r++) {
-                tmpNormErr = PrimitiveFunction.HYPOT.invoke(tmpNormErr, equations.get(r).adjust(solution, tmpRelaxationFactor));
+                for (int r = 0; r < tmpCountRows; r++) {
+                    tmpNormErr = PrimitiveFunction.HYPOT.invoke(tmpNormErr, equations.get(r).adjust(solution, tmpRelaxationFactor));
+                }
             }
 
             tmpIterations++;
@@ -0,0 +1,59 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.List;
+
+import org.ojalgo.access.Access1D;
+import org.ojalgo.matrix.store.PhysicalStore;
+
+/**
+ * No preconditioning, [M] = [I].
+ *
+ * @author apete
+ */
+final class IdentityPreconditioner implements Preconditioner {
+
+    private List<Equation> myEquations = null;
+
+    IdentityPreconditioner() {
+        super();
+    }
+
+    public void apply(final Access1D<?> residual, final PhysicalStore<Double> preconditioned) {
+        final List<Equation> tmpEquations = myEquations;
+        IterativeSolverTask.reduce(tmpEquations.size(), (first, limit) -> {
+            for (int r = first; r < limit; r++) {
+                final int tmpIndex = tmpEquations.get(r).index;
+                preconditioned.set(tmpIndex, residual.doubleValue(tmpIndex));
+            }
+            return ZERO;
+        });
+    }
+
+    public void prepare(final List<Equation> equations) {
+        myEquations = equations;
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+/**
+ * IC(0): [L][L]<sup>T</sup> &asymp; [A] with [L] restricted to the lower triangular nonzero pattern of [A]
+ * (the upper triangle is never read). Should a pivot turn out non-positive the factorisation is restarted
+ * with a diagonal shift, [A] + &alpha;diag([A]), increasing &alpha; until it succeeds.
+ *
+ * @author apete
+ */
+final class IncompleteCholeskyPreconditioner extends CompressedPreconditioner {
+
+    static double INITIAL_SHIFT = 1E-3;
+
+    private double[] myFactors = null;
+
+    IncompleteCholeskyPreconditioner() {
+        super();
+    }
+
+    @Override
+    void factorise() {
+
+        if ((myFactors == null) || (myFactors.length != myValues.length)) {
+            myFactors = new double[myValues.length];
+        }
+
+        double tmpShift = ZERO;
+        while (!this.factorise(tmpShift)) {
+            tmpShift = tmpShift == ZERO ? INITIAL_SHIFT : TEN * tmpShift;
+        }
+    }
+
+    @Override
+    void solve(final double[] work) {
+
+        final int[] tmpPointers = myPointers;
+        final int[] tmpColumns = myColumns;
+        final int[] tmpDiagonal = myDiagonal;
+        final double[] tmpFactors = myFactors;
+
+        // [L][y] = [b]
+        for (int i = 0; i < myDim; i++) {
+            double tmpValue = work[i];
+            for (int p = tmpPointers[i]; p < tmpDiagonal[i]; p++) {
+                tmpValue -= tmpFactors[p] * work[tmpColumns[p]];
+            }
+            work[i] = tmpValue / tmpFactors[tmpDiagonal[i]];
+        }
+
+        // [L]<sup>T</sup>[x] = [y], column oriented
+        for (int i = myDim - 1; i >= 0; i--) {
+            final double tmpValue = work[i] /= tmpFactors[tmpDiagonal[i]];
+            for (int p = tmpPointers[i]; p < tmpDiagonal[i]; p++) {
+                work[tmpColumns[p]] -= tmpFactors[p] * tmpValue;
+            }
+        }
+    }
+
+    /**
+     * Row oriented: l<sub>ik</sub> = (a<sub>ik</sub> - &Sigma;<sub>j&lt;k</sub> l<sub>ij</sub>l<sub>kj</sub>) /
+     * l<sub>kk</sub> where the sum is over the common pattern of rows i and k.
+     */
+    private boolean factorise(final double shift) {
+
+        final int[] tmpPointers = myPointers;
+        final int[] tmpColumns = myColumns;
+        final int[] tmpDiagonal = myDiagonal;
+        final double[] tmpValues = myValues;
+        final double[] tmpFactors = myFactors;
+
+        for (int i = 0; i < myDim; i++) {
+
+            final int tmpFirstI = tmpPointers[i];
+            final int tmpDiagonalI = tmpDiagonal[i];
+
+            double tmpSquares = ZERO;
+
+            for (int p = tmpFirstI; p < tmpDiagonalI; p++) {
+
+                final int k = tmpColumns[p];
+                final int tmpDiagonalK = tmpDiagonal[k];
+
+                double tmpValue = tmpValues[p];
+                for (int q = tmpFirstI, r = tmpPointers[k]; (q < p) && (r < tmpDiagonalK);) {
+                    final int tmpColumnQ = tmpColumns[q];
+                    final int tmpColumnR = tmpColumns[r];
+                    if (tmpColumnQ == tmpColumnR) {
+                        tmpValue -= tmpFactors[q++] * tmpFactors[r++];
+                    } else if (tmpColumnQ < tmpColumnR) {
+                        q++;
+                    } else {
+                        r++;
+                    }
+                }
+
+                tmpFactors[p] = tmpValue /= tmpFactors[tmpDiagonalK];
+                tmpSquares += tmpValue * tmpValue;
+            }
+
+            final double tmpDiagonalValue = tmpValues[tmpDiagonalI];
+            final double tmpPivot = (tmpDiagonalValue + (shift * Math.abs(tmpDiagonalValue))) - tmpSquares;
+            if (!(tmpPivot > ZERO)) {
+                return false;
+            }
+            tmpFactors[tmpDiagonalI] = Math.sqrt(tmpPivot);
+        }
+
+        return true;
+    }
+
+}
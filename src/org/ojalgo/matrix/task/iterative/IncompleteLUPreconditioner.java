@@ -0,0 +1,107 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+/**
+ * ILU(0): [L][U] &asymp; [A] with [L] and [U] restricted to the nonzero pattern of [A]. [L] is unit lower
+ * triangular and both factors are stored in place of the (copied) values. Zero pivots are replaced by one.
+ *
+ * @author apete
+ */
+final class IncompleteLUPreconditioner extends CompressedPreconditioner {
+
+    private double[] myFactors = null;
+
+    IncompleteLUPreconditioner() {
+        super();
+    }
+
+    @Override
+    void factorise() {
+
+        final int[] tmpPointers = myPointers;
+        final int[] tmpColumns = myColumns;
+        final int[] tmpDiagonal = myDiagonal;
+        final double[] tmpFactors = myFactors = Arrays.copyOf(myValues, myValues.length);
+
+        final int[] tmpPosition = new int[myDim];
+        Arrays.fill(tmpPosition, -1);
+
+        for (int i = 0; i < myDim; i++) {
+
+            for (int p = tmpPointers[i]; p < tmpPointers[i + 1]; p++) {
+                tmpPosition[tmpColumns[p]] = p;
+            }
+
+            // IKJ variant - row i is updated by all previous rows k in its pattern
+            for (int p = tmpPointers[i]; p < tmpDiagonal[i]; p++) {
+                final int k = tmpColumns[p];
+                final double tmpMultiplier = tmpFactors[p] /= this.pivot(k);
+                for (int q = tmpDiagonal[k] + 1; q < tmpPointers[k + 1]; q++) {
+                    final int tmpTarget = tmpPosition[tmpColumns[q]];
+                    if (tmpTarget >= 0) {
+                        tmpFactors[tmpTarget] -= tmpMultiplier * tmpFactors[q];
+                    }
+                }
+            }
+
+            for (int p = tmpPointers[i]; p < tmpPointers[i + 1]; p++) {
+                tmpPosition[tmpColumns[p]] = -1;
+            }
+        }
+    }
+
+    @Override
+    void solve(final double[] work) {
+
+        final int[] tmpPointers = myPointers;
+        final int[] tmpColumns = myColumns;
+        final int[] tmpDiagonal = myDiagonal;
+        final double[] tmpFactors = myFactors;
+
+        for (int i = 0; i < myDim; i++) {
+            double tmpValue = work[i];
+            for (int p = tmpPointers[i]; p < tmpDiagonal[i]; p++) {
+                tmpValue -= tmpFactors[p] * work[tmpColumns[p]];
+            }
+            work[i] = tmpValue;
+        }
+
+        for (int i = myDim - 1; i >= 0; i--) {
+            double tmpValue = work[i];
+            for (int p = tmpDiagonal[i] + 1; p < tmpPointers[i + 1]; p++) {
+                tmpValue -= tmpFactors[p] * work[tmpColumns[p]];
+            }
+            work[i] = tmpValue / this.pivot(i);
+        }
+    }
+
+    private double pivot(final int row) {
+        final double tmpPivot = myFactors[myDiagonal[row]];
+        return tmpPivot != ZERO ? tmpPivot : ONE;
+    }
+
+}
@@ -31,11 +31,15 @@ import java.util.Optional;
 import org.ojalgo.RecoverableCondition;
 import org.ojalgo.access.Access1D;
 import org.ojalgo.access.Access2D;
+import org.ojalgo.access.ElementView2D;
 import org.ojalgo.access.Structure2D;
 import org.ojalgo.array.Array1D;
+import org.ojalgo.concurrent.DivideAndConquer;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveCSR;
 import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.store.SparseStore;
 import org.ojalgo.matrix.task.SolverTask;
 import org.ojalgo.netio.BasicLogger;
 import org.ojalgo.scalar.PrimitiveScalar;
@@ -87,6 +91,16 @@ abstract class IterativeSolverTask implements SolverTask<Double> {
 
     }
 
+    /**
+     * Some operation on a range of equations or vector elements, returning a partial sum (or zero).
+     */
+    @FunctionalInterface
+    static interface RangeOperation {
+
+        double invoke(int first, int limit);
+
+    }
+
     static interface SparseDelegate {
 
         double resolve(List<Equation> equations, final PhysicalStore<Double> solution);
@@ -95,12 +109,86 @@ abstract class IterativeSolverTask implements SolverTask<Double> {
 
     static final NumberContext DEFAULT = NumberContext.getMath(MathContext.DECIMAL128);
 
+    /**
+     * The number of equations or vector elements in each part when executing in parallel. Ranges no longer
+     * than this are executed sequentially (by the calling thread).
+     */
+    static int THRESHOLD = 4096;
+
+    /**
+     * Executes the operation on fixed size parts of the range [0, count), in parallel, and returns the sum of
+     * the partial results. The parts, and the order in which the partial results are summed, only depend on
+     * count and {@link #THRESHOLD} - not on the number of threads - so the results are reproducible.
+     */
+    static double reduce(final int count, final RangeOperation operation) {
+
+        if (count <= THRESHOLD) {
+            return operation.invoke(0, count);
+        }
+
+        final int tmpSize = THRESHOLD;
+        final int tmpNumberOfParts = ((count + tmpSize) - 1) / tmpSize;
+        final double[] tmpPartials = new double[tmpNumberOfParts];
+
+        final DivideAndConquer tmpConquerer = new DivideAndConquer() {
+
+            @Override
+            public void conquer(final int first, final int limit) {
+                for (int p = first; p < limit; p++) {
+                    tmpPartials[p] = operation.invoke(p * tmpSize, Math.min((p + 1) * tmpSize, count));
+                }
+            }
+        };
+
+        tmpConquerer.invoke(0, tmpNumberOfParts, 1);
+
+        double retVal = ZERO;
+        for (int p = 0; p < tmpNumberOfParts; p++) {
+            retVal += tmpPartials[p];
+        }
+        return retVal;
+    }
+
     static List<Equation> toListOfRows(final Access2D<?> body, final Access2D<?> rhs) {
 
         final int tmpDim = (int) body.countRows();
 
         final List<Equation> retVal = new ArrayList<>(tmpDim);
 
+        if (body instanceof PrimitiveCSR) {
+
+            final PrimitiveCSR tmpCSR = (PrimitiveCSR) body;
+            final int[] tmpPointers = tmpCSR.getPointers();
+            final int[] tmpIndices = tmpCSR.getIndices();
+            final double[] tmpValues = tmpCSR.getValues();
+
+            for (int i = 0; i < tmpDim; i++) {
+                final Equation tmpRow = new Equation(i, tmpDim, rhs.doubleValue(i), tmpPointers[i + 1] - tmpPointers[i]);
+                for (int p = tmpPointers[i]; p < tmpPointers[i + 1]; p++) {
+                    tmpRow.set(tmpIndices[p], tmpValues[p]);
+                }
+                retVal.add(tmpRow);
+            }
+
+            return retVal;
+        }
+
+        if (body instanceof SparseStore) {
+
+            for (int i = 0; i < tmpDim; i++) {
+                retVal.add(new Equation(i, tmpDim, rhs.doubleValue(i)));
+            }
+            // Column-major - the elements of each row are appended in increasing column order
+            for (final ElementView2D<?, ?> tmpNonzero : ((SparseStore<?>) body).nonzeros()) {
+                final double tmpVal = tmpNonzero.doubleValue();
+                if (!PrimitiveScalar.isSmall(ONE, tmpVal)) {
+                    retVal.get((int) tmpNonzero.row()).set(tmpNonzero.column(), tmpVal);
+                }
+            }
+
+            return retVal;
+        }
+
         for (int i = 0; i < tmpDim; i++) {
             final Equation tmpRow = new Equation(i, tmpDim, rhs.doubleValue(i));
             for (int j = 0; j < tmpDim; j++) {
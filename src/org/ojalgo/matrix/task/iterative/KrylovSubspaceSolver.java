@@ -21,10 +21,140 @@
  */
 package org.ojalgo.matrix.task.iterative;
 
-abstract class KrylovSubspaceSolver extends IterativeSolverTask {
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.List;
+
+import org.ojalgo.RecoverableCondition;
+import org.ojalgo.access.Access1D;
+import org.ojalgo.access.Access2D;
+import org.ojalgo.array.blas.AXPY;
+import org.ojalgo.array.blas.DOT;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+
+/**
+ * Krylov subspace solvers are preconditioned, by default with {@link Preconditioner#jacobi()}.
+ * <p>
+ * The work vectors have the same length as the solution. Elements at indices without a matching equation are
+ * kept zero, so they can be treated as full length vectors. Matrix-vector products, vector updates and
+ * reductions are partitioned and executed in parallel when larger than {@link IterativeSolverTask#THRESHOLD}.
+ *
+ * @author apete
+ */
+abstract class KrylovSubspaceSolver extends IterativeSolverTask implements IterativeSolverTask.SparseDelegate {
+
+    /**
+     * y += a * x
+     */
+    static void axpy(final double a, final PrimitiveDenseStore x, final PrimitiveDenseStore y) {
+        final double[] tmpX = x.data;
+        final double[] tmpY = y.data;
+        IterativeSolverTask.reduce(tmpY.length, (first, limit) -> {
+            AXPY.invoke(tmpY, 0, a, tmpX, 0, first, limit);
+            return ZERO;
+        });
+    }
+
+    static double dot(final PrimitiveDenseStore vector1, final PrimitiveDenseStore vector2) {
+        final double[] tmpVector1 = vector1.data;
+        final double[] tmpVector2 = vector2.data;
+        return IterativeSolverTask.reduce(tmpVector1.length, (first, limit) -> DOT.invoke(tmpVector1, 0, tmpVector2, 0, first, limit));
+    }
+
+    /**
+     * product[index] = equation · vector, for each of the equations
+     */
+    static void multiply(final List<Equation> equations, final Access1D<?> vector, final PrimitiveDenseStore product) {
+        final double[] tmpProduct = product.data;
+        IterativeSolverTask.reduce(equations.size(), (first, limit) -> {
+            for (int r = first; r < limit; r++) {
+                final Equation tmpRow = equations.get(r);
+                tmpProduct[tmpRow.index] = tmpRow.dot(vector);
+            }
+            return ZERO;
+        });
+    }
+
+    static double norm(final PrimitiveDenseStore vector) {
+        return Math.sqrt(KrylovSubspaceSolver.dot(vector, vector));
+    }
+
+    /**
+     * @return The norm of the right hand side
+     */
+    static double normOfRHS(final List<Equation> equations) {
+        double retVal = ZERO;
+        for (int r = 0, limit = equations.size(); r < limit; r++) {
+            final double tmpRHS = equations.get(r).getRHS();
+            retVal += tmpRHS * tmpRHS;
+        }
+        return Math.sqrt(retVal);
+    }
+
+    /**
+     * residual[index] = rhs - equation · solution, for each of the equations
+     *
+     * @return The norm of the residual
+     */
+    static double residual(final List<Equation> equations, final Access1D<?> solution, final PrimitiveDenseStore residual) {
+        final double[] tmpResidual = residual.data;
+        return Math.sqrt(IterativeSolverTask.reduce(equations.size(), (first, limit) -> {
+            double tmpSum = ZERO;
+            for (int r = first; r < limit; r++) {
+                final Equation tmpRow = equations.get(r);
+                final double tmpValue = tmpRow.getRHS() - tmpRow.dot(solution);
+                tmpResidual[tmpRow.index] = tmpValue;
+                tmpSum += tmpValue * tmpValue;
+            }
+            return tmpSum;
+        }));
+    }
+
+    /**
+     * solution[index] += step * direction[index], for each of the equations
+     */
+    static void update(final List<Equation> equations, final PhysicalStore<Double> solution, final double step, final PrimitiveDenseStore direction) {
+        final double[] tmpDirection = direction.data;
+        IterativeSolverTask.reduce(equations.size(), (first, limit) -> {
+            for (int r = first; r < limit; r++) {
+                final int tmpIndex = equations.get(r).index;
+                solution.add(tmpIndex, step * tmpDirection[tmpIndex]);
+            }
+            return ZERO;
+        });
+    }
+
+    /**
+     * A zero vector with the same length as the solution
+     */
+    static PrimitiveDenseStore zeros(final Access1D<?> solution) {
+        return PrimitiveDenseStore.FACTORY.makeZero(solution.count(), 1L);
+    }
+
+    private Preconditioner myPreconditioner = Preconditioner.jacobi();
 
     protected KrylovSubspaceSolver() {
         super();
     }
 
+    public final Preconditioner getPreconditioner() {
+        return myPreconditioner;
+    }
+
+    public final void setPreconditioner(final Preconditioner preconditioner) {
+        myPreconditioner = preconditioner != null ? preconditioner : Preconditioner.jacobi();
+    }
+
+    public final MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> preallocated)
+            throws RecoverableCondition {
+
+        final List<Equation> tmpRows = IterativeSolverTask.toListOfRows(body, rhs);
+
+        this.resolve(tmpRows, preallocated);
+
+        return preallocated;
+    }
+
 }
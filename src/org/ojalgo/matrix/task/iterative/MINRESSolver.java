@@ -0,0 +1,175 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.List;
+
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * MINRES (Paige and Saunders) for symmetric, possibly indefinite, systems. The residual norm decreases
+ * monotonically. The preconditioner must be symmetric positive definite, and therefore the default is
+ * {@link Preconditioner#identity()} rather than Jacobi (the diagonal of an indefinite matrix may have
+ * negative elements).
+ *
+ * @author apete
+ */
+public final class MINRESSolver extends KrylovSubspaceSolver {
+
+    public MINRESSolver() {
+        super();
+        this.setPreconditioner(Preconditioner.identity());
+    }
+
+    public double resolve(final List<Equation> equations, final PhysicalStore<Double> solution) {
+
+        final int tmpLength = (int) solution.count();
+
+        final Preconditioner tmpPreconditioner = this.getPreconditioner();
+        tmpPreconditioner.prepare(equations);
+
+        PrimitiveDenseStore tmpR1 = KrylovSubspaceSolver.zeros(solution);
+        PrimitiveDenseStore tmpR2 = KrylovSubspaceSolver.zeros(solution);
+        PrimitiveDenseStore tmpY = KrylovSubspaceSolver.zeros(solution);
+        final PrimitiveDenseStore tmpV = KrylovSubspaceSolver.zeros(solution);
+        PrimitiveDenseStore tmpW = KrylovSubspaceSolver.zeros(solution);
+        PrimitiveDenseStore tmpW1 = KrylovSubspaceSolver.zeros(solution);
+        PrimitiveDenseStore tmpW2 = KrylovSubspaceSolver.zeros(solution);
+
+        final double tmpNormRHS = PrimitiveFunction.HYPOT.invoke(ONE, KrylovSubspaceSolver.normOfRHS(equations));
+        final double tmpNormInitial = KrylovSubspaceSolver.residual(equations, solution, tmpR1);
+        tmpR2.fillMatching(tmpR1);
+        tmpPreconditioner.apply(tmpR1, tmpY);
+
+        final double tmpBeta1 = Math.sqrt(KrylovSubspaceSolver.dot(tmpR1, tmpY));
+        if (Double.isNaN(tmpBeta1) || (tmpBeta1 == ZERO)) {
+            // Already solved, or the preconditioner is not positive definite
+            return tmpNormInitial / tmpNormRHS;
+        }
+
+        // Scales the (preconditioned) residual estimate to the size of the actual initial residual
+        final double tmpScale = tmpNormInitial / tmpBeta1;
+
+        double tmpOldBeta = ZERO;
+        double tmpBeta = tmpBeta1;
+        double tmpDeltaBar = ZERO;
+        double tmpEpsilon = ZERO;
+        double tmpPhiBar = tmpBeta1;
+        double tmpCos = -ONE;
+        double tmpSin = ZERO;
+
+        double tmpNormErr = tmpNormInitial;
+
+        int tmpIterations = 0;
+        final int tmpLimit = this.getIterationsLimit();
+        final NumberContext tmpCntxt = this.getAccuracyContext();
+
+        while ((tmpIterations < tmpLimit) && !tmpCntxt.isSmall(tmpNormRHS, tmpNormErr)) {
+
+            // Lanczos step
+
+            final double[] v = tmpV.data;
+            final double[] y = tmpY.data;
+            final double tmpReciprocal = ONE / tmpBeta;
+            IterativeSolverTask.reduce(tmpLength, (first, limit) -> {
+                for (int i = first; i < limit; i++) {
+                    v[i] = tmpReciprocal * y[i];
+                }
+                return ZERO;
+            });
+
+            KrylovSubspaceSolver.multiply(equations, tmpV, tmpY);
+            if (tmpIterations > 0) {
+                KrylovSubspaceSolver.axpy(-tmpBeta / tmpOldBeta, tmpR1, tmpY);
+            }
+            final double tmpAlpha = KrylovSubspaceSolver.dot(tmpV, tmpY);
+            KrylovSubspaceSolver.axpy(-tmpAlpha / tmpBeta, tmpR2, tmpY);
+
+            final PrimitiveDenseStore tmpRecycled = tmpR1;
+            tmpR1 = tmpR2;
+            tmpR2 = tmpY;
+            tmpY = tmpRecycled;
+            tmpPreconditioner.apply(tmpR2, tmpY);
+
+            tmpOldBeta = tmpBeta;
+            tmpBeta = Math.sqrt(KrylovSubspaceSolver.dot(tmpR2, tmpY));
+            if (Double.isNaN(tmpBeta)) {
+                // The preconditioner is not positive definite
+                break;
+            }
+
+            // Apply the previous rotation, and compute a new one
+
+            final double tmpOldEpsilon = tmpEpsilon;
+            final double tmpDelta = (tmpCos * tmpDeltaBar) + (tmpSin * tmpAlpha);
+            final double tmpGammaBar = (tmpSin * tmpDeltaBar) - (tmpCos * tmpAlpha);
+            tmpEpsilon = tmpSin * tmpBeta;
+            tmpDeltaBar = -tmpCos * tmpBeta;
+
+            final double tmpGamma = Math.max(Math.hypot(tmpGammaBar, tmpBeta), MACHINE_EPSILON);
+            tmpCos = tmpGammaBar / tmpGamma;
+            tmpSin = tmpBeta / tmpGamma;
+            final double tmpPhi = tmpCos * tmpPhiBar;
+            tmpPhiBar = tmpSin * tmpPhiBar;
+
+            // Update the solution
+
+            final PrimitiveDenseStore tmpOldest = tmpW1;
+            tmpW1 = tmpW2;
+            tmpW2 = tmpW;
+            tmpW = tmpOldest;
+
+            final double[] w = tmpW.data;
+            final double[] w1 = tmpW1.data;
+            final double[] w2 = tmpW2.data;
+            IterativeSolverTask.reduce(tmpLength, (first, limit) -> {
+                for (int i = first; i < limit; i++) {
+                    w[i] = (v[i] - (tmpOldEpsilon * w1[i]) - (tmpDelta * w2[i])) / tmpGamma;
+                }
+                return ZERO;
+            });
+
+            KrylovSubspaceSolver.update(equations, solution, tmpPhi, tmpW);
+
+            tmpIterations++;
+            tmpNormErr = tmpScale * tmpPhiBar;
+
+            if (this.isDebugPrinterSet()) {
+                this.debug(tmpIterations, solution);
+            }
+
+            if (tmpBeta == ZERO) {
+                break;
+            }
+        }
+
+        tmpNormErr = KrylovSubspaceSolver.residual(equations, solution, tmpR1);
+
+        return tmpNormErr / tmpNormRHS;
+    }
+
+}
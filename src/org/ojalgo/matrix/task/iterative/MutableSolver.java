@@ -81,6 +81,18 @@ public abstract class MutableSolver<D extends IterativeSolverTask & IterativeSol
         return myDelegate.resolve(myRows, solution);
     }
 
+    /**
+     * Only possible if the delegate is a {@link KrylovSubspaceSolver}. The preconditioner is prepared again
+     * with each {@link #resolve(PhysicalStore)}.
+     */
+    public void setPreconditioner(final Preconditioner preconditioner) {
+        if (myDelegate instanceof KrylovSubspaceSolver) {
+            ((KrylovSubspaceSolver) myDelegate).setPreconditioner(preconditioner);
+        } else {
+            throw new IllegalStateException("The delegate solver is not preconditioned!");
+        }
+    }
+
     public MatrixStore<Double> solve(final Access2D<?> body, final Access2D<?> rhs, final PhysicalStore<Double> current) throws RecoverableCondition {
         return myDelegate.solve(body, rhs, current);
     }
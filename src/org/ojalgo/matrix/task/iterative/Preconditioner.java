@@ -0,0 +1,97 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import java.util.List;
+
+import org.ojalgo.access.Access1D;
+import org.ojalgo.matrix.store.PhysicalStore;
+
+/**
+ * Approximates the inverse of the equation system body, [M]<sup>-1</sup> &asymp; [A]<sup>-1</sup>, to speed
+ * up the convergence of the {@link KrylovSubspaceSolver}s. A preconditioner is stateful – it is
+ * {@link #prepare(List)}:d once per resolve and then {@link #apply(Access1D, PhysicalStore)}:d once (or a few
+ * times) per iteration. Create a new instance for each solver.
+ *
+ * @author apete
+ */
+public interface Preconditioner {
+
+    /**
+     * Block Jacobi: the diagonal blocks (of consecutive equations) are LU decomposed and solved exactly.
+     *
+     * @param blockSize The number of equations in each block
+     */
+    static Preconditioner blockJacobi(final int blockSize) {
+        return new BlockJacobiPreconditioner(blockSize);
+    }
+
+    /**
+     * No preconditioning at all
+     */
+    static Preconditioner identity() {
+        return new IdentityPreconditioner();
+    }
+
+    /**
+     * Zero fill-in incomplete Cholesky, IC(0). Only for symmetric positive definite systems. Should the
+     * factorisation break down it is redone with an increasing diagonal shift.
+     */
+    static Preconditioner incompleteCholesky() {
+        return new IncompleteCholeskyPreconditioner();
+    }
+
+    /**
+     * Zero fill-in incomplete LU, ILU(0). Also for nonsymmetric systems.
+     */
+    static Preconditioner incompleteLU() {
+        return new IncompleteLUPreconditioner();
+    }
+
+    /**
+     * Jacobi (diagonal) preconditioning – the default.
+     */
+    static Preconditioner jacobi() {
+        return new JacobiPreconditioner();
+    }
+
+    /**
+     * Symmetric successive over-relaxation
+     *
+     * @param relaxation Should be in the range (0, 2)
+     */
+    static Preconditioner ssor(final double relaxation) {
+        return new SSORPreconditioner(relaxation);
+    }
+
+    /**
+     * [preconditioned] = [M]<sup>-1</sup>[residual]. Only the elements at the equation indices are read or
+     * written.
+     */
+    void apply(Access1D<?> residual, PhysicalStore<Double> preconditioned);
+
+    /**
+     * Called before iterating, and again whenever the equations (may) have changed.
+     */
+    void prepare(List<Equation> equations);
+
+}
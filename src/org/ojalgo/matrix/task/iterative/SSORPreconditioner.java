@@ -0,0 +1,90 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task.iterative;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+/**
+ * [M] = ([D] + &omega;[L])[D]<sup>-1</sup>([D] + &omega;[U]) / (&omega;(2 - &omega;)) – a forward and a
+ * backward (relaxed) Gauss-Seidel sweep. Symmetric whenever [A] is.
+ *
+ * @author apete
+ */
+final class SSORPreconditioner extends CompressedPreconditioner {
+
+    private final double myRelaxation;
+
+    SSORPreconditioner(final double relaxation) {
+        super();
+        if ((relaxation <= ZERO) || (relaxation >= TWO)) {
+            throw new IllegalArgumentException("The relaxation factor must be in the range (0, 2)!");
+        }
+        myRelaxation = relaxation;
+    }
+
+    @Override
+    void factorise() {
+        for (int i = 0; i < myDim; i++) {
+            if (myValues[myDiagonal[i]] == ZERO) {
+                throw new IllegalArgumentException("SSOR requires nonzero diagonal elements!");
+            }
+        }
+    }
+
+    @Override
+    void solve(final double[] work) {
+
+        final int[] tmpPointers = myPointers;
+        final int[] tmpColumns = myColumns;
+        final double[] tmpValues = myValues;
+        final int[] tmpDiagonal = myDiagonal;
+        final double tmpRelaxation = myRelaxation;
+
+        // ([D] + w[L])[y] = [b], then [D][y]
+        for (int i = 0; i < myDim; i++) {
+            double tmpSum = ZERO;
+            for (int p = tmpPointers[i]; p < tmpDiagonal[i]; p++) {
+                tmpSum += tmpValues[p] * work[tmpColumns[p]];
+            }
+            final double tmpPivot = tmpValues[tmpDiagonal[i]];
+            work[i] = ((work[i] - (tmpRelaxation * tmpSum)) / tmpPivot);
+        }
+        for (int i = 0; i < myDim; i++) {
+            work[i] *= tmpValues[tmpDiagonal[i]];
+        }
+
+        // ([D] + w[U])[x] = [D][y]
+        for (int i = myDim - 1; i >= 0; i--) {
+            double tmpSum = ZERO;
+            for (int p = tmpDiagonal[i] + 1; p < tmpPointers[i + 1]; p++) {
+                tmpSum += tmpValues[p] * work[tmpColumns[p]];
+            }
+            work[i] = (work[i] - (tmpRelaxation * tmpSum)) / tmpValues[tmpDiagonal[i]];
+        }
+
+        final double tmpScale = tmpRelaxation * (TWO - tmpRelaxation);
+        for (int i = 0; i < myDim; i++) {
+            work[i] *= tmpScale;
+        }
+    }
+
+}
@@ -0,0 +1,479 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.ojalgo.access.Structure1D.IntIndex;
+import org.ojalgo.access.Structure2D.IntRowColumn;
+
+/**
+ * A compact, versioned, binary file format for {@linkplain ExpressionsBasedModel}s - much faster to write and
+ * read than MPS text. Files are memory mapped when read.
+ * <p>
+ * Everything is little-endian, and each array starts at an 8 byte boundary:
+ * </p>
+ *
+ * <pre>
+ * header        int magic, int version, int flags (1 = maximisation), int variables (n),
+ *               int expressions (m), int linear factors (nl), int quadratic factors (nq), int name bytes
+ * variables     double[n] lower, double[n] upper, double[n] weight, double[n] value, byte[n] flags (1 = integer)
+ * expressions   double[m] lower, double[m] upper, double[m] weight
+ * linear        int[m+1] pointers, int[nl] variable indices, double[nl] factors
+ * quadratic     int[m+1] pointers, int[nq] row indices, int[nq] column indices, double[nq] factors
+ * names         int[n+m+1] offsets, byte[] UTF-8 (variables then expressions)
+ * </pre>
+ * <p>
+ * The linear and quadratic factors are stored expression by expression (compressed sparse rows), in no
+ * particular order within each expression. Missing (null) limits, weights and values are stored as NaN.
+ * All numbers are stored as double - {@link BigDecimal} values not exactly representable as double are
+ * rounded. Special ordered sets, or any other presolvers, are not part of the model file.
+ * </p>
+ *
+ * @author apete
+ */
+public final class BinaryModelFile {
+
+    /**
+     * Incremented whenever the layout changes. Files of other versions are rejected.
+     */
+    public static final int VERSION = 1;
+
+    private static final int ALIGNMENT = 8;
+    private static final byte FLAG_INTEGER = 1;
+    private static final int FLAG_MAXIMISATION = 1;
+    private static final int HEADER = 8 * Integer.BYTES;
+    /**
+     * The bytes 'o', 'j', 'M' and 'B'
+     */
+    private static final int MAGIC = 0x424D6A6F;
+
+    /**
+     * @param buffer The buffer position should be at the start of the model data. The buffer itself is not
+     *        modified, and may be read-only.
+     * @param options Determines (among other things) if the factors are stored as {@link BigDecimal} or
+     *        double - {@link Optimisation.Options#exact}
+     */
+    public static ExpressionsBasedModel read(final ByteBuffer buffer, final Optimisation.Options options) throws IOException {
+
+        final ByteBuffer tmpBuffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+        if ((tmpBuffer.remaining() < HEADER) || (tmpBuffer.getInt() != MAGIC)) {
+            throw new IOException("Not an ojAlgo binary model file!");
+        }
+        final int tmpVersion = tmpBuffer.getInt();
+        if (tmpVersion != VERSION) {
+            throw new IOException("Unsupported binary model file version: " + tmpVersion + "!");
+        }
+        final int tmpFlags = tmpBuffer.getInt();
+        final int tmpCountVariables = tmpBuffer.getInt();
+        final int tmpCountExpressions = tmpBuffer.getInt();
+        final int tmpCountLinear = tmpBuffer.getInt();
+        final int tmpCountQuadratic = tmpBuffer.getInt();
+        final int tmpCountNameBytes = tmpBuffer.getInt();
+
+        // Validate the counts before allocating anything - a corrupt header must not cause an OutOfMemoryError
+        if ((tmpCountVariables < 0) || (tmpCountExpressions < 0) || (tmpCountLinear < 0) || (tmpCountQuadratic < 0) || (tmpCountNameBytes < 0)
+                || (BinaryModelFile.size(tmpCountVariables, tmpCountExpressions, tmpCountLinear, tmpCountQuadratic, tmpCountNameBytes) > tmpBuffer.capacity())) {
+            throw new IOException("Corrupt binary model file!");
+        }
+
+        try {
+
+            final double[] tmpVariableLower = BinaryModelFile.getDoubles(tmpBuffer, tmpCountVariables);
+            final double[] tmpVariableUpper = BinaryModelFile.getDoubles(tmpBuffer, tmpCountVariables);
+            final double[] tmpVariableWeight = BinaryModelFile.getDoubles(tmpBuffer, tmpCountVariables);
+            final double[] tmpVariableValue = BinaryModelFile.getDoubles(tmpBuffer, tmpCountVariables);
+            final byte[] tmpVariableFlags = BinaryModelFile.getBytes(tmpBuffer, tmpCountVariables);
+
+            final double[] tmpExpressionLower = BinaryModelFile.getDoubles(tmpBuffer, tmpCountExpressions);
+            final double[] tmpExpressionUpper = BinaryModelFile.getDoubles(tmpBuffer, tmpCountExpressions);
+            final double[] tmpExpressionWeight = BinaryModelFile.getDoubles(tmpBuffer, tmpCountExpressions);
+
+            final int[] tmpLinearPointers = BinaryModelFile.getInts(tmpBuffer, tmpCountExpressions + 1);
+            final int[] tmpLinearIndices = BinaryModelFile.getInts(tmpBuffer, tmpCountLinear);
+            final double[] tmpLinearFactors = BinaryModelFile.getDoubles(tmpBuffer, tmpCountLinear);
+
+            final int[] tmpQuadraticPointers = BinaryModelFile.getInts(tmpBuffer, tmpCountExpressions + 1);
+            final int[] tmpQuadraticRows = BinaryModelFile.getInts(tmpBuffer, tmpCountQuadratic);
+            final int[] tmpQuadraticColumns = BinaryModelFile.getInts(tmpBuffer, tmpCountQuadratic);
+            final double[] tmpQuadraticFactors = BinaryModelFile.getDoubles(tmpBuffer, tmpCountQuadratic);
+
+            final int[] tmpNameOffsets = BinaryModelFile.getInts(tmpBuffer, tmpCountVariables + tmpCountExpressions + 1);
+            final byte[] tmpNameBytes = BinaryModelFile.getBytes(tmpBuffer, tmpCountNameBytes);
+
+            final ExpressionsBasedModel retVal = new ExpressionsBasedModel(options);
+
+            if ((tmpFlags & FLAG_MAXIMISATION) != 0) {
+                retVal.setMaximisation();
+            } else {
+                retVal.setMinimisation();
+            }
+
+            for (int v = 0; v < tmpCountVariables; v++) {
+
+                final Variable tmpVariable = new Variable(BinaryModelFile.getName(tmpNameBytes, tmpNameOffsets, v));
+
+                tmpVariable.lower(BinaryModelFile.toBigDecimal(tmpVariableLower[v]));
+                tmpVariable.upper(BinaryModelFile.toBigDecimal(tmpVariableUpper[v]));
+                tmpVariable.weight(BinaryModelFile.toBigDecimal(tmpVariableWeight[v]));
+                tmpVariable.setValue(BinaryModelFile.toBigDecimal(tmpVariableValue[v]));
+                tmpVariable.setInteger((tmpVariableFlags[v] & FLAG_INTEGER) != 0);
+
+                retVal.addVariable(tmpVariable);
+            }
+
+            for (int e = 0; e < tmpCountExpressions; e++) {
+
+                final Expression tmpExpression = retVal.addExpression(BinaryModelFile.getName(tmpNameBytes, tmpNameOffsets, tmpCountVariables + e));
+
+                tmpExpression.lower(BinaryModelFile.toBigDecimal(tmpExpressionLower[e]));
+                tmpExpression.upper(BinaryModelFile.toBigDecimal(tmpExpressionUpper[e]));
+                tmpExpression.weight(BinaryModelFile.toBigDecimal(tmpExpressionWeight[e]));
+
+                tmpExpression.setLinearFactors(tmpLinearIndices, tmpLinearFactors, tmpLinearPointers[e], tmpLinearPointers[e + 1]);
+
+                for (int q = tmpQuadraticPointers[e]; q < tmpQuadraticPointers[e + 1]; q++) {
+                    tmpExpression.set(tmpQuadraticRows[q], tmpQuadraticColumns[q], tmpQuadraticFactors[q]);
+                }
+            }
+
+            return retVal;
+
+        } catch (final RuntimeException cause) {
+            // Truncated or otherwise corrupt file
+            throw new IOException("Corrupt binary model file!", cause);
+        }
+    }
+
+    /**
+     * Memory maps the file, and reads it with default options.
+     */
+    public static ExpressionsBasedModel read(final File file) throws IOException {
+        return BinaryModelFile.read(file, new Optimisation.Options());
+    }
+
+    /**
+     * Memory maps the file, and reads it.
+     */
+    public static ExpressionsBasedModel read(final File file, final Optimisation.Options options) throws IOException {
+        try (final FileChannel tmpChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (tmpChannel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Too large binary model file!");
+            }
+            return BinaryModelFile.read(tmpChannel.map(FileChannel.MapMode.READ_ONLY, 0L, tmpChannel.size()), options);
+        }
+    }
+
+    /**
+     * Reads everything remaining in the stream, but does not close it.
+     */
+    public static ExpressionsBasedModel read(final InputStream input, final Optimisation.Options options) throws IOException {
+
+        final ByteArrayOutputStream tmpBytes = new ByteArrayOutputStream(1 << 16);
+
+        final byte[] tmpChunk = new byte[1 << 16];
+        int tmpRead;
+        while ((tmpRead = input.read(tmpChunk)) != -1) {
+            tmpBytes.write(tmpChunk, 0, tmpRead);
+        }
+
+        return BinaryModelFile.read(ByteBuffer.wrap(tmpBytes.toByteArray()), options);
+    }
+
+    public static void write(final ExpressionsBasedModel model, final File file) throws IOException {
+        try (final FileChannel tmpChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer tmpBuffer = BinaryModelFile.toByteBuffer(model);
+            while (tmpBuffer.hasRemaining()) {
+                tmpChannel.write(tmpBuffer);
+            }
+        }
+    }
+
+    /**
+     * Writes the model to the stream, but does not close it.
+     */
+    public static void write(final ExpressionsBasedModel model, final OutputStream output) throws IOException {
+        final ByteBuffer tmpBuffer = BinaryModelFile.toByteBuffer(model);
+        final WritableByteChannel tmpChannel = Channels.newChannel(output);
+        while (tmpBuffer.hasRemaining()) {
+            tmpChannel.write(tmpBuffer);
+        }
+        output.flush();
+    }
+
+    private static long align(final long position) {
+        return (position + (ALIGNMENT - 1)) & -ALIGNMENT;
+    }
+
+    private static byte[] getBytes(final ByteBuffer buffer, final int count) {
+        final byte[] retVal = new byte[count];
+        buffer.get(retVal);
+        buffer.position((int) BinaryModelFile.align(buffer.position()));
+        return retVal;
+    }
+
+    private static double[] getDoubles(final ByteBuffer buffer, final int count) {
+        final double[] retVal = new double[count];
+        buffer.asDoubleBuffer().get(retVal);
+        buffer.position((int) BinaryModelFile.align(buffer.position() + ((long) count * Double.BYTES)));
+        return retVal;
+    }
+
+    private static int[] getInts(final ByteBuffer buffer, final int count) {
+        final int[] retVal = new int[count];
+        buffer.asIntBuffer().get(retVal);
+        buffer.position((int) BinaryModelFile.align(buffer.position() + ((long) count * Integer.BYTES)));
+        return retVal;
+    }
+
+    private static String getName(final byte[] bytes, final int[] offsets, final int index) {
+        return new String(bytes, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+    }
+
+    private static void putBytes(final ByteBuffer buffer, final byte[] values, final int count) {
+        buffer.put(values, 0, count);
+        buffer.position((int) BinaryModelFile.align(buffer.position()));
+    }
+
+    private static void putDoubles(final ByteBuffer buffer, final double[] values, final int count) {
+        buffer.asDoubleBuffer().put(values, 0, count);
+        buffer.position((int) BinaryModelFile.align(buffer.position() + ((long) count * Double.BYTES)));
+    }
+
+    private static void putInts(final ByteBuffer buffer, final int[] values, final int count) {
+        buffer.asIntBuffer().put(values, 0, count);
+        buffer.position((int) BinaryModelFile.align(buffer.position() + ((long) count * Integer.BYTES)));
+    }
+
+    /**
+     * The total number of bytes, header included, of a file with these counts
+     */
+    private static long size(final int countVariables, final int countExpressions, final int countLinear, final int countQuadratic,
+            final int countNameBytes) {
+
+        long retVal = HEADER;
+
+        retVal += 4L * BinaryModelFile.align(Double.BYTES * (long) countVariables);
+        retVal += BinaryModelFile.align(countVariables);
+        retVal += 3L * BinaryModelFile.align(Double.BYTES * (long) countExpressions);
+        retVal += BinaryModelFile.align(Integer.BYTES * (countExpressions + 1L));
+        retVal += BinaryModelFile.align(Integer.BYTES * (long) countLinear);
+        retVal += BinaryModelFile.align(Double.BYTES * (long) countLinear);
+        retVal += BinaryModelFile.align(Integer.BYTES * (countExpressions + 1L));
+        retVal += 2L * BinaryModelFile.align(Integer.BYTES * (long) countQuadratic);
+        retVal += BinaryModelFile.align(Double.BYTES * (long) countQuadratic);
+        retVal += BinaryModelFile.align(Integer.BYTES * ((long) countVariables + countExpressions + 1L));
+        retVal += BinaryModelFile.align(countNameBytes);
+
+        return retVal;
+    }
+
+    private static BigDecimal toBigDecimal(final double value) {
+        return Double.isNaN(value) ? null : BigDecimal.valueOf(value);
+    }
+
+    private static ByteBuffer toByteBuffer(final ExpressionsBasedModel model) {
+
+        final List<Variable> tmpVariables = model.getVariables();
+        final Collection<Expression> tmpExpressions = model.getExpressions();
+
+        final int tmpCountVariables = tmpVariables.size();
+        final int tmpCountExpressions = tmpExpressions.size();
+
+        final double[] tmpVariableLower = new double[tmpCountVariables];
+        final double[] tmpVariableUpper = new double[tmpCountVariables];
+        final double[] tmpVariableWeight = new double[tmpCountVariables];
+        final double[] tmpVariableValue = new double[tmpCountVariables];
+        final byte[] tmpVariableFlags = new byte[tmpCountVariables];
+
+        final byte[][] tmpNames = new byte[tmpCountVariables + tmpCountExpressions][];
+        final int[] tmpNameOffsets = new int[tmpNames.length + 1];
+
+        for (int v = 0; v < tmpCountVariables; v++) {
+            final Variable tmpVariable = tmpVariables.get(v);
+            tmpVariableLower[v] = BinaryModelFile.toDouble(tmpVariable.getLowerLimit());
+            tmpVariableUpper[v] = BinaryModelFile.toDouble(tmpVariable.getUpperLimit());
+            tmpVariableWeight[v] = BinaryModelFile.toDouble(tmpVariable.getContributionWeight());
+            tmpVariableValue[v] = BinaryModelFile.toDouble(tmpVariable.getValue());
+            tmpVariableFlags[v] = tmpVariable.isInteger() ? FLAG_INTEGER : 0;
+            tmpNames[v] = tmpVariable.getName().getBytes(StandardCharsets.UTF_8);
+        }
+
+        final double[] tmpExpressionLower = new double[tmpCountExpressions];
+        final double[] tmpExpressionUpper = new double[tmpCountExpressions];
+        final double[] tmpExpressionWeight = new double[tmpCountExpressions];
+
+        final int[] tmpLinearPointers = new int[tmpCountExpressions + 1];
+        final int[] tmpQuadraticPointers = new int[tmpCountExpressions + 1];
+
+        int e = 0;
+        for (final Expression tmpExpression : tmpExpressions) {
+            tmpExpressionLower[e] = BinaryModelFile.toDouble(tmpExpression.getLowerLimit());
+            tmpExpressionUpper[e] = BinaryModelFile.toDouble(tmpExpression.getUpperLimit());
+            tmpExpressionWeight[e] = BinaryModelFile.toDouble(tmpExpression.getContributionWeight());
+            tmpLinearPointers[e + 1] = tmpLinearPointers[e] + tmpExpression.countLinearFactors();
+            tmpQuadraticPointers[e + 1] = tmpQuadraticPointers[e] + tmpExpression.countQuadraticFactors();
+            tmpNames[tmpCountVariables + e] = tmpExpression.getName().getBytes(StandardCharsets.UTF_8);
+            e++;
+        }
+
+        final int tmpCountLinear = tmpLinearPointers[tmpCountExpressions];
+        final int tmpCountQuadratic = tmpQuadraticPointers[tmpCountExpressions];
+
+        final int[] tmpLinearIndices = new int[tmpCountLinear];
+        final double[] tmpLinearFactors = new double[tmpCountLinear];
+        final int[] tmpQuadraticRows = new int[tmpCountQuadratic];
+        final int[] tmpQuadraticColumns = new int[tmpCountQuadratic];
+        final double[] tmpQuadraticFactors = new double[tmpCountQuadratic];
+
+        long[] tmpKeys = new long[0];
+        double[] tmpValues = new double[0];
+
+        e = 0;
+        for (final Expression tmpExpression : tmpExpressions) {
+
+            final Map<IntIndex, BigDecimal> tmpLinear = tmpExpression.getLinear();
+            int tmpPointer = tmpLinearPointers[e];
+            if (tmpLinear instanceof PrimitiveFactors) {
+                if (tmpKeys.length < tmpLinear.size()) {
+                    tmpKeys = new long[tmpLinear.size()];
+                    tmpValues = new double[tmpLinear.size()];
+                }
+                final int tmpSize = ((PrimitiveFactors<?>) tmpLinear).copyTo(tmpKeys, tmpValues);
+                for (int i = 0; i < tmpSize; i++) {
+                    tmpLinearIndices[tmpPointer] = (int) tmpKeys[i];
+                    tmpLinearFactors[tmpPointer] = tmpValues[i];
+                    tmpPointer++;
+                }
+            } else {
+                for (final Map.Entry<IntIndex, BigDecimal> tmpEntry : tmpLinear.entrySet()) {
+                    tmpLinearIndices[tmpPointer] = tmpEntry.getKey().index;
+                    tmpLinearFactors[tmpPointer] = tmpEntry.getValue().doubleValue();
+                    tmpPointer++;
+                }
+            }
+
+            final Map<IntRowColumn, BigDecimal> tmpQuadratic = tmpExpression.getQuadratic();
+            tmpPointer = tmpQuadraticPointers[e];
+            if (tmpQuadratic instanceof PrimitiveFactors) {
+                if (tmpKeys.length < tmpQuadratic.size()) {
+                    tmpKeys = new long[tmpQuadratic.size()];
+                    tmpValues = new double[tmpQuadratic.size()];
+                }
+                final int tmpSize = ((PrimitiveFactors<?>) tmpQuadratic).copyTo(tmpKeys, tmpValues);
+                for (int i = 0; i < tmpSize; i++) {
+                    tmpQuadraticRows[tmpPointer] = (int) (tmpKeys[i] >>> 32);
+                    tmpQuadraticColumns[tmpPointer] = (int) tmpKeys[i];
+                    tmpQuadraticFactors[tmpPointer] = tmpValues[i];
+                    tmpPointer++;
+                }
+            } else {
+                for (final Map.Entry<IntRowColumn, BigDecimal> tmpEntry : tmpQuadratic.entrySet()) {
+                    tmpQuadraticRows[tmpPointer] = tmpEntry.getKey().row;
+                    tmpQuadraticColumns[tmpPointer] = tmpEntry.getKey().column;
+                    tmpQuadraticFactors[tmpPointer] = tmpEntry.getValue().doubleValue();
+                    tmpPointer++;
+                }
+            }
+
+            e++;
+        }
+
+        for (int n = 0; n < tmpNames.length; n++) {
+            tmpNameOffsets[n + 1] = tmpNameOffsets[n] + tmpNames[n].length;
+        }
+        final int tmpCountNameBytes = tmpNameOffsets[tmpNames.length];
+        final byte[] tmpNameBytes = new byte[tmpCountNameBytes];
+        for (int n = 0; n < tmpNames.length; n++) {
+            System.arraycopy(tmpNames[n], 0, tmpNameBytes, tmpNameOffsets[n], tmpNames[n].length);
+        }
+
+        final long tmpSize = BinaryModelFile.size(tmpCountVariables, tmpCountExpressions, tmpCountLinear, tmpCountQuadratic, tmpCountNameBytes);
+
+        if (tmpSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The model is too large for the binary model file format!");
+        }
+
+        final ByteBuffer retVal = ByteBuffer.allocate((int) tmpSize).order(ByteOrder.LITTLE_ENDIAN);
+
+        retVal.putInt(MAGIC);
+        retVal.putInt(VERSION);
+        retVal.putInt(model.isMaximisation() ? FLAG_MAXIMISATION : 0);
+        retVal.putInt(tmpCountVariables);
+        retVal.putInt(tmpCountExpressions);
+        retVal.putInt(tmpCountLinear);
+        retVal.putInt(tmpCountQuadratic);
+        retVal.putInt(tmpCountNameBytes);
+
+        BinaryModelFile.putDoubles(retVal, tmpVariableLower, tmpCountVariables);
+        BinaryModelFile.putDoubles(retVal, tmpVariableUpper, tmpCountVariables);
+        BinaryModelFile.putDoubles(retVal, tmpVariableWeight, tmpCountVariables);
+        BinaryModelFile.putDoubles(retVal, tmpVariableValue, tmpCountVariables);
+        BinaryModelFile.putBytes(retVal, tmpVariableFlags, tmpCountVariables);
+
+        BinaryModelFile.putDoubles(retVal, tmpExpressionLower, tmpCountExpressions);
+        BinaryModelFile.putDoubles(retVal, tmpExpressionUpper, tmpCountExpressions);
+        BinaryModelFile.putDoubles(retVal, tmpExpressionWeight, tmpCountExpressions);
+
+        BinaryModelFile.putInts(retVal, tmpLinearPointers, tmpCountExpressions + 1);
+        BinaryModelFile.putInts(retVal, tmpLinearIndices, tmpCountLinear);
+        BinaryModelFile.putDoubles(retVal, tmpLinearFactors, tmpCountLinear);
+
+        BinaryModelFile.putInts(retVal, tmpQuadraticPointers, tmpCountExpressions + 1);
+        BinaryModelFile.putInts(retVal, tmpQuadraticRows, tmpCountQuadratic);
+        BinaryModelFile.putInts(retVal, tmpQuadraticColumns, tmpCountQuadratic);
+        BinaryModelFile.putDoubles(retVal, tmpQuadraticFactors, tmpCountQuadratic);
+
+        BinaryModelFile.putInts(retVal, tmpNameOffsets, tmpNameOffsets.length);
+        BinaryModelFile.putBytes(retVal, tmpNameBytes, tmpCountNameBytes);
+
+        retVal.flip();
+
+        return retVal;
+    }
+
+    private static double toDouble(final BigDecimal value) {
+        return value != null ? value.doubleValue() : Double.NaN;
+    }
+
+    private BinaryModelFile() {
+        super();
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ojalgo.access.Access1D;
+
+/**
+ * A linear inequality, in model variables, that is valid for all integer solutions but (preferably)
+ * cuts off the relaxed solution: <code>&Sigma; value(k) * x[index(k)] &lt;= upper</code>. Each cut is
+ * given a unique id, that is used to identify its row when warm starting.
+ *
+ * @author apete
+ */
+public final class Cut {
+
+    private static final AtomicInteger GENERATOR = new AtomicInteger();
+
+    private final int myId = GENERATOR.getAndIncrement();
+    private final int[] myIndices;
+    private final double myNorm;
+    private final double myUpper;
+    private final double[] myValues;
+
+    /**
+     * @param coefficients One coefficient per model variable (zeros are not stored)
+     * @param upper The right hand side
+     */
+    public Cut(final double[] coefficients, final double upper) {
+
+        super();
+
+        int tmpCount = 0;
+        for (int i = 0; i < coefficients.length; i++) {
+            if (coefficients[i] != ZERO) {
+                tmpCount++;
+            }
+        }
+
+        myIndices = new int[tmpCount];
+        myValues = new double[tmpCount];
+        double tmpSum = ZERO;
+        for (int i = 0, k = 0; i < coefficients.length; i++) {
+            if (coefficients[i] != ZERO) {
+                myIndices[k] = i;
+                myValues[k++] = coefficients[i];
+                tmpSum += coefficients[i] * coefficients[i];
+            }
+        }
+
+        myNorm = Math.sqrt(tmpSum);
+        myUpper = upper;
+    }
+
+    /**
+     * @return The cosine of the angle between the two cuts' normals - close to 1 means (almost) parallel
+     */
+    public double cosine(final Cut other) {
+
+        double tmpDot = ZERO;
+        for (int k = 0, o = 0; (k < myIndices.length) && (o < other.myIndices.length);) {
+            if (myIndices[k] == other.myIndices[o]) {
+                tmpDot += myValues[k++] * other.myValues[o++];
+            } else if (myIndices[k] < other.myIndices[o]) {
+                k++;
+            } else {
+                o++;
+            }
+        }
+
+        return tmpDot / (myNorm * other.myNorm);
+    }
+
+    public int count() {
+        return myIndices.length;
+    }
+
+    /**
+     * @return The violation divided by the norm of the coefficients - the (euclidean) distance from the
+     *         solution to the cut hyperplane.
+     */
+    public double getEfficacy(final Access1D<?> solution) {
+        return this.getViolation(solution) / myNorm;
+    }
+
+    /**
+     * @return The cut's unique id
+     */
+    public int getId() {
+        return myId;
+    }
+
+    public double getUpper() {
+        return myUpper;
+    }
+
+    /**
+     * @return How much the solution violates the cut - negative if it is satisfied
+     */
+    public double getViolation(final Access1D<?> solution) {
+        double retVal = -myUpper;
+        for (int k = 0; k < myIndices.length; k++) {
+            retVal += myValues[k] * solution.doubleValue(myIndices[k]);
+        }
+        return retVal;
+    }
+
+    public int index(final int k) {
+        return myIndices[k];
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder retVal = new StringBuilder();
+        retVal.append(myId).append(':');
+        for (int k = 0; k < myIndices.length; k++) {
+            retVal.append(' ').append(myValues[k]).append("*x").append(myIndices[k]);
+        }
+        return retVal.append(" <= ").append(myUpper).toString();
+    }
+
+    public double value(final int k) {
+        return myValues[k];
+    }
+
+}
@@ -21,12 +21,15 @@
  */
 package org.ojalgo.optimisation;
 
+import static org.ojalgo.constant.PrimitiveMath.*;
+
 import java.math.BigDecimal;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
@@ -72,9 +75,9 @@ import org.ojalgo.type.TypeUtils;
 public final class Expression extends ModelEntity<Expression> {
 
     private transient boolean myInfeasible = false;
-    private final HashMap<IntIndex, BigDecimal> myLinear;
+    private final Map<IntIndex, BigDecimal> myLinear;
     private final ExpressionsBasedModel myModel;
-    private final HashMap<IntRowColumn, BigDecimal> myQuadratic;
+    private final Map<IntRowColumn, BigDecimal> myQuadratic;
     private transient boolean myRedundant = false;
     private final boolean myShallowCopy;
 
@@ -96,11 +99,19 @@ public final class Expression extends ModelEntity<Expression> {
 
             myShallowCopy = false;
 
-            myLinear = new HashMap<>();
-            myLinear.putAll(expressionToCopy.getLinear());
+            final Map<IntIndex, BigDecimal> tmpLinear = expressionToCopy.getLinear();
+            if (tmpLinear instanceof PrimitiveFactors.Linear) {
+                myLinear = ((PrimitiveFactors.Linear) tmpLinear).copy();
+            } else {
+                myLinear = new HashMap<>(tmpLinear);
+            }
 
-            myQuadratic = new HashMap<>();
-            myQuadratic.putAll(expressionToCopy.getQuadratic());
+            final Map<IntRowColumn, BigDecimal> tmpQuadratic = expressionToCopy.getQuadratic();
+            if (tmpQuadratic instanceof PrimitiveFactors.Quadratic) {
+                myQuadratic = ((PrimitiveFactors.Quadratic) tmpQuadratic).copy();
+            } else {
+                myQuadratic = new HashMap<>(tmpQuadratic);
+            }
 
         } else {
 
@@ -119,14 +130,23 @@ public final class Expression extends ModelEntity<Expression> {
 
         myShallowCopy = false;
 
-        myLinear = new HashMap<>();
-        myQuadratic = new HashMap<>();
+        if (model.options.exact) {
+            myLinear = new HashMap<>();
+            myQuadratic = new HashMap<>();
+        } else {
+            myLinear = new PrimitiveFactors.Linear();
+            myQuadratic = new PrimitiveFactors.Quadratic();
+        }
 
         ProgrammingError.throwIfNull(myModel, myLinear, myQuadratic);
     }
 
     public Expression add(final IntIndex key, final Number value) {
 
+        if (myLinear instanceof PrimitiveFactors) {
+            return this.set(key, ((PrimitiveFactors<IntIndex>) myLinear).doubleValue(key.index) + value.doubleValue());
+        }
+
         final BigDecimal tmpExisting = myLinear.get(key);
 
         if (tmpExisting != null) {
@@ -140,6 +160,11 @@ public final class Expression extends ModelEntity<Expression> {
 
     public Expression add(final IntRowColumn key, final Number value) {
 
+        if (myQuadratic instanceof PrimitiveFactors) {
+            final long tmpKey = PrimitiveFactors.Quadratic.pack(key.row, key.column);
+            return this.set(key, ((PrimitiveFactors<IntRowColumn>) myQuadratic).doubleValue(tmpKey) + value.doubleValue());
+        }
+
         final BigDecimal tmpExisting = myQuadratic.get(key);
 
         if (tmpExisting != null) {
@@ -335,7 +360,11 @@ public final class Expression extends ModelEntity<Expression> {
     }
 
     public double getAdjustedLinearFactor(final IntIndex key) {
-        return this.getLinearFactor(key, true).doubleValue();
+        if (myLinear instanceof PrimitiveFactors) {
+            return this.adjust(((PrimitiveFactors<IntIndex>) myLinear).doubleValue(key.index));
+        } else {
+            return this.getLinearFactor(key, true).doubleValue();
+        }
     }
 
     public double getAdjustedLinearFactor(final Variable aVar) {
@@ -347,7 +376,11 @@ public final class Expression extends ModelEntity<Expression> {
     }
 
     public double getAdjustedQuadraticFactor(final IntRowColumn key) {
-        return this.getQuadraticFactor(key, true).doubleValue();
+        if (myQuadratic instanceof PrimitiveFactors) {
+            return this.adjust(((PrimitiveFactors<IntRowColumn>) myQuadratic).doubleValue(PrimitiveFactors.Quadratic.pack(key.row, key.column)));
+        } else {
+            return this.getQuadraticFactor(key, true).doubleValue();
+        }
     }
 
     public double getAdjustedQuadraticFactor(final Variable aVar1, final Variable aVar2) {
@@ -434,12 +467,25 @@ public final class Expression extends ModelEntity<Expression> {
 
         if (key != null) {
 
-            final BigDecimal tmpValue = TypeUtils.toBigDecimal(value);
+            if (myLinear instanceof PrimitiveFactors) {
+
+                final double tmpValue = value.doubleValue();
+
+                if (tmpValue != ZERO) {
+                    ((PrimitiveFactors<IntIndex>) myLinear).put(key.index, tmpValue);
+                } else {
+                    ((PrimitiveFactors<IntIndex>) myLinear).remove(key.index);
+                }
 
-            if (tmpValue.signum() != 0) {
-                myLinear.put(key, tmpValue);
             } else {
-                myLinear.remove(key);
+
+                final BigDecimal tmpValue = TypeUtils.toBigDecimal(value);
+
+                if (tmpValue.signum() != 0) {
+                    myLinear.put(key, tmpValue);
+                } else {
+                    myLinear.remove(key);
+                }
             }
 
         } else {
@@ -454,12 +500,26 @@ public final class Expression extends ModelEntity<Expression> {
 
         if (key != null) {
 
-            final BigDecimal tmpValue = TypeUtils.toBigDecimal(value);
+            if (myQuadratic instanceof PrimitiveFactors) {
+
+                final double tmpValue = value.doubleValue();
+                final long tmpKey = PrimitiveFactors.Quadratic.pack(key.row, key.column);
+
+                if (tmpValue != ZERO) {
+                    ((PrimitiveFactors<IntRowColumn>) myQuadratic).put(tmpKey, tmpValue);
+                } else {
+                    ((PrimitiveFactors<IntRowColumn>) myQuadratic).remove(tmpKey);
+                }
 
-            if (tmpValue.signum() != 0) {
-                myQuadratic.put(key, tmpValue);
             } else {
-                myQuadratic.remove(key);
+
+                final BigDecimal tmpValue = TypeUtils.toBigDecimal(value);
+
+                if (tmpValue.signum() != 0) {
+                    myQuadratic.put(key, tmpValue);
+                } else {
+                    myQuadratic.remove(key);
+                }
             }
 
         } else {
@@ -561,6 +621,21 @@ public final class Expression extends ModelEntity<Expression> {
         }
     }
 
+    /**
+     * The primitive equivalent of {@link BigDecimal#movePointRight(int)} - a single correctly rounded
+     * multiplication or division by an (exactly representable) power of 10.
+     */
+    private double adjust(final double value) {
+        final int tmpAdjExp = this.getAdjustmentExponent();
+        if (tmpAdjExp > 0) {
+            return value * PrimitiveFunction.POWER.invoke(TEN, tmpAdjExp);
+        } else if (tmpAdjExp < 0) {
+            return value / PrimitiveFunction.POWER.invoke(TEN, -tmpAdjExp);
+        } else {
+            return value;
+        }
+    }
+
     private final BigDecimal convert(final BigDecimal value, final boolean adjusted) {
 
         if (value != null) {
@@ -704,7 +779,7 @@ public final class Expression extends ModelEntity<Expression> {
         return retVal;
     }
 
-    HashMap<IntIndex, BigDecimal> getLinear() {
+    Map<IntIndex, BigDecimal> getLinear() {
         return myLinear;
     }
 
@@ -729,7 +804,7 @@ public final class Expression extends ModelEntity<Expression> {
         return myModel;
     }
 
-    HashMap<IntRowColumn, BigDecimal> getQuadratic() {
+    Map<IntRowColumn, BigDecimal> getQuadratic() {
         return myQuadratic;
     }
 
@@ -828,6 +903,47 @@ public final class Expression extends ModelEntity<Expression> {
         myInfeasible = true;
     }
 
+    void setInfeasible(final boolean infeasible) {
+        myInfeasible = infeasible;
+    }
+
+    /**
+     * Same as {@link #set(int, Number)} but without boxing the value, or creating a key, when the factors
+     * are stored as primitive double. For model builders/parsers that set very many factors.
+     */
+    Expression setLinearFactor(final int index, final double value) {
+
+        if (myLinear instanceof PrimitiveFactors) {
+
+            if (value != ZERO) {
+                ((PrimitiveFactors<IntIndex>) myLinear).put(index, value);
+            } else {
+                ((PrimitiveFactors<IntIndex>) myLinear).remove(index);
+            }
+
+            return this;
+
+        } else {
+
+            return this.set(index, BigDecimal.valueOf(value));
+        }
+    }
+
+    /**
+     * Bulk version of {@link #setLinearFactor(int, double)} - the factors are set in order, and room is made
+     * for all of them at once.
+     */
+    void setLinearFactors(final int[] indices, final double[] values, final int first, final int limit) {
+
+        if (myLinear instanceof PrimitiveFactors) {
+            ((PrimitiveFactors<IntIndex>) myLinear).ensureCapacity(myLinear.size() + (limit - first));
+        }
+
+        for (int i = first; i < limit; i++) {
+            this.setLinearFactor(indices[i], values[i]);
+        }
+    }
+
     void setRedundant(final boolean redundant) {
         myRedundant = redundant;
     }
@@ -836,14 +952,24 @@ public final class Expression extends ModelEntity<Expression> {
     void visitAllParameters(final VoidFunction<BigDecimal> largest, final VoidFunction<BigDecimal> smallest) {
 
         if (this.isAnyQuadraticFactorNonZero()) {
-            for (final BigDecimal quadraticFactor : myQuadratic.values()) {
-                largest.invoke(quadraticFactor);
-                smallest.invoke(quadraticFactor);
+            if (myQuadratic instanceof PrimitiveFactors) {
+                largest.invoke(BigDecimal.valueOf(((PrimitiveFactors<IntRowColumn>) myQuadratic).largest()));
+                smallest.invoke(BigDecimal.valueOf(((PrimitiveFactors<IntRowColumn>) myQuadratic).smallest()));
+            } else {
+                for (final BigDecimal quadraticFactor : myQuadratic.values()) {
+                    largest.invoke(quadraticFactor);
+                    smallest.invoke(quadraticFactor);
+                }
             }
         } else if (this.isAnyLinearFactorNonZero()) {
-            for (final BigDecimal linearFactor : myLinear.values()) {
-                largest.invoke(linearFactor);
-                smallest.invoke(linearFactor);
+            if (myLinear instanceof PrimitiveFactors) {
+                largest.invoke(BigDecimal.valueOf(((PrimitiveFactors<IntIndex>) myLinear).largest()));
+                smallest.invoke(BigDecimal.valueOf(((PrimitiveFactors<IntIndex>) myLinear).smallest()));
+            } else {
+                for (final BigDecimal linearFactor : myLinear.values()) {
+                    largest.invoke(linearFactor);
+                    smallest.invoke(linearFactor);
+                }
             }
         } else {
             super.visitAllParameters(largest, smallest);
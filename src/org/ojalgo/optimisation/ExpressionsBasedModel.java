@@ -39,6 +39,7 @@ import org.ojalgo.constant.BigMath;
 import org.ojalgo.netio.BasicLogger;
 import org.ojalgo.netio.BasicLogger.Printer;
 import org.ojalgo.optimisation.convex.ConvexSolver;
+import org.ojalgo.optimisation.integer.CutGenerator;
 import org.ojalgo.optimisation.integer.IntegerSolver;
 import org.ojalgo.optimisation.linear.LinearSolver;
 import org.ojalgo.type.context.NumberContext;
@@ -316,6 +317,7 @@ public final class ExpressionsBasedModel extends AbstractModel<GenericSolver> {
     private final List<Variable> myFreeVariables = new ArrayList<>();
     private transient int[] myIntegerIndices = null;
     private final List<Variable> myIntegerVariables = new ArrayList<>();
+    private transient ModelPresolver myModelPresolver = null;
     private transient int[] myNegativeIndices = null;
     private final List<Variable> myNegativeVariables = new ArrayList<>();
     private transient int[] myPositiveIndices = null;
@@ -548,9 +550,35 @@ public final class ExpressionsBasedModel extends AbstractModel<GenericSolver> {
         myIntegerIndices = null;
     }
 
+    /**
+     * Separates knapsack cover and mixed integer rounding cuts from a single (linear) constraint - see
+     * {@link CutGenerator}.
+     *
+     * @param constraint A constraint of this model
+     * @param solution A (relaxed) solution that should be cut off
+     * @return The most efficacious cut violated by the solution, as an expression with an upper limit (not
+     *         added to the model), or null if none was found
+     */
     public Expression generateCut(final Expression constraint, final Optimisation.Result solution) {
 
-        return null;
+        Cut tmpBest = null;
+        for (final Cut tmpCut : new CutGenerator(this, Collections.singleton(constraint)).separate(solution)) {
+            if ((tmpBest == null) || (tmpCut.getEfficacy(solution) > tmpBest.getEfficacy(solution))) {
+                tmpBest = tmpCut;
+            }
+        }
+
+        if (tmpBest == null) {
+            return null;
+        }
+
+        final Expression retVal = new Expression(constraint.getName() + "_CUT", this);
+        for (int k = 0; k < tmpBest.count(); k++) {
+            retVal.set(tmpBest.index(k), tmpBest.value(k));
+        }
+        retVal.upper(tmpBest.getUpper());
+
+        return retVal;
     }
 
     public Expression getExpression(final String name) {
@@ -1311,11 +1339,27 @@ public final class ExpressionsBasedModel extends AbstractModel<GenericSolver> {
 
     Optimisation.Result optimise() {
 
+        Result solver = null;
+
         if (PRESOLVERS.size() > 0) {
             this.scanEntities();
         }
 
-        final Result solver = this.solve(null);
+        if (options.presolve && !myWorkCopy && (myModelPresolver == null)) {
+            myModelPresolver = new ModelPresolver(this, PRESOLVERS);
+            try {
+                if (myModelPresolver.reduce()) {
+                    solver = this.solve(null);
+                }
+            } finally {
+                solver = myModelPresolver.postsolve(solver);
+                myModelPresolver = null;
+            }
+        }
+
+        if (solver == null) {
+            solver = this.solve(null);
+        }
 
         for (int i = 0, limit = myVariables.size(); i < limit; i++) {
             final Variable tmpVariable = myVariables.get(i);
@@ -1335,6 +1379,9 @@ public final class ExpressionsBasedModel extends AbstractModel<GenericSolver> {
     final void presolve() {
 
         myExpressions.values().forEach(expr -> expr.setRedundant(false));
+        if (myModelPresolver != null) {
+            myModelPresolver.markEliminated();
+        }
 
         boolean needToRepeat = false;
 
@@ -23,19 +23,27 @@ package org.ojalgo.optimisation;
 
 import static org.ojalgo.constant.BigMath.*;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.zip.GZIPInputStream;
 
 import org.ojalgo.access.Access1D;
 import org.ojalgo.type.context.NumberContext;
 
 /**
  * Mathematical Programming System (MPS) Model
+ * <p>
+ * Reads both fixed and free format files, plain or gzip compressed. The file is streamed, never held in
+ * memory as a whole, and the numbers are scanned directly from the bytes - to double if
+ * {@link Optimisation.Options#exact} is false, otherwise to {@link BigDecimal}.
+ * </p>
  *
  * @author apete
  */
@@ -75,6 +83,7 @@ public final class MathProgSysModel extends AbstractModel<GenericSolver> {
 
     final class Column extends Object {
 
+        private final int myIndex;
         private boolean mySemicontinuous = false;
         private final Variable myVariable;
 
@@ -84,6 +93,7 @@ public final class MathProgSysModel extends AbstractModel<GenericSolver> {
 
             myVariable = new Variable(name);
             myDelegate.addVariable(myVariable);
+            myIndex = myVariable.getIndex().index;
 
             this.bound(BoundType.PL, null);
         }
@@ -188,7 +198,14 @@ public final class MathProgSysModel extends AbstractModel<GenericSolver> {
         }
 
         public void setRowValue(final String rowName, final BigDecimal value) {
-            myRows.get(rowName).getExpression().set(myVariable, value);
+            myRows.get(rowName).getExpression().set(myIndex, value);
+        }
+
+        /**
+         * Buffered - not set until {@link Row#flush()} is called.
+         */
+        public void setRowValue(final String rowName, final double value) {
+            myRows.get(rowName).append(myIndex, value);
         }
 
         /**
@@ -221,9 +238,11 @@ public final class MathProgSysModel extends AbstractModel<GenericSolver> {
 
     final class Row extends Object {
 
+        private int myCount = 0;
         private final Expression myExpression;
-
+        private int[] myIndices = null;
         private final RowType myType;
+        private double[] myValues = null;
 
         Row(final String name, final RowType rowType) {
 
@@ -326,6 +345,34 @@ public final class MathProgSysModel extends AbstractModel<GenericSolver> {
             myExpression.set(myColumns.get(columnName).getVariable(), value);
         }
 
+        /**
+         * The file lists the matrix column by column, but the expressions are rows. Setting the factors
+         * directly means touching a different expression for every entry, and growing all of them
+         * repeatedly. Instead the entries are buffered (appended to primitive arrays) and then set in bulk,
+         * one expression at the time, by {@link #flush()}.
+         */
+        void append(final int index, final double value) {
+            if (myIndices == null) {
+                myIndices = new int[16];
+                myValues = new double[16];
+            } else if (myCount == myIndices.length) {
+                myIndices = Arrays.copyOf(myIndices, myCount << 1);
+                myValues = Arrays.copyOf(myValues, myCount << 1);
+            }
+            myIndices[myCount] = index;
+            myValues[myCount] = value;
+            myCount++;
+        }
+
+        void flush() {
+            if (myCount > 0) {
+                myExpression.setLinearFactors(myIndices, myValues, 0, myCount);
+            }
+            myCount = 0;
+            myIndices = null;
+            myValues = null;
+        }
+
         /**
          * @return the expression
          */
@@ -370,43 +417,402 @@ public final class MathProgSysModel extends AbstractModel<GenericSolver> {
 
     }
 
-    private static final String COMMENT = "*";
-    private static final String EMPTY = "";
-    private static final int[] FIELD_LIMITS = new int[] { 3, 12, 22, 36, 47, 61 };
-    private static final String SPACE = " ";
+    /**
+     * Reads the file line by line and splits each line in to (at most) 6 fields - the fixed format field
+     * positions. Apart from the name strings actually needed nothing is created per line. MPS files are plain
+     * ASCII, and the bytes are used as they are - no character decoding.
+     * <p>
+     * Free format lines are split on whitespace, and the tokens then mapped to the field positions. If that
+     * fails (wrong number of tokens, typically because a fixed format name contains spaces) the fixed format
+     * column positions are used instead.
+     * </p>
+     *
+     * @author apete
+     */
+    static final class Tokenizer {
 
-    public static MathProgSysModel make(final File file) {
+        private static final int CAPACITY = 1 << 16;
+        private static final int[] FIELD_LIMITS = new int[] { 3, 12, 22, 36, 47, 61 };
+        /**
+         * Integers up to this are exactly representable as double
+         */
+        private static final long MANTISSA_LIMIT = 1L << 53;
+        private static final double[] POWERS_OF_TEN = new double[] { 1E0, 1E1, 1E2, 1E3, 1E4, 1E5, 1E6, 1E7, 1E8, 1E9, 1E10, 1E11, 1E12, 1E13, 1E14,
+                1E15, 1E16, 1E17, 1E18, 1E19, 1E20, 1E21, 1E22 };
+        private static final int SIGNIFICANT_DIGITS = 18;
 
-        final MathProgSysModel retVal = new MathProgSysModel();
+        private static boolean isSpace(final byte value) {
+            return (value & 0xFF) <= ' ';
+        }
 
-        String tmpLine;
-        FileSection tmpSection = null;
+        private final byte[] myBuffer = new byte[CAPACITY];
+        private int myBuffered = 0;
+        private int myExponent;
+        private final int[] myFieldFirst = new int[FIELD_LIMITS.length];
+        private final int[] myFieldLimit = new int[FIELD_LIMITS.length];
+        private final InputStream myInput;
+        private int myLength = 0;
+        private byte[] myLine = new byte[128];
+        private long myMantissa;
+        private boolean myNegative;
+        private int myPosition = 0;
+        private int myTokens = 0;
+        private int[] myTokenFirst = new int[FIELD_LIMITS.length];
+        private int[] myTokenLimit = new int[FIELD_LIMITS.length];
+
+        Tokenizer(final InputStream input) {
 
-        try {
+            super();
 
-            final BufferedReader tmpBufferedFileReader = new BufferedReader(new FileReader(file));
+            myInput = input;
+        }
+
+        private void append(final int first, final int limit) {
+            final int tmpLength = myLength + (limit - first);
+            if (tmpLength > myLine.length) {
+                final byte[] tmpLine = new byte[Math.max(tmpLength, myLine.length << 1)];
+                System.arraycopy(myLine, 0, tmpLine, 0, myLength);
+                myLine = tmpLine;
+            }
+            System.arraycopy(myBuffer, first, myLine, myLength, limit - first);
+            myLength = tmpLength;
+        }
+
+        private boolean matches(final int first, final int limit, final String value) {
+            if ((limit - first) != value.length()) {
+                return false;
+            }
+            for (int i = first; i < limit; i++) {
+                if ((myLine[i] & 0xFF) != value.charAt(i - first)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Scans a decimal number - optional sign, digits, optional fraction and optional exponent (E or
+         * Fortran style D). At most 18 significant digits are accumulated in the mantissa, and the exponent is
+         * adjusted so that mantissa * 10^exponent is the number.
+         *
+         * @return false if the number is not well formed, or if it has more than 18 significant digits
+         */
+        private boolean scan(final int first, final int limit) {
 
-            //readLine is a bit quirky :
-            //it returns the content of a line MINUS the newline.
-            //it returns null only for the END of the stream.
-            //it returns an empty String if two newlines appear in a row.
-            while ((tmpLine = tmpBufferedFileReader.readLine()) != null) {
+            int i = first;
 
-                //        BasicLogger.logDebug("Line: {}.", tmpLine);
+            myNegative = false;
+            if ((i < limit) && ((myLine[i] == '-') || (myLine[i] == '+'))) {
+                myNegative = myLine[i] == '-';
+                i++;
+            }
 
-                if ((tmpLine.length() == 0) || tmpLine.startsWith(COMMENT)) {
-                    // Skip this line
-                } else if (tmpLine.startsWith(SPACE)) {
-                    retVal.parseSectionLine(tmpSection, tmpLine);
+            myMantissa = 0L;
+            myExponent = 0;
+
+            int tmpDigits = 0;
+            boolean tmpAny = false;
+            boolean tmpTruncated = false;
+
+            int tmpDigit;
+            for (; (i < limit) && ((tmpDigit = myLine[i] - '0') >= 0) && (tmpDigit <= 9); i++) {
+                tmpAny = true;
+                if (tmpDigits < SIGNIFICANT_DIGITS) {
+                    myMantissa = (10L * myMantissa) + tmpDigit;
+                    if (myMantissa != 0L) {
+                        tmpDigits++;
+                    }
                 } else {
-                    tmpSection = retVal.identifySection(tmpLine);
+                    tmpTruncated = true;
+                }
+            }
+
+            if ((i < limit) && (myLine[i] == '.')) {
+                i++;
+                for (; (i < limit) && ((tmpDigit = myLine[i] - '0') >= 0) && (tmpDigit <= 9); i++) {
+                    tmpAny = true;
+                    if (tmpDigits < SIGNIFICANT_DIGITS) {
+                        myMantissa = (10L * myMantissa) + tmpDigit;
+                        if (myMantissa != 0L) {
+                            tmpDigits++;
+                        }
+                        myExponent--;
+                    } else {
+                        tmpTruncated = true;
+                    }
+                }
+            }
+
+            if (tmpAny && (i < limit) && (((myLine[i] | 0x20) == 'e') || ((myLine[i] | 0x20) == 'd'))) {
+                i++;
+                boolean tmpNegative = false;
+                if ((i < limit) && ((myLine[i] == '-') || (myLine[i] == '+'))) {
+                    tmpNegative = myLine[i] == '-';
+                    i++;
+                }
+                int tmpPower = 0;
+                tmpAny = false;
+                for (; (i < limit) && ((tmpDigit = myLine[i] - '0') >= 0) && (tmpDigit <= 9); i++) {
+                    tmpAny = true;
+                    if (tmpPower < 100_000) {
+                        tmpPower = (10 * tmpPower) + tmpDigit;
+                    }
+                }
+                myExponent += tmpNegative ? -tmpPower : tmpPower;
+            }
+
+            return tmpAny && (i == limit) && !tmpTruncated;
+        }
+
+        /**
+         * @return The number as a string that {@link Double} and {@link BigDecimal} can parse
+         */
+        private String standard(final int first, final int limit) {
+            return new String(myLine, first, limit - first, StandardCharsets.ISO_8859_1).replace('D', 'E').replace('d', 'e');
+        }
+
+        private void tokenise() {
+
+            while ((myLength > 0) && Tokenizer.isSpace(myLine[myLength - 1])) {
+                myLength--;
+            }
+
+            myTokens = 0;
+
+            int i = 0;
+            while (i < myLength) {
+                while ((i < myLength) && Tokenizer.isSpace(myLine[i])) {
+                    i++;
+                }
+                if (i < myLength) {
+                    if (myTokens == myTokenFirst.length) {
+                        myTokenFirst = Arrays.copyOf(myTokenFirst, myTokens << 1);
+                        myTokenLimit = Arrays.copyOf(myTokenLimit, myTokens << 1);
+                    }
+                    myTokenFirst[myTokens] = i;
+                    while ((i < myLength) && !Tokenizer.isSpace(myLine[i])) {
+                        i++;
+                    }
+                    myTokenLimit[myTokens] = i;
+                    myTokens++;
+                }
+            }
+        }
+
+        /**
+         * Use the fixed format column positions to identify the fields.
+         */
+        void columns() {
+            int tmpFirst = 0;
+            for (int f = 0; f < FIELD_LIMITS.length; f++) {
+                int tmpLimit = Math.min(FIELD_LIMITS[f], myLength);
+                final int tmpNext = tmpLimit;
+                while ((tmpFirst < tmpLimit) && Tokenizer.isSpace(myLine[tmpFirst])) {
+                    tmpFirst++;
+                }
+                while ((tmpLimit > tmpFirst) && Tokenizer.isSpace(myLine[tmpLimit - 1])) {
+                    tmpLimit--;
+                }
+                myFieldFirst[f] = tmpFirst;
+                myFieldLimit[f] = tmpLimit;
+                tmpFirst = tmpNext;
+            }
+        }
+
+        boolean contains(final int field, final String value) {
+            return this.string(field).indexOf(value) != -1;
+        }
+
+        int count() {
+            return myTokens;
+        }
+
+        /**
+         * @return The exact decimal value of the field
+         */
+        BigDecimal decimal(final int field) {
+
+            final int tmpFirst = myFieldFirst[field];
+            final int tmpLimit = myFieldLimit[field];
+
+            if (this.scan(tmpFirst, tmpLimit)) {
+                return BigDecimal.valueOf(myNegative ? -myMantissa : myMantissa, -myExponent);
+            } else {
+                return new BigDecimal(this.standard(tmpFirst, tmpLimit));
+            }
+        }
+
+        boolean isComment() {
+            return (myLength > 0) && (myLine[0] == '*');
+        }
+
+        boolean isEmpty(final int field) {
+            return myFieldFirst[field] == myFieldLimit[field];
+        }
+
+        /**
+         * Section headers start in the first column, data lines (normally) don't.
+         */
+        boolean isIndented() {
+            return (myLength > 0) && Tokenizer.isSpace(myLine[0]);
+        }
+
+        /**
+         * Assign the tokens, in order, to the fields specified by the bit mask - the lowest bit is field 0.
+         * The other fields are empty.
+         *
+         * @return false, and nothing is done, if the number of tokens does not match the number of fields
+         */
+        boolean map(final int fields) {
+
+            if (Integer.bitCount(fields) != myTokens) {
+                return false;
+            }
+
+            int t = 0;
+            for (int f = 0; f < FIELD_LIMITS.length; f++) {
+                if ((fields & (1 << f)) != 0) {
+                    myFieldFirst[f] = myTokenFirst[t];
+                    myFieldLimit[f] = myTokenLimit[t];
+                    t++;
+                } else {
+                    myFieldFirst[f] = myFieldLimit[f] = 0;
+                }
+            }
+
+            return true;
+        }
+
+        boolean matches(final int field, final String value) {
+            return this.matches(myFieldFirst[field], myFieldLimit[field], value);
+        }
+
+        boolean matchesToken(final int token, final String value) {
+            return this.matches(myTokenFirst[token], myTokenLimit[token], value);
+        }
+
+        /**
+         * Read the next line.
+         *
+         * @return false at the end of the stream
+         */
+        boolean next() throws IOException {
+
+            myLength = 0;
+            boolean tmpRead = false;
+
+            for (;;) {
+
+                if (myPosition >= myBuffered) {
+                    myBuffered = myInput.read(myBuffer, 0, CAPACITY);
+                    myPosition = 0;
+                    if (myBuffered < 0) {
+                        myBuffered = 0;
+                        if (tmpRead) {
+                            this.tokenise();
+                        }
+                        return tmpRead;
+                    }
+                }
+
+                tmpRead = true;
+
+                final int tmpFirst = myPosition;
+                while ((myPosition < myBuffered) && (myBuffer[myPosition] != '\n')) {
+                    myPosition++;
+                }
+                this.append(tmpFirst, myPosition);
+
+                if (myPosition < myBuffered) {
+                    myPosition++;
+                    this.tokenise();
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * When the (at most 18) significant digits fit in the 53 bit mantissa, and the power of ten is at most
+         * 22, a single (correctly rounded) multiplication or division gives the correctly rounded result.
+         * Anything else is delegated to {@link Double#parseDouble(String)}.
+         *
+         * @return The field value rounded to double
+         */
+        double number(final int field) {
+
+            final int tmpFirst = myFieldFirst[field];
+            final int tmpLimit = myFieldLimit[field];
+
+            if (this.scan(tmpFirst, tmpLimit) && (myMantissa < MANTISSA_LIMIT)) {
+                if (myMantissa == 0L) {
+                    return myNegative ? -0.0 : 0.0;
+                } else if ((myExponent >= 0) && (myExponent < POWERS_OF_TEN.length)) {
+                    return myNegative ? -(myMantissa * POWERS_OF_TEN[myExponent]) : myMantissa * POWERS_OF_TEN[myExponent];
+                } else if ((myExponent < 0) && (-myExponent < POWERS_OF_TEN.length)) {
+                    return myNegative ? -(myMantissa / POWERS_OF_TEN[-myExponent]) : myMantissa / POWERS_OF_TEN[-myExponent];
                 }
             }
 
-            tmpBufferedFileReader.close();
+            return Double.parseDouble(this.standard(tmpFirst, tmpLimit));
+        }
+
+        /**
+         * @return Everything after the first token
+         */
+        String rest() {
+            if (myTokens < 2) {
+                return "";
+            }
+            return new String(myLine, myTokenFirst[1], myTokenLimit[myTokens - 1] - myTokenFirst[1], StandardCharsets.ISO_8859_1);
+        }
+
+        String string(final int field) {
+            return new String(myLine, myFieldFirst[field], myFieldLimit[field] - myFieldFirst[field], StandardCharsets.ISO_8859_1);
+        }
+
+        String token(final int token) {
+            return new String(myLine, myTokenFirst[token], myTokenLimit[token] - myTokenFirst[token], StandardCharsets.ISO_8859_1);
+        }
+
+    }
+
+    /**
+     * Reads the file, gzip compressed or not, and closes it.
+     */
+    public static MathProgSysModel make(final File file) {
+        return MathProgSysModel.make(file, new Optimisation.Options());
+    }
+
+    /**
+     * With {@link Optimisation.Options#exact} false the numbers are parsed directly to double, and not to
+     * {@link BigDecimal}, and the model is built using much less memory.
+     */
+    public static MathProgSysModel make(final File file, final Optimisation.Options options) {
+
+        final MathProgSysModel retVal = new MathProgSysModel(options);
 
-        } catch (final FileNotFoundException anException) {
+        try (final InputStream tmpInput = new FileInputStream(file)) {
+            retVal.parse(tmpInput);
+        } catch (final IOException anException) {
             anException.printStackTrace();
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Reads the stream, gzip compressed or not, but does not close it.
+     */
+    public static MathProgSysModel make(final InputStream input) {
+        return MathProgSysModel.make(input, new Optimisation.Options());
+    }
+
+    public static MathProgSysModel make(final InputStream input, final Optimisation.Options options) {
+
+        final MathProgSysModel retVal = new MathProgSysModel(options);
+
+        try {
+            retVal.parse(input);
         } catch (final IOException anException) {
             anException.printStackTrace();
         }
@@ -416,15 +822,15 @@ public final class MathProgSysModel extends AbstractModel<GenericSolver> {
 
     private final HashMap<String, Column> myColumns = new HashMap<>();
     private final ExpressionsBasedModel myDelegate;
-    private final String[] myFields = new String[6];
     private boolean myIntegerMarker = false;
+    private Column myLastColumn = null;
     private String myName;
 
     private final HashMap<String, Row> myRows = new HashMap<>();
 
-    MathProgSysModel() {
+    MathProgSysModel(final Optimisation.Options options) {
 
-        super();
+        super(options);
 
         myDelegate = new ExpressionsBasedModel(options);
 
@@ -530,57 +936,93 @@ public final class MathProgSysModel extends AbstractModel<GenericSolver> {
         return myDelegate.validate(solution, context);
     }
 
-    private void extractFields(final String line) {
 
-        final int tmpLength = line.length();
+    /**
+     * @return The section, or null if the line is not a section header
+     */
+    FileSection identifySection(final Tokenizer line) {
 
-        int tmpFirst = 0;
-        int tmpLimit = tmpFirst;
-        for (int i = 0; i < myFields.length; i++) {
-            tmpLimit = Math.min(FIELD_LIMITS[i], tmpLength);
-            myFields[i] = line.substring(tmpFirst, tmpLimit).trim();
-            tmpFirst = tmpLimit;
+        if (line.isIndented() || (line.count() == 0)) {
+            return null;
         }
-    }
 
-    FileSection identifySection(final String line) {
+        for (final FileSection tmpSection : FileSection.values()) {
+            if (line.matchesToken(0, tmpSection.name())) {
 
-        final int tmpSplit = line.indexOf(SPACE);
-        String tmpSection;
-        String tmpArgument;
-        if (tmpSplit != -1) {
-            tmpSection = line.substring(0, tmpSplit).trim();
-            tmpArgument = line.substring(tmpSplit).trim();
-        } else {
-            tmpSection = line.trim();
-            tmpArgument = EMPTY;
+                switch (tmpSection) {
+
+                case NAME:
+
+                    myName = line.rest();
+
+                    return tmpSection;
+
+                case OBJSENSE:
+
+                    // Free format allows the sense on the same line
+                    if (line.count() > 1) {
+                        this.parseSense(line.token(1));
+                    }
+
+                    return tmpSection;
+
+                case OBJNAME:
+
+                    return tmpSection;
+
+                default:
+
+                    // Free format data lines need not be indented, and the RHS set is often named "RHS"
+                    return line.count() == 1 ? tmpSection : null;
+                }
+            }
         }
 
-        //      BasicLogger.logDebug("Section: {},\tArgument: {}.", tmpSection, tmpArgument);
+        return null;
+    }
 
-        final FileSection retVal = FileSection.valueOf(tmpSection);
+    void parse(final InputStream input) throws IOException {
 
-        switch (retVal) {
+        final PushbackInputStream tmpInput = new PushbackInputStream(input, 2);
 
-        case NAME:
+        final int tmpFirst = tmpInput.read();
+        final int tmpSecond = tmpFirst != -1 ? tmpInput.read() : -1;
+        if (tmpSecond != -1) {
+            tmpInput.unread(tmpSecond);
+        }
+        if (tmpFirst != -1) {
+            tmpInput.unread(tmpFirst);
+        }
 
-            myName = tmpArgument;
+        final boolean tmpCompressed = (tmpFirst == (GZIPInputStream.GZIP_MAGIC & 0xFF)) && (tmpSecond == (GZIPInputStream.GZIP_MAGIC >>> 8));
+        final Tokenizer tmpLine = new Tokenizer(tmpCompressed ? new GZIPInputStream(tmpInput, 1 << 16) : tmpInput);
 
-            break;
+        FileSection tmpSection = null;
 
-        default:
+        while (tmpLine.next()) {
 
-            break;
+            if ((tmpLine.count() == 0) || tmpLine.isComment()) {
+                // Skip this line
+            } else {
+                final FileSection tmpHeader = this.identifySection(tmpLine);
+                if (tmpHeader != null) {
+                    tmpSection = tmpHeader;
+                } else if (tmpSection != null) {
+                    this.parseSectionLine(tmpSection, tmpLine);
+                }
+            }
         }
 
-        return retVal;
+        for (final Row tmpRow : myRows.values()) {
+            tmpRow.flush();
+        }
     }
 
-    void parseSectionLine(final FileSection section, final String line) {
+    void parseSectionLine(final FileSection section, final Tokenizer line) {
 
-        this.extractFields(line);
+        final int tmpCount = line.count();
 
-        //      BasicLogger.logDebug("{}: {}.", aSection, Arrays.toString(myFields));
+        // The bit masks specify which (fixed format) fields the (free format) tokens map to.
 
         switch (section) {
 
@@ -590,11 +1032,7 @@ public final class MathProgSysModel extends AbstractModel<GenericSolver> {
 
         case OBJSENSE:
 
-            if (myFields[0].equals("MAX")) {
-                this.setMaximisation();
-            } else {
-                this.setMinimisation();
-            }
+            this.parseSense(line.token(0));
 
             break;
 
@@ -604,66 +1042,120 @@ public final class MathProgSysModel extends AbstractModel<GenericSolver> {
 
         case ROWS:
 
-            final Row tmpRow = new Row(myFields[1], RowType.valueOf(myFields[0]));
+            if (!line.map(0b000011)) {
+                line.columns();
+            }
 
-            myRows.put(myFields[1], tmpRow);
+            final String tmpRowName = line.string(1);
+            myRows.put(tmpRowName, new Row(tmpRowName, RowType.valueOf(line.string(0))));
 
             break;
 
         case COLUMNS:
 
-            if (myFields[2].indexOf("MARKER") != -1) {
+            if (!line.map(tmpCount == 3 ? 0b001110 : 0b111110)) {
+                line.columns();
+            }
+
+            if (line.contains(2, "MARKER")) {
 
-                if (myFields[4].indexOf("INTORG") != -1) {
+                if (line.contains(3, "INTORG") || line.contains(4, "INTORG")) {
                     myIntegerMarker = true;
-                } else if (myFields[4].indexOf("INTEND") != -1) {
+                } else if (line.contains(3, "INTEND") || line.contains(4, "INTEND")) {
                     myIntegerMarker = false;
                 }
 
             } else {
 
-                if (!myColumns.containsKey(myFields[1])) {
-                    myColumns.put(myFields[1], new Column(myFields[1]));
+                // The entries of a column are (should be) consecutive
+                if ((myLastColumn == null) || !line.matches(1, myLastColumn.getVariable().getName())) {
+                    final String tmpColumnName = line.string(1);
+                    myLastColumn = myColumns.get(tmpColumnName);
+                    if (myLastColumn == null) {
+                        myLastColumn = new Column(tmpColumnName);
+                        myColumns.put(tmpColumnName, myLastColumn);
+                    }
                 }
 
-                final Column tmpColumn = myColumns.get(myFields[1]);
-
-                tmpColumn.setRowValue(myFields[2], new BigDecimal(myFields[3]));
-                if (myFields[4].length() != 0) {
-                    tmpColumn.setRowValue(myFields[4], new BigDecimal(myFields[5]));
+                if (options.exact) {
+                    myLastColumn.setRowValue(line.string(2), line.decimal(3));
+                    if (!line.isEmpty(4)) {
+                        myLastColumn.setRowValue(line.string(4), line.decimal(5));
+                    }
+                } else {
+                    myLastColumn.setRowValue(line.string(2), line.number(3));
+                    if (!line.isEmpty(4)) {
+                        myLastColumn.setRowValue(line.string(4), line.number(5));
+                    }
                 }
 
                 if (myIntegerMarker) {
-                    tmpColumn.integer(myIntegerMarker);
+                    myLastColumn.integer(myIntegerMarker);
                 }
-
             }
 
             break;
 
         case RHS:
 
-            myRows.get(myFields[2]).rhs(new BigDecimal(myFields[3]));
+            // An even number of tokens means the (optional) set name is missing
+            if (!line.map((tmpCount >= 4 ? 0b111100 : 0b001100) | ((tmpCount & 1) << 1))) {
+                line.columns();
+            }
+
+            myRows.get(line.string(2)).rhs(line.decimal(3));
 
-            if (myFields[4].length() != 0) {
-                myRows.get(myFields[4]).rhs(new BigDecimal(myFields[5]));
+            if (!line.isEmpty(4)) {
+                myRows.get(line.string(4)).rhs(line.decimal(5));
             }
 
             break;
 
         case RANGES:
 
-            myRows.get(myFields[2]).range(new BigDecimal(myFields[3]));
+            if (!line.map((tmpCount >= 4 ? 0b111100 : 0b001100) | ((tmpCount & 1) << 1))) {
+                line.columns();
+            }
+
+            myRows.get(line.string(2)).range(line.decimal(3));
 
-            if (myFields[4].length() != 0) {
-                myRows.get(myFields[4]).range(new BigDecimal(myFields[5]));
+            if (!line.isEmpty(4)) {
+                myRows.get(line.string(4)).range(line.decimal(5));
             }
 
             break;
 
         case BOUNDS:
 
-            myColumns.get(myFields[2]).bound(BoundType.valueOf(myFields[0]), myFields[3].length() == 0 ? null : new BigDecimal(myFields[3]));
+            int tmpFields = 0;
+
+            if (tmpCount == 4) {
+                tmpFields = 0b001111;
+            } else if (tmpCount == 2) {
+                tmpFields = 0b000101;
+            } else if (tmpCount == 3) {
+                // Either the set name or the value is missing
+                switch (BoundType.valueOf(line.token(0))) {
+                case FR:
+                case MI:
+                case PL:
+                    tmpFields = 0b000111;
+                    break;
+                case BV:
+                case SC:
+                    tmpFields = myColumns.containsKey(line.token(2)) ? 0b000111 : 0b001101;
+                    break;
+                default:
+                    tmpFields = 0b001101;
+                    break;
+                }
+            }
+
+            if (!line.map(tmpFields)) {
+                line.columns();
+            }
+
+            myColumns.get(line.string(2)).bound(BoundType.valueOf(line.string(0)), line.isEmpty(3) ? null : line.decimal(3));
 
             break;
 
@@ -677,4 +1169,12 @@ public final class MathProgSysModel extends AbstractModel<GenericSolver> {
         }
     }
 
+    void parseSense(final String sense) {
+        if (sense.startsWith("MAX")) {
+            this.setMaximisation();
+        } else if (sense.startsWith("MIN")) {
+            this.setMinimisation();
+        }
+    }
+
 }
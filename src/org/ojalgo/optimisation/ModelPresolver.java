@@ -0,0 +1,765 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import static org.ojalgo.constant.BigMath.*;
+import static org.ojalgo.function.BigFunction.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.ojalgo.access.Structure1D.IntIndex;
+import org.ojalgo.access.Structure2D.IntRowColumn;
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.optimisation.Optimisation.State;
+
+/**
+ * Whole model presolve. The {@link ExpressionsBasedModel.Presolver}s look at one expression at the time,
+ * and only ever fix variables or mark expressions as redundant. The reductions here look at the model as a
+ * whole, and modify it in ways that have to be undone once the (reduced) model is solved:
+ * <ul>
+ * <li>Bound tightening - integer variable bounds derived from the constraint activity ranges.</li>
+ * <li>Duplicate constraints - parallel constraints are merged into one.</li>
+ * <li>Coefficient tightening - binary variable coefficients of inequality constraints.</li>
+ * <li>Dominated columns - variables that neither the objective nor any constraint prevents from being at
+ * a bound are fixed at that bound.</li>
+ * <li>Column singletons - a continuous variable only present in one equality constraint, and implied free
+ * by that constraint, is substituted out of the objective and the constraint is dropped.</li>
+ * </ul>
+ * Singleton rows are already handled by {@link Presolvers#ZERO_ONE_TWO}. Every modification pushes a
+ * {@link Step} on a stack, and {@link #postsolve(Optimisation.Result)} pops them in reverse order to
+ * restore the model and to complete the solution with the values of the substituted variables.
+ *
+ * @author apete
+ */
+final class ModelPresolver {
+
+    @FunctionalInterface
+    interface Step {
+
+        /**
+         * @param solution The model solution to complete, or null if there is none (then only restore the
+         *        model)
+         */
+        void postsolve(double[] solution);
+
+    }
+
+    private static final class Row {
+
+        final double[] factors;
+        final int[] indices;
+
+        Row(final Expression expression) {
+
+            super();
+
+            final Set<IntIndex> tmpKeys = expression.getLinearKeySet();
+
+            indices = new int[tmpKeys.size()];
+            int i = 0;
+            for (final IntIndex tmpKey : tmpKeys) {
+                indices[i++] = tmpKey.index;
+            }
+            Arrays.sort(indices);
+
+            factors = new double[indices.length];
+            for (int j = 0; j < indices.length; j++) {
+                factors[j] = expression.get(new IntIndex(indices[j])).doubleValue();
+            }
+        }
+
+        /**
+         * @return true if the other row has the same variables, and its factors are proportional to these
+         */
+        boolean isParallel(final Row other) {
+
+            if (!Arrays.equals(indices, other.indices)) {
+                return false;
+            }
+
+            for (int j = 1; j < indices.length; j++) {
+                final double tmpThis = factors[j] / factors[0];
+                final double tmpOther = other.factors[j] / other.factors[0];
+                if (Math.abs(tmpThis - tmpOther) > (TOLERANCE * Math.max(1.0, Math.abs(tmpThis)))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        int signature() {
+            int retVal = Arrays.hashCode(indices);
+            for (int j = 1; j < indices.length; j++) {
+                retVal = (31 * retVal) + Float.hashCode((float) (factors[j] / factors[0]));
+            }
+            return retVal;
+        }
+
+    }
+
+    /**
+     * Slack used when rounding derived integer variable bounds
+     */
+    static double INTEGRALITY = 1E-6;
+
+    /**
+     * Max number of passes over the model
+     */
+    static int ROUNDS = 10;
+
+    /**
+     * Relative tolerance used when comparing coefficients
+     */
+    static double TOLERANCE = 1E-12;
+
+    private static final double HUGE = 1E15;
+
+    private final Set<Expression> myEliminated = new HashSet<>();
+    /**
+     * Variables present in an objective expression, or in a special ordered set
+     */
+    private final Set<IntIndex> myLocked = new HashSet<>();
+    private final ExpressionsBasedModel myModel;
+    private int myReductions = 0;
+    private final Set<Expression> mySavedExpressions = new HashSet<>();
+    private final Set<IntIndex> mySpecial = new HashSet<>();
+    private final ArrayDeque<Step> myStack = new ArrayDeque<>();
+
+    ModelPresolver(final ExpressionsBasedModel model, final Collection<? extends ExpressionsBasedModel.Presolver> presolvers) {
+
+        super();
+
+        myModel = model;
+
+        for (final ExpressionsBasedModel.Presolver tmpPresolver : presolvers) {
+            if (tmpPresolver instanceof SpecialOrderedSet) {
+                mySpecial.addAll(Arrays.asList(((SpecialOrderedSet) tmpPresolver).getSequence()));
+            }
+        }
+
+        myLocked.addAll(mySpecial);
+        for (final Expression tmpExpression : model.getExpressions()) {
+            if (tmpExpression.isObjective()) {
+                myLocked.addAll(tmpExpression.getLinearKeySet());
+                for (final IntRowColumn tmpKey : tmpExpression.getQuadraticKeySet()) {
+                    myLocked.add(new IntIndex(tmpKey.row));
+                    myLocked.add(new IntIndex(tmpKey.column));
+                }
+            }
+        }
+    }
+
+    private static double rest(final double activity, final int infinite, final double contribution) {
+        if (infinite == 0) {
+            return activity - contribution;
+        } else if ((infinite == 1) && Double.isInfinite(contribution)) {
+            return activity;
+        } else {
+            return Double.NaN;
+        }
+    }
+
+    private void eliminate(final Expression row) {
+        myEliminated.add(row);
+        row.setRedundant(true);
+    }
+
+    private void fix(final Variable variable, final BigDecimal value) {
+        variable.setFixed(value);
+        myReductions++;
+    }
+
+    /**
+     * Dual fixing: with c the (minimisation) objective weight, if c &gt;= 0 and no constraint prevents the
+     * variable from decreasing, it can be fixed at its lower bound (and the other way around).
+     */
+    private void fixDominated(final List<Expression> rows) {
+
+        final int tmpNumberOfVariables = myModel.countVariables();
+
+        final int[] tmpDownLocks = new int[tmpNumberOfVariables];
+        final int[] tmpUpLocks = new int[tmpNumberOfVariables];
+
+        for (final Expression tmpRow : rows) {
+            if (!tmpRow.isRedundant()) {
+                final boolean tmpLower = tmpRow.isLowerLimitSet();
+                final boolean tmpUpper = tmpRow.isUpperLimitSet();
+                for (final Entry<IntIndex, BigDecimal> tmpEntry : tmpRow.getLinearEntrySet()) {
+                    final int tmpSignum = tmpEntry.getValue().signum();
+                    final int tmpIndex = tmpEntry.getKey().index;
+                    if (((tmpSignum > 0) && tmpLower) || ((tmpSignum < 0) && tmpUpper)) {
+                        tmpDownLocks[tmpIndex]++;
+                    }
+                    if (((tmpSignum > 0) && tmpUpper) || ((tmpSignum < 0) && tmpLower)) {
+                        tmpUpLocks[tmpIndex]++;
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < tmpNumberOfVariables; i++) {
+
+            final Variable tmpVariable = myModel.getVariable(i);
+
+            if (tmpVariable.isFixed() || tmpVariable.isUnbounded() || myLocked.contains(tmpVariable.getIndex())) {
+                continue;
+            }
+
+            int tmpCost = tmpVariable.isContributionWeightSet() ? tmpVariable.getContributionWeight().signum() : 0;
+            if (myModel.isMaximisation()) {
+                tmpCost = -tmpCost;
+            }
+
+            if ((tmpCost >= 0) && (tmpDownLocks[i] == 0) && this.isFeasibleValue(tmpVariable, tmpVariable.getLowerLimit())) {
+                this.fix(tmpVariable, tmpVariable.getLowerLimit());
+            } else if ((tmpCost <= 0) && (tmpUpLocks[i] == 0) && this.isFeasibleValue(tmpVariable, tmpVariable.getUpperLimit())) {
+                this.fix(tmpVariable, tmpVariable.getUpperLimit());
+            }
+        }
+    }
+
+    private boolean isFeasibleValue(final Variable variable, final BigDecimal value) {
+        return (value != null) && (!variable.isInteger() || (value.stripTrailingZeros().scale() <= 0));
+    }
+
+    private boolean isSpecial(final Expression row) {
+        for (final IntIndex tmpKey : row.getLinearKeySet()) {
+            if (mySpecial.contains(tmpKey)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parallel constraints (factors proportional) are merged into one, the intersection of their limits.
+     */
+    private void mergeDuplicates(final List<Expression> rows) {
+
+        final Map<Integer, List<Expression>> tmpBuckets = new HashMap<>();
+        final Map<Expression, Row> tmpRows = new HashMap<>();
+
+        for (final Expression tmpExpression : rows) {
+
+            if (tmpExpression.isRedundant() || tmpExpression.isContributionWeightSet() || (tmpExpression.countLinearFactors() < 2)
+                    || this.isSpecial(tmpExpression)) {
+                continue;
+            }
+
+            final Row tmpRow = new Row(tmpExpression);
+            tmpRows.put(tmpExpression, tmpRow);
+
+            final List<Expression> tmpBucket = tmpBuckets.computeIfAbsent(tmpRow.signature(), k -> new ArrayList<>());
+
+            boolean tmpMerged = false;
+            for (int b = 0; !tmpMerged && (b < tmpBucket.size()); b++) {
+                final Expression tmpKept = tmpBucket.get(b);
+                final Row tmpKeptRow = tmpRows.get(tmpKept);
+                if (tmpRow.isParallel(tmpKeptRow)) {
+                    tmpMerged = this.merge(tmpKept, tmpExpression, new IntIndex(tmpRow.indices[0]));
+                }
+            }
+
+            if (!tmpMerged) {
+                tmpBucket.add(tmpExpression);
+            }
+        }
+    }
+
+    /**
+     * @return true if the limits of the other row could be merged in to the kept one (if the intersection
+     *         is not empty)
+     */
+    private boolean merge(final Expression kept, final Expression other, final IntIndex first) {
+
+        final BigDecimal tmpScale = DIVIDE.invoke(other.get(first), kept.get(first));
+
+        BigDecimal tmpLower = other.isLowerLimitSet() ? DIVIDE.invoke(other.getLowerLimit(), tmpScale) : null;
+        BigDecimal tmpUpper = other.isUpperLimitSet() ? DIVIDE.invoke(other.getUpperLimit(), tmpScale) : null;
+        if (tmpScale.signum() < 0) {
+            final BigDecimal tmpSwap = tmpLower;
+            tmpLower = tmpUpper;
+            tmpUpper = tmpSwap;
+        }
+
+        if ((tmpLower == null) || (kept.isLowerLimitSet() && (kept.getLowerLimit().compareTo(tmpLower) >= 0))) {
+            tmpLower = kept.getLowerLimit();
+        }
+        if ((tmpUpper == null) || (kept.isUpperLimitSet() && (kept.getUpperLimit().compareTo(tmpUpper) <= 0))) {
+            tmpUpper = kept.getUpperLimit();
+        }
+
+        if ((tmpLower != null) && (tmpUpper != null) && (tmpLower.compareTo(tmpUpper) > 0)) {
+            return false;
+        }
+
+        kept.lower(tmpLower).upper(tmpUpper);
+        this.eliminate(other);
+        myReductions++;
+
+        return true;
+    }
+
+    private List<Expression> rows() {
+        final List<Expression> retVal = new ArrayList<>();
+        for (final Expression tmpExpression : myModel.getExpressions()) {
+            if (tmpExpression.isConstraint() && !tmpExpression.isRedundant() && !tmpExpression.isInfeasible()
+                    && (tmpExpression.countQuadraticFactors() == 0)) {
+                retVal.add(tmpExpression);
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Records the linear factors of the expression, the first time they're modified.
+     */
+    private void saveFactors(final Expression expression) {
+        if (mySavedExpressions.add(expression)) {
+            final Map<IntIndex, BigDecimal> tmpLinear = new HashMap<>(expression.getLinear());
+            myStack.push(solution -> {
+                for (final Entry<IntIndex, BigDecimal> tmpEntry : tmpLinear.entrySet()) {
+                    expression.set(tmpEntry.getKey(), tmpEntry.getValue());
+                }
+            });
+        }
+    }
+
+    /**
+     * Records the limits of all expressions, and the limits, weights and values of all variables. It's not
+     * only the reductions here that modify those - the {@link ExpressionsBasedModel.Presolver}s run before
+     * them, and again when the reduced model is solved, and what they derive from the reductions has to be
+     * undone as well.
+     */
+    private void saveModel() {
+
+        for (final Variable tmpVariable : myModel.getVariables()) {
+            final BigDecimal tmpLower = tmpVariable.getLowerLimit();
+            final BigDecimal tmpUpper = tmpVariable.getUpperLimit();
+            final BigDecimal tmpWeight = tmpVariable.getContributionWeight();
+            final BigDecimal tmpValue = tmpVariable.getValue();
+            final boolean tmpUnbounded = tmpVariable.isUnbounded();
+            myStack.push(solution -> {
+                tmpVariable.lower(tmpLower).upper(tmpUpper).weight(tmpWeight);
+                tmpVariable.setValue(tmpValue);
+                tmpVariable.setUnbounded(tmpUnbounded);
+            });
+        }
+
+        for (final Expression tmpExpression : myModel.getExpressions()) {
+            final BigDecimal tmpLower = tmpExpression.getLowerLimit();
+            final BigDecimal tmpUpper = tmpExpression.getUpperLimit();
+            myStack.push(solution -> {
+                tmpExpression.lower(tmpLower).upper(tmpUpper);
+                // Recorded after checking that the model is not infeasible
+                tmpExpression.setInfeasible(false);
+            });
+        }
+    }
+
+    /**
+     * A continuous variable x<sub>j</sub> that is only present in one equality constraint, and whose bounds
+     * are implied by that constraint, is substituted out: Its objective weight is transferred to the other
+     * variables of the constraint, the constraint is dropped, and x<sub>j</sub> is calculated from the other
+     * variables' values in postsolve.
+     */
+    private void substituteSingletons(final List<Expression> rows) {
+
+        final int tmpNumberOfVariables = myModel.countVariables();
+
+        final int[] tmpCounts = new int[tmpNumberOfVariables];
+        final Expression[] tmpRows = new Expression[tmpNumberOfVariables];
+        for (final Expression tmpExpression : myModel.getExpressions()) {
+            for (final IntIndex tmpKey : tmpExpression.getLinearKeySet()) {
+                tmpCounts[tmpKey.index]++;
+                tmpRows[tmpKey.index] = tmpExpression;
+            }
+        }
+
+        final Set<Expression> tmpActive = new HashSet<>(rows);
+
+        for (int j = 0; j < tmpNumberOfVariables; j++) {
+
+            final Variable tmpVariable = myModel.getVariable(j);
+            final Expression tmpRow = tmpRows[j];
+
+            if ((tmpCounts[j] != 1) || tmpVariable.isFixed() || tmpVariable.isInteger() || myLocked.contains(tmpVariable.getIndex())) {
+                continue;
+            }
+            if (!tmpActive.contains(tmpRow) || tmpRow.isRedundant() || !tmpRow.isEqualityConstraint() || tmpRow.isContributionWeightSet()
+                    || (tmpRow.countLinearFactors() < 3) || this.isSpecial(tmpRow)) {
+                continue;
+            }
+
+            final IntIndex tmpKey = tmpVariable.getIndex();
+            final BigDecimal tmpFactor = tmpRow.get(tmpKey);
+            final double tmpPivot = tmpFactor.doubleValue();
+            final double tmpRHS = tmpRow.getLowerLimit().doubleValue();
+
+            double tmpMin = 0.0, tmpMax = 0.0;
+            for (final Entry<IntIndex, BigDecimal> tmpEntry : tmpRow.getLinearEntrySet()) {
+                if (tmpEntry.getKey().index != j) {
+                    final Variable tmpOther = myModel.getVariable(tmpEntry.getKey());
+                    final double tmpValue = tmpEntry.getValue().doubleValue();
+                    if (tmpValue > 0.0) {
+                        tmpMin += tmpValue * tmpOther.getUnadjustedLowerLimit();
+                        tmpMax += tmpValue * tmpOther.getUnadjustedUpperLimit();
+                    } else {
+                        tmpMin += tmpValue * tmpOther.getUnadjustedUpperLimit();
+                        tmpMax += tmpValue * tmpOther.getUnadjustedLowerLimit();
+                    }
+                }
+            }
+
+            // The range of x_j implied by the constraint and the other variables' bounds
+            final double tmpImpliedLower = (tmpPivot > 0.0 ? (tmpRHS - tmpMax) : (tmpRHS - tmpMin)) / tmpPivot;
+            final double tmpImpliedUpper = (tmpPivot > 0.0 ? (tmpRHS - tmpMin) : (tmpRHS - tmpMax)) / tmpPivot;
+
+            final double tmpLower = tmpVariable.getUnadjustedLowerLimit();
+            final double tmpUpper = tmpVariable.getUnadjustedUpperLimit();
+
+            if (!((tmpImpliedLower >= tmpLower) && (tmpImpliedUpper <= tmpUpper))) {
+                continue;
+            }
+
+            if (tmpVariable.isContributionWeightSet()) {
+                final BigDecimal tmpRatio = DIVIDE.invoke(tmpVariable.getContributionWeight(), tmpFactor);
+                for (final Entry<IntIndex, BigDecimal> tmpEntry : tmpRow.getLinearEntrySet()) {
+                    if (tmpEntry.getKey().index != j) {
+                        final Variable tmpOther = myModel.getVariable(tmpEntry.getKey());
+                        final BigDecimal tmpWeight = tmpOther.isContributionWeightSet() ? tmpOther.getContributionWeight() : ZERO;
+                        tmpOther.weight(tmpWeight.subtract(tmpRatio.multiply(tmpEntry.getValue())));
+                    }
+                }
+            }
+
+            // Any value within the bounds will do, until postsolve
+            BigDecimal tmpPlaceholder = ZERO;
+            if (tmpVariable.isLowerLimitSet() && (tmpVariable.getLowerLimit().signum() > 0)) {
+                tmpPlaceholder = tmpVariable.getLowerLimit();
+            } else if (tmpVariable.isUpperLimitSet() && (tmpVariable.getUpperLimit().signum() < 0)) {
+                tmpPlaceholder = tmpVariable.getUpperLimit();
+            }
+            tmpVariable.weight(null);
+            this.fix(tmpVariable, tmpPlaceholder);
+
+            this.eliminate(tmpRow);
+            tmpActive.remove(tmpRow);
+
+            final int tmpIndex = j;
+            final Row tmpFactors = new Row(tmpRow);
+            myStack.push(solution -> {
+                if (solution != null) {
+                    double tmpSum = 0.0;
+                    for (int k = 0; k < tmpFactors.indices.length; k++) {
+                        if (tmpFactors.indices[k] != tmpIndex) {
+                            tmpSum += tmpFactors.factors[k] * solution[tmpFactors.indices[k]];
+                        }
+                    }
+                    solution[tmpIndex] = (tmpRHS - tmpSum) / tmpPivot;
+                }
+            });
+        }
+    }
+
+    /**
+     * Bounds of integer variables implied by the constraints' activity ranges, rounded to integers.
+     */
+    private void tightenBounds(final List<Expression> rows) {
+
+        for (final Expression tmpRow : rows) {
+
+            if (tmpRow.isRedundant() || !tmpRow.isLinearAndAnyInteger()) {
+                continue;
+            }
+
+            final Row tmpFactors = new Row(tmpRow);
+            final int tmpLength = tmpFactors.indices.length;
+
+            final double[] tmpMinContributions = new double[tmpLength];
+            final double[] tmpMaxContributions = new double[tmpLength];
+            double tmpMin = 0.0, tmpMax = 0.0;
+            int tmpMinInfinite = 0, tmpMaxInfinite = 0;
+
+            for (int k = 0; k < tmpLength; k++) {
+                final Variable tmpVariable = myModel.getVariable(tmpFactors.indices[k]);
+                final double tmpValue = tmpFactors.factors[k];
+                final double tmpLower = tmpValue * tmpVariable.getUnadjustedLowerLimit();
+                final double tmpUpper = tmpValue * tmpVariable.getUnadjustedUpperLimit();
+                tmpMinContributions[k] = Math.min(tmpLower, tmpUpper);
+                tmpMaxContributions[k] = Math.max(tmpLower, tmpUpper);
+                if (Double.isInfinite(tmpMinContributions[k])) {
+                    tmpMinInfinite++;
+                } else {
+                    tmpMin += tmpMinContributions[k];
+                }
+                if (Double.isInfinite(tmpMaxContributions[k])) {
+                    tmpMaxInfinite++;
+                } else {
+                    tmpMax += tmpMaxContributions[k];
+                }
+            }
+
+            final double tmpRowLower = tmpRow.getUnadjustedLowerLimit();
+            final double tmpRowUpper = tmpRow.getUnadjustedUpperLimit();
+
+            for (int k = 0; k < tmpLength; k++) {
+
+                final Variable tmpVariable = myModel.getVariable(tmpFactors.indices[k]);
+                if (!tmpVariable.isInteger() || tmpVariable.isFixed() || mySpecial.contains(tmpVariable.getIndex())) {
+                    continue;
+                }
+
+                final double tmpValue = tmpFactors.factors[k];
+                final double tmpMinRest = ModelPresolver.rest(tmpMin, tmpMinInfinite, tmpMinContributions[k]);
+                final double tmpMaxRest = ModelPresolver.rest(tmpMax, tmpMaxInfinite, tmpMaxContributions[k]);
+
+                // Bounds on a*x
+                final double tmpUpperProduct = tmpRowUpper - tmpMinRest;
+                final double tmpLowerProduct = tmpRowLower - tmpMaxRest;
+
+                final double tmpNewUpper = (tmpValue > 0.0 ? tmpUpperProduct : tmpLowerProduct) / tmpValue;
+                final double tmpNewLower = (tmpValue > 0.0 ? tmpLowerProduct : tmpUpperProduct) / tmpValue;
+
+                double tmpLower = tmpVariable.getUnadjustedLowerLimit();
+                double tmpUpper = tmpVariable.getUnadjustedUpperLimit();
+
+                if (Math.abs(tmpNewUpper) < HUGE) {
+                    final double tmpRounded = Math.floor(tmpNewUpper + (INTEGRALITY * Math.max(1.0, Math.abs(tmpNewUpper))));
+                    if ((tmpRounded < tmpUpper) && (tmpRounded >= tmpLower)) {
+                        tmpVariable.upper(new BigDecimal((long) tmpRounded));
+                        tmpUpper = tmpRounded;
+                        myReductions++;
+                    }
+                }
+
+                if (Math.abs(tmpNewLower) < HUGE) {
+                    final double tmpRounded = Math.ceil(tmpNewLower - (INTEGRALITY * Math.max(1.0, Math.abs(tmpNewLower))));
+                    if ((tmpRounded > tmpLower) && (tmpRounded <= tmpUpper)) {
+                        tmpVariable.lower(new BigDecimal((long) tmpRounded));
+                        tmpLower = tmpRounded;
+                        myReductions++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * For a &le; constraint (&ge; constraints are negated) with maximum activity M and upper limit b, and a
+     * binary variable with factor a: If a &gt; 0 and M - a &lt; b then x = 0 makes the constraint redundant,
+     * and both a and b can be reduced by d = b - (M - a). If a &lt; 0 and M + a &lt; b then x = 1 makes it
+     * redundant, and a can be increased by d = b - (M + a). The integer solutions stay the same, but the
+     * relaxation gets tighter.
+     */
+    private void tightenCoefficients(final List<Expression> rows) {
+
+        for (final Expression tmpRow : rows) {
+
+            if (tmpRow.isRedundant() || tmpRow.isContributionWeightSet() || (tmpRow.isLowerLimitSet() == tmpRow.isUpperLimitSet())
+                    || !tmpRow.isLinearAndAnyBinary() || this.isSpecial(tmpRow)) {
+                continue;
+            }
+
+            final boolean tmpUpperRow = tmpRow.isUpperLimitSet();
+
+            BigDecimal tmpLimit = tmpUpperRow ? tmpRow.getUpperLimit() : tmpRow.getLowerLimit().negate();
+            BigDecimal tmpMax = ZERO;
+
+            final Map<IntIndex, BigDecimal> tmpFactors = new HashMap<>();
+            boolean tmpBounded = true;
+            for (final Entry<IntIndex, BigDecimal> tmpEntry : tmpRow.getLinearEntrySet()) {
+                final Variable tmpVariable = myModel.getVariable(tmpEntry.getKey());
+                if (tmpVariable.isLowerLimitSet() && tmpVariable.isUpperLimitSet()) {
+                    final BigDecimal tmpValue = tmpUpperRow ? tmpEntry.getValue() : tmpEntry.getValue().negate();
+                    tmpFactors.put(tmpEntry.getKey(), tmpValue);
+                    tmpMax = tmpMax.add(tmpValue.multiply(tmpValue.signum() > 0 ? tmpVariable.getUpperLimit() : tmpVariable.getLowerLimit()));
+                } else {
+                    tmpBounded = false;
+                    break;
+                }
+            }
+
+            if (!tmpBounded || (tmpMax.compareTo(tmpLimit) <= 0)) {
+                continue;
+            }
+
+            final double tmpThreshold = TOLERANCE * Math.max(1.0, tmpLimit.abs().doubleValue());
+
+            final Map<IntIndex, BigDecimal> tmpTightened = new HashMap<>();
+            for (final Entry<IntIndex, BigDecimal> tmpEntry : tmpFactors.entrySet()) {
+
+                final Variable tmpVariable = myModel.getVariable(tmpEntry.getKey());
+                if (!tmpVariable.isBinary()) {
+                    continue;
+                }
+
+                final BigDecimal tmpValue = tmpEntry.getValue();
+
+                if (tmpValue.signum() > 0) {
+                    final BigDecimal tmpDelta = tmpLimit.subtract(tmpMax.subtract(tmpValue));
+                    if (tmpDelta.doubleValue() > tmpThreshold) {
+                        tmpTightened.put(tmpEntry.getKey(), tmpValue.subtract(tmpDelta));
+                        tmpLimit = tmpLimit.subtract(tmpDelta);
+                        tmpMax = tmpMax.subtract(tmpDelta);
+                    }
+                } else {
+                    final BigDecimal tmpDelta = tmpLimit.subtract(tmpMax.add(tmpValue));
+                    if (tmpDelta.doubleValue() > tmpThreshold) {
+                        tmpTightened.put(tmpEntry.getKey(), tmpValue.add(tmpDelta));
+                    }
+                }
+            }
+
+            if (tmpTightened.size() > 0) {
+                this.saveFactors(tmpRow);
+                for (final Entry<IntIndex, BigDecimal> tmpEntry : tmpTightened.entrySet()) {
+                    tmpRow.set(tmpEntry.getKey(), tmpUpperRow ? tmpEntry.getValue() : tmpEntry.getValue().negate());
+                }
+                if (tmpUpperRow) {
+                    tmpRow.upper(tmpLimit);
+                } else {
+                    tmpRow.lower(tmpLimit.negate());
+                }
+                myReductions += tmpTightened.size();
+            }
+        }
+    }
+
+    int countReductions() {
+        return myReductions;
+    }
+
+    /**
+     * Called by the model's presolve, that resets the redundant flags, to re-mark the eliminated
+     * expressions.
+     */
+    void markEliminated() {
+        for (final Expression tmpExpression : myEliminated) {
+            tmpExpression.setRedundant(true);
+        }
+    }
+
+    /**
+     * Restores the model, and completes the solution.
+     *
+     * @param result The solution to the reduced model (may be null)
+     * @return The solution to the original model, or null if the reduced model could not be solved to a
+     *         feasible solution - then the (restored) original model should be solved instead
+     */
+    Optimisation.Result postsolve(final Optimisation.Result result) {
+
+        final int tmpNumberOfVariables = myModel.countVariables();
+
+        double[] tmpSolution = null;
+        if ((result != null) && (result.count() == tmpNumberOfVariables)) {
+            tmpSolution = new double[tmpNumberOfVariables];
+            for (int i = 0; i < tmpNumberOfVariables; i++) {
+                tmpSolution[i] = result.doubleValue(i);
+            }
+        }
+
+        while (!myStack.isEmpty()) {
+            myStack.pop().postsolve(tmpSolution);
+        }
+
+        for (final Expression tmpExpression : myEliminated) {
+            tmpExpression.setRedundant(false);
+        }
+        myEliminated.clear();
+        mySavedExpressions.clear();
+
+        if (myReductions == 0) {
+            return result;
+        } else if (tmpSolution == null) {
+            return null;
+        }
+
+        final Optimisation.Result tmpPostsolved = new Optimisation.Result(result.getState(), Primitive64Array.wrap(tmpSolution));
+
+        // If the reductions fixed all variables, the solution is optimal (and only distinct if it was fixed already)
+        State retState = result.getState();
+        if ((retState == State.DISTINCT) || ((retState == State.INVALID) && myModel.validate(tmpPostsolved))) {
+            retState = myModel.isFixed() ? State.DISTINCT : State.OPTIMAL;
+        }
+
+        if (retState.isFailure() || !retState.isFeasible()) {
+            // Infeasible, unbounded or not solved - the reductions are exact only up to the tolerances,
+            // and should not decide this
+            return null;
+        }
+
+        return new Optimisation.Result(retState, myModel.objective().evaluate(tmpPostsolved).doubleValue(), tmpPostsolved);
+    }
+
+    /**
+     * Presolves the model (the per expression presolvers) and then repeatedly applies the reductions, until
+     * nothing more changes (or at most {@link #ROUNDS} times).
+     *
+     * @return true if the model was reduced - then it should be solved, and the solution passed to
+     *         {@link #postsolve(Optimisation.Result)}
+     */
+    boolean reduce() {
+
+        if (myModel.isInfeasible() || myModel.constraints().anyMatch(c -> c.countQuadraticFactors() > 0)) {
+            return false;
+        }
+
+        this.saveModel();
+
+        myModel.presolve();
+        if (myModel.isInfeasible()) {
+            return false;
+        }
+
+        for (int r = 0; r < ROUNDS; r++) {
+
+            final int tmpBefore = myReductions;
+
+            final List<Expression> tmpRows = this.rows();
+
+            this.tightenBounds(tmpRows);
+            this.mergeDuplicates(tmpRows);
+            this.tightenCoefficients(tmpRows);
+            this.fixDominated(tmpRows);
+            this.substituteSingletons(tmpRows);
+
+            if (myReductions == tmpBefore) {
+                break;
+            }
+        }
+
+        return myReductions > 0;
+    }
+
+}
@@ -154,6 +154,15 @@ public interface Optimisation {
 
     public static final class Options implements Optimisation, Cloneable {
 
+        /**
+         * If true (the default) the {@linkplain Expression} factors of an {@linkplain ExpressionsBasedModel}
+         * are stored as {@link BigDecimal}, and exact arithmetic is used when manipulating them. If
+         * false they are stored as primitive double in compact open addressing hash maps - a fraction of the
+         * memory and faster matrix assembly in the solvers, but the factors are rounded to double precision
+         * when set. The choice is made when each expression is created.
+         */
+        public boolean exact = true;
+
         /**
          * Used to determine/validate feasibility. Are the constraints violated or not? Are the variable
          * values integer or not?
@@ -198,6 +207,13 @@ public interface Optimisation {
          */
         public double mip_gap = 1.0E-4;
 
+        /**
+         * If true {@linkplain ExpressionsBasedModel} will, before solving, apply whole model reductions that
+         * temporarily modify the model (bounds, limits, factors and weights) - it is restored, and the
+         * solution completed, afterwards. Turned off by default.
+         */
+        public boolean presolve = false;
+
         /**
          * For display only!
          */
@@ -0,0 +1,456 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import java.math.BigDecimal;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.ojalgo.access.Structure1D.IntIndex;
+import org.ojalgo.access.Structure2D.IntRowColumn;
+
+/**
+ * The primitive alternative to the {@link java.util.HashMap}s an {@linkplain Expression} stores its factors
+ * in - an open addressing (linear probing) hash map from non-negative long keys to double values. There are
+ * no key or value objects, just two parallel arrays. The {@link Map} API is there for compatibility, the
+ * keys and values are created on demand.
+ *
+ * @author apete
+ */
+abstract class PrimitiveFactors<K> extends AbstractMap<K, BigDecimal> {
+
+    static final class Linear extends PrimitiveFactors<IntIndex> {
+
+        Linear() {
+            super();
+        }
+
+        Linear(final Linear factorsToCopy) {
+            super(factorsToCopy);
+        }
+
+        @Override
+        Linear copy() {
+            return new Linear(this);
+        }
+
+        @Override
+        IntIndex key(final long packed) {
+            return new IntIndex((int) packed);
+        }
+
+        @Override
+        long pack(final Object key) {
+            return key instanceof IntIndex ? ((IntIndex) key).index : EMPTY;
+        }
+
+    }
+
+    static final class Quadratic extends PrimitiveFactors<IntRowColumn> {
+
+        static long pack(final int row, final int column) {
+            return ((long) row << 32) | (column & 0xFFFFFFFFL);
+        }
+
+        Quadratic() {
+            super();
+        }
+
+        Quadratic(final Quadratic factorsToCopy) {
+            super(factorsToCopy);
+        }
+
+        @Override
+        Quadratic copy() {
+            return new Quadratic(this);
+        }
+
+        @Override
+        IntRowColumn key(final long packed) {
+            return new IntRowColumn((int) (packed >>> 32), (int) packed);
+        }
+
+        @Override
+        long pack(final Object key) {
+            return key instanceof IntRowColumn ? Quadratic.pack(((IntRowColumn) key).row, ((IntRowColumn) key).column) : EMPTY;
+        }
+
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K, BigDecimal>> {
+
+        @Override
+        public Iterator<Map.Entry<K, BigDecimal>> iterator() {
+            return new SlotIterator<Map.Entry<K, BigDecimal>>() {
+
+                @Override
+                Map.Entry<K, BigDecimal> get(final int slot) {
+                    return new AbstractMap.SimpleImmutableEntry<>(PrimitiveFactors.this.key(myKeys[slot]), BigDecimal.valueOf(myValues[slot]));
+                }
+
+            };
+        }
+
+        @Override
+        public int size() {
+            return mySize;
+        }
+
+    }
+
+    final class KeySet extends AbstractSet<K> {
+
+        @Override
+        public boolean contains(final Object key) {
+            return PrimitiveFactors.this.containsKey(key);
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return new SlotIterator<K>() {
+
+                @Override
+                K get(final int slot) {
+                    return PrimitiveFactors.this.key(myKeys[slot]);
+                }
+
+            };
+        }
+
+        @Override
+        public int size() {
+            return mySize;
+        }
+
+    }
+
+    abstract class SlotIterator<T> implements Iterator<T> {
+
+        private int myNext = PrimitiveFactors.this.next(0);
+
+        public boolean hasNext() {
+            return myNext < myKeys.length;
+        }
+
+        public T next() {
+            if (myNext >= myKeys.length) {
+                throw new NoSuchElementException();
+            }
+            final int tmpSlot = myNext;
+            myNext = PrimitiveFactors.this.next(tmpSlot + 1);
+            return this.get(tmpSlot);
+        }
+
+        abstract T get(int slot);
+
+    }
+
+    static final long EMPTY = -1L;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * Same spreading as {@link java.util.HashMap} - small (variable index) keys keep their order, and
+     * iterating is then (mostly) in ascending key order. That matters when the solvers' builders append the
+     * factors to sparse rows.
+     */
+    private static int hash(final long key) {
+        final int tmpHash = (int) (key ^ (key >>> 32));
+        return tmpHash ^ (tmpHash >>> 16);
+    }
+
+    private transient EntrySet myEntrySet = null;
+    private transient KeySet myKeySet = null;
+    private long[] myKeys;
+    private int mySize;
+    private double[] myValues;
+
+    PrimitiveFactors() {
+
+        super();
+
+        myKeys = new long[INITIAL_CAPACITY];
+        Arrays.fill(myKeys, EMPTY);
+        myValues = new double[INITIAL_CAPACITY];
+        mySize = 0;
+    }
+
+    PrimitiveFactors(final PrimitiveFactors<K> factorsToCopy) {
+
+        super();
+
+        myKeys = factorsToCopy.myKeys.clone();
+        myValues = factorsToCopy.myValues.clone();
+        mySize = factorsToCopy.mySize;
+    }
+
+    @Override
+    public void clear() {
+        if (mySize > 0) {
+            Arrays.fill(myKeys, EMPTY);
+            Arrays.fill(myValues, 0.0);
+            mySize = 0;
+        }
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        final long tmpKey = this.pack(key);
+        return (tmpKey >= 0L) && (this.find(tmpKey) >= 0);
+    }
+
+    @Override
+    public Set<Map.Entry<K, BigDecimal>> entrySet() {
+        EntrySet retVal = myEntrySet;
+        if (retVal == null) {
+            myEntrySet = retVal = new EntrySet();
+        }
+        return retVal;
+    }
+
+    @Override
+    public BigDecimal get(final Object key) {
+        final long tmpKey = this.pack(key);
+        final int tmpSlot = tmpKey >= 0L ? this.find(tmpKey) : -1;
+        return tmpSlot >= 0 ? BigDecimal.valueOf(myValues[tmpSlot]) : null;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        KeySet retVal = myKeySet;
+        if (retVal == null) {
+            myKeySet = retVal = new KeySet();
+        }
+        return retVal;
+    }
+
+    @Override
+    public BigDecimal put(final K key, final BigDecimal value) {
+        final long tmpKey = this.pack(key);
+        if (tmpKey < 0L) {
+            throw new IllegalArgumentException();
+        }
+        final double tmpOld = this.put(tmpKey, value.doubleValue());
+        return Double.isNaN(tmpOld) ? null : BigDecimal.valueOf(tmpOld);
+    }
+
+    @Override
+    public BigDecimal remove(final Object key) {
+        final long tmpKey = this.pack(key);
+        final double tmpOld = tmpKey >= 0L ? this.remove(tmpKey) : Double.NaN;
+        return Double.isNaN(tmpOld) ? null : BigDecimal.valueOf(tmpOld);
+    }
+
+    @Override
+    public int size() {
+        return mySize;
+    }
+
+    private int find(final long key) {
+        final int tmpMask = myKeys.length - 1;
+        int tmpSlot = PrimitiveFactors.hash(key) & tmpMask;
+        long tmpExisting;
+        while ((tmpExisting = myKeys[tmpSlot]) != EMPTY) {
+            if (tmpExisting == key) {
+                return tmpSlot;
+            }
+            tmpSlot = (tmpSlot + 1) & tmpMask;
+        }
+        return ~tmpSlot;
+    }
+
+    private void grow() {
+        this.resize(myKeys.length << 1);
+    }
+
+    /**
+     * @return The first occupied slot, starting from (and including) the given one, or the capacity if there
+     *         is none.
+     */
+    private int next(final int slot) {
+        int retVal = slot;
+        while ((retVal < myKeys.length) && (myKeys[retVal] == EMPTY)) {
+            retVal++;
+        }
+        return retVal;
+    }
+
+    private void resize(final int capacity) {
+
+        final long[] tmpKeys = myKeys;
+        final double[] tmpValues = myValues;
+
+        myKeys = new long[capacity];
+        Arrays.fill(myKeys, EMPTY);
+        myValues = new double[capacity];
+
+        for (int s = 0; s < tmpKeys.length; s++) {
+            if (tmpKeys[s] != EMPTY) {
+                final int tmpSlot = ~this.find(tmpKeys[s]);
+                myKeys[tmpSlot] = tmpKeys[s];
+                myValues[tmpSlot] = tmpValues[s];
+            }
+        }
+    }
+
+    abstract PrimitiveFactors<K> copy();
+
+    /**
+     * Copies the (packed) keys and the values, in slot order, to the arrays.
+     *
+     * @return The number of entries copied - the size
+     */
+    final int copyTo(final long[] keys, final double[] values) {
+        int retVal = 0;
+        for (int s = 0; s < myKeys.length; s++) {
+            if (myKeys[s] != EMPTY) {
+                keys[retVal] = myKeys[s];
+                values[retVal] = myValues[s];
+                retVal++;
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * @return The value, or 0.0 if the key is not present
+     */
+    final double doubleValue(final long key) {
+        final int tmpSlot = this.find(key);
+        return tmpSlot >= 0 ? myValues[tmpSlot] : 0.0;
+    }
+
+    /**
+     * Make room for (at least) this many entries, so that adding them does not trigger any rehashing.
+     */
+    final void ensureCapacity(final int size) {
+        int tmpCapacity = myKeys.length;
+        while ((size << 1) > tmpCapacity) {
+            tmpCapacity <<= 1;
+        }
+        if (tmpCapacity > myKeys.length) {
+            this.resize(tmpCapacity);
+        }
+    }
+
+    abstract K key(long packed);
+
+    /**
+     * @return The largest absolute value, or 0.0 if empty
+     */
+    final double largest() {
+        double retVal = 0.0;
+        for (int s = 0; s < myKeys.length; s++) {
+            if (myKeys[s] != EMPTY) {
+                retVal = Math.max(retVal, Math.abs(myValues[s]));
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * @return The packed key, or {@link #EMPTY} if the key is not of the right type
+     */
+    abstract long pack(Object key);
+
+    /**
+     * @return The previous value, or NaN if there was none
+     */
+    final double put(final long key, final double value) {
+
+        int tmpSlot = this.find(key);
+
+        if (tmpSlot >= 0) {
+            final double retVal = myValues[tmpSlot];
+            myValues[tmpSlot] = value;
+            return retVal;
+        }
+
+        if (((mySize + 1) << 1) > myKeys.length) {
+            this.grow();
+            tmpSlot = this.find(key);
+        }
+
+        tmpSlot = ~tmpSlot;
+        myKeys[tmpSlot] = key;
+        myValues[tmpSlot] = value;
+        mySize++;
+
+        return Double.NaN;
+    }
+
+    /**
+     * Removes the entry, and shifts any following entries of the same probe sequence back so that no
+     * tombstones are needed.
+     *
+     * @return The previous value, or NaN if there was none
+     */
+    final double remove(final long key) {
+
+        int tmpSlot = this.find(key);
+
+        if (tmpSlot < 0) {
+            return Double.NaN;
+        }
+
+        final double retVal = myValues[tmpSlot];
+
+        final int tmpMask = myKeys.length - 1;
+        int tmpNext = (tmpSlot + 1) & tmpMask;
+        long tmpKey;
+        while ((tmpKey = myKeys[tmpNext]) != EMPTY) {
+            final int tmpHome = PrimitiveFactors.hash(tmpKey) & tmpMask;
+            // Move back unless the home slot lies cyclically in (tmpSlot, tmpNext]
+            if (((tmpNext - tmpHome) & tmpMask) >= ((tmpNext - tmpSlot) & tmpMask)) {
+                myKeys[tmpSlot] = tmpKey;
+                myValues[tmpSlot] = myValues[tmpNext];
+                tmpSlot = tmpNext;
+            }
+            tmpNext = (tmpNext + 1) & tmpMask;
+        }
+
+        myKeys[tmpSlot] = EMPTY;
+        myValues[tmpSlot] = 0.0;
+        mySize--;
+
+        return retVal;
+    }
+
+    /**
+     * @return The smallest absolute value (there are no zeros), or {@link Double#MAX_VALUE} if empty
+     */
+    final double smallest() {
+        double retVal = Double.MAX_VALUE;
+        for (int s = 0; s < myKeys.length; s++) {
+            if (myKeys[s] != EMPTY) {
+                retVal = Math.min(retVal, Math.abs(myValues[s]));
+            }
+        }
+        return retVal;
+    }
+
+}
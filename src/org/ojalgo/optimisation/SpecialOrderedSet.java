@@ -123,4 +123,8 @@ class SpecialOrderedSet extends ExpressionsBasedModel.Presolver {
         return didFixVariable;
     }
 
+    IntIndex[] getSequence() {
+        return mySequence;
+    }
+
 }
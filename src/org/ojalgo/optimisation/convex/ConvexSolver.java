@@ -533,7 +533,11 @@ public abstract class ConvexSolver extends GenericSolver {
             }
         }
 
-        destinationBuilder.objective(mtrxQ, mtrxC);
+        if (mtrxQ != null) {
+            destinationBuilder.objective(mtrxQ, mtrxC);
+        } else if (mtrxC != null) {
+            destinationBuilder.objective(mtrxC);
+        }
 
         // AI & BI
 
@@ -0,0 +1,957 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.convex;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.Arrays;
+
+import org.ojalgo.access.Access1D;
+import org.ojalgo.access.ElementView2D;
+import org.ojalgo.array.SparseArray.NonzeroView;
+import org.ojalgo.matrix.decomposition.Cholesky;
+import org.ojalgo.matrix.decomposition.LDL;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.store.RowsSupplier;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.GenericSolver;
+import org.ojalgo.optimisation.Optimisation;
+
+/**
+ * A primal-dual interior point solver, Mehrotra's predictor-corrector variant, for the same problems as
+ * {@link ConvexSolver} - and for linear problems (no [Q]):
+ * <p>
+ * min 1/2 [X]<sup>T</sup>[Q][X] - [C]<sup>T</sup>[X]<br>
+ * when [AE][X] == [BE]<br>
+ * and [AI][X] &lt;= [BI]
+ * </p>
+ * The inequalities get slack variables [S] &gt; 0 and multipliers [Z] &gt; 0, and each iteration solves the
+ * (reduced) KKT system
+ * <p>
+ * [Q + AI<sup>T</sup>WAI , AE<sup>T</sup>]<br>
+ * [AE , 0]
+ * </p>
+ * where [W] = [Z]/[S] is diagonal. The number of iterations hardly depends on the size of the problem or on
+ * the number of active constraints (the active set solver adds/removes one constraint per iteration), but
+ * each iteration is a full factorisation:
+ * <ul>
+ * <li>If that matrix is sparse, the augmented system (regularised to be quasi-definite) is factorised with
+ * {@link LDL#SPARSE}. The sparsity pattern is the same every iteration, so the fill-reducing ordering and
+ * symbolic analysis is only done once.</li>
+ * <li>If it's dense (typically a dense covariance matrix [Q]) the upper left block is factorised with
+ * {@link Cholesky} and the equality constraints are handled with a Schur complement.</li>
+ * </ul>
+ * An interior point method can't be warm started the way the active set and simplex solvers can - any
+ * initial solution passed to {@link #solve(Optimisation.Result)} is ignored. To use this solver, register
+ * {@link InteriorPointSolver.ModelIntegration} with
+ * {@link ExpressionsBasedModel#addIntegration(ExpressionsBasedModel.Integration)}.
+ *
+ * @author apete
+ */
+public final class InteriorPointSolver extends GenericSolver {
+
+    public static final class ModelIntegration extends ExpressionsBasedModel.Integration<InteriorPointSolver> {
+
+        public InteriorPointSolver build(final ExpressionsBasedModel model) {
+
+            final ConvexSolver.Builder tmpBuilder = ConvexSolver.getBuilder();
+
+            ConvexSolver.copy(model, tmpBuilder);
+
+            return new InteriorPointSolver(tmpBuilder, model.options);
+        }
+
+        public boolean isCapable(final ExpressionsBasedModel model) {
+            return !model.isAnyVariableInteger() && !model.isAnyConstraintQuadratic();
+        }
+
+        @Override
+        protected boolean isSolutionMapped() {
+            return true;
+        }
+
+    }
+
+    /**
+     * Compressed sparse rows, just the arrays.
+     */
+    static final class Rows {
+
+        static Rows of(final MatrixStore<Double> matrix) {
+
+            final int tmpRowDim = (int) matrix.countRows();
+            final int tmpColDim = (int) matrix.countColumns();
+
+            final int[] tmpCounts = new int[tmpRowDim];
+            if (matrix instanceof SparseStore) {
+                for (final ElementView2D<Double, ?> tmpNonzero : ((SparseStore<Double>) matrix).nonzeros()) {
+                    if (tmpNonzero.doubleValue() != ZERO) {
+                        tmpCounts[(int) tmpNonzero.row()]++;
+                    }
+                }
+            } else {
+                for (int j = 0; j < tmpColDim; j++) {
+                    for (int i = 0; i < tmpRowDim; i++) {
+                        if (matrix.doubleValue(i, j) != ZERO) {
+                            tmpCounts[i]++;
+                        }
+                    }
+                }
+            }
+
+            final Rows retVal = new Rows(tmpCounts);
+
+            Arrays.fill(tmpCounts, 0);
+            if (matrix instanceof SparseStore) {
+                // Column-major order, the indices of each row end up sorted
+                for (final ElementView2D<Double, ?> tmpNonzero : ((SparseStore<Double>) matrix).nonzeros()) {
+                    final double tmpValue = tmpNonzero.doubleValue();
+                    if (tmpValue != ZERO) {
+                        final int i = (int) tmpNonzero.row();
+                        retVal.indices[i][tmpCounts[i]] = (int) tmpNonzero.column();
+                        retVal.values[i][tmpCounts[i]++] = tmpValue;
+                    }
+                }
+            } else {
+                for (int j = 0; j < tmpColDim; j++) {
+                    for (int i = 0; i < tmpRowDim; i++) {
+                        final double tmpValue = matrix.doubleValue(i, j);
+                        if (tmpValue != ZERO) {
+                            retVal.indices[i][tmpCounts[i]] = j;
+                            retVal.values[i][tmpCounts[i]++] = tmpValue;
+                        }
+                    }
+                }
+            }
+
+            return retVal;
+        }
+
+        static Rows of(final RowsSupplier<Double> matrix) {
+
+            final int tmpRowDim = (int) matrix.countRows();
+
+            final int[] tmpCounts = new int[tmpRowDim];
+            for (int i = 0; i < tmpRowDim; i++) {
+                for (final NonzeroView<Double> tmpNonzero : matrix.getRow(i).nonzeros()) {
+                    if (tmpNonzero.doubleValue() != ZERO) {
+                        tmpCounts[i]++;
+                    }
+                }
+            }
+
+            final Rows retVal = new Rows(tmpCounts);
+
+            for (int i = 0; i < tmpRowDim; i++) {
+                int k = 0;
+                for (final NonzeroView<Double> tmpNonzero : matrix.getRow(i).nonzeros()) {
+                    final double tmpValue = tmpNonzero.doubleValue();
+                    if (tmpValue != ZERO) {
+                        retVal.indices[i][k] = (int) tmpNonzero.index();
+                        retVal.values[i][k++] = tmpValue;
+                    }
+                }
+            }
+
+            return retVal;
+        }
+
+        final int[][] indices;
+        final double[][] values;
+
+        Rows(final int[] counts) {
+
+            super();
+
+            indices = new int[counts.length][];
+            values = new double[counts.length][];
+            for (int i = 0; i < counts.length; i++) {
+                indices[i] = new int[counts[i]];
+                values[i] = new double[counts[i]];
+            }
+        }
+
+        int count() {
+            return indices.length;
+        }
+
+        long countNonzeros() {
+            long retVal = 0L;
+            for (int i = 0; i < indices.length; i++) {
+                retVal += indices[i].length;
+            }
+            return retVal;
+        }
+
+        /**
+         * result = [this][x]
+         */
+        void multiply(final double[] x, final double[] result) {
+            for (int i = 0; i < indices.length; i++) {
+                final int[] tmpIndices = indices[i];
+                final double[] tmpValues = values[i];
+                double tmpSum = ZERO;
+                for (int k = 0; k < tmpIndices.length; k++) {
+                    tmpSum += tmpValues[k] * x[tmpIndices[k]];
+                }
+                result[i] = tmpSum;
+            }
+        }
+
+        /**
+         * result += [this]<sup>T</sup>[y]
+         */
+        void multiplyTransposed(final double[] y, final double[] result) {
+            for (int i = 0; i < indices.length; i++) {
+                final double tmpFactor = y[i];
+                if (tmpFactor != ZERO) {
+                    final int[] tmpIndices = indices[i];
+                    final double[] tmpValues = values[i];
+                    for (int k = 0; k < tmpIndices.length; k++) {
+                        result[tmpIndices[k]] += tmpFactor * tmpValues[k];
+                    }
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Solves [Q + AI<sup>T</sup>WAI , AE<sup>T</sup>][AE , 0][x,y] = [r1,r2] for varying diagonal [W].
+     */
+    abstract class KKTSystem {
+
+        /**
+         * Retries with increasingly larger regularisation if the factorisation fails. The iterative refinement
+         * compensates for (some of) that.
+         *
+         * @return true if the factorisation succeeded
+         */
+        final boolean factorise(final double[] weights) {
+            for (double tmpRegularisation = REGULARISATION; tmpRegularisation < ONE; tmpRegularisation *= HUNDRED) {
+                if (this.factorise(weights, tmpRegularisation)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        abstract boolean factorise(double[] weights, double regularisation);
+
+        abstract void solve(double[] r1, double[] r2, double[] x, double[] y);
+
+    }
+
+    /**
+     * Dense Cholesky of the upper left block, and of the Schur complement [AE][H]<sup>-1</sup>[AE]<sup>T</sup>
+     * if there are equality constraints.
+     */
+    final class DenseKKT extends KKTSystem {
+
+        private final PrimitiveDenseStore myBody;
+        private final Cholesky<Double> myCholesky;
+        private final PrimitiveDenseStore myInvTimesAEt;
+        private final PrimitiveDenseStore myRHS;
+        private final PrimitiveDenseStore mySchur;
+        private final Cholesky<Double> mySchurCholesky;
+        private final PrimitiveDenseStore mySchurRHS;
+
+        DenseKKT() {
+
+            super();
+
+            myBody = PrimitiveDenseStore.FACTORY.makeZero(myN, myN);
+            myCholesky = Cholesky.PRIMITIVE.make(myBody);
+            myRHS = PrimitiveDenseStore.FACTORY.makeZero(myN, 1);
+
+            if (myME > 0) {
+                myInvTimesAEt = PrimitiveDenseStore.FACTORY.makeZero(myN, myME);
+                mySchur = PrimitiveDenseStore.FACTORY.makeZero(myME, myME);
+                mySchurCholesky = Cholesky.PRIMITIVE.make(mySchur);
+                mySchurRHS = PrimitiveDenseStore.FACTORY.makeZero(myME, 1);
+            } else {
+                myInvTimesAEt = null;
+                mySchur = null;
+                mySchurCholesky = null;
+                mySchurRHS = null;
+            }
+        }
+
+        @Override
+        boolean factorise(final double[] weights, final double regularisation) {
+
+            final double[] tmpBody = myBody.data;
+
+            if (myQ != null) {
+                System.arraycopy(myQ.data, 0, tmpBody, 0, tmpBody.length);
+            } else {
+                Arrays.fill(tmpBody, ZERO);
+            }
+
+            for (int r = 0; r < myMI; r++) {
+                final int[] tmpIndices = myAI.indices[r];
+                final double[] tmpValues = myAI.values[r];
+                final double tmpWeight = weights[r];
+                for (int kj = 0; kj < tmpIndices.length; kj++) {
+                    final int tmpColOffset = tmpIndices[kj] * myN;
+                    final double tmpFactor = tmpWeight * tmpValues[kj];
+                    for (int ki = 0; ki < tmpIndices.length; ki++) {
+                        tmpBody[tmpIndices[ki] + tmpColOffset] += tmpFactor * tmpValues[ki];
+                    }
+                }
+            }
+
+            for (int j = 0; j < myN; j++) {
+                tmpBody[j + (j * myN)] += regularisation;
+            }
+
+            if (!myCholesky.decompose(myBody)) {
+                return false;
+            }
+
+            if (myME > 0) {
+
+                myInvTimesAEt.fillAll(ZERO);
+                for (int e = 0; e < myME; e++) {
+                    final int[] tmpIndices = myAE.indices[e];
+                    final double[] tmpValues = myAE.values[e];
+                    for (int k = 0; k < tmpIndices.length; k++) {
+                        myInvTimesAEt.data[tmpIndices[k] + (e * myN)] = tmpValues[k];
+                    }
+                }
+                myCholesky.getSolution(myInvTimesAEt, myInvTimesAEt);
+
+                final double[] tmpSchur = mySchur.data;
+                for (int f = 0; f < myME; f++) {
+                    final int tmpColOffset = f * myN;
+                    for (int e = 0; e < myME; e++) {
+                        final int[] tmpIndices = myAE.indices[e];
+                        final double[] tmpValues = myAE.values[e];
+                        double tmpSum = ZERO;
+                        for (int k = 0; k < tmpIndices.length; k++) {
+                            tmpSum += tmpValues[k] * myInvTimesAEt.data[tmpIndices[k] + tmpColOffset];
+                        }
+                        tmpSchur[e + (f * myME)] = tmpSum;
+                    }
+                }
+
+                for (int e = 0; e < myME; e++) {
+                    tmpSchur[e + (e * myME)] += regularisation;
+                }
+
+                if (!mySchurCholesky.decompose(mySchur)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        void solve(final double[] r1, final double[] r2, final double[] x, final double[] y) {
+
+            System.arraycopy(r1, 0, myRHS.data, 0, myN);
+            myCholesky.getSolution(myRHS, myRHS);
+
+            if (myME > 0) {
+
+                myAE.multiply(myRHS.data, mySchurRHS.data);
+                for (int e = 0; e < myME; e++) {
+                    mySchurRHS.data[e] -= r2[e];
+                }
+                mySchurCholesky.getSolution(mySchurRHS, mySchurRHS);
+
+                System.arraycopy(mySchurRHS.data, 0, y, 0, myME);
+                for (int e = 0; e < myME; e++) {
+                    final double tmpFactor = y[e];
+                    final int tmpColOffset = e * myN;
+                    for (int j = 0; j < myN; j++) {
+                        myRHS.data[j] -= tmpFactor * myInvTimesAEt.data[j + tmpColOffset];
+                    }
+                }
+            }
+
+            System.arraycopy(myRHS.data, 0, x, 0, myN);
+        }
+
+    }
+
+    /**
+     * The full (augmented) system, with +/-{@link #REGULARISATION} on the diagonal to make it
+     * quasi-definite, factorised with {@link LDL#SPARSE}.
+     */
+    final class SparseKKT extends KKTSystem {
+
+        private final SparseStore.Builder<Double> myBuilder;
+        private final LDL<Double> myLDL;
+        private final PrimitiveDenseStore myRHS;
+
+        SparseKKT(final long nonzeros) {
+
+            super();
+
+            myBuilder = SparseStore.builder(PrimitiveDenseStore.FACTORY, myN + myME, myN + myME, (int) Math.min(Integer.MAX_VALUE, nonzeros));
+            myLDL = LDL.SPARSE.make();
+            myRHS = PrimitiveDenseStore.FACTORY.makeZero(myN + myME, 1);
+        }
+
+        @Override
+        boolean factorise(final double[] weights, final double regularisation) {
+
+            myBuilder.reset();
+
+            if (myQRows != null) {
+                for (int i = 0; i < myN; i++) {
+                    final int[] tmpIndices = myQRows.indices[i];
+                    final double[] tmpValues = myQRows.values[i];
+                    for (int k = 0; k < tmpIndices.length; k++) {
+                        myBuilder.add(i, tmpIndices[k], tmpValues[k]);
+                    }
+                }
+            }
+
+            for (int j = 0; j < myN; j++) {
+                myBuilder.add(j, j, regularisation);
+            }
+
+            for (int r = 0; r < myMI; r++) {
+                final int[] tmpIndices = myAI.indices[r];
+                final double[] tmpValues = myAI.values[r];
+                final double tmpWeight = weights[r];
+                for (int kj = 0; kj < tmpIndices.length; kj++) {
+                    final double tmpFactor = tmpWeight * tmpValues[kj];
+                    for (int ki = 0; ki < tmpIndices.length; ki++) {
+                        myBuilder.add(tmpIndices[ki], tmpIndices[kj], tmpFactor * tmpValues[ki]);
+                    }
+                }
+            }
+
+            for (int e = 0; e < myME; e++) {
+                final int[] tmpIndices = myAE.indices[e];
+                final double[] tmpValues = myAE.values[e];
+                for (int k = 0; k < tmpIndices.length; k++) {
+                    myBuilder.add(myN + e, tmpIndices[k], tmpValues[k]);
+                    myBuilder.add(tmpIndices[k], myN + e, tmpValues[k]);
+                }
+                myBuilder.add(myN + e, myN + e, -regularisation);
+            }
+
+            return myLDL.decompose(myBuilder.make());
+        }
+
+        @Override
+        void solve(final double[] r1, final double[] r2, final double[] x, final double[] y) {
+
+            System.arraycopy(r1, 0, myRHS.data, 0, myN);
+            System.arraycopy(r2, 0, myRHS.data, myN, myME);
+
+            myLDL.getSolution(myRHS, myRHS);
+
+            System.arraycopy(myRHS.data, 0, x, 0, myN);
+            System.arraycopy(myRHS.data, myN, y, 0, myME);
+        }
+
+    }
+
+    /**
+     * The dense (Cholesky) KKT implementation is used if the number of nonzeros in [Q] exceeds this fraction
+     * of its size.
+     */
+    public static double DENSITY = 0.1;
+    /**
+     * Iterations are stopped when this limit is reached even if {@link Optimisation.Options#iterations_abort}
+     * allows more. Interior point methods typically need 10-50 iterations.
+     */
+    public static int ITERATIONS = 200;
+    /**
+     * The primal and dual variables are considered to diverge, the problem to be unbounded or infeasible,
+     * when their magnitude exceeds this.
+     */
+    public static double LARGE = 1E12;
+    /**
+     * Primal and dual regularisation added to the diagonal of the KKT system. Increased, for that iteration,
+     * if the factorisation fails.
+     */
+    public static double REGULARISATION = 1E-10;
+    /**
+     * Converged when the relative primal and dual residuals, and the duality gap, are all below this.
+     */
+    public static double TOLERANCE = 1E-8;
+
+    /**
+     * Max number of iterative refinement steps applied to each solution of the regularised KKT system.
+     */
+    private static final int REFINEMENTS = 10;
+    /**
+     * Step length damping - fraction of the step to the boundary.
+     */
+    private static final double STEP = 0.995;
+
+    private static double norm(final double[] vector) {
+        double retVal = ZERO;
+        for (int i = 0; i < vector.length; i++) {
+            retVal = Math.max(retVal, Math.abs(vector[i]));
+        }
+        return retVal;
+    }
+
+    /**
+     * @return The largest step, not larger than 1, that keeps value + step * direction non-negative
+     */
+    private static double step(final double[] value, final double[] direction) {
+        double retVal = ONE;
+        for (int i = 0; i < value.length; i++) {
+            if (direction[i] < ZERO) {
+                retVal = Math.min(retVal, -value[i] / direction[i]);
+            }
+        }
+        return retVal;
+    }
+
+    private final Rows myAE;
+    private final Rows myAI;
+    private final double[] myBE;
+    private final double[] myBI;
+    private final double[] myC;
+    private final KKTSystem myKKT;
+    private final int myME;
+    private final int myMI;
+    private final int myN;
+    private final PrimitiveDenseStore myQ;
+    private final Rows myQRows;
+    private final double[] myS;
+    private final double[] myX;
+    private final double[] myY;
+    private final double[] myZ;
+
+    public InteriorPointSolver(final ConvexSolver.Builder matrices, final Optimisation.Options solverOptions) {
+
+        super(solverOptions);
+
+        myN = matrices.countVariables();
+
+        final MatrixStore<Double> tmpAE = matrices.getAE();
+        myAE = tmpAE != null ? Rows.of(tmpAE) : new Rows(new int[0]);
+        myME = myAE.count();
+        myBE = new double[myME];
+        for (int e = 0; e < myME; e++) {
+            myBE[e] = matrices.getBE().doubleValue(e);
+        }
+
+        final RowsSupplier<Double> tmpAI = matrices.getAI();
+        myAI = tmpAI != null ? Rows.of(tmpAI) : new Rows(new int[0]);
+        myMI = myAI.count();
+        myBI = new double[myMI];
+        for (int i = 0; i < myMI; i++) {
+            myBI[i] = matrices.getBI().doubleValue(i);
+        }
+
+        myC = new double[myN];
+        final MatrixStore<Double> tmpC = matrices.getC();
+        if (tmpC != null) {
+            for (int j = 0; j < myN; j++) {
+                myC[j] = tmpC.doubleValue(j);
+            }
+        }
+
+        final PhysicalStore<Double> tmpQ = matrices.getQ();
+        long tmpNonzeros = 0L;
+        if (tmpQ != null) {
+            for (int j = 0; j < myN; j++) {
+                for (int i = 0; i < myN; i++) {
+                    if (tmpQ.doubleValue(i, j) != ZERO) {
+                        tmpNonzeros++;
+                    }
+                }
+            }
+        }
+
+        if (tmpNonzeros > (DENSITY * myN * myN)) {
+            myQ = tmpQ instanceof PrimitiveDenseStore ? (PrimitiveDenseStore) tmpQ : PrimitiveDenseStore.FACTORY.copy(tmpQ);
+            myQRows = null;
+            myKKT = new DenseKKT();
+        } else {
+            myQ = null;
+            myQRows = tmpQ != null ? Rows.of(tmpQ) : null;
+            tmpNonzeros += myN + (2L * myAE.countNonzeros()) + myME;
+            for (int r = 0; r < myMI; r++) {
+                tmpNonzeros += myAI.indices[r].length * (long) myAI.indices[r].length;
+            }
+            myKKT = new SparseKKT(tmpNonzeros);
+        }
+
+        myX = new double[myN];
+        myY = new double[myME];
+        myS = new double[myMI];
+        myZ = new double[myMI];
+    }
+
+    /**
+     * @param kickStarter Ignored, there is no (useful) way to warm start an interior point method.
+     */
+    public Optimisation.Result solve(final Optimisation.Result kickStarter) {
+
+        this.resetIterationsCount();
+        this.setState(State.UNEXPLORED);
+
+        final double[] tmpWeights = new double[myMI];
+        final double[] tmpRatio = new double[myMI];
+
+        final double[] tmpDualResidual = new double[myN];
+        final double[] tmpEqResidual = new double[myME];
+        final double[] tmpInResidual = new double[myMI];
+
+        final double[] tmpDX = new double[myN];
+        final double[] tmpDY = new double[myME];
+        final double[] tmpDS = new double[myMI];
+        final double[] tmpDZ = new double[myMI];
+        final double[] tmpWork = new double[Math.max(myN, myMI)];
+
+        if (!this.initialise(tmpWeights)) {
+            this.setState(State.FAILED);
+            return this.buildResult();
+        }
+
+        final double tmpScaleP = ONE + Math.max(InteriorPointSolver.norm(myBE), InteriorPointSolver.norm(myBI));
+        final double tmpScaleD = ONE + InteriorPointSolver.norm(myC);
+
+        double tmpPrimal = Double.NaN;
+        double tmpDual = Double.NaN;
+        double tmpGap = Double.NaN;
+
+        while (this.getState() == State.UNEXPLORED) {
+
+            this.residuals(tmpDualResidual, tmpEqResidual, tmpInResidual);
+
+            tmpPrimal = Math.max(InteriorPointSolver.norm(tmpEqResidual), InteriorPointSolver.norm(tmpInResidual)) / tmpScaleP;
+            tmpDual = InteriorPointSolver.norm(tmpDualResidual) / tmpScaleD;
+            final double tmpMu = this.mu();
+            tmpGap = (tmpMu * myMI) / (ONE + Math.abs(this.objective(myX)));
+
+            if (this.isDebug()) {
+                this.log("{}: primal={} dual={} gap={} mu={}", this.countIterations(), tmpPrimal, tmpDual, tmpGap, tmpMu);
+            }
+
+            if (Double.isNaN(tmpPrimal) || Double.isNaN(tmpDual) || Double.isNaN(tmpGap)) {
+                this.setState(State.FAILED);
+            } else if ((tmpPrimal <= TOLERANCE) && (tmpDual <= TOLERANCE) && (tmpGap <= TOLERANCE)) {
+                this.setState(State.OPTIMAL);
+            } else if (InteriorPointSolver.norm(myX) > LARGE) {
+                this.setState(State.UNBOUNDED);
+            } else if (Math.max(InteriorPointSolver.norm(myY), InteriorPointSolver.norm(myZ)) > LARGE) {
+                this.setState(State.INFEASIBLE);
+            } else if (tmpGap <= (TOLERANCE * TOLERANCE)) {
+                // Complementarity but no feasibility, and no further progress possible
+                if ((tmpPrimal <= Math.sqrt(TOLERANCE)) && (InteriorPointSolver.norm(myX) > Math.sqrt(LARGE))) {
+                    this.setState(State.UNBOUNDED);
+                } else if (Math.max(InteriorPointSolver.norm(myY), InteriorPointSolver.norm(myZ)) > Math.sqrt(LARGE)) {
+                    this.setState(State.INFEASIBLE);
+                } else {
+                    this.setState(State.FAILED);
+                }
+            } else if (!this.isIterationAllowed() || (this.countIterations() >= ITERATIONS)) {
+                final double tmpApproximate = Math.sqrt(TOLERANCE);
+                if ((tmpPrimal <= tmpApproximate) && (tmpDual <= tmpApproximate) && (tmpGap <= tmpApproximate)) {
+                    this.setState(State.APPROXIMATE);
+                } else {
+                    this.setState(State.FAILED);
+                }
+            } else {
+
+                for (int i = 0; i < myMI; i++) {
+                    tmpWeights[i] = myZ[i] / myS[i];
+                }
+
+                if (!myKKT.factorise(tmpWeights)) {
+                    this.setState(State.FAILED);
+                    break;
+                }
+
+                // Predictor (affine scaling) direction
+
+                System.arraycopy(myZ, 0, tmpRatio, 0, myMI);
+                this.direction(tmpWeights, tmpRatio, tmpDualResidual, tmpEqResidual, tmpInResidual, tmpWork, tmpDX, tmpDY, tmpDS, tmpDZ);
+
+                double tmpStep = Math.min(InteriorPointSolver.step(myS, tmpDS), InteriorPointSolver.step(myZ, tmpDZ));
+
+                double tmpSigmaMu = ZERO;
+                if (myMI > 0) {
+                    double tmpAffine = ZERO;
+                    for (int i = 0; i < myMI; i++) {
+                        tmpAffine += (myS[i] + (tmpStep * tmpDS[i])) * (myZ[i] + (tmpStep * tmpDZ[i]));
+                    }
+                    tmpAffine /= myMI;
+                    final double tmpSigma = Math.pow(tmpAffine / tmpMu, THREE);
+                    tmpSigmaMu = Math.min(tmpSigma, ONE) * tmpMu;
+                }
+
+                // Corrector (and centering) direction
+
+                for (int i = 0; i < myMI; i++) {
+                    tmpRatio[i] = ((myS[i] * myZ[i]) + (tmpDS[i] * tmpDZ[i]) - tmpSigmaMu) / myS[i];
+                }
+                this.direction(tmpWeights, tmpRatio, tmpDualResidual, tmpEqResidual, tmpInResidual, tmpWork, tmpDX, tmpDY, tmpDS, tmpDZ);
+
+                tmpStep = Math.min(ONE, STEP * Math.min(InteriorPointSolver.step(myS, tmpDS), InteriorPointSolver.step(myZ, tmpDZ)));
+
+                for (int j = 0; j < myN; j++) {
+                    myX[j] += tmpStep * tmpDX[j];
+                }
+                for (int e = 0; e < myME; e++) {
+                    myY[e] += tmpStep * tmpDY[e];
+                }
+                for (int i = 0; i < myMI; i++) {
+                    myS[i] += tmpStep * tmpDS[i];
+                    myZ[i] += tmpStep * tmpDZ[i];
+                }
+
+                this.incrementIterationsCount();
+            }
+        }
+
+        if (this.isProgress()) {
+            this.log("{} after {} iterations: primal={} dual={} gap={}", this.getState(), this.countIterations(), tmpPrimal, tmpDual, tmpGap);
+        }
+
+        return this.buildResult();
+    }
+
+    /**
+     * Solves for the search direction. The right hand side is given by the current residuals and by ratio =
+     * [S]<sup>-1</sup>r<sub>c</sub> where r<sub>c</sub> is the complementarity target ([S][Z]e in the
+     * predictor step).
+     */
+    private void direction(final double[] weights, final double[] ratio, final double[] dualResidual, final double[] eqResidual, final double[] inResidual,
+            final double[] work, final double[] dx, final double[] dy, final double[] ds, final double[] dz) {
+
+        for (int i = 0; i < myMI; i++) {
+            work[i] = (weights[i] * inResidual[i]) - ratio[i];
+        }
+        Arrays.fill(dx, ZERO);
+        myAI.multiplyTransposed(work, dx);
+        for (int j = 0; j < myN; j++) {
+            work[j] = -dualResidual[j] - dx[j];
+        }
+        final double[] tmpR2 = new double[myME];
+        for (int e = 0; e < myME; e++) {
+            tmpR2[e] = -eqResidual[e];
+        }
+
+        this.solve(weights, work, tmpR2, dx, dy);
+
+        myAI.multiply(dx, dz);
+        for (int i = 0; i < myMI; i++) {
+            dz[i] = (weights[i] * (dz[i] + inResidual[i])) - ratio[i];
+            ds[i] = -(ratio[i] + dz[i]) / weights[i];
+        }
+    }
+
+    /**
+     * Solves the KKT system with [W] = [I] to get an initial [X] and [Y], and then shifts [S] = [BI] -
+     * [AI][X] and [Z] into the interior (the way Mehrotra suggested).
+     */
+    private boolean initialise(final double[] weights) {
+
+        Arrays.fill(weights, ONE);
+
+        if (!myKKT.factorise(weights)) {
+            return false;
+        }
+
+        final double[] tmpRHS = myC.clone();
+        myAI.multiplyTransposed(myBI, tmpRHS);
+
+        this.solve(weights, tmpRHS, myBE, myX, myY);
+
+        if (myMI > 0) {
+
+            myAI.multiply(myX, myS);
+            double tmpMinS = Double.MAX_VALUE;
+            for (int i = 0; i < myMI; i++) {
+                myS[i] = myBI[i] - myS[i];
+                tmpMinS = Math.min(tmpMinS, myS[i]);
+                myZ[i] = ONE;
+            }
+
+            final double tmpShift = Math.max(-1.5 * tmpMinS, ZERO);
+            double tmpProduct = ZERO;
+            double tmpSumS = ZERO;
+            double tmpSumZ = ZERO;
+            for (int i = 0; i < myMI; i++) {
+                myS[i] += tmpShift;
+                tmpProduct += myS[i] * myZ[i];
+                tmpSumS += myS[i];
+                tmpSumZ += myZ[i];
+            }
+
+            final double tmpShiftS = Math.max(HALF * (tmpProduct / tmpSumZ), ONE / HUNDRED);
+            final double tmpShiftZ = tmpSumS > ZERO ? Math.max(HALF * (tmpProduct / tmpSumS), ONE / HUNDRED) : ONE;
+            for (int i = 0; i < myMI; i++) {
+                myS[i] += tmpShiftS;
+                myZ[i] += tmpShiftZ;
+            }
+        }
+
+        return true;
+    }
+
+    private double mu() {
+        double retVal = ZERO;
+        if (myMI > 0) {
+            for (int i = 0; i < myMI; i++) {
+                retVal += myS[i] * myZ[i];
+            }
+            retVal /= myMI;
+        }
+        return retVal;
+    }
+
+    private void multiplyQ(final double[] x, final double[] result) {
+        if (myQRows != null) {
+            myQRows.multiply(x, result);
+        } else if (myQ != null) {
+            Arrays.fill(result, ZERO);
+            final double[] tmpQ = myQ.data;
+            for (int j = 0; j < myN; j++) {
+                final double tmpFactor = x[j];
+                if (tmpFactor != ZERO) {
+                    final int tmpColOffset = j * myN;
+                    for (int i = 0; i < myN; i++) {
+                        result[i] += tmpQ[i + tmpColOffset] * tmpFactor;
+                    }
+                }
+            }
+        } else {
+            Arrays.fill(result, ZERO);
+        }
+    }
+
+    /**
+     * 1/2 [X]<sup>T</sup>[Q][X] - [C]<sup>T</sup>[X]
+     */
+    private double objective(final double[] x) {
+
+        final double[] tmpQX = new double[myN];
+        this.multiplyQ(x, tmpQX);
+
+        double retVal = ZERO;
+        for (int j = 0; j < myN; j++) {
+            retVal += ((HALF * tmpQX[j]) - myC[j]) * x[j];
+        }
+        return retVal;
+    }
+
+    /**
+     * dual = [Q][X] - [C] + [AE]<sup>T</sup>[Y] + [AI]<sup>T</sup>[Z]<br>
+     * equality = [AE][X] - [BE]<br>
+     * inequality = [AI][X] + [S] - [BI]
+     */
+    private void residuals(final double[] dual, final double[] equality, final double[] inequality) {
+
+        this.multiplyQ(myX, dual);
+        for (int j = 0; j < myN; j++) {
+            dual[j] -= myC[j];
+        }
+        myAE.multiplyTransposed(myY, dual);
+        myAI.multiplyTransposed(myZ, dual);
+
+        myAE.multiply(myX, equality);
+        for (int e = 0; e < myME; e++) {
+            equality[e] -= myBE[e];
+        }
+
+        myAI.multiply(myX, inequality);
+        for (int i = 0; i < myMI; i++) {
+            inequality[i] += myS[i] - myBI[i];
+        }
+    }
+
+    /**
+     * Solves using the (regularised) factorisation, and then iteratively refines the solution with respect to
+     * the unregularised system.
+     */
+    private void solve(final double[] weights, final double[] r1, final double[] r2, final double[] x, final double[] y) {
+
+        myKKT.solve(r1, r2, x, y);
+
+        final double[] tmpResidual1 = new double[myN];
+        final double[] tmpResidual2 = new double[myME];
+        final double[] tmpWork = new double[myMI];
+        final double[] tmpCorrection1 = new double[myN];
+        final double[] tmpCorrection2 = new double[myME];
+
+        final double tmpScale = ONE + Math.max(InteriorPointSolver.norm(r1), InteriorPointSolver.norm(r2));
+        double tmpPrevious = Double.MAX_VALUE;
+
+        for (int r = 0; r < REFINEMENTS; r++) {
+
+            this.multiplyQ(x, tmpResidual1);
+            myAI.multiply(x, tmpWork);
+            for (int i = 0; i < myMI; i++) {
+                tmpWork[i] *= weights[i];
+            }
+            myAI.multiplyTransposed(tmpWork, tmpResidual1);
+            myAE.multiplyTransposed(y, tmpResidual1);
+            for (int j = 0; j < myN; j++) {
+                tmpResidual1[j] = r1[j] - tmpResidual1[j];
+            }
+
+            myAE.multiply(x, tmpResidual2);
+            for (int e = 0; e < myME; e++) {
+                tmpResidual2[e] = r2[e] - tmpResidual2[e];
+            }
+
+            final double tmpResidual = Math.max(InteriorPointSolver.norm(tmpResidual1), InteriorPointSolver.norm(tmpResidual2)) / tmpScale;
+            if ((tmpResidual <= MACHINE_EPSILON) || (tmpResidual >= tmpPrevious)) {
+                break;
+            }
+            tmpPrevious = tmpResidual;
+
+            myKKT.solve(tmpResidual1, tmpResidual2, tmpCorrection1, tmpCorrection2);
+
+            for (int j = 0; j < myN; j++) {
+                x[j] += tmpCorrection1[j];
+            }
+            for (int e = 0; e < myME; e++) {
+                y[e] += tmpCorrection2[e];
+            }
+        }
+    }
+
+    @Override
+    protected double evaluateFunction(final Access1D<?> solution) {
+        final double[] tmpX = new double[myN];
+        for (int j = 0; j < myN; j++) {
+            tmpX[j] = solution.doubleValue(j);
+        }
+        return this.objective(tmpX);
+    }
+
+    @Override
+    protected MatrixStore<Double> extractSolution() {
+        return PrimitiveDenseStore.FACTORY.columns(myX);
+    }
+
+}
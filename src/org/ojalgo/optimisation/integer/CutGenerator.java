@@ -0,0 +1,452 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.integer;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.stream.Collectors;
+
+import org.ojalgo.access.Access1D;
+import org.ojalgo.access.Structure1D.IntIndex;
+import org.ojalgo.optimisation.Cut;
+import org.ojalgo.optimisation.Expression;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Variable;
+
+/**
+ * Separates cutting planes from the (linear) constraints of a model - each constraint is treated separately as
+ * a row <code>&Sigma; a<sub>j</sub>x<sub>j</sub> &lt;= b</code> (a lower limit is negated).
+ * <ul>
+ * <li>Knapsack cover cuts: the binary variables of the row make up a knapsack constraint after the other
+ * variables are replaced by the bound that minimises their contribution. A (minimal, extended) cover C gives
+ * the cut <code>&Sigma;<sub>C</sub> x<sub>j</sub> &lt;= |C| - 1</code>. Binary variables with negative
+ * coefficients are complemented.</li>
+ * <li>Mixed integer rounding (c-MIR) cuts: each variable is substituted by its distance to the closest (or
+ * for continuous variables the most favourable) bound, the row is divided by a number of candidate deltas,
+ * and the MIR inequality of the scaled row is derived. The most efficacious one is kept.</li>
+ * </ul>
+ * The cuts are valid for all integer feasible solutions of the model.
+ *
+ * @author apete
+ */
+public final class CutGenerator {
+
+    /**
+     * A (simplified) model constraint, in double precision, as a &lt;= row with the fixed variables moved
+     * to the right hand side.
+     */
+    static final class Row {
+
+        final int[] indices;
+        final double upper;
+        final double[] values;
+
+        Row(final int[] indices, final double[] values, final double upper) {
+
+            super();
+
+            this.indices = indices;
+            this.values = values;
+            this.upper = upper;
+        }
+
+    }
+
+    /**
+     * Cuts violated by less than this (relative to the right hand side) are not returned
+     */
+    static final double VIOLATION = 1E-6;
+
+    /**
+     * The fractional part of a scaled MIR right hand side has to be in [MIN_FRACTION, 1 - MIN_FRACTION]
+     */
+    private static final double MIN_FRACTION = 0.05;
+    private static final double SAFETY = 1E-9;
+
+    private final boolean[] myBinary;
+    private final boolean[] myInteger;
+    private final double[] myLowerLimits;
+    private final List<Row> myRows;
+    private final double[] myUpperLimits;
+
+    public CutGenerator(final ExpressionsBasedModel model) {
+        this(model, model.constraints().collect(Collectors.toList()));
+    }
+
+    /**
+     * @param model The model
+     * @param constraints The constraints (of that model) to separate cuts from
+     */
+    public CutGenerator(final ExpressionsBasedModel model, final Collection<Expression> constraints) {
+
+        super();
+
+        final int tmpNumberOfVariables = model.countVariables();
+
+        myInteger = new boolean[tmpNumberOfVariables];
+        myBinary = new boolean[tmpNumberOfVariables];
+        myLowerLimits = new double[tmpNumberOfVariables];
+        myUpperLimits = new double[tmpNumberOfVariables];
+        final boolean[] tmpFixed = new boolean[tmpNumberOfVariables];
+
+        for (int i = 0; i < tmpNumberOfVariables; i++) {
+            final Variable tmpVariable = model.getVariable(i);
+            myInteger[i] = tmpVariable.isInteger();
+            myBinary[i] = tmpVariable.isBinary();
+            myLowerLimits[i] = tmpVariable.isLowerLimitSet() ? tmpVariable.getLowerLimit().doubleValue() : NEGATIVE_INFINITY;
+            myUpperLimits[i] = tmpVariable.isUpperLimitSet() ? tmpVariable.getUpperLimit().doubleValue() : POSITIVE_INFINITY;
+            if (myInteger[i]) {
+                myLowerLimits[i] = Math.ceil(myLowerLimits[i] - SAFETY);
+                myUpperLimits[i] = Math.floor(myUpperLimits[i] + SAFETY);
+            }
+        }
+        for (final IntIndex tmpIndex : model.getFixedVariables()) {
+            tmpFixed[tmpIndex.index] = true;
+        }
+
+        myRows = new ArrayList<>();
+
+        for (final Expression tmpConstraint : constraints) {
+            if (tmpConstraint.isFunctionLinear() && tmpConstraint.isLinearAndAnyInteger()) {
+
+                final int[] tmpIndices = new int[tmpConstraint.getLinearKeySet().size()];
+                final double[] tmpValues = new double[tmpIndices.length];
+                double tmpFixedSum = ZERO;
+                int tmpCount = 0;
+                for (final Entry<IntIndex, BigDecimal> tmpEntry : tmpConstraint.getLinearEntrySet()) {
+                    final int tmpIndex = tmpEntry.getKey().index;
+                    final double tmpValue = tmpEntry.getValue().doubleValue();
+                    if (tmpFixed[tmpIndex]) {
+                        tmpFixedSum += tmpValue * model.getVariable(tmpIndex).getValue().doubleValue();
+                    } else if (tmpValue != ZERO) {
+                        tmpIndices[tmpCount] = tmpIndex;
+                        tmpValues[tmpCount++] = tmpValue;
+                    }
+                }
+
+                if (tmpCount > 0) {
+                    final int[] tmpRowIndices = Arrays.copyOf(tmpIndices, tmpCount);
+                    final double[] tmpRowValues = Arrays.copyOf(tmpValues, tmpCount);
+                    if (tmpConstraint.isUpperLimitSet()) {
+                        myRows.add(new Row(tmpRowIndices, tmpRowValues, tmpConstraint.getUpperLimit().doubleValue() - tmpFixedSum));
+                    }
+                    if (tmpConstraint.isLowerLimitSet()) {
+                        final double[] tmpNegated = new double[tmpCount];
+                        for (int k = 0; k < tmpCount; k++) {
+                            tmpNegated[k] = -tmpRowValues[k];
+                        }
+                        myRows.add(new Row(tmpRowIndices, tmpNegated, tmpFixedSum - tmpConstraint.getLowerLimit().doubleValue()));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of rows (constraint limits) that cuts are separated from
+     */
+    public int countRows() {
+        return myRows.size();
+    }
+
+    /**
+     * @param solution A (relaxed) solution
+     * @return Cover and MIR cuts violated by the solution - at most one of each kind per row
+     */
+    public List<Cut> separate(final Access1D<?> solution) {
+
+        final List<Cut> retVal = new ArrayList<>();
+
+        final double[] tmpCoefficients = new double[myInteger.length];
+
+        for (final Row tmpRow : myRows) {
+
+            Cut tmpCut = this.cover(tmpRow, solution, tmpCoefficients);
+            if (tmpCut != null) {
+                retVal.add(tmpCut);
+            }
+
+            tmpCut = this.mir(tmpRow, solution, tmpCoefficients);
+            if (tmpCut != null) {
+                retVal.add(tmpCut);
+            }
+        }
+
+        return retVal;
+    }
+
+    private boolean isViolated(final Cut cut, final Access1D<?> solution) {
+        return cut.getViolation(solution) > (VIOLATION * Math.max(ONE, Math.abs(cut.getUpper())));
+    }
+
+    /**
+     * Knapsack cover cut from the row, or null if there is none violated by the solution.
+     */
+    Cut cover(final Row row, final Access1D<?> solution, final double[] coefficients) {
+
+        final int tmpLength = row.indices.length;
+
+        // The knapsack: sum(weight * y) <= capacity, y = x or y = 1 - x (complemented)
+        final double[] tmpWeights = new double[tmpLength];
+        final double[] tmpValues = new double[tmpLength];
+        double tmpCapacity = row.upper;
+        int tmpItems = 0;
+
+        for (int k = 0; k < tmpLength; k++) {
+
+            final int tmpIndex = row.indices[k];
+            final double tmpValue = row.values[k];
+
+            if (myBinary[tmpIndex]) {
+                tmpItems++;
+                if (tmpValue > ZERO) {
+                    tmpWeights[k] = tmpValue;
+                    tmpValues[k] = solution.doubleValue(tmpIndex);
+                } else {
+                    tmpWeights[k] = -tmpValue;
+                    tmpValues[k] = ONE - solution.doubleValue(tmpIndex);
+                    tmpCapacity -= tmpValue;
+                }
+            } else {
+                // Replaced by the bound that gives the smallest contribution
+                final double tmpBound = tmpValue > ZERO ? myLowerLimits[tmpIndex] : myUpperLimits[tmpIndex];
+                if (Double.isInfinite(tmpBound)) {
+                    return null;
+                }
+                tmpCapacity -= tmpValue * tmpBound;
+            }
+        }
+
+        if ((tmpItems < 2) || (tmpCapacity < ZERO)) {
+            return null;
+        }
+
+        // Greedy cover, preferring items with y close to 1 (relative to their weight)
+        final Integer[] tmpOrder = new Integer[tmpLength];
+        for (int k = 0; k < tmpLength; k++) {
+            tmpOrder[k] = k;
+        }
+        Arrays.sort(tmpOrder, (k1, k2) -> {
+            final boolean tmpItem1 = tmpWeights[k1] > ZERO;
+            final boolean tmpItem2 = tmpWeights[k2] > ZERO;
+            if (tmpItem1 != tmpItem2) {
+                return tmpItem1 ? -1 : 1;
+            } else if (!tmpItem1) {
+                return 0;
+            } else {
+                return Double.compare((ONE - tmpValues[k1]) / tmpWeights[k1], (ONE - tmpValues[k2]) / tmpWeights[k2]);
+            }
+        });
+
+        final double tmpExcess = SAFETY * Math.max(ONE, tmpCapacity);
+        final boolean[] tmpCover = new boolean[tmpLength];
+        double tmpWeight = ZERO;
+        int tmpSize = 0;
+        for (int o = 0; (o < tmpLength) && (tmpWeight <= (tmpCapacity + tmpExcess)); o++) {
+            final int k = tmpOrder[o];
+            if (tmpWeights[k] > ZERO) {
+                tmpCover[k] = true;
+                tmpWeight += tmpWeights[k];
+                tmpSize++;
+            }
+        }
+        if (tmpWeight <= (tmpCapacity + tmpExcess)) {
+            return null;
+        }
+
+        // Make it minimal, removing items with small y first
+        for (int o = tmpLength - 1; o >= 0; o--) {
+            final int k = tmpOrder[o];
+            if (tmpCover[k] && ((tmpWeight - tmpWeights[k]) > (tmpCapacity + tmpExcess))) {
+                tmpCover[k] = false;
+                tmpWeight -= tmpWeights[k];
+                tmpSize--;
+            }
+        }
+
+        // Extend it with the items at least as heavy as the heaviest cover item
+        double tmpHeaviest = ZERO;
+        for (int k = 0; k < tmpLength; k++) {
+            if (tmpCover[k]) {
+                tmpHeaviest = Math.max(tmpHeaviest, tmpWeights[k]);
+            }
+        }
+
+        Arrays.fill(coefficients, ZERO);
+        double tmpUpper = tmpSize - 1;
+        for (int k = 0; k < tmpLength; k++) {
+            if (tmpCover[k] || ((tmpWeights[k] > ZERO) && (tmpWeights[k] >= tmpHeaviest))) {
+                final int tmpIndex = row.indices[k];
+                if (row.values[k] > ZERO) {
+                    coefficients[tmpIndex] += ONE;
+                } else {
+                    coefficients[tmpIndex] -= ONE;
+                    tmpUpper -= ONE;
+                }
+            }
+        }
+
+        final Cut retVal = new Cut(coefficients, tmpUpper);
+
+        return this.isViolated(retVal, solution) ? retVal : null;
+    }
+
+    /**
+     * Complemented mixed integer rounding cut from the row, or null if there is none violated by the
+     * solution.
+     */
+    Cut mir(final Row row, final Access1D<?> solution, final double[] coefficients) {
+
+        final int tmpLength = row.indices.length;
+
+        // After bound substitution: sum(a * x') <= beta with all x' >= 0
+        final double[] tmpTransformed = new double[tmpLength];
+        final boolean[] tmpUpperBound = new boolean[tmpLength];
+        double tmpBeta = row.upper;
+
+        final List<Double> tmpDeltas = new ArrayList<>();
+
+        for (int k = 0; k < tmpLength; k++) {
+
+            final int tmpIndex = row.indices[k];
+            final double tmpValue = row.values[k];
+            final double tmpLower = myLowerLimits[tmpIndex];
+            final double tmpUpper = myUpperLimits[tmpIndex];
+
+            final boolean tmpUseUpper;
+            if (myInteger[tmpIndex]) {
+                final double tmpX = solution.doubleValue(tmpIndex);
+                if (Double.isInfinite(tmpLower) && Double.isInfinite(tmpUpper)) {
+                    return null;
+                }
+                tmpUseUpper = Double.isInfinite(tmpLower) || (!Double.isInfinite(tmpUpper) && ((tmpUpper - tmpX) < (tmpX - tmpLower)));
+                final double tmpDistance = tmpUseUpper ? tmpUpper - tmpX : tmpX - tmpLower;
+                if ((tmpDistance > SAFETY) && (Double.isInfinite(tmpUpper - tmpLower) || (tmpDistance < ((tmpUpper - tmpLower) - SAFETY)))) {
+                    tmpDeltas.add(Math.abs(tmpValue));
+                }
+            } else {
+                // Prefer the bound that makes the continuous part drop out of the cut
+                if (tmpValue > ZERO) {
+                    tmpUseUpper = Double.isInfinite(tmpLower);
+                } else {
+                    tmpUseUpper = !Double.isInfinite(tmpUpper);
+                }
+                if (Double.isInfinite(tmpUseUpper ? tmpUpper : tmpLower)) {
+                    return null;
+                }
+            }
+
+            tmpUpperBound[k] = tmpUseUpper;
+            if (tmpUseUpper) {
+                tmpTransformed[k] = -tmpValue;
+                tmpBeta -= tmpValue * tmpUpper;
+            } else {
+                tmpTransformed[k] = tmpValue;
+                tmpBeta -= tmpValue * tmpLower;
+            }
+        }
+
+        if (tmpDeltas.isEmpty()) {
+            return null;
+        }
+
+        Cut retVal = null;
+        double tmpBestEfficacy = ZERO;
+        double tmpBestDelta = ZERO;
+
+        for (final double tmpDelta : tmpDeltas) {
+            final Cut tmpCut = this.mir(row, tmpTransformed, tmpUpperBound, tmpBeta, tmpDelta, coefficients);
+            if ((tmpCut != null) && this.isViolated(tmpCut, solution)) {
+                final double tmpEfficacy = tmpCut.getEfficacy(solution);
+                if (tmpEfficacy > tmpBestEfficacy) {
+                    retVal = tmpCut;
+                    tmpBestEfficacy = tmpEfficacy;
+                    tmpBestDelta = tmpDelta;
+                }
+            }
+        }
+
+        for (int d = 2; (retVal != null) && (d <= 8); d *= 2) {
+            final Cut tmpCut = this.mir(row, tmpTransformed, tmpUpperBound, tmpBeta, tmpBestDelta / d, coefficients);
+            if ((tmpCut != null) && this.isViolated(tmpCut, solution)) {
+                final double tmpEfficacy = tmpCut.getEfficacy(solution);
+                if (tmpEfficacy > tmpBestEfficacy) {
+                    retVal = tmpCut;
+                    tmpBestEfficacy = tmpEfficacy;
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * The MIR cut of the (bound substituted) row divided by delta, translated back to model variables.
+     */
+    private Cut mir(final Row row, final double[] transformed, final boolean[] upperBound, final double beta, final double delta,
+            final double[] coefficients) {
+
+        final double tmpScaledBeta = beta / delta;
+        final double f = tmpScaledBeta - Math.floor(tmpScaledBeta);
+        if ((f < MIN_FRACTION) || (f > (ONE - MIN_FRACTION))) {
+            return null;
+        }
+
+        Arrays.fill(coefficients, ZERO);
+        double tmpUpper = Math.floor(tmpScaledBeta);
+
+        for (int k = 0; k < row.indices.length; k++) {
+
+            final int tmpIndex = row.indices[k];
+            final double tmpScaled = transformed[k] / delta;
+
+            // The cut coefficient of x'
+            final double tmpCoefficient;
+            if (myInteger[tmpIndex]) {
+                final double fj = tmpScaled - Math.floor(tmpScaled);
+                tmpCoefficient = Math.floor(tmpScaled) + (Math.max(ZERO, fj - f) / (ONE - f));
+            } else {
+                tmpCoefficient = Math.min(ZERO, tmpScaled) / (ONE - f);
+            }
+
+            if (tmpCoefficient != ZERO) {
+                // x' = x - lower or x' = upper - x
+                if (upperBound[k]) {
+                    coefficients[tmpIndex] -= tmpCoefficient;
+                    tmpUpper -= tmpCoefficient * myUpperLimits[tmpIndex];
+                } else {
+                    coefficients[tmpIndex] += tmpCoefficient;
+                    tmpUpper += tmpCoefficient * myLowerLimits[tmpIndex];
+                }
+            }
+        }
+
+        return new Cut(coefficients, tmpUpper + (SAFETY * Math.max(ONE, Math.abs(tmpUpper))));
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.integer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.ojalgo.access.Access1D;
+import org.ojalgo.optimisation.Cut;
+
+/**
+ * Cuts that were separated at the root node, but not added to the root relaxation. They are globally valid,
+ * and are checked (and added when violated) at the branch &amp; bound nodes. The pool is populated during the
+ * root cut loop, and is then only read - it may be used by several threads without synchronisation.
+ *
+ * @author apete
+ */
+final class CutPool {
+
+    /**
+     * Cuts more parallel than this to an already selected cut are not selected.
+     */
+    static final double PARALLELISM = 0.99;
+
+    private final int myCapacity;
+    private final List<Cut> myCuts = new ArrayList<>();
+
+    CutPool(final int capacity) {
+
+        super();
+
+        myCapacity = capacity;
+    }
+
+    void add(final Collection<Cut> cuts) {
+        for (final Cut tmpCut : cuts) {
+            if (myCuts.size() < myCapacity) {
+                myCuts.add(tmpCut);
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return myCuts.isEmpty();
+    }
+
+    /**
+     * Select (at most limit) cuts violated by the solution - the most efficacious first, skipping cuts that
+     * are almost parallel to one already selected.
+     */
+    static List<Cut> select(final Collection<Cut> candidates, final Access1D<?> solution, final int limit) {
+
+        final List<Cut> tmpViolated = new ArrayList<>();
+        for (final Cut tmpCut : candidates) {
+            if (tmpCut.getViolation(solution) > (CutGenerator.VIOLATION * Math.max(1.0, Math.abs(tmpCut.getUpper())))) {
+                tmpViolated.add(tmpCut);
+            }
+        }
+        tmpViolated.sort(Comparator.comparingDouble((final Cut cut) -> cut.getEfficacy(solution)).reversed());
+
+        final List<Cut> retVal = new ArrayList<>();
+        for (int c = 0; (c < tmpViolated.size()) && (retVal.size() < limit); c++) {
+            final Cut tmpCandidate = tmpViolated.get(c);
+            boolean tmpParallel = false;
+            for (int s = 0; !tmpParallel && (s < retVal.size()); s++) {
+                tmpParallel = tmpCandidate.cosine(retVal.get(s)) > PARALLELISM;
+            }
+            if (!tmpParallel) {
+                retVal.add(tmpCandidate);
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * @param solution A node solution
+     * @param active The cuts already part of the node problem
+     * @param limit The maximum number of cuts to return
+     * @return Pool cuts, not already active, violated by the solution
+     */
+    List<Cut> separate(final Access1D<?> solution, final Collection<Cut> active, final int limit) {
+
+        if (active.isEmpty()) {
+            return CutPool.select(myCuts, solution, limit);
+        }
+
+        final Set<Cut> tmpActive = new HashSet<>(active);
+        final List<Cut> tmpCandidates = new ArrayList<>();
+        for (final Cut tmpCut : myCuts) {
+            if (!tmpActive.contains(tmpCut)) {
+                tmpCandidates.add(tmpCut);
+            }
+        }
+
+        return CutPool.select(tmpCandidates, solution, limit);
+    }
+
+    int size() {
+        return myCuts.size();
+    }
+
+}
@@ -27,6 +27,7 @@ import static org.ojalgo.function.PrimitiveFunction.*;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.ojalgo.access.Access1D;
 import org.ojalgo.function.PrimitiveFunction;
@@ -37,6 +38,7 @@ import org.ojalgo.optimisation.ExpressionsBasedModel;
 import org.ojalgo.optimisation.GenericSolver;
 import org.ojalgo.optimisation.Optimisation;
 import org.ojalgo.optimisation.Variable;
+import org.ojalgo.optimisation.linear.RevisedSimplexSolver;
 
 public abstract class IntegerSolver extends GenericSolver {
 
@@ -158,12 +160,25 @@ public abstract class IntegerSolver extends GenericSolver {
 
     }
 
+    /**
+     * When the model is linear, solve the branch &amp; bound node relaxations with
+     * {@link RevisedSimplexSolver.Relaxation} - the standard form is built once, and each node is warm started
+     * from its parent's final basis using dual simplex iterations. The root cut loop, and the cut pool, also
+     * work on that relaxation. When false, or when the model is not linear, each node model is solved from
+     * scratch (presolved and solved with whichever solver integration that is selected) and no cuts are
+     * separated.
+     */
+    public static boolean WARM_START = true;
+
     public static IntegerSolver make(final ExpressionsBasedModel model) {
-        return new OldIntegerSolver(model, model.options);
-        //return new NewIntegerSolver(model, model.options);
+        return new NewIntegerSolver(model, model.options);
+        //return new OldIntegerSolver(model, model.options);
     }
 
-    private volatile Optimisation.Result myBestResultSoFar = null;
+    /**
+     * The incumbent - shared by all threads working on the branch &amp; bound tree.
+     */
+    private final AtomicReference<Optimisation.Result> myBestResultSoFar = new AtomicReference<>();
     private final MultiaryFunction.TwiceDifferentiable<Double> myFunction;
     private final int[] myIntegerIndices;
     private final ExpressionsBasedModel myIntegerModel;
@@ -206,7 +221,7 @@ public abstract class IntegerSolver extends GenericSolver {
 
     protected Optimisation.Result getBestResultSoFar() {
 
-        final Result tmpCurrentlyTheBest = myBestResultSoFar;
+        final Result tmpCurrentlyTheBest = myBestResultSoFar.get();
 
         if (tmpCurrentlyTheBest != null) {
 
@@ -236,13 +251,20 @@ public abstract class IntegerSolver extends GenericSolver {
 
     protected abstract boolean initialise(Result kickStarter);
 
+    /**
+     * @return The {@link IntegerStrategy} configured with the options, or a default instance.
+     */
+    protected final IntegerStrategy getStrategy() {
+        return options.getConfigurator(IntegerStrategy.class).orElseGet(IntegerStrategy::new);
+    }
+
     protected final boolean isFunctionSet() {
         return myFunction != null;
     }
 
     protected boolean isGoodEnoughToContinueBranching(final double relaxedNodeValue) {
 
-        final Result bestResultSoFar = myBestResultSoFar;
+        final Result bestResultSoFar = myBestResultSoFar.get();
 
         if ((bestResultSoFar == null) || Double.isNaN(relaxedNodeValue)) {
 
@@ -264,12 +286,12 @@ public abstract class IntegerSolver extends GenericSolver {
     }
 
     protected boolean isIntegerSolutionFound() {
-        return myBestResultSoFar != null;
+        return myBestResultSoFar.get() != null;
     }
 
     protected boolean isIterationNecessary() {
 
-        if (myBestResultSoFar == null) {
+        if (myBestResultSoFar.get() == null) {
 
             return true;
 
@@ -283,40 +305,48 @@ public abstract class IntegerSolver extends GenericSolver {
         return myIntegerModel != null;
     }
 
-    protected synchronized void markInteger(final NodeKey key, final ExpressionsBasedModel model, final Optimisation.Result result) {
+    protected void markInteger(final NodeKey key, final ExpressionsBasedModel model, final Optimisation.Result result) {
 
         if (this.isProgress()) {
             this.log("New integer solution {}", result);
             this.log("\t@ node {}", key);
         }
 
-        final Optimisation.Result tmpCurrentlyTheBest = myBestResultSoFar;
-
-        if (tmpCurrentlyTheBest == null) {
-
-            myBestResultSoFar = result;
+        final Optimisation.Result tmpCurrentlyTheBest = myBestResultSoFar.getAndAccumulate(result, this::getBetter);
 
-        } else if (myMinimisation && (result.getValue() < tmpCurrentlyTheBest.getValue())) {
-
-            myBestResultSoFar = result;
+        if ((tmpCurrentlyTheBest != null) && (this.getBetter(tmpCurrentlyTheBest, result) == tmpCurrentlyTheBest)) {
+            if (this.isDebug()) {
+                this.log("Previously best {}", tmpCurrentlyTheBest);
+            }
+        }
 
-        } else if (!myMinimisation && (result.getValue() > tmpCurrentlyTheBest.getValue())) {
+        synchronized (myIntegerSignificances) {
+            this.updateIntegerSignificances(tmpCurrentlyTheBest, result);
+        }
 
-            myBestResultSoFar = result;
+        myIntegerSolutionsCount.incrementAndGet();
+    }
 
+    private Optimisation.Result getBetter(final Optimisation.Result currentlyTheBest, final Optimisation.Result candidate) {
+        if (currentlyTheBest == null) {
+            return candidate;
+        } else if (myMinimisation && (candidate.getValue() < currentlyTheBest.getValue())) {
+            return candidate;
+        } else if (!myMinimisation && (candidate.getValue() > currentlyTheBest.getValue())) {
+            return candidate;
         } else {
-
-            if (this.isDebug()) {
-                this.log("Previously best {}", myBestResultSoFar);
-            }
+            return currentlyTheBest;
         }
+    }
 
-        if (tmpCurrentlyTheBest != null) {
+    private void updateIntegerSignificances(final Optimisation.Result previouslyTheBest, final Optimisation.Result result) {
+
+        if (previouslyTheBest != null) {
 
-            final double objDiff = ABS.invoke((result.getValue() - tmpCurrentlyTheBest.getValue()) / tmpCurrentlyTheBest.getValue());
+            final double objDiff = ABS.invoke((result.getValue() - previouslyTheBest.getValue()) / previouslyTheBest.getValue());
 
             for (int i = 0; i < myIntegerIndices.length; i++) {
-                final double varDiff = ABS.invoke(result.doubleValue(myIntegerIndices[i]) - tmpCurrentlyTheBest.doubleValue(myIntegerIndices[i]));
+                final double varDiff = ABS.invoke(result.doubleValue(myIntegerIndices[i]) - previouslyTheBest.doubleValue(myIntegerIndices[i]));
                 if (!options.feasibility.isZero(varDiff)) {
                     this.addIntegerSignificance(i, objDiff / varDiff);
                 }
@@ -333,8 +363,6 @@ public abstract class IntegerSolver extends GenericSolver {
                 }
             }
         }
-
-        myIntegerSolutionsCount.incrementAndGet();
     }
 
     protected abstract boolean needsAnotherIteration();
@@ -379,9 +407,12 @@ public abstract class IntegerSolver extends GenericSolver {
         double compareFraction = ZERO;
         double maxFraction = ZERO;
 
+        final int[] lowerBounds = nodeKey.getLowerBounds();
+        final int[] upperBounds = nodeKey.getUpperBounds();
+
         for (int i = 0; i < myIntegerIndices.length; i++) {
 
-            fraction = nodeKey.getFraction(i, nodeResult.doubleValue(myIntegerIndices[i]));
+            fraction = NodeKey.fraction(lowerBounds[i], upperBounds[i], nodeResult.doubleValue(myIntegerIndices[i]));
             // [0, 0.5]
 
             if (!options.feasibility.isZero(fraction)) {
@@ -0,0 +1,106 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.integer;
+
+import org.ojalgo.OjAlgoUtils;
+import org.ojalgo.optimisation.Optimisation;
+
+/**
+ * Configures how the branch &amp; bound search of {@link IntegerSolver} is performed. Set an instance as the
+ * configurator of the model's options - {@link Optimisation.Options#setConfigurator(Object)}. If none is set
+ * a default instance is used.
+ *
+ * @author apete
+ */
+public final class IntegerStrategy {
+
+    /**
+     * Determines which open node, from the shared node pool, is evaluated next.
+     */
+    public static enum NodeSelection {
+
+        /**
+         * The node with the best bound (its parent's relaxed objective function value) first. Tends to
+         * minimise the number of nodes needed to prove optimality.
+         */
+        BEST_BOUND,
+
+        /**
+         * The node with the best estimated integer solution value first. The estimate is the node's bound
+         * plus pseudocost based degradations for the integer variables that still have fractional values.
+         */
+        BEST_ESTIMATE,
+
+        /**
+         * The deepest node first. Finds integer solutions quickly and keeps the node pool small.
+         */
+        DEPTH_FIRST;
+
+    }
+
+    /**
+     * Cuts separated at the root node, but not added to the root relaxation, are kept in a pool. If true each
+     * node checks that pool and re-solves with the (few) cuts its relaxed solution violates.
+     */
+    public boolean cut_pool = false;
+
+    /**
+     * The maximum number of rounds of cut separation at the root node. Each round solves the root
+     * relaxation, separates Gomory mixed integer, knapsack cover and MIR cuts, and adds the most efficacious
+     * ones to the relaxation shared by all nodes. The loop also stops when the root bound no longer improves.
+     * 0 disables cuts. Cuts are only used when the node relaxations are warm started - the model is linear and
+     * {@link IntegerSolver#WARM_START} is enabled (it is by default).
+     */
+    public int cut_rounds = 5;
+
+    /**
+     * If true the nodes are evaluated in synchronised rounds - a batch of nodes (one per thread) is solved in
+     * parallel, and then the results are processed, the incumbent updated and new nodes created, in a fixed
+     * order. Repeated runs then explore the same nodes and return the same solution regardless of thread
+     * scheduling (as long as no time limit is reached). Somewhat less efficient than the default
+     * asynchronous mode.
+     */
+    public boolean deterministic = false;
+
+    /**
+     * How to select the next node from the node pool.
+     */
+    public NodeSelection node_selection = NodeSelection.BEST_ESTIMATE;
+
+    /**
+     * The number of threads working on the branch &amp; bound tree.
+     */
+    public int parallelism = OjAlgoUtils.ENVIRONMENT.threads;
+
+    /**
+     * After a node has been branched on, the thread may continue directly with one of the two new nodes -
+     * "plunge" - rather than returning to the node pool. This is the maximum number of successive plunges.
+     * Before any integer solution has been found there is no limit (the search dives to find one). With
+     * {@link NodeSelection#DEPTH_FIRST} there is never a limit.
+     */
+    public int plunge_limit = 8;
+
+    public IntegerStrategy() {
+        super();
+    }
+
+}
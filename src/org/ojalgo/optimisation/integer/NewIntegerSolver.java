@@ -21,53 +21,304 @@
  */
 package org.ojalgo.optimisation.integer;
 
-import java.math.BigDecimal;
+import static org.ojalgo.constant.PrimitiveMath.*;
+import static org.ojalgo.function.PrimitiveFunction.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
-import java.util.concurrent.PriorityBlockingQueue;
 
 import org.ojalgo.concurrent.DaemonPoolExecutor;
-import org.ojalgo.constant.PrimitiveMath;
-import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.function.FunctionUtils;
 import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PrimitiveDenseStore;
-import org.ojalgo.netio.BasicLogger;
-import org.ojalgo.netio.CharacterRing.PrinterBuffer;
+import org.ojalgo.optimisation.Cut;
 import org.ojalgo.optimisation.ExpressionsBasedModel;
 import org.ojalgo.optimisation.Optimisation;
-import org.ojalgo.optimisation.Variable;
-import org.ojalgo.scalar.PrimitiveScalar;
+import org.ojalgo.optimisation.linear.RevisedSimplexSolver;
 import org.ojalgo.type.TypeUtils;
 
 /**
- * IntegerSolver
+ * Parallel branch &amp; bound. The open nodes are kept in a shared pool, ordered according to the
+ * {@link IntegerStrategy.NodeSelection}, and a number of worker threads repeatedly take the next node, solve
+ * its relaxation, and either prune it, record an integer solution or branch. The incumbent (best integer
+ * solution so far) is shared by all workers. See {@link IntegerStrategy} for the options.
  *
  * @author apete
  */
 public final class NewIntegerSolver extends IntegerSolver {
 
-    class NodeWorker implements Callable<Boolean> {
+    /**
+     * An open node - created but not yet evaluated.
+     */
+    static final class Node {
+
+        /**
+         * The node's bound, its parent's relaxed objective function value, in minimisation terms.
+         */
+        final double bound;
+        /**
+         * Pool cuts added to this node's (and its ancestors') relaxation.
+         */
+        final List<Cut> cuts;
+        /**
+         * The estimated value (in minimisation terms) of the best integer solution in this node's subtree.
+         */
+        final double estimate;
+        final NodeKey key;
+        /**
+         * The parent node's relaxation solution (basis) - used to warm start this node.
+         */
+        final RevisedSimplexSolver.Relaxation.Solution parent;
+
+        Node(final NodeKey key, final RevisedSimplexSolver.Relaxation.Solution parent, final List<Cut> cuts, final double bound, final double estimate) {
+
+            super();
+
+            this.key = key;
+            this.parent = parent;
+            this.cuts = cuts;
+            this.bound = bound;
+            this.estimate = estimate;
+        }
 
-        public Boolean call() throws Exception {
+        @Override
+        public String toString() {
+            return key.toString();
+        }
+
+    }
+
+    /**
+     * A node with its solved relaxation.
+     */
+    static final class NodeEvaluation {
+
+        /**
+         * The cuts used by the node relaxation - inherited by its children.
+         */
+        final List<Cut> cuts;
+        final Node node;
+        final Optimisation.Result result;
+        final RevisedSimplexSolver.Relaxation.Solution solution;
+        /**
+         * The node result was reported as optimal, but failed validation.
+         */
+        final boolean invalid;
+
+        NodeEvaluation(final Node node, final Optimisation.Result result, final RevisedSimplexSolver.Relaxation.Solution solution, final List<Cut> cuts,
+                final boolean invalid) {
+
+            super();
+
+            this.node = node;
+            this.cuts = cuts;
+            this.result = result;
+            this.solution = solution;
+            this.invalid = invalid;
+        }
+
+    }
+
+    /**
+     * Average objective function degradation per unit change of each integer variable, observed when
+     * branching down and up respectively. Used to estimate node values.
+     */
+    static final class Pseudocosts {
+
+        private final int[] myDownCounts;
+        private final double[] myDownSums;
+        private final int[] myUpCounts;
+        private final double[] myUpSums;
+
+        Pseudocosts(final int numberOfIntegerVariables) {
+
+            super();
+
+            myDownCounts = new int[numberOfIntegerVariables];
+            myDownSums = new double[numberOfIntegerVariables];
+            myUpCounts = new int[numberOfIntegerVariables];
+            myUpSums = new double[numberOfIntegerVariables];
+        }
+
+        /**
+         * @param values Relaxed values of the integer variables
+         * @param bound The node value in minimisation terms
+         * @param branchIndex The integer variable to branch on
+         * @return The estimated values for the lower and upper branches
+         */
+        synchronized double[] estimate(final double[] values, final double bound, final int branchIndex) {
+
+            final double averageDown = Pseudocosts.average(myDownSums, myDownCounts);
+            final double averageUp = Pseudocosts.average(myUpSums, myUpCounts);
+
+            double retVal = bound;
+            double down = ZERO;
+            double up = ZERO;
+
+            for (int i = 0; i < values.length; i++) {
+
+                final double fraction = values[i] - FLOOR.invoke(values[i]);
+
+                if ((fraction > ZERO) && (fraction < ONE)) {
+
+                    final double costDown = fraction * (myDownCounts[i] > 0 ? myDownSums[i] / myDownCounts[i] : averageDown);
+                    final double costUp = (ONE - fraction) * (myUpCounts[i] > 0 ? myUpSums[i] / myUpCounts[i] : averageUp);
+
+                    retVal += Math.min(costDown, costUp);
 
-            NodeKey tmpNodeKey = null;
+                    if (i == branchIndex) {
+                        down = costDown - Math.min(costDown, costUp);
+                        up = costUp - Math.min(costDown, costUp);
+                    }
+                }
+            }
 
-            while (normal && NewIntegerSolver.this.isStillNodesToTry() && ((tmpNodeKey = NewIntegerSolver.this.getNextNode()) != null)) {
-                NewIntegerSolver.this.compute(tmpNodeKey);
+            return new double[] { retVal + down, retVal + up };
+        }
+
+        synchronized void update(final int index, final boolean upBranch, final double degradation, final double displacement) {
+            if ((displacement > ZERO) && (degradation >= ZERO) && !Double.isInfinite(degradation)) {
+                if (upBranch) {
+                    myUpSums[index] += degradation / displacement;
+                    myUpCounts[index]++;
+                } else {
+                    myDownSums[index] += degradation / displacement;
+                    myDownCounts[index]++;
+                }
             }
+        }
 
-            return normal;
+        private static double average(final double[] sums, final int[] counts) {
+            double sum = ZERO;
+            int count = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    sum += sums[i] / counts[i];
+                    count++;
+                }
+            }
+            return count > 0 ? sum / count : ZERO;
         }
+
     }
 
-    private final PriorityBlockingQueue<NodeKey> myNodesToTry = new PriorityBlockingQueue<>();
+    /**
+     * Works on the tree (asynchronously) until the node pool is exhausted or the search is aborted.
+     */
+    final class NodeWorker implements Callable<Boolean> {
+
+        public Boolean call() throws Exception {
+
+            boolean completed = false;
+
+            try {
+
+                Node tmpNode = null;
+                int tmpPlunges = 0;
+
+                while ((tmpNode != null) || ((tmpNode = NewIntegerSolver.this.take()) != null)) {
+
+                    Node tmpNext = null;
+
+                    if (NewIntegerSolver.this.isRelevant(tmpNode)) {
+
+                        final Node[] tmpChildren = NewIntegerSolver.this.process(NewIntegerSolver.this.evaluate(tmpNode));
+
+                        if (tmpChildren != null) {
+                            if (NewIntegerSolver.this.isPlungeAllowed(tmpPlunges)) {
+                                tmpNext = tmpChildren[0];
+                                tmpPlunges++;
+                                NewIntegerSolver.this.offer(tmpChildren[1]);
+                            } else {
+                                NewIntegerSolver.this.offer(tmpChildren[0]);
+                                NewIntegerSolver.this.offer(tmpChildren[1]);
+                            }
+                        }
+                    }
+
+                    if (tmpNext == null) {
+                        NewIntegerSolver.this.release();
+                        tmpPlunges = 0;
+                    }
+
+                    tmpNode = tmpNext;
+                }
+
+                completed = true;
+
+            } finally {
+                if (!completed) {
+                    NewIntegerSolver.this.abort();
+                }
+            }
+
+            return completed;
+        }
+    }
 
-    boolean normal = true;
+    /**
+     * The maximum number of pool cuts added to a node
+     */
+    static final int CUTS_PER_NODE = 10;
+    /**
+     * The maximum number of cuts added to the root relaxation in each round
+     */
+    static final int CUTS_PER_ROUND = 50;
+    /**
+     * The maximum number of Gomory cuts derived in each round
+     */
+    static final int GOMORY_LIMIT = 100;
+    static final int POOL_CAPACITY = 1_000;
+    /**
+     * The root cut loop stops when the (relative) bound improvement of a round is smaller than this
+     */
+    static final double STALL = 1E-4;
+
+    private volatile boolean myAborted = false;
+    private int myActiveWorkers = 0;
+    private CutPool myCutPool = new CutPool(0);
+    private final boolean myMinimisation;
+    private volatile boolean myNormal = true;
+    private final PriorityQueue<Node> myNodePool;
+    private final Pseudocosts myPseudocosts;
+    /**
+     * Node LP relaxations, when the model is linear and {@link IntegerSolver#WARM_START} is enabled
+     */
+    private RevisedSimplexSolver.Relaxation myRelaxation = null;
+    private final IntegerStrategy myStrategy;
 
     NewIntegerSolver(final ExpressionsBasedModel model, final Options solverOptions) {
+
         super(model, solverOptions);
+
+        myStrategy = this.getStrategy();
+        myMinimisation = this.getIntegerModel().isMinimisation();
+        myPseudocosts = new Pseudocosts(this.getIntegerIndices().length);
+        myNodePool = new PriorityQueue<>(NewIntegerSolver.comparator(myStrategy.node_selection));
+    }
+
+    static Comparator<Node> comparator(final IntegerStrategy.NodeSelection selection) {
+
+        final Comparator<Node> tmpBound = Comparator.comparingDouble(node -> node.bound);
+        final Comparator<Node> tmpDepth = Comparator.comparingInt(node -> -node.key.getDepth());
+        final Comparator<Node> tmpEstimate = Comparator.comparingDouble(node -> node.estimate);
+        // Ties are resolved by creation order, making the order total and deterministic
+        final Comparator<Node> tmpSequence = Comparator.comparingLong(node -> node.key.sequence);
+
+        switch (selection) {
+        case BEST_ESTIMATE:
+            return tmpEstimate.thenComparing(tmpBound).thenComparing(tmpSequence);
+        case DEPTH_FIRST:
+            return tmpDepth.thenComparing(tmpBound).thenComparing(tmpSequence);
+        default:
+            return tmpBound.thenComparing(tmpDepth).thenComparing(tmpSequence);
+        }
     }
 
     public Result solve(final Result kickStarter) {
@@ -80,32 +331,44 @@ public final class NewIntegerSolver extends IntegerSolver {
 
         this.resetIterationsCount();
 
-        this.setup();
+        if (WARM_START && !(this.getIntegerModel().isAnyObjectiveQuadratic() || this.getIntegerModel().isAnyConstraintQuadratic())) {
+            myRelaxation = new RevisedSimplexSolver.Relaxation(this.getRelaxedModel(), this.getIntegerIndices());
+        } else {
+            myRelaxation = null;
+        }
 
-        //     final boolean tmpNormalExit = DaemonPoolExecutor.INSTANCE.invoke(tmpTask);
+        myCutPool = new CutPool(myStrategy.cut_pool ? POOL_CAPACITY : 0);
+        if ((myRelaxation != null) && (myStrategy.cut_rounds > 0)) {
+            myRelaxation = this.cut(myRelaxation);
+        }
 
-        //   this.add(new NodeKey(this.getModel()));
+        myAborted = false;
+        myNormal = true;
+        myActiveWorkers = 0;
+        myNodePool.clear();
+        myNodePool.add(new Node(new NodeKey(this.getIntegerModel()), null, Collections.emptyList(), NEGATIVE_INFINITY, NEGATIVE_INFINITY));
 
-        Optimisation.Result retVal = this.getBestResultSoFar();
+        if (myStrategy.deterministic) {
+            this.searchDeterministic();
+        } else {
+            this.searchAsynchronous();
+        }
 
-        if (retVal.getState().isFeasible()) {
+        final Optimisation.Result bestSolutionFound = this.getBestResultSoFar();
 
-            if (normal) {
-                retVal = new Optimisation.Result(State.OPTIMAL, retVal);
+        if (bestSolutionFound.getState().isFeasible()) {
+            if (myNormal) {
+                return new Optimisation.Result(State.OPTIMAL, bestSolutionFound);
             } else {
-                retVal = new Optimisation.Result(State.FEASIBLE, retVal);
+                return new Optimisation.Result(State.FEASIBLE, bestSolutionFound);
             }
-
         } else {
-
-            if (normal) {
-                retVal = new Optimisation.Result(State.INFEASIBLE, retVal);
+            if (myNormal) {
+                return new Optimisation.Result(State.INFEASIBLE, bestSolutionFound);
             } else {
-                retVal = new Optimisation.Result(State.FAILED, retVal);
+                return new Optimisation.Result(State.FAILED, bestSolutionFound);
             }
         }
-
-        return retVal;
     }
 
     @Override
@@ -113,6 +376,80 @@ public final class NewIntegerSolver extends IntegerSolver {
         return TypeUtils.format("Solutions={} Nodes/Iterations={} {}", this.countIntegerSolutions(), this.countExploredNodes(), this.getBestResultSoFar());
     }
 
+    /**
+     * The root cut loop. Each round solves the root relaxation (warm started from the previous round),
+     * separates cuts violated by its solution, and adds the best ones to the relaxation. The rest go to the
+     * cut pool. Cuts that did not improve the bound are removed again - they would only make the node
+     * problems larger.
+     *
+     * @return The root relaxation with the selected cuts added
+     */
+    private RevisedSimplexSolver.Relaxation cut(final RevisedSimplexSolver.Relaxation relaxation) {
+
+        final NodeKey tmpRoot = new NodeKey(this.getIntegerModel());
+        final int[] tmpLower = tmpRoot.getLowerBounds();
+        final int[] tmpUpper = tmpRoot.getUpperBounds();
+
+        final CutGenerator tmpGenerator = new CutGenerator(this.getIntegerModel());
+        final Optimisation.Result tmpIncumbent = this.isIntegerSolutionFound() ? this.getBestResultSoFar() : null;
+
+        RevisedSimplexSolver.Relaxation retVal = relaxation;
+        RevisedSimplexSolver.Relaxation tmpPrevious = relaxation;
+        RevisedSimplexSolver.Relaxation.Solution tmpSolution = null;
+        double tmpBound = NEGATIVE_INFINITY;
+
+        // The last solve only evaluates the cuts added in the last round
+        for (int r = 0; r <= myStrategy.cut_rounds; r++) {
+
+            tmpSolution = retVal.solve(tmpLower, tmpUpper, tmpSolution);
+            final Optimisation.Result tmpResult = tmpSolution.getResult();
+
+            if (!tmpResult.getState().isOptimal()) {
+                retVal = tmpPrevious;
+                break;
+            }
+
+            final double tmpValue = this.toMinimisation(this.evaluateFunction(tmpResult));
+            if ((tmpValue - tmpBound) <= (STALL * Math.max(ONE, Math.abs(tmpValue)))) {
+                retVal = tmpPrevious;
+                break;
+            }
+            tmpBound = tmpValue;
+
+            if ((r == myStrategy.cut_rounds) || (this.identifyNonIntegerVariable(tmpResult, tmpRoot) == -1)) {
+                break;
+            }
+
+            final List<Cut> tmpCandidates = tmpGenerator.separate(tmpResult);
+            tmpCandidates.addAll(retVal.gomory(tmpSolution, GOMORY_LIMIT));
+            if (tmpIncumbent != null) {
+                // Only possible because of numerical trouble - drop cuts that are violated by a known integer solution
+                tmpCandidates.removeIf(cut -> cut.getViolation(tmpIncumbent) > (CutGenerator.VIOLATION * Math.max(ONE, Math.abs(cut.getUpper()))));
+            }
+
+            final List<Cut> tmpSelected = CutPool.select(tmpCandidates, tmpResult, CUTS_PER_ROUND);
+            if (tmpSelected.isEmpty()) {
+                break;
+            }
+
+            if (this.isDebug()) {
+                this.log("Cut round {}: objective {}, {} cuts separated, {} added", r, tmpValue, tmpCandidates.size(), tmpSelected.size());
+            }
+
+            tmpCandidates.removeAll(tmpSelected);
+            myCutPool.add(tmpCandidates);
+
+            tmpPrevious = retVal;
+            retVal = retVal.add(tmpSelected);
+        }
+
+        return retVal;
+    }
+
+    private double toMinimisation(final double value) {
+        return myMinimisation ? value : -value;
+    }
+
     @Override
     protected MatrixStore<Double> extractSolution() {
         return PrimitiveDenseStore.FACTORY.columns(this.getBestResultSoFar());
@@ -150,281 +487,381 @@ public final class NewIntegerSolver extends IntegerSolver {
         return retVal;
     }
 
-    boolean add(final NodeKey e) {
-        return myNodesToTry.add(e);
+    /**
+     * Stop the search - discard all open nodes and wake up any waiting workers.
+     */
+    void abort() {
+        synchronized (myNodePool) {
+            myAborted = true;
+            myNormal = false;
+            myNodePool.clear();
+            myNodePool.notifyAll();
+        }
     }
 
-    void compute(final NodeKey nodeKey) {
+    int countExploredNodes() {
+        return this.countIterations();
+    }
 
-        if (NewIntegerSolver.this.isDebug()) {
-            NewIntegerSolver.this.log("\nBranch&Bound Node");
-            NewIntegerSolver.this.log(nodeKey.toString());
-            NewIntegerSolver.this.log(NewIntegerSolver.this.toString());
-        }
+    /**
+     * Solve the node's relaxation. Does not read or modify any state shared between the nodes (the incumbent
+     * is not used to limit, or kick-start, the node problem when in deterministic mode).
+     */
+    NodeEvaluation evaluate(final Node node) {
 
-        if (!NewIntegerSolver.this.isIterationAllowed() || !NewIntegerSolver.this.isIterationNecessary()) {
-            if (NewIntegerSolver.this.isDebug()) {
-                NewIntegerSolver.this.log("Reached iterations or time limit - stop!");
+        final RevisedSimplexSolver.Relaxation tmpRelaxation = myRelaxation;
+
+        Optimisation.Result tmpResult;
+        RevisedSimplexSolver.Relaxation.Solution tmpSolution;
+        List<Cut> tmpCuts = node.cuts;
+        ExpressionsBasedModel tmpModel = null;
+
+        if (tmpRelaxation != null) {
+
+            final int[] tmpLower = node.key.getLowerBounds();
+            final int[] tmpUpper = node.key.getUpperBounds();
+
+            tmpSolution = tmpRelaxation.solve(tmpLower, tmpUpper, tmpCuts, node.parent);
+            tmpResult = tmpSolution.getResult();
+
+            if (!myCutPool.isEmpty() && tmpResult.getState().isOptimal()) {
+                final List<Cut> tmpViolated = myCutPool.separate(tmpResult, tmpCuts, CUTS_PER_NODE);
+                if (!tmpViolated.isEmpty()) {
+                    tmpCuts = new ArrayList<>(tmpCuts);
+                    tmpCuts.addAll(tmpViolated);
+                    tmpSolution = tmpRelaxation.solve(tmpLower, tmpUpper, tmpCuts, tmpSolution);
+                    tmpResult = tmpSolution.getResult();
+                }
             }
-            normal &= false;
+
+        } else {
+            tmpSolution = null;
+            tmpModel = this.makeNodeModel(node.key, !myStrategy.deterministic);
+            tmpResult = tmpModel.solve(myStrategy.deterministic ? null : this.getKickStarter(node.key));
         }
 
-        if (!NewIntegerSolver.this.isGoodEnoughToContinueBranching(nodeKey.objective)) {
-            if (NewIntegerSolver.this.isDebug()) {
-                NewIntegerSolver.this.log("No longer a relevant node!");
+        this.incrementIterationsCount();
+
+        boolean tmpInvalid = false;
+        if (options.validate && tmpResult.getState().isOptimal()) {
+            if (tmpModel == null) {
+                tmpModel = this.makeNodeModel(node.key, false);
             }
-            normal &= true;
+            tmpInvalid = !tmpModel.validate(tmpResult);
         }
 
-        ExpressionsBasedModel tmpModel = NewIntegerSolver.this.makeNodeModel(nodeKey);
-        final Optimisation.Result tmpResult = tmpModel.solve(NewIntegerSolver.this.getBestResultSoFar());
+        if (tmpModel != null) {
+            tmpModel.dispose();
+        }
 
-        NewIntegerSolver.this.incrementIterationsCount();
+        return new NodeEvaluation(node, tmpResult, tmpSolution, tmpCuts, tmpInvalid);
+    }
 
-        if ((tmpModel.options.logger_appender != null) && (tmpModel.options.logger_appender instanceof PrinterBuffer)) {
-            if (NewIntegerSolver.this.getIntegerModel().options.logger_appender != null) {
-                ((PrinterBuffer) tmpModel.options.logger_appender).flush(NewIntegerSolver.this.getIntegerModel().options.logger_appender);
-            }
+    /**
+     * @return The incumbent, to kick-start the node model with, if it is within the node's bounds - otherwise
+     *         null. An infeasible kick-starter could make the convex solver return non-integer solutions.
+     */
+    Optimisation.Result getKickStarter(final NodeKey nodeKey) {
+
+        if (!this.isIntegerSolutionFound()) {
+            return null;
         }
-        if (tmpResult.getState().isOptimal()) {
-            if (NewIntegerSolver.this.isDebug()) {
-                NewIntegerSolver.this.log("Node solved to optimality!");
-            }
 
-            if (NewIntegerSolver.this.options.validate && !tmpModel.validate(tmpResult)) {
-                // This should not be possible. There is a bug somewhere.
-                NewIntegerSolver.this.log("Node solution marked as OPTIMAL, but is actually INVALID/INFEASIBLE/FAILED. Stop this branch!");
-                //                    IntegerSolver.this.logDebug(myKey.toString());
-                //                    IntegerSolver.this.logDebug(tmpModel.toString());
-                //                    final GenericSolver tmpDefaultSolver = tmpModel.getDefaultSolver();
-                //                    tmpDefaultSolver.solve();
-                //                    IntegerSolver.this.logDebug(tmpDefaultSolver.toString());
-                normal &= false;
-            }
+        final Optimisation.Result retVal = this.getBestResultSoFar();
 
-            final int tmpBranchIndex = NewIntegerSolver.this.identifyNonIntegerVariable(tmpResult, nodeKey);
-            final double tmpSolutionValue = NewIntegerSolver.this.evaluateFunction(tmpResult);
+        final int[] tmpIntegerIndices = this.getIntegerIndices();
+        final int[] tmpLower = nodeKey.getLowerBounds();
+        final int[] tmpUpper = nodeKey.getUpperBounds();
 
-            if (tmpBranchIndex == -1) {
-                if (NewIntegerSolver.this.isDebug()) {
-                    NewIntegerSolver.this.log("Integer solution! Store it among the others, and stop this branch!");
-                }
+        for (int i = 0; i < tmpIntegerIndices.length; i++) {
+            final double tmpValue = retVal.doubleValue(tmpIntegerIndices[i]);
+            if ((tmpValue < tmpLower[i]) || (tmpValue > tmpUpper[i])) {
+                return null;
+            }
+        }
 
-                final Optimisation.Result tmpIntegerSolutionResult = new Optimisation.Result(Optimisation.State.FEASIBLE, tmpSolutionValue, tmpResult);
+        return retVal;
+    }
 
-                NewIntegerSolver.this.markInteger(nodeKey, null, tmpIntegerSolutionResult);
+    boolean isPlungeAllowed(final int plunges) {
+        return (myStrategy.node_selection == IntegerStrategy.NodeSelection.DEPTH_FIRST) || !this.isIntegerSolutionFound()
+                || (plunges < myStrategy.plunge_limit);
+    }
 
-                if (NewIntegerSolver.this.isDebug()) {
-                    NewIntegerSolver.this.log(NewIntegerSolver.this.getBestResultSoFar().toString());
-                }
+    /**
+     * Checks the iterations and time limits (aborts the search if reached), and if the node can still lead to
+     * better integer solutions.
+     */
+    boolean isRelevant(final Node node) {
 
-                BasicLogger.debug();
-                BasicLogger.debug(NewIntegerSolver.this.toString());
-                // BasicLogger.debug(DaemonPoolExecutor.INSTANCE.toString());
+        if (!this.isIterationAllowed() || !this.isIterationNecessary()) {
+            if (this.isDebug()) {
+                this.log("Reached iterations or time limit - stop!");
+            }
+            this.abort();
+            return false;
+        }
 
-            } else {
-                if (NewIntegerSolver.this.isDebug()) {
-                    NewIntegerSolver.this.log("Not an Integer Solution: " + tmpSolutionValue);
-                }
+        return this.isGoodEnoughToContinueBranching(node.key.objective);
+    }
 
-                final double tmpVariableValue = tmpResult.doubleValue(NewIntegerSolver.this.getGlobalIndex(tmpBranchIndex));
+    ExpressionsBasedModel makeNodeModel(final NodeKey nodeKey, final boolean limitObjective) {
 
-                if (NewIntegerSolver.this.isGoodEnoughToContinueBranching(tmpSolutionValue)) {
-                    if (NewIntegerSolver.this.isDebug()) {
-                        NewIntegerSolver.this.log("Still hope, branching on {} @ {} >>> {}", tmpBranchIndex, tmpVariableValue,
-                                tmpModel.getVariable(NewIntegerSolver.this.getGlobalIndex(tmpBranchIndex)));
-                    }
+        final ExpressionsBasedModel retVal = this.getRelaxedModel();
 
-                    tmpModel.dispose();
-                    tmpModel = null;
+        nodeKey.bound(retVal, this.getIntegerIndices());
 
-                    final NodeKey tmpLowerBranchTask = nodeKey.createLowerBranch(tmpBranchIndex, tmpVariableValue, tmpResult.getValue());
-                    final NodeKey tmpUpperBranchTask = nodeKey.createUpperBranch(tmpBranchIndex, tmpVariableValue, tmpResult.getValue());
+        // A quadratic objective is not limited - ExpressionsBasedModel#limitObjective ignores it
+        if (limitObjective && this.isIntegerSolutionFound()) {
 
-                    this.add(tmpLowerBranchTask);
-                    this.add(tmpUpperBranchTask);
+            final double mip_gap = options.mip_gap;
 
-                    if (DaemonPoolExecutor.isDaemonAvailable()) {
-                        DaemonPoolExecutor.invoke(new NodeWorker());
-                    }
+            final double bestIntegerSolutionValue = this.getBestResultSoFar().getValue();
+            final double parentRelaxedSolutionValue = nodeKey.objective;
 
-                    normal &= true;
+            final double absoluteValue = ABS.invoke(bestIntegerSolutionValue);
+            // The root node has no parent value (NaN) - that would turn the limit into 0
+            final double absoluteGap = Double.isNaN(parentRelaxedSolutionValue) ? ZERO : ABS.invoke(absoluteValue - parentRelaxedSolutionValue);
 
-                } else {
-                    if (NewIntegerSolver.this.isDebug()) {
-                        NewIntegerSolver.this.log("Can't find better integer solutions - stop this branch!");
-                    }
-                }
-            }
+            final double small = FunctionUtils.max(mip_gap, absoluteGap * mip_gap, absoluteValue * mip_gap);
 
-        } else {
-            if (NewIntegerSolver.this.isDebug()) {
-                NewIntegerSolver.this.log("Failed to solve problem - stop this branch!");
+            if (retVal.isMinimisation()) {
+                retVal.limitObjective(null, TypeUtils.toBigDecimal(bestIntegerSolutionValue - small, options.feasibility));
+            } else {
+                retVal.limitObjective(TypeUtils.toBigDecimal(bestIntegerSolutionValue + small, options.feasibility), null);
             }
         }
 
-        normal &= true;
+        return retVal;
     }
 
-    int countExploredNodes() {
-        return this.countIterations();
+    void offer(final Node node) {
+        synchronized (myNodePool) {
+            if (!myAborted) {
+                myNodePool.add(node);
+                myNodePool.notify();
+            }
+        }
     }
 
-    NodeKey getNextNode() {
-        return myNodesToTry.poll();
-        //        if (myMinimisation) {
-        //            final NodeKey retVal = myNodesToTry.first();
-        //            myNodesToTry.remove(retVal);
-        //            return retVal;
-        //        } else {
-        //            final NodeKey retVal = myNodesToTry.last();
-        //            myNodesToTry.remove(retVal);
-        //            return retVal;
-        //        }
-    }
+    /**
+     * Act on a node evaluation - prune the node, record an integer solution or branch.
+     *
+     * @return The 2 new nodes (the preferred one, to plunge into, first) or null if not branching
+     */
+    Node[] process(final NodeEvaluation evaluation) {
 
-    boolean isStillNodesToTry() {
-        return !myNodesToTry.isEmpty();
-    }
+        final Node tmpNode = evaluation.node;
+        final Optimisation.Result tmpResult = evaluation.result;
 
-    ExpressionsBasedModel makeNodeModel(final NodeKey nodeKey) {
+        if (this.isDebug()) {
+            this.log("\nBranch&Bound Node");
+            this.log(tmpNode.toString());
+            this.log("Node Result: {}", tmpResult);
+        }
 
-        final ExpressionsBasedModel retVal = this.getIntegerModel().relax(false);
+        if (!tmpResult.getState().isOptimal()) {
+            if (this.isDebug()) {
+                this.log("Failed to solve node problem - stop this branch!");
+            }
+            return null;
+        }
 
-        final int[] tmpIntegerIndeces = this.getIntegerIndices();
-        for (int i = 0; i < tmpIntegerIndeces.length; i++) {
+        if (evaluation.invalid) {
+            // This should not be possible. There is a bug somewhere.
+            this.log("Node solution marked as OPTIMAL, but is actually INVALID/INFEASIBLE/FAILED. Stop this branch!");
+            myNormal = false;
+            return null;
+        }
 
-            final BigDecimal tmpLowerBound = nodeKey.getLowerBound(i);
-            final BigDecimal tmpUpperBound = nodeKey.getUpperBound(i);
+        final double tmpSolutionValue = this.evaluateFunction(tmpResult);
+        final NodeKey tmpKey = tmpNode.key;
 
-            final Variable tmpVariable = retVal.getVariable(tmpIntegerIndeces[i]);
-            tmpVariable.lower(tmpLowerBound);
-            tmpVariable.upper(tmpUpperBound);
+        if (tmpKey.getDepth() > 0) {
+            myPseudocosts.update(tmpKey.index, tmpKey.isUpperBranch(), this.toMinimisation(tmpSolutionValue) - this.toMinimisation(tmpKey.objective),
+                    tmpKey.displacement);
+        }
 
-            BigDecimal tmpValue = tmpVariable.getValue();
-            if (tmpValue != null) {
-                if (tmpLowerBound != null) {
-                    tmpValue = tmpValue.max(tmpLowerBound);
-                }
-                if (tmpUpperBound != null) {
-                    tmpValue = tmpValue.min(tmpUpperBound);
-                }
-                tmpVariable.setValue(tmpValue);
+        if (!this.isGoodEnoughToContinueBranching(tmpSolutionValue)) {
+            if (this.isDebug()) {
+                this.log("Can't find better integer solutions - stop this branch!");
             }
+            return null;
         }
 
-        if (this.isIntegerSolutionFound()) {
-            final double tmpBestValue = this.getBestResultSoFar().getValue();
-            final double tmpGap = PrimitiveFunction.ABS.invoke(tmpBestValue * options.mip_gap);
-            if (retVal.isMinimisation()) {
-                retVal.limitObjective(null, TypeUtils.toBigDecimal(tmpBestValue - tmpGap, options.feasibility));
-            } else {
-                retVal.limitObjective(TypeUtils.toBigDecimal(tmpBestValue + tmpGap, options.feasibility), null);
+        final int tmpBranchIndex = this.identifyNonIntegerVariable(tmpResult, tmpKey);
+
+        if (tmpBranchIndex == -1) {
+            if (this.isDebug()) {
+                this.log("Integer solution! Store it among the others, and stop this branch!");
             }
+
+            this.markInteger(tmpKey, null, new Optimisation.Result(Optimisation.State.FEASIBLE, tmpSolutionValue, tmpResult));
+
+            return null;
         }
 
-        return retVal;
+        final double tmpVariableValue = tmpResult.doubleValue(this.getGlobalIndex(tmpBranchIndex));
+
+        if (this.isDebug()) {
+            this.log("Still hope, branching on {} @ {} >>> {}", tmpBranchIndex, tmpVariableValue,
+                    this.getIntegerModel().getVariable(this.getGlobalIndex(tmpBranchIndex)));
+        }
+
+        final int[] tmpIntegerIndices = this.getIntegerIndices();
+        final double[] tmpValues = new double[tmpIntegerIndices.length];
+        for (int i = 0; i < tmpIntegerIndices.length; i++) {
+            tmpValues[i] = tmpResult.doubleValue(tmpIntegerIndices[i]);
+        }
+
+        final double tmpBound = this.toMinimisation(tmpSolutionValue);
+        final double[] tmpEstimates = myPseudocosts.estimate(tmpValues, tmpBound, tmpBranchIndex);
+
+        final Node tmpLowerBranch = new Node(tmpKey.createLowerBranch(tmpBranchIndex, tmpVariableValue, tmpSolutionValue), evaluation.solution,
+                evaluation.cuts, tmpBound,
+                tmpEstimates[0]);
+        final Node tmpUpperBranch = new Node(tmpKey.createUpperBranch(tmpBranchIndex, tmpVariableValue, tmpSolutionValue), evaluation.solution,
+                evaluation.cuts, tmpBound,
+                tmpEstimates[1]);
+
+        if ((tmpVariableValue - Math.floor(tmpVariableValue)) > HALF) {
+            return new Node[] { tmpUpperBranch, tmpLowerBranch };
+        } else {
+            return new Node[] { tmpLowerBranch, tmpUpperBranch };
+        }
     }
 
-    void pruneNodes(final NodeKey integerNode) {
-        //        if (myMinimisation) {
-        //            final SortedSet<NodeKey> tmpTail = myNodesToTry.tailSet(integerNode);
-        //            myNodesToTry.removeAll(tmpTail);
-        //        } else {
-        //            final SortedSet<NodeKey> tmpHead = myNodesToTry.headSet(integerNode);
-        //            myNodesToTry.removeAll(tmpHead);
-        //        }
+    /**
+     * A worker is done with its node (and any plunge) - if that was the last active worker, and there are no
+     * open nodes, the search is complete.
+     */
+    void release() {
+        synchronized (myNodePool) {
+            myActiveWorkers--;
+            if ((myActiveWorkers == 0) && myNodePool.isEmpty()) {
+                myNodePool.notifyAll();
+            }
+        }
     }
 
-    void setup() {
+    /**
+     * The workers run asynchronously, each repeatedly taking the best open node from the shared pool.
+     */
+    void searchAsynchronous() {
 
-        normal = true;
+        final int tmpParallelism = Math.max(1, myStrategy.parallelism);
 
-        final NodeKey[] retVal = new NodeKey[2];
+        final List<Future<Boolean>> tmpFutures = new ArrayList<>(tmpParallelism - 1);
+        for (int w = 1; w < tmpParallelism; w++) {
+            tmpFutures.add(DaemonPoolExecutor.invoke(new NodeWorker()));
+        }
 
-        final ExpressionsBasedModel tmpIntegerModel = NewIntegerSolver.this.getIntegerModel();
-        final List<Variable> tmpIntegerVariables = tmpIntegerModel.getIntegerVariables();
-        NodeKey myKey;
-        myKey = new NodeKey(tmpIntegerModel);
+        try {
+            new NodeWorker().call();
+        } catch (final Exception cause) {
+            this.abort();
+        }
 
-        final ExpressionsBasedModel tmpRootModel = NewIntegerSolver.this.makeNodeModel(myKey);
-        final Result tmpRootResult = tmpRootModel.solve(tmpIntegerModel.getVariableValues());
-        final double tmpRootValue = tmpRootResult.getValue();
+        for (final Future<Boolean> tmpFuture : tmpFutures) {
+            try {
+                tmpFuture.get();
+            } catch (InterruptedException | ExecutionException cause) {
+                this.abort();
+            }
+        }
+    }
 
-        double tmpMinValue = PrimitiveMath.MACHINE_LARGEST;
-        double tmpMaxValue = -PrimitiveMath.MACHINE_LARGEST;
+    /**
+     * Nodes are evaluated in rounds. Each round takes (at most) one node per thread, solves them in parallel,
+     * and then processes the results sequentially in a fixed order. Each thread has its own "slot" that keeps
+     * the node to plunge into.
+     */
+    void searchDeterministic() {
 
-        final double tmpBestValue = tmpRootModel.isMinimisation() ? PrimitiveMath.MACHINE_LARGEST : -PrimitiveMath.MACHINE_LARGEST;
+        final int tmpParallelism = Math.max(1, myStrategy.parallelism);
 
-        final double[] tmpSignificance = new double[tmpIntegerVariables.size()];
+        final Node[] tmpSlots = new Node[tmpParallelism];
+        final int[] tmpPlunges = new int[tmpParallelism];
+        final NodeEvaluation[] tmpEvaluations = new NodeEvaluation[tmpParallelism];
 
-        for (int i = 0; i < tmpIntegerVariables.size(); i++) {
+        final List<Future<NodeEvaluation>> tmpFutures = new ArrayList<>(Collections.nCopies(tmpParallelism, null));
 
-            final int tmpGlobalIndex = NewIntegerSolver.this.getGlobalIndex(i);
-            final double tmpVariableValue = tmpRootResult.doubleValue(tmpGlobalIndex);
+        boolean tmpWork = true;
+        while (tmpWork && !myAborted) {
 
-            final NodeKey tmpLowerNodeKey = myKey.createLowerBranch(i, tmpVariableValue, tmpRootValue);
-            final ExpressionsBasedModel tmpLowerModel = NewIntegerSolver.this.makeNodeModel(tmpLowerNodeKey);
-            final Result tmpLowerResult = tmpLowerModel.solve(tmpRootResult);
-            final double tmpLowerValue = tmpLowerResult.getValue();
+            tmpWork = false;
 
-            if (tmpLowerValue < tmpMinValue) {
-                tmpMinValue = tmpLowerValue;
-            }
-            if (tmpLowerValue > tmpMaxValue) {
-                tmpMaxValue = tmpLowerValue;
+            for (int s = 0; s < tmpParallelism; s++) {
+                while ((tmpSlots[s] != null) && !this.isRelevant(tmpSlots[s])) {
+                    tmpSlots[s] = null;
+                }
+                if (tmpSlots[s] == null) {
+                    tmpPlunges[s] = 0;
+                    while (((tmpSlots[s] = myNodePool.poll()) != null) && !this.isRelevant(tmpSlots[s])) {
+                        // Discard nodes that can no longer lead to better solutions
+                    }
+                }
+                tmpWork |= tmpSlots[s] != null;
             }
 
-            final NodeKey tmpUpperNodeKey = myKey.createUpperBranch(i, tmpVariableValue, tmpRootValue);
-            final ExpressionsBasedModel tmpUpperModel = NewIntegerSolver.this.makeNodeModel(tmpUpperNodeKey);
-            final Result tmpUpperResult = tmpUpperModel.solve(tmpRootResult);
-            final double tmpUpperValue = tmpUpperResult.getValue();
-
-            if (tmpUpperValue < tmpMinValue) {
-                tmpMinValue = tmpUpperValue;
-            }
-            if (tmpUpperValue > tmpMaxValue) {
-                tmpMaxValue = tmpUpperValue;
+            if (!tmpWork || myAborted) {
+                break;
             }
 
-            if (tmpLowerResult.getState().isFeasible() && tmpUpperResult.getState().isFeasible()) {
-                if (tmpRootModel.isMinimisation() && ((tmpLowerValue < tmpBestValue) || (tmpUpperValue < tmpBestValue))) {
-                    retVal[0] = tmpLowerNodeKey;
-                    retVal[1] = tmpUpperNodeKey;
-                } else if (tmpRootModel.isMaximisation() && ((tmpLowerValue > tmpBestValue) || (tmpUpperValue > tmpBestValue))) {
-                    retVal[0] = tmpLowerNodeKey;
-                    retVal[1] = tmpUpperNodeKey;
+            for (int s = 1; s < tmpParallelism; s++) {
+                final Node tmpNode = tmpSlots[s];
+                tmpFutures.set(s, tmpNode != null ? DaemonPoolExecutor.invoke(() -> this.evaluate(tmpNode)) : null);
+            }
+            tmpEvaluations[0] = tmpSlots[0] != null ? this.evaluate(tmpSlots[0]) : null;
+            for (int s = 1; s < tmpParallelism; s++) {
+                try {
+                    final Future<NodeEvaluation> tmpFuture = tmpFutures.get(s);
+                    tmpEvaluations[s] = tmpFuture != null ? tmpFuture.get() : null;
+                } catch (InterruptedException | ExecutionException cause) {
+                    this.abort();
+                    return;
                 }
             }
 
-            if (!Double.isNaN(tmpUpperValue) && !Double.isNaN(tmpLowerValue)) {
-                tmpSignificance[i] = PrimitiveFunction.ABS.invoke(tmpUpperValue - tmpLowerValue);
-            }
-        }
+            for (int s = 0; s < tmpParallelism; s++) {
 
-        double tmpScale = tmpMaxValue - tmpMinValue;
-        final double value = tmpScale;
-        if (PrimitiveScalar.isSmall(PrimitiveMath.ONE, value)) {
-            tmpScale = PrimitiveMath.ONE;
-        }
-        for (int i = 0; i < tmpSignificance.length; i++) {
-            final int index = i;
-            NewIntegerSolver.this.addIntegerSignificance(NewIntegerSolver.this.getGlobalIndex(index), 0.5 + (tmpSignificance[i] / tmpScale));
-        }
+                tmpSlots[s] = null;
 
-        if ((retVal[0] != null) && (retVal[1] != null)) {
-            NewIntegerSolver.this.add(retVal[0]);
-            NewIntegerSolver.this.add(retVal[1]);
-        } else {
-            NewIntegerSolver.this.add(new NodeKey(tmpIntegerModel));
-        }
+                if (tmpEvaluations[s] != null) {
 
-        final Future<Boolean> tmpFuture = DaemonPoolExecutor.invoke(new NodeWorker());
+                    final Node[] tmpChildren = this.process(tmpEvaluations[s]);
 
-        try {
-            normal = normal && tmpFuture.get();
-        } catch (InterruptedException | ExecutionException anException) {
-            normal &= false;
+                    if (tmpChildren != null) {
+                        if (this.isPlungeAllowed(tmpPlunges[s])) {
+                            tmpSlots[s] = tmpChildren[0];
+                            tmpPlunges[s]++;
+                            myNodePool.add(tmpChildren[1]);
+                        } else {
+                            myNodePool.add(tmpChildren[0]);
+                            myNodePool.add(tmpChildren[1]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Take the next node from the pool - waits while the pool is empty and other workers are still active
+     * (and may create new nodes).
+     *
+     * @return The next node, or null when the search is complete (or aborted)
+     */
+    Node take() throws InterruptedException {
+        synchronized (myNodePool) {
+            while (!myAborted && myNodePool.isEmpty() && (myActiveWorkers > 0)) {
+                myNodePool.wait();
+            }
+            final Node retVal = myAborted ? null : myNodePool.poll();
+            if (retVal != null) {
+                myActiveWorkers++;
+            }
+            return retVal;
         }
     }
 
@@ -33,12 +33,37 @@ import org.ojalgo.function.PrimitiveFunction;
 import org.ojalgo.optimisation.ExpressionsBasedModel;
 import org.ojalgo.optimisation.Variable;
 
+/**
+ * A branch&amp;bound node. Only the bound introduced with this node is stored, together with a reference to
+ * the parent node. The bounds of the root node (the integer model's variable bounds) are shared by all nodes.
+ * The complete set of bounds is derived, when needed, by walking up the chain of parent nodes.
+ * <p>
+ * The parent reference is not serialised. Instead a node is serialised as a flattened copy, with its
+ * complete set of bounds as root bounds and no parent.
+ */
 final class NodeKey implements Serializable, Comparable<NodeKey> {
 
     private static AtomicLong GENERATOR = new AtomicLong();
 
-    private final int[] myLowerBounds;
-    private final int[] myUpperBounds;
+    /**
+     * The new (lower or upper) bound on the branched on variable.
+     */
+    private final int myBound;
+    /**
+     * The number of bounds (branches) from the root node to this node.
+     */
+    private final int myDepth;
+    /**
+     * Cached, 0 until calculated
+     */
+    private transient int myHash = 0;
+    private final transient NodeKey myParent;
+    private final int[] myRootLowerBounds;
+    private final int[] myRootUpperBounds;
+    /**
+     * The bound introduced with this node is an upper bound (this is a lower branch).
+     */
+    private final boolean myUpper;
 
     /**
      * How much the branched on variable must be displaced because of the new constraint introduced with this
@@ -60,17 +85,45 @@ final class NodeKey implements Serializable, Comparable<NodeKey> {
     /**
      * Node sequennce number to keep track of in which order the nodes were created.
      */
-    final long sequence = GENERATOR.getAndIncrement();
+    final long sequence;
 
-    private NodeKey(final int[] lowerBounds, final int[] upperBounds, final long parentSequenceNumber, final int indexBranchedOn,
-            final double branchVariableDisplacement, final double parentObjectiveFunctionValue) {
+    /**
+     * A flattened copy - the complete set of bounds, and no parent.
+     */
+    private NodeKey(final NodeKey node) {
 
         super();
 
-        myLowerBounds = lowerBounds;
-        myUpperBounds = upperBounds;
+        myParent = null;
+        myRootLowerBounds = node.getLowerBounds();
+        myRootUpperBounds = node.getUpperBounds();
+        myDepth = node.myDepth;
+
+        myBound = node.myBound;
+        myUpper = node.myUpper;
+
+        sequence = node.sequence;
+        parent = node.parent;
+        index = node.index;
+        displacement = node.displacement;
+        objective = node.objective;
+    }
+
+    private NodeKey(final NodeKey parentNode, final int indexBranchedOn, final int bound, final boolean upper, final double branchVariableDisplacement,
+            final double parentObjectiveFunctionValue) {
+
+        super();
 
-        parent = parentSequenceNumber;
+        myParent = parentNode;
+        myRootLowerBounds = parentNode.myRootLowerBounds;
+        myRootUpperBounds = parentNode.myRootUpperBounds;
+        myDepth = parentNode.myDepth + 1;
+
+        myBound = bound;
+        myUpper = upper;
+
+        sequence = GENERATOR.getAndIncrement();
+        parent = parentNode.sequence;
         index = indexBranchedOn;
         displacement = branchVariableDisplacement;
         objective = parentObjectiveFunctionValue;
@@ -83,33 +136,46 @@ final class NodeKey implements Serializable, Comparable<NodeKey> {
         final List<Variable> integerVariables = integerModel.getIntegerVariables();
         final int numberOfIntegerVariables = integerVariables.size();
 
-        myLowerBounds = new int[numberOfIntegerVariables];
-        myUpperBounds = new int[numberOfIntegerVariables];
+        myRootLowerBounds = new int[numberOfIntegerVariables];
+        myRootUpperBounds = new int[numberOfIntegerVariables];
 
         for (int i = 0; i < numberOfIntegerVariables; i++) {
             final Variable variable = integerVariables.get(i);
 
             final BigDecimal lowerLimit = variable.getLowerLimit();
             if (lowerLimit != null) {
-                myLowerBounds[i] = lowerLimit.intValue();
+                myRootLowerBounds[i] = lowerLimit.intValue();
             } else {
-                myLowerBounds[i] = Integer.MIN_VALUE;
+                myRootLowerBounds[i] = Integer.MIN_VALUE;
             }
 
             final BigDecimal upperLimit = variable.getUpperLimit();
             if (upperLimit != null) {
-                myUpperBounds[i] = upperLimit.intValue();
+                myRootUpperBounds[i] = upperLimit.intValue();
             } else {
-                myUpperBounds[i] = Integer.MAX_VALUE;
+                myRootUpperBounds[i] = Integer.MAX_VALUE;
             }
         }
 
+        myParent = null;
+        myDepth = 0;
+        myBound = 0;
+        myUpper = false;
+
+        sequence = GENERATOR.getAndIncrement();
         parent = sequence;
         index = -1;
         displacement = PrimitiveMath.NaN;
         objective = PrimitiveMath.NaN;
     }
 
+    static double fraction(final int lower, final int upper, final double value) {
+
+        final double feasibleValue = PrimitiveFunction.MIN.invoke(PrimitiveFunction.MAX.invoke(lower, value), upper);
+
+        return PrimitiveFunction.ABS.invoke(feasibleValue - PrimitiveFunction.RINT.invoke(feasibleValue));
+    }
+
     public int compareTo(final NodeKey ref) {
         return Long.compare(sequence, ref.sequence);
     }
@@ -126,10 +192,13 @@ final class NodeKey implements Serializable, Comparable<NodeKey> {
             return false;
         }
         final NodeKey other = (NodeKey) obj;
-        if (!Arrays.equals(myLowerBounds, other.myLowerBounds)) {
+        if (this.hashCode() != other.hashCode()) {
             return false;
         }
-        if (!Arrays.equals(myUpperBounds, other.myUpperBounds)) {
+        if (!Arrays.equals(this.getLowerBounds(), other.getLowerBounds())) {
+            return false;
+        }
+        if (!Arrays.equals(this.getUpperBounds(), other.getUpperBounds())) {
             return false;
         }
         return true;
@@ -137,11 +206,14 @@ final class NodeKey implements Serializable, Comparable<NodeKey> {
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = (prime * result) + Arrays.hashCode(myLowerBounds);
-        result = (prime * result) + Arrays.hashCode(myUpperBounds);
-        return result;
+        if (myHash == 0) {
+            final int prime = 31;
+            int result = 1;
+            result = (prime * result) + Arrays.hashCode(this.getLowerBounds());
+            result = (prime * result) + Arrays.hashCode(this.getUpperBounds());
+            myHash = result;
+        }
+        return myHash;
     }
 
     @Override
@@ -163,41 +235,83 @@ final class NodeKey implements Serializable, Comparable<NodeKey> {
         retVal.append(' ');
         retVal.append('[');
 
-        if (myLowerBounds.length > 0) {
-            this.append(retVal, 0);
+        final int[] lowerBounds = this.getLowerBounds();
+        final int[] upperBounds = this.getUpperBounds();
+
+        if (lowerBounds.length > 0) {
+            this.append(retVal, 0, lowerBounds, upperBounds);
         }
 
-        for (int i = 1; i < myLowerBounds.length; i++) {
+        for (int i = 1; i < lowerBounds.length; i++) {
             retVal.append(',');
             retVal.append(' ');
-            this.append(retVal, i);
+            this.append(retVal, i, lowerBounds, upperBounds);
         }
 
         return retVal.append(']').toString();
     }
 
-    private void append(final StringBuilder builder, final int index) {
+    private void append(final StringBuilder builder, final int index, final int[] lowerBounds, final int[] upperBounds) {
         builder.append(index);
         builder.append('=');
-        builder.append(myLowerBounds[index]);
+        builder.append(lowerBounds[index]);
         builder.append('<');
-        builder.append(myUpperBounds[index]);
+        builder.append(upperBounds[index]);
     }
 
-    private double feasible(final int index, final double value) {
-        return PrimitiveFunction.MIN.invoke(PrimitiveFunction.MAX.invoke(myLowerBounds[index], value), myUpperBounds[index]);
+    /**
+     * The most recent bound, closest to this node, is the one that applies.
+     */
+    private int[] bounds(final boolean upper) {
+
+        final int[] retVal = Raw1D.copyOf(upper ? myRootUpperBounds : myRootLowerBounds);
+        final boolean[] tmpSet = new boolean[retVal.length];
+
+        for (NodeKey tmpKey = this; tmpKey.myParent != null; tmpKey = tmpKey.myParent) {
+            if ((tmpKey.myUpper == upper) && !tmpSet[tmpKey.index]) {
+                tmpSet[tmpKey.index] = true;
+                retVal[tmpKey.index] = tmpKey.myBound;
+            }
+        }
+
+        return retVal;
+    }
+
+    private int lower(final int index) {
+        for (NodeKey tmpKey = this; tmpKey.myParent != null; tmpKey = tmpKey.myParent) {
+            if ((tmpKey.index == index) && !tmpKey.myUpper) {
+                return tmpKey.myBound;
+            }
+        }
+        return myRootLowerBounds[index];
+    }
+
+    private int upper(final int index) {
+        for (NodeKey tmpKey = this; tmpKey.myParent != null; tmpKey = tmpKey.myParent) {
+            if ((tmpKey.index == index) && tmpKey.myUpper) {
+                return tmpKey.myBound;
+            }
+        }
+        return myRootUpperBounds[index];
+    }
+
+    /**
+     * Serialise a flattened copy, rather than the whole chain of parent nodes
+     */
+    private Object writeReplace() {
+        return myParent != null ? new NodeKey(this) : this;
     }
 
     void bound(final ExpressionsBasedModel model, final int[] integerIndices) {
 
-        for (int i = 0; i < integerIndices.length; i++) {
+        final int[] lowerBounds = this.getLowerBounds();
+        final int[] upperBounds = this.getUpperBounds();
 
-            final BigDecimal lowerBound = this.getLowerBound(i);
-            final BigDecimal upperBound = this.getUpperBound(i);
+        for (int i = 0; i < integerIndices.length; i++) {
 
             final Variable variable = model.getVariable(integerIndices[i]);
-            variable.lower(lowerBound);
-            variable.upper(upperBound);
+            variable.lower(lowerBounds[i] != Integer.MIN_VALUE ? new BigDecimal(lowerBounds[i]) : null);
+            variable.upper(upperBounds[i] != Integer.MAX_VALUE ? new BigDecimal(upperBounds[i]) : null);
 
             final BigDecimal value = variable.getValue();
             if (value != null) {
@@ -209,11 +323,14 @@ final class NodeKey implements Serializable, Comparable<NodeKey> {
 
     long calculateTreeSize() {
 
+        final int[] lowerBounds = this.getLowerBounds();
+        final int[] upperBounds = this.getUpperBounds();
+
         long retVal = 1L;
 
-        final int tmpLength = myLowerBounds.length;
+        final int tmpLength = lowerBounds.length;
         for (int i = 0; i < tmpLength; i++) {
-            retVal *= (1L + (myUpperBounds[i] - myLowerBounds[i]));
+            retVal *= (1L + (upperBounds[i] - lowerBounds[i]));
         }
 
         return retVal;
@@ -221,49 +338,52 @@ final class NodeKey implements Serializable, Comparable<NodeKey> {
 
     NodeKey createLowerBranch(final int index, final double value, final double objective) {
 
-        final int[] tmpLBs = this.getLowerBounds();
-        final int[] tmpUBs = this.getUpperBounds();
+        final int tmpLB = this.lower(index);
+        final int tmpUB = this.upper(index);
 
-        final double tmpFeasibleValue = this.feasible(index, value);
+        final double tmpFeasibleValue = PrimitiveFunction.MIN.invoke(PrimitiveFunction.MAX.invoke(tmpLB, value), tmpUB);
 
         final int tmpFloor = (int) PrimitiveFunction.FLOOR.invoke(tmpFeasibleValue);
 
-        if ((tmpFloor >= tmpUBs[index]) && (tmpFloor > tmpLBs[index])) {
-            tmpUBs[index] = tmpFloor - 1;
+        final int tmpBound;
+        if ((tmpFloor >= tmpUB) && (tmpFloor > tmpLB)) {
+            tmpBound = tmpFloor - 1;
         } else {
-            tmpUBs[index] = tmpFloor;
+            tmpBound = tmpFloor;
         }
 
-        return new NodeKey(tmpLBs, tmpUBs, sequence, index, value - tmpFloor, objective);
+        return new NodeKey(this, index, tmpBound, true, value - tmpFloor, objective);
     }
 
     NodeKey createUpperBranch(final int index, final double value, final double objective) {
 
-        final int[] tmpLBs = this.getLowerBounds();
-        final int[] tmpUBs = this.getUpperBounds();
+        final int tmpLB = this.lower(index);
+        final int tmpUB = this.upper(index);
 
-        final double tmpFeasibleValue = this.feasible(index, value);
+        final double tmpFeasibleValue = PrimitiveFunction.MIN.invoke(PrimitiveFunction.MAX.invoke(tmpLB, value), tmpUB);
 
         final int tmpCeil = (int) PrimitiveFunction.CEIL.invoke(tmpFeasibleValue);
 
-        if ((tmpCeil <= tmpLBs[index]) && (tmpCeil < tmpUBs[index])) {
-            tmpLBs[index] = tmpCeil + 1;
+        final int tmpBound;
+        if ((tmpCeil <= tmpLB) && (tmpCeil < tmpUB)) {
+            tmpBound = tmpCeil + 1;
         } else {
-            tmpLBs[index] = tmpCeil;
+            tmpBound = tmpCeil;
         }
 
-        return new NodeKey(tmpLBs, tmpUBs, sequence, index, tmpCeil - value, objective);
+        return new NodeKey(this, index, tmpBound, false, tmpCeil - value, objective);
     }
 
-    double getFraction(final int index, final double value) {
-
-        final double feasibleValue = this.feasible(index, value);
+    int getDepth() {
+        return myDepth;
+    }
 
-        return PrimitiveFunction.ABS.invoke(feasibleValue - PrimitiveFunction.RINT.invoke(feasibleValue));
+    double getFraction(final int index, final double value) {
+        return NodeKey.fraction(this.lower(index), this.upper(index), value);
     }
 
     BigDecimal getLowerBound(final int index) {
-        final int tmpLower = myLowerBounds[index];
+        final int tmpLower = this.lower(index);
         if (tmpLower != Integer.MIN_VALUE) {
             return new BigDecimal(tmpLower);
         } else {
@@ -271,12 +391,15 @@ final class NodeKey implements Serializable, Comparable<NodeKey> {
         }
     }
 
+    /**
+     * @return A new array with the lower bounds of all integer variables
+     */
     int[] getLowerBounds() {
-        return Raw1D.copyOf(myLowerBounds);
+        return this.bounds(false);
     }
 
     BigDecimal getUpperBound(final int index) {
-        final int tmpUpper = myUpperBounds[index];
+        final int tmpUpper = this.upper(index);
         if (tmpUpper != Integer.MAX_VALUE) {
             return new BigDecimal(tmpUpper);
         } else {
@@ -284,8 +407,19 @@ final class NodeKey implements Serializable, Comparable<NodeKey> {
         }
     }
 
+    /**
+     * @return A new array with the upper bounds of all integer variables
+     */
     int[] getUpperBounds() {
-        return Raw1D.copyOf(myUpperBounds);
+        return this.bounds(true);
+    }
+
+    /**
+     * @return true if this node was created by {@link #createUpperBranch(int, double, double)}, false for the
+     *         root node and lower branches
+     */
+    boolean isUpperBranch() {
+        return (myDepth > 0) && !myUpper;
     }
 
 }
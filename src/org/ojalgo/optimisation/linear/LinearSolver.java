@@ -98,7 +98,7 @@ public abstract class LinearSolver extends GenericSolver {
 
     }
 
-    public static final class ModelIntegration extends ExpressionsBasedModel.Integration<LinearSolver> {
+    public static class ModelIntegration extends ExpressionsBasedModel.Integration<LinearSolver> {
 
         public LinearSolver build(final ConvexSolver.Builder convexBuilder, final Optimisation.Options options) {
 
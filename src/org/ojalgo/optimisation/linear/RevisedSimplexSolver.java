@@ -0,0 +1,2377 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.linear;
+
+import static org.ojalgo.constant.PrimitiveMath.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+
+import org.ojalgo.access.Access1D;
+import org.ojalgo.access.Mutate1D;
+import org.ojalgo.access.Mutate2D;
+import org.ojalgo.access.Structure1D.IntIndex;
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.function.multiary.MultiaryFunction;
+import org.ojalgo.matrix.store.PhysicalStore;
+import org.ojalgo.matrix.store.PrimitiveCSC;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.optimisation.Cut;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.Variable;
+import org.ojalgo.optimisation.convex.ConvexSolver;
+import org.ojalgo.optimisation.linear.SimplexSolver.AlgorithmStore;
+
+/**
+ * A revised (two-phase, primal) simplex implementation. Solves the same LP standard form problems as
+ * {@link SimplexSolver}, but never forms the tableau. All that is kept is the (sparse, column compressed)
+ * constraints body, the objective and right hand side vectors, and a factorisation of the current basis.
+ * Memory use, and the work per iteration, is proportional to the number of nonzeros rather than to
+ * rows*columns.
+ * <p>
+ * The basis is factorised as a sparse LU decomposition, with Markowitz pivot selection, and each iteration
+ * updates that factorisation by appending one eta (elementary column) matrix - the product form of the
+ * inverse. Every {@link #REFACTORISATION_INTERVAL} iterations the basis is refactorised from scratch. If the
+ * basis turns out to be (numerically) singular, the offending variables are replaced by artificial
+ * variables. Should any of those not be at a feasible level the solver starts over from the all-artificial
+ * basis.
+ * <p>
+ * Variables may have (finite) lower and upper bounds, handled implicitly; a nonbasic variable is at one of
+ * its bounds, and the ratio test allows the entering variable to flip from one bound to the other.
+ * <p>
+ * A solver instance can also be warm started from a given basis. If that basis is primal feasible the
+ * primal simplex continues from there, and if it is dual feasible (typically the optimal basis of a problem
+ * that only differs in the right hand side or the variable bounds) dual simplex iterations are performed
+ * until it is also primal feasible. {@link RevisedSimplexSolver.Relaxation} uses this to re-solve branch
+ * &amp; bound nodes, with tightened variable bounds, starting from the parent node's basis.
+ * <p>
+ * To use it, register {@link RevisedSimplexSolver.ModelIntegration} with
+ * {@link ExpressionsBasedModel#addIntegration(ExpressionsBasedModel.Integration)}.
+ *
+ * @author apete
+ */
+public final class RevisedSimplexSolver extends LinearSolver {
+
+    /**
+     * Sparse LU decomposition of the basis matrix, P B Q = L U, with Markowitz pivot selection. At each
+     * elimination step a few of the sparsest active columns are searched, and among their elements that
+     * satisfy the threshold condition |a<sub>ij</sub>| &ge; {@link #THRESHOLD} max<sub>k</sub>|a<sub>kj</sub>| the
+     * one with the smallest Markowitz count, (r<sub>i</sub>-1)(c<sub>j</sub>-1), is chosen. That count is an upper
+     * bound on the fill-in the pivot can cause.
+     * <p>
+     * Each basic variable is given the basis position equal to its pivot row. An artificial (unit) column
+     * therefore always sits at its own row. A structural column without an acceptable pivot (the basis is
+     * numerically singular) is dropped, and the basis is completed with artificial variables.
+     * <p>
+     * L is stored as one column eta per pivot (the multipliers), and U as one row per pivot (the pivot row
+     * at the time of elimination). Both are indexed by basis position, so {@link #ftran(double[])} and
+     * {@link #btran(double[])} work in place.
+     */
+    static final class MarkowitzLU {
+
+        /**
+         * The maximum number of (sparsest) columns searched for a pivot
+         */
+        static final int SEARCH_LIMIT = 4;
+
+        /**
+         * Relative pivot tolerance. A small value favours sparsity, a large value numerical stability.
+         */
+        static final double THRESHOLD = 0.01;
+
+        private static void append(final int[][] rowCols, final int[] rowCounts, final int row, final int col) {
+            final int tmpCount = rowCounts[row];
+            if (tmpCount == rowCols[row].length) {
+                rowCols[row] = Arrays.copyOf(rowCols[row], tmpCount + tmpCount);
+            }
+            rowCols[row][tmpCount] = col;
+            rowCounts[row] = tmpCount + 1;
+        }
+
+        private static void remove(final int[][] rowCols, final int[] rowCounts, final int row, final int col) {
+            final int[] tmpCols = rowCols[row];
+            final int tmpLast = rowCounts[row] - 1;
+            for (int q = tmpLast; q >= 0; q--) {
+                if (tmpCols[q] == col) {
+                    tmpCols[q] = tmpCols[tmpLast];
+                    rowCounts[row] = tmpLast;
+                    return;
+                }
+            }
+        }
+
+        private int myCount = 0;
+        private final double[] myDiagonal;
+        private final int myDim;
+        private final int[] myIndices;
+        private int[] myLowerIndices;
+        private final int[] myLowerStarts;
+        private double[] myLowerValues;
+        private final int myNumberOfVariables;
+        private final int[] myPivotRows;
+        private final int[] myPointers;
+        private int[] myUpperIndices;
+        private final int[] myUpperStarts;
+        private double[] myUpperValues;
+        private final double[] myValues;
+
+        MarkowitzLU(final int[] pointers, final int[] indices, final double[] values, final int numberOfConstraints) {
+
+            super();
+
+            myPointers = pointers;
+            myIndices = indices;
+            myValues = values;
+
+            myDim = numberOfConstraints;
+            myNumberOfVariables = pointers.length - 1;
+
+            myPivotRows = new int[myDim];
+            myDiagonal = new double[myDim];
+
+            final int tmpCapacity = Math.max(16, myDim);
+
+            myLowerStarts = new int[myDim + 1];
+            myLowerIndices = new int[tmpCapacity];
+            myLowerValues = new double[tmpCapacity];
+
+            myUpperStarts = new int[myDim + 1];
+            myUpperIndices = new int[tmpCapacity];
+            myUpperValues = new double[tmpCapacity];
+        }
+
+        /**
+         * vector<sup>T</sup> = vector<sup>T</sup> B<sup>-1</sup> (in place)
+         */
+        void btran(final double[] vector) {
+
+            for (int k = 0; k < myCount; k++) {
+                final int tmpRow = myPivotRows[k];
+                final double tmpValue = vector[tmpRow] / myDiagonal[k];
+                vector[tmpRow] = tmpValue;
+                if (tmpValue != ZERO) {
+                    for (int p = myUpperStarts[k], limit = myUpperStarts[k + 1]; p < limit; p++) {
+                        vector[myUpperIndices[p]] -= myUpperValues[p] * tmpValue;
+                    }
+                }
+            }
+
+            for (int k = myCount - 1; k >= 0; k--) {
+                final int tmpRow = myPivotRows[k];
+                double tmpValue = vector[tmpRow];
+                for (int p = myLowerStarts[k], limit = myLowerStarts[k + 1]; p < limit; p++) {
+                    tmpValue -= myLowerValues[p] * vector[myLowerIndices[p]];
+                }
+                vector[tmpRow] = tmpValue;
+            }
+        }
+
+        long countNonzeros() {
+            return myLowerStarts[myCount] + myUpperStarts[myCount] + myCount;
+        }
+
+        /**
+         * @param columns The (structural) variables to make up the basis
+         * @param count The number of variables
+         * @param available The rows those variables may pivot on - all other rows are given to artificial
+         *        variables
+         * @param signs The artificial variable of row i has the column signs[i] * e<sub>i</sub>
+         * @param basis Output: the variable at each basis position, artificial variables are numbered from the
+         *        number of structural variables
+         * @return The number of variables dropped because the basis was (numerically) singular
+         */
+        int decompose(final int[] columns, final int count, final boolean[] available, final double[] signs, final int[] basis) {
+
+            myCount = 0;
+
+            final int[][] tmpColRows = new int[count][];
+            final double[][] tmpColValues = new double[count][];
+            final int[] tmpColCounts = new int[count];
+            final int[] tmpColPivots = new int[count];
+
+            final int[][] tmpRowCols = new int[myDim][];
+            final int[] tmpRowCounts = new int[myDim];
+            final boolean[] tmpRowActive = new boolean[myDim];
+
+            for (int i = 0; i < myDim; i++) {
+                tmpRowCols[i] = new int[4];
+                tmpRowActive[i] = true;
+            }
+
+            for (int j = 0; j < count; j++) {
+                final int tmpFirst = myPointers[columns[j]];
+                final int tmpLimit = myPointers[columns[j] + 1];
+                tmpColRows[j] = Arrays.copyOfRange(myIndices, tmpFirst, Math.max(tmpLimit, tmpFirst + 4));
+                tmpColValues[j] = Arrays.copyOfRange(myValues, tmpFirst, Math.max(tmpLimit, tmpFirst + 4));
+                tmpColCounts[j] = tmpLimit - tmpFirst;
+                tmpColPivots[j] = -1;
+                for (int p = 0; p < tmpColCounts[j]; p++) {
+                    MarkowitzLU.append(tmpRowCols, tmpRowCounts, tmpColRows[j][p], j);
+                }
+            }
+
+            final int[] tmpWhere = new int[myDim];
+            Arrays.fill(tmpWhere, -1);
+
+            // The artificial variables, at the rows not available to the structural variables, are pivoted first
+
+            for (int i = 0; i < myDim; i++) {
+                if (!available[i]) {
+                    this.eliminate(i, -1, signs[i], tmpColRows, tmpColValues, tmpColCounts, tmpRowCols, tmpRowCounts, tmpWhere);
+                    tmpRowActive[i] = false;
+                    basis[i] = myNumberOfVariables + i;
+                }
+            }
+
+            int tmpDropped = 0;
+
+            final int[] tmpCandidates = new int[SEARCH_LIMIT];
+
+            for (int tmpNumberOfCandidates = SEARCH_LIMIT; tmpNumberOfCandidates > 0;) {
+
+                // The sparsest active columns
+
+                tmpNumberOfCandidates = 0;
+                for (int j = 0; j < count; j++) {
+                    if (tmpColPivots[j] == -1) {
+                        int c = tmpNumberOfCandidates < SEARCH_LIMIT ? tmpNumberOfCandidates++ : SEARCH_LIMIT;
+                        while ((c > 0) && (tmpColCounts[tmpCandidates[c - 1]] > tmpColCounts[j])) {
+                            if (c < SEARCH_LIMIT) {
+                                tmpCandidates[c] = tmpCandidates[c - 1];
+                            }
+                            c--;
+                        }
+                        if (c < SEARCH_LIMIT) {
+                            tmpCandidates[c] = j;
+                        }
+                    }
+                }
+
+                int tmpPivotRow = -1;
+                int tmpPivotCol = -1;
+                double tmpPivotValue = ZERO;
+                long tmpPivotCost = Long.MAX_VALUE;
+                double tmpPivotRatio = ZERO;
+
+                for (int c = 0; c < tmpNumberOfCandidates; c++) {
+
+                    final int tmpCol = tmpCandidates[c];
+                    final int[] tmpRows = tmpColRows[tmpCol];
+                    final double[] tmpValues = tmpColValues[tmpCol];
+                    final int tmpColCount = tmpColCounts[tmpCol];
+
+                    double tmpLargest = ZERO;
+                    for (int p = 0; p < tmpColCount; p++) {
+                        tmpLargest = Math.max(tmpLargest, Math.abs(tmpValues[p]));
+                    }
+
+                    if (tmpLargest <= PIVOT_TOLERANCE) {
+                        // Numerically singular - the variable is dropped
+                        for (int p = 0; p < tmpColCount; p++) {
+                            MarkowitzLU.remove(tmpRowCols, tmpRowCounts, tmpRows[p], tmpCol);
+                        }
+                        tmpColCounts[tmpCol] = 0;
+                        tmpColPivots[tmpCol] = -2;
+                        tmpDropped++;
+                        continue;
+                    }
+
+                    for (int p = 0; p < tmpColCount; p++) {
+                        final double tmpRatio = Math.abs(tmpValues[p]) / tmpLargest;
+                        if (tmpRatio >= THRESHOLD) {
+                            final long tmpCost = (tmpRowCounts[tmpRows[p]] - 1L) * (tmpColCount - 1L);
+                            if ((tmpCost < tmpPivotCost) || ((tmpCost == tmpPivotCost) && (tmpRatio > tmpPivotRatio))) {
+                                tmpPivotRow = tmpRows[p];
+                                tmpPivotCol = tmpCol;
+                                tmpPivotValue = tmpValues[p];
+                                tmpPivotCost = tmpCost;
+                                tmpPivotRatio = tmpRatio;
+                            }
+                        }
+                    }
+                }
+
+                if (tmpPivotCol >= 0) {
+
+                    for (int p = 0; p < tmpColCounts[tmpPivotCol]; p++) {
+                        MarkowitzLU.remove(tmpRowCols, tmpRowCounts, tmpColRows[tmpPivotCol][p], tmpPivotCol);
+                    }
+
+                    this.eliminate(tmpPivotRow, tmpPivotCol, tmpPivotValue, tmpColRows, tmpColValues, tmpColCounts, tmpRowCols, tmpRowCounts,
+                            tmpWhere);
+
+                    tmpRowActive[tmpPivotRow] = false;
+                    tmpColPivots[tmpPivotCol] = tmpPivotRow;
+                    basis[tmpPivotRow] = columns[tmpPivotCol];
+                }
+            }
+
+            // The basis is completed with artificial variables
+
+            for (int i = 0; i < myDim; i++) {
+                if (tmpRowActive[i]) {
+                    this.eliminate(i, -1, signs[i], tmpColRows, tmpColValues, tmpColCounts, tmpRowCols, tmpRowCounts, tmpWhere);
+                    basis[i] = myNumberOfVariables + i;
+                }
+            }
+
+            // Translate the U column indices from (structural) column to basis position
+
+            int tmpLimit = 0;
+            for (int k = 0; k < myCount; k++) {
+                final int tmpFirst = myUpperStarts[k];
+                final int tmpLast = myUpperStarts[k + 1];
+                myUpperStarts[k] = tmpLimit;
+                for (int p = tmpFirst; p < tmpLast; p++) {
+                    final int tmpPosition = tmpColPivots[myUpperIndices[p]];
+                    if (tmpPosition >= 0) {
+                        myUpperIndices[tmpLimit] = tmpPosition;
+                        myUpperValues[tmpLimit] = myUpperValues[p];
+                        tmpLimit++;
+                    }
+                }
+            }
+            myUpperStarts[myCount] = tmpLimit;
+
+            return tmpDropped;
+        }
+
+        /**
+         * vector = B<sup>-1</sup> vector (in place)
+         */
+        void ftran(final double[] vector) {
+
+            for (int k = 0; k < myCount; k++) {
+                final double tmpValue = vector[myPivotRows[k]];
+                if (tmpValue != ZERO) {
+                    for (int p = myLowerStarts[k], limit = myLowerStarts[k + 1]; p < limit; p++) {
+                        vector[myLowerIndices[p]] -= myLowerValues[p] * tmpValue;
+                    }
+                }
+            }
+
+            for (int k = myCount - 1; k >= 0; k--) {
+                final int tmpRow = myPivotRows[k];
+                double tmpValue = vector[tmpRow];
+                for (int p = myUpperStarts[k], limit = myUpperStarts[k + 1]; p < limit; p++) {
+                    tmpValue -= myUpperValues[p] * vector[myUpperIndices[p]];
+                }
+                vector[tmpRow] = tmpValue / myDiagonal[k];
+            }
+        }
+
+        /**
+         * Reset to the identity matrix
+         */
+        void reset() {
+            myCount = 0;
+        }
+
+        private void eliminate(final int row, final int col, final double pivot, final int[][] colRows, final double[][] colValues,
+                final int[] colCounts, final int[][] rowCols, final int[] rowCounts, final int[] where) {
+
+            final int k = myCount;
+
+            myPivotRows[k] = row;
+            myDiagonal[k] = pivot;
+
+            // L - the multipliers, from the other elements of the pivot column
+
+            final int tmpLowerFirst = myLowerStarts[k];
+            int tmpLowerLimit = tmpLowerFirst;
+            if (col >= 0) {
+                final int[] tmpRows = colRows[col];
+                final double[] tmpValues = colValues[col];
+                for (int p = 0, limit = colCounts[col]; p < limit; p++) {
+                    if (tmpRows[p] != row) {
+                        if (tmpLowerLimit == myLowerIndices.length) {
+                            myLowerIndices = Arrays.copyOf(myLowerIndices, tmpLowerLimit + tmpLowerLimit);
+                            myLowerValues = Arrays.copyOf(myLowerValues, tmpLowerLimit + tmpLowerLimit);
+                        }
+                        myLowerIndices[tmpLowerLimit] = tmpRows[p];
+                        myLowerValues[tmpLowerLimit] = tmpValues[p] / pivot;
+                        tmpLowerLimit++;
+                    }
+                }
+                colCounts[col] = 0;
+            }
+            myLowerStarts[k + 1] = tmpLowerLimit;
+
+            // U - the pivot row, and the update of the active columns it has elements in
+
+            int tmpUpperLimit = myUpperStarts[k];
+            final int[] tmpCols = rowCols[row];
+            for (int q = 0, limit = rowCounts[row]; q < limit; q++) {
+
+                final int tmpCol = tmpCols[q];
+                int[] tmpRows = colRows[tmpCol];
+                double[] tmpValues = colValues[tmpCol];
+                int tmpCount = colCounts[tmpCol];
+
+                double tmpValue = ZERO;
+                for (int p = 0; p < tmpCount; p++) {
+                    if (tmpRows[p] == row) {
+                        tmpValue = tmpValues[p];
+                        tmpCount--;
+                        tmpRows[p] = tmpRows[tmpCount];
+                        tmpValues[p] = tmpValues[tmpCount];
+                        break;
+                    }
+                }
+
+                if (tmpUpperLimit == myUpperIndices.length) {
+                    myUpperIndices = Arrays.copyOf(myUpperIndices, tmpUpperLimit + tmpUpperLimit);
+                    myUpperValues = Arrays.copyOf(myUpperValues, tmpUpperLimit + tmpUpperLimit);
+                }
+                myUpperIndices[tmpUpperLimit] = tmpCol;
+                myUpperValues[tmpUpperLimit] = tmpValue;
+                tmpUpperLimit++;
+
+                if ((tmpValue != ZERO) && (tmpLowerLimit > tmpLowerFirst)) {
+
+                    for (int p = 0; p < tmpCount; p++) {
+                        where[tmpRows[p]] = p;
+                    }
+
+                    for (int p = tmpLowerFirst; p < tmpLowerLimit; p++) {
+                        final int tmpRow = myLowerIndices[p];
+                        final double tmpUpdate = myLowerValues[p] * tmpValue;
+                        if (where[tmpRow] >= 0) {
+                            tmpValues[where[tmpRow]] -= tmpUpdate;
+                        } else {
+                            // Fill-in
+                            if (tmpCount == tmpRows.length) {
+                                tmpRows = Arrays.copyOf(tmpRows, tmpCount + tmpCount);
+                                tmpValues = Arrays.copyOf(tmpValues, tmpCount + tmpCount);
+                                colRows[tmpCol] = tmpRows;
+                                colValues[tmpCol] = tmpValues;
+                            }
+                            tmpRows[tmpCount] = tmpRow;
+                            tmpValues[tmpCount] = -tmpUpdate;
+                            where[tmpRow] = tmpCount;
+                            tmpCount++;
+                            MarkowitzLU.append(rowCols, rowCounts, tmpRow, tmpCol);
+                        }
+                    }
+
+                    for (int p = 0; p < tmpCount; p++) {
+                        where[tmpRows[p]] = -1;
+                    }
+                }
+
+                colCounts[tmpCol] = tmpCount;
+            }
+            rowCounts[row] = 0;
+            myUpperStarts[k + 1] = tmpUpperLimit;
+
+            myCount++;
+        }
+
+    }
+
+    public static final class ModelIntegration extends LinearSolver.ModelIntegration {
+
+        @Override
+        public LinearSolver build(final ConvexSolver.Builder convexBuilder, final Optimisation.Options options) {
+            return new RevisedSimplexSolver(SimplexSolver.build(convexBuilder, StandardForm::new), options);
+        }
+
+        @Override
+        public LinearSolver build(final ExpressionsBasedModel model) {
+            return new RevisedSimplexSolver(SimplexSolver.build(model, StandardForm::new), model.options);
+        }
+
+    }
+
+    /**
+     * The basis updates, since the last refactorisation, as a product of eta matrices: B<sup>-1</sup> =
+     * E<sub>k</sub>...E<sub>2</sub>E<sub>1</sub>B<sub>0</sub><sup>-1</sup>. Each eta matrix is the identity
+     * except for one column - the pivot row/column. Only the nonzero off-pivot elements are stored.
+     */
+    static final class ProductForm {
+
+        private int myCount = 0;
+        private int[] myIndices;
+        private int[] myPivotRows;
+        private double[] myPivotValues;
+        private int[] myStarts;
+        private double[] myValues;
+
+        ProductForm(final int dim) {
+
+            super();
+
+            final int tmpCapacity = Math.max(16, dim);
+
+            myPivotRows = new int[tmpCapacity];
+            myPivotValues = new double[tmpCapacity];
+            myStarts = new int[tmpCapacity + 1];
+            myIndices = new int[tmpCapacity];
+            myValues = new double[tmpCapacity];
+        }
+
+        /**
+         * Append the eta matrix that pivots the (already transformed) column on the pivot row.
+         */
+        void append(final int pivotRow, final double[] column) {
+
+            this.ensureEtaCapacity();
+
+            int tmpLimit = myStarts[myCount];
+            for (int i = 0; i < column.length; i++) {
+                final double tmpValue = column[i];
+                if ((i != pivotRow) && (tmpValue != ZERO)) {
+                    if (tmpLimit == myIndices.length) {
+                        myIndices = Arrays.copyOf(myIndices, tmpLimit + tmpLimit);
+                        myValues = Arrays.copyOf(myValues, tmpLimit + tmpLimit);
+                    }
+                    myIndices[tmpLimit] = i;
+                    myValues[tmpLimit] = tmpValue;
+                    tmpLimit++;
+                }
+            }
+
+            myPivotRows[myCount] = pivotRow;
+            myPivotValues[myCount] = column[pivotRow];
+            myCount++;
+            myStarts[myCount] = tmpLimit;
+        }
+
+        /**
+         * vector<sup>T</sup> = vector<sup>T</sup> B<sup>-1</sup> (in place)
+         */
+        void btran(final double[] vector) {
+            for (int k = myCount - 1; k >= 0; k--) {
+                final int tmpPivotRow = myPivotRows[k];
+                double tmpValue = vector[tmpPivotRow];
+                for (int p = myStarts[k], limit = myStarts[k + 1]; p < limit; p++) {
+                    tmpValue -= myValues[p] * vector[myIndices[p]];
+                }
+                vector[tmpPivotRow] = tmpValue / myPivotValues[k];
+            }
+        }
+
+        int count() {
+            return myCount;
+        }
+
+        long countNonzeros() {
+            return myStarts[myCount] + myCount;
+        }
+
+        /**
+         * vector = B<sup>-1</sup> vector (in place)
+         */
+        void ftran(final double[] vector) {
+            for (int k = 0; k < myCount; k++) {
+                final int tmpPivotRow = myPivotRows[k];
+                final double tmpPivotValue = vector[tmpPivotRow];
+                if (tmpPivotValue != ZERO) {
+                    final double tmpValue = tmpPivotValue / myPivotValues[k];
+                    vector[tmpPivotRow] = tmpValue;
+                    for (int p = myStarts[k], limit = myStarts[k + 1]; p < limit; p++) {
+                        vector[myIndices[p]] -= myValues[p] * tmpValue;
+                    }
+                }
+            }
+        }
+
+        void reset() {
+            myCount = 0;
+        }
+
+        private void ensureEtaCapacity() {
+            if (myCount == myPivotRows.length) {
+                final int tmpCapacity = myCount + myCount;
+                myPivotRows = Arrays.copyOf(myPivotRows, tmpCapacity);
+                myPivotValues = Arrays.copyOf(myPivotValues, tmpCapacity);
+                myStarts = Arrays.copyOf(myStarts, tmpCapacity + 1);
+            }
+        }
+
+    }
+
+    /**
+     * The LP relaxation of a (mixed) integer model, to be re-solved many times with different bounds on a
+     * fixed set of (integer) variables - the branch &amp; bound nodes. The standard form of the root model is built
+     * once, and is then shared (read-only) by all nodes. Bounds that are tighter than at the root are passed
+     * to the solver as column bounds - only bounds on free variables (that have two columns) and cuts are
+     * appended as rows. A node may start from the final basis of its parent node. That basis is dual feasible
+     * for the child node - only the bounds changed - so typically a few dual simplex iterations restore
+     * optimality.
+     * <p>
+     * Bounds are specified the same way as with {@link org.ojalgo.optimisation.integer.IntegerSolver} node
+     * keys; one int per branch variable, with {@link Integer#MIN_VALUE} and {@link Integer#MAX_VALUE} meaning
+     * no bound.
+     */
+    public static final class Relaxation {
+
+        /**
+         * Solver state after solving a node - the solution (in model terms) and the final basis, that can be
+         * used to warm start the child nodes.
+         */
+        public static final class Solution {
+
+            private final int[] myBasis;
+            /**
+             * The number of root columns of the relaxation that produced this solution. Basis entries beyond
+             * that are keys (offset by this number) of the node rows.
+             */
+            private final int myColumns;
+            private final int myIterations;
+            private final Optimisation.Result myResult;
+            private final int[] myRows;
+            /**
+             * The (root) columns that were nonbasic at their upper bounds
+             */
+            private final int[] myUpper;
+
+            Solution(final Optimisation.Result result, final int[] rows, final int[] basis, final int[] upper, final int columns, final int iterations) {
+
+                super();
+
+                myResult = result;
+                myRows = rows;
+                myBasis = basis;
+                myUpper = upper;
+                myColumns = columns;
+                myIterations = iterations;
+            }
+
+            /**
+             * @return The number of simplex iterations it took to solve this node
+             */
+            public int countIterations() {
+                return myIterations;
+            }
+
+            /**
+             * @return The node solution, with variable values corresponding to the model variables
+             */
+            public Optimisation.Result getResult() {
+                return myResult;
+            }
+
+            @Override
+            public String toString() {
+                return myResult.toString();
+            }
+
+        }
+
+        /**
+         * The root problem with rows appended - constraints body (CSC) and right hand side.
+         */
+        private static final class Extended {
+
+            final int[] indices;
+            final int[] pointers;
+            final double[] rhs;
+            final double[] values;
+
+            Extended(final int[] pointers, final int[] indices, final double[] values, final double[] rhs) {
+
+                super();
+
+                this.pointers = pointers;
+                this.indices = indices;
+                this.values = values;
+                this.rhs = rhs;
+            }
+
+        }
+
+        /**
+         * Gomory cuts are only derived from rows where the basic integer variable has a fractional part at
+         * least this far from an integer.
+         */
+        private static final double AWAY = 0.01;
+        /**
+         * The largest acceptable ratio between the largest and the smallest cut coefficient
+         */
+        private static final double DYNAMISM = 1E6;
+
+        private final double[] myCost;
+        private final double[] myFixedValues;
+        private final int[] myIndices;
+        private final double[] myLowerLimits;
+        private final int[] myNegativeColumns;
+        private final int myNumberOfConstraints;
+        private final int myNumberOfVariables;
+        private final MultiaryFunction.TwiceDifferentiable<Double> myObjective;
+        private final Optimisation.Options myOptions;
+        private final int[] myPointers;
+        private final int[] myPositiveColumns;
+        private final double[] myRHS;
+        private final double[] myUpperLimits;
+        private final double[] myValues;
+        private final int[] myVariables;
+
+        /**
+         * @param model A linear model - integer variables are treated as continuous
+         * @param branchVariables The (model) indices of the variables that can be bounded
+         */
+        public Relaxation(final ExpressionsBasedModel model, final int[] branchVariables) {
+
+            super();
+
+            final StandardForm tmpRoot = SimplexSolver.build(model, StandardForm::new);
+            myNumberOfConstraints = tmpRoot.myNumberOfConstraints;
+            myNumberOfVariables = tmpRoot.myNumberOfVariables;
+
+            final PrimitiveCSC tmpBody = tmpRoot.compress();
+            myPointers = tmpBody.getPointers();
+            myIndices = tmpBody.getIndices();
+            myValues = tmpBody.getValues();
+            myCost = tmpRoot.myObjective;
+            myRHS = tmpRoot.myRHS;
+
+            final int tmpCountVariables = model.countVariables();
+
+            myPositiveColumns = new int[tmpCountVariables];
+            myNegativeColumns = new int[tmpCountVariables];
+            myFixedValues = new double[tmpCountVariables];
+            Arrays.fill(myPositiveColumns, -1);
+            Arrays.fill(myNegativeColumns, -1);
+
+            final List<Variable> tmpPositives = model.getPositiveVariables();
+            for (int p = 0; p < tmpPositives.size(); p++) {
+                myPositiveColumns[model.indexOf(tmpPositives.get(p))] = p;
+            }
+            final List<Variable> tmpNegatives = model.getNegativeVariables();
+            for (int n = 0; n < tmpNegatives.size(); n++) {
+                myNegativeColumns[model.indexOf(tmpNegatives.get(n))] = tmpPositives.size() + n;
+            }
+            for (final IntIndex tmpFixed : model.getFixedVariables()) {
+                myFixedValues[tmpFixed.index] = model.getVariable(tmpFixed.index).getValue().doubleValue();
+            }
+
+            myVariables = branchVariables.clone();
+            myLowerLimits = new double[myVariables.length];
+            myUpperLimits = new double[myVariables.length];
+            for (int b = 0; b < myVariables.length; b++) {
+                final Variable tmpVariable = model.getVariable(myVariables[b]);
+                myLowerLimits[b] = tmpVariable.isLowerLimitSet() ? tmpVariable.getLowerLimit().doubleValue() : NEGATIVE_INFINITY;
+                myUpperLimits[b] = tmpVariable.isUpperLimitSet() ? tmpVariable.getUpperLimit().doubleValue() : POSITIVE_INFINITY;
+            }
+
+            myObjective = model.objective().toFunction();
+            myOptions = model.options;
+        }
+
+        private Relaxation(final Relaxation root, final Extended body) {
+
+            super();
+
+            myNumberOfConstraints = body.rhs.length;
+            myNumberOfVariables = body.pointers.length - 1;
+
+            myPointers = body.pointers;
+            myIndices = body.indices;
+            myValues = body.values;
+            myCost = Arrays.copyOf(root.myCost, myNumberOfVariables);
+            myRHS = body.rhs;
+
+            myPositiveColumns = root.myPositiveColumns;
+            myNegativeColumns = root.myNegativeColumns;
+            myFixedValues = root.myFixedValues;
+
+            myVariables = root.myVariables;
+            myLowerLimits = root.myLowerLimits;
+            myUpperLimits = root.myUpperLimits;
+
+            myObjective = root.myObjective;
+            myOptions = root.myOptions;
+        }
+
+        /**
+         * @param cuts Cuts to add permanently
+         * @return A new relaxation, with the cuts as part of the root problem
+         */
+        public Relaxation add(final List<Cut> cuts) {
+
+            final int tmpCount = cuts.size();
+
+            final int[] tmpStarts = new int[tmpCount + 1];
+            for (int c = 0; c < tmpCount; c++) {
+                tmpStarts[c + 1] = tmpStarts[c] + cuts.get(c).count();
+            }
+            final int[] tmpTerms = new int[tmpStarts[tmpCount]];
+            final double[] tmpCoefficients = new double[tmpTerms.length];
+            final double[] tmpSlacks = new double[tmpCount];
+            final double[] tmpRHS = new double[tmpCount];
+
+            for (int c = 0; c < tmpCount; c++) {
+                this.describe(cuts.get(c), c, tmpStarts, tmpTerms, tmpCoefficients, tmpSlacks, tmpRHS);
+            }
+
+            return new Relaxation(this, this.extend(tmpCount, tmpStarts, tmpTerms, tmpCoefficients, tmpSlacks, tmpRHS));
+        }
+
+        /**
+         * Gomory mixed integer cuts derived from the optimal tableau of the root relaxation. Slack variables
+         * are treated as continuous, and are substituted out so that the cuts are expressed in model variables
+         * only.
+         *
+         * @param root A solution (with no node rows) produced by this relaxation
+         * @param limit The maximum number of cuts - the rows with the most fractional basic variables are used
+         *        first
+         * @return The cuts, or an empty list if none could be derived
+         */
+        public List<Cut> gomory(final Relaxation.Solution root, final int limit) {
+
+            final List<Cut> retVal = new ArrayList<>();
+
+            if ((root.myRows.length != 0) || (root.myColumns != myNumberOfVariables) || !root.getResult().getState().isOptimal()) {
+                return retVal;
+            }
+
+            final int tmpRows = myNumberOfConstraints;
+            final int tmpColumns = myNumberOfVariables;
+
+            final RevisedSimplexSolver tmpSolver = new RevisedSimplexSolver(myPointers, myIndices, myValues, myCost.clone(), myRHS, myOptions);
+            tmpSolver.setInitialBasis(root.myBasis.clone());
+            if (!tmpSolver.solve().getState().isOptimal()) {
+                return retVal;
+            }
+
+            // The model variable of each structural column (or -1 for slack columns), and the integer columns
+            final int[] tmpVariableOf = new int[tmpColumns];
+            Arrays.fill(tmpVariableOf, -1);
+            for (int v = 0; v < myPositiveColumns.length; v++) {
+                if (myPositiveColumns[v] >= 0) {
+                    tmpVariableOf[myPositiveColumns[v]] = v;
+                }
+                if (myNegativeColumns[v] >= 0) {
+                    tmpVariableOf[myNegativeColumns[v]] = v;
+                }
+            }
+            final boolean[] tmpInteger = new boolean[tmpColumns];
+            final double[] tmpColumnUpper = new double[tmpColumns];
+            Arrays.fill(tmpColumnUpper, POSITIVE_INFINITY);
+            for (int b = 0; b < myVariables.length; b++) {
+                final int tmpPositive = myPositiveColumns[myVariables[b]];
+                final int tmpNegative = myNegativeColumns[myVariables[b]];
+                if ((tmpPositive >= 0) && (tmpNegative < 0)) {
+                    tmpInteger[tmpPositive] = true;
+                    tmpColumnUpper[tmpPositive] = myUpperLimits[b];
+                } else if ((tmpNegative >= 0) && (tmpPositive < 0)) {
+                    tmpInteger[tmpNegative] = true;
+                    tmpColumnUpper[tmpNegative] = -myLowerLimits[b];
+                }
+            }
+
+            // The structural part of the body, row-wise, to substitute out the slack variables
+            final int[] tmpRowPointers = new int[tmpRows + 1];
+            for (int j = 0; j < tmpColumns; j++) {
+                if (tmpVariableOf[j] >= 0) {
+                    for (int p = myPointers[j]; p < myPointers[j + 1]; p++) {
+                        tmpRowPointers[myIndices[p] + 1]++;
+                    }
+                }
+            }
+            for (int i = 0; i < tmpRows; i++) {
+                tmpRowPointers[i + 1] += tmpRowPointers[i];
+            }
+            final int[] tmpRowColumns = new int[tmpRowPointers[tmpRows]];
+            final double[] tmpRowValues = new double[tmpRowColumns.length];
+            final int[] tmpNext = Arrays.copyOf(tmpRowPointers, tmpRows);
+            for (int j = 0; j < tmpColumns; j++) {
+                if (tmpVariableOf[j] >= 0) {
+                    for (int p = myPointers[j]; p < myPointers[j + 1]; p++) {
+                        tmpRowColumns[tmpNext[myIndices[p]]] = j;
+                        tmpRowValues[tmpNext[myIndices[p]]++] = myValues[p];
+                    }
+                }
+            }
+
+            // Candidate rows, most fractional first
+            final List<Integer> tmpCandidates = new ArrayList<>();
+            for (int i = 0; i < tmpRows; i++) {
+                final int tmpBasic = tmpSolver.getBasicVariable(i);
+                if ((tmpBasic < tmpColumns) && tmpInteger[tmpBasic]) {
+                    final double tmpValue = tmpSolver.getBasicValue(i);
+                    final double tmpFraction = tmpValue - Math.floor(tmpValue);
+                    if ((tmpFraction >= AWAY) && (tmpFraction <= (ONE - AWAY))) {
+                        tmpCandidates.add(i);
+                    }
+                }
+            }
+            tmpCandidates.sort(Comparator.comparingDouble(i -> {
+                final double tmpValue = tmpSolver.getBasicValue(i);
+                return Math.abs(tmpValue - Math.floor(tmpValue) - HALF);
+            }));
+
+            final double[] tmpTableauRow = new double[tmpColumns];
+            final double[] tmpGamma = new double[tmpColumns];
+            final double[] tmpCoefficients = new double[myPositiveColumns.length];
+
+            for (int c = 0; (c < tmpCandidates.size()) && (retVal.size() < limit); c++) {
+
+                final int tmpPosition = tmpCandidates.get(c);
+                final int tmpBasic = tmpSolver.getBasicVariable(tmpPosition);
+                final double tmpValue = tmpSolver.getBasicValue(tmpPosition);
+                final double f0 = tmpValue - Math.floor(tmpValue);
+
+                tmpSolver.calculateTableauRow(tmpPosition, tmpTableauRow);
+
+                // The cut, in standard form columns: gamma * x >= gamma0
+                Arrays.fill(tmpGamma, ZERO);
+                double tmpGamma0 = ONE;
+                boolean tmpOK = true;
+
+                for (int j = 0; (j < tmpColumns) && tmpOK; j++) {
+
+                    final double tmpAlpha = tmpTableauRow[j];
+                    if ((j == tmpBasic) || (Math.abs(tmpAlpha) <= PIVOT_TOLERANCE)) {
+                        continue;
+                    }
+
+                    final double tmpPi;
+                    if (tmpInteger[j]) {
+                        final double fj = tmpAlpha - Math.floor(tmpAlpha);
+                        tmpPi = fj <= f0 ? fj / f0 : (ONE - fj) / (ONE - f0);
+                    } else {
+                        tmpPi = tmpAlpha > ZERO ? tmpAlpha / f0 : -tmpAlpha / (ONE - f0);
+                    }
+
+                    if (tmpPi == ZERO) {
+                        continue;
+                    } else if (tmpVariableOf[j] >= 0) {
+                        tmpGamma[j] += tmpPi;
+                    } else if ((myPointers[j + 1] - myPointers[j]) == 1) {
+                        // Slack variable s = (rhs - a x) / e
+                        final int tmpRow = myIndices[myPointers[j]];
+                        final double tmpFactor = tmpPi / myValues[myPointers[j]];
+                        tmpGamma0 -= tmpFactor * myRHS[tmpRow];
+                        for (int p = tmpRowPointers[tmpRow]; p < tmpRowPointers[tmpRow + 1]; p++) {
+                            tmpGamma[tmpRowColumns[p]] -= tmpFactor * tmpRowValues[p];
+                        }
+                    } else {
+                        tmpOK = false;
+                    }
+                }
+
+                // Drop tiny coefficients (relaxing the right hand side when necessary), and check the dynamism
+                double tmpLargest = ZERO;
+                for (int j = 0; j < tmpColumns; j++) {
+                    tmpLargest = Math.max(tmpLargest, Math.abs(tmpGamma[j]));
+                }
+                double tmpSmallest = tmpLargest;
+                for (int j = 0; (j < tmpColumns) && tmpOK; j++) {
+                    final double tmpAbsolute = Math.abs(tmpGamma[j]);
+                    if (tmpAbsolute == ZERO) {
+                        continue;
+                    } else if (tmpAbsolute < (tmpLargest / DYNAMISM)) {
+                        if (tmpGamma[j] > ZERO) {
+                            if (Double.isInfinite(tmpColumnUpper[j])) {
+                                tmpOK = false;
+                            } else {
+                                tmpGamma0 -= tmpGamma[j] * tmpColumnUpper[j];
+                            }
+                        }
+                        tmpGamma[j] = ZERO;
+                    } else {
+                        tmpSmallest = Math.min(tmpSmallest, tmpAbsolute);
+                    }
+                }
+                if (!tmpOK || (tmpLargest == ZERO) || ((tmpLargest / tmpSmallest) > DYNAMISM)) {
+                    continue;
+                }
+
+                // To model variables; a free variable's two columns must agree
+                Arrays.fill(tmpCoefficients, ZERO);
+                for (int v = 0; (v < tmpCoefficients.length) && tmpOK; v++) {
+                    final int tmpPositive = myPositiveColumns[v];
+                    final int tmpNegative = myNegativeColumns[v];
+                    if ((tmpPositive >= 0) && (tmpNegative >= 0)) {
+                        if (Math.abs(tmpGamma[tmpPositive] + tmpGamma[tmpNegative]) > (PIVOT_TOLERANCE * tmpLargest)) {
+                            tmpOK = false;
+                        } else {
+                            tmpCoefficients[v] = -tmpGamma[tmpPositive];
+                        }
+                    } else if (tmpPositive >= 0) {
+                        tmpCoefficients[v] = -tmpGamma[tmpPositive];
+                    } else if (tmpNegative >= 0) {
+                        tmpCoefficients[v] = tmpGamma[tmpNegative];
+                    }
+                }
+                if (tmpOK) {
+                    // As a <= inequality, slightly relaxed to be safe against round-off
+                    retVal.add(new Cut(tmpCoefficients, -tmpGamma0 + (PIVOT_TOLERANCE * Math.max(ONE, Math.abs(tmpGamma0)))));
+                }
+            }
+
+            return retVal;
+        }
+
+        /**
+         * @param lower Lower bounds, one per branch variable
+         * @param upper Upper bounds, one per branch variable
+         * @param cuts Cuts to add, as rows of this node only
+         * @param parent The solution of the parent node, or null to solve from scratch
+         */
+        public Relaxation.Solution solve(final int[] lower, final int[] upper, final List<Cut> cuts, final Relaxation.Solution parent) {
+
+            final int tmpNumberOfBounds = myVariables.length + myVariables.length;
+            final int tmpNumberOfCuts = cuts != null ? cuts.size() : 0;
+
+            int tmpNumberOfTerms = 0;
+            for (int c = 0; c < tmpNumberOfCuts; c++) {
+                tmpNumberOfTerms += cuts.get(c).count();
+            }
+
+            // Identify the node rows - key = 2 * branch variable + (0 for lower, 1 for upper bound), or 2 * number of branch variables + cut id
+            final int[] tmpKeys = new int[tmpNumberOfBounds + tmpNumberOfCuts];
+            final int[] tmpStarts = new int[tmpKeys.length + 1];
+            final int[] tmpTerms = new int[tmpNumberOfBounds + tmpNumberOfTerms];
+            final double[] tmpCoefficients = new double[tmpTerms.length];
+            final double[] tmpSlacks = new double[tmpKeys.length];
+            final double[] tmpBounds = new double[tmpKeys.length];
+
+            final double[] tmpLower = new double[myNumberOfVariables];
+            final double[] tmpUpper = new double[myNumberOfVariables];
+            Arrays.fill(tmpUpper, POSITIVE_INFINITY);
+            boolean tmpInfeasible = false;
+
+            int tmpCount = 0;
+            for (int b = 0; b < myVariables.length; b++) {
+                final int tmpVariable = myVariables[b];
+                final int tmpPositive = myPositiveColumns[tmpVariable];
+                final int tmpNegative = myNegativeColumns[tmpVariable];
+                final boolean tmpLowerSet = (lower[b] != Integer.MIN_VALUE) && (lower[b] > myLowerLimits[b]);
+                final boolean tmpUpperSet = (upper[b] != Integer.MAX_VALUE) && (upper[b] < myUpperLimits[b]);
+                if ((tmpPositive >= 0) && (tmpNegative < 0)) {
+                    // Column bounds; the column is x
+                    if (tmpLowerSet) {
+                        tmpLower[tmpPositive] = Math.max(lower[b], ZERO);
+                    }
+                    if (tmpUpperSet) {
+                        tmpUpper[tmpPositive] = upper[b];
+                    }
+                    tmpInfeasible |= tmpLower[tmpPositive] > tmpUpper[tmpPositive];
+                } else if ((tmpNegative >= 0) && (tmpPositive < 0)) {
+                    // Column bounds; the column is -x
+                    if (tmpUpperSet) {
+                        tmpLower[tmpNegative] = Math.max(-upper[b], ZERO);
+                    }
+                    if (tmpLowerSet) {
+                        tmpUpper[tmpNegative] = -lower[b];
+                    }
+                    tmpInfeasible |= tmpLower[tmpNegative] > tmpUpper[tmpNegative];
+                } else if ((tmpPositive >= 0) || (tmpNegative >= 0)) {
+                    // Free variable, two columns - slack variable; x - s = lower or x + s = upper
+                    if (tmpLowerSet) {
+                        tmpKeys[tmpCount] = b + b;
+                        tmpTerms[tmpStarts[tmpCount]] = tmpVariable;
+                        tmpCoefficients[tmpStarts[tmpCount]] = ONE;
+                        tmpStarts[tmpCount + 1] = tmpStarts[tmpCount] + 1;
+                        tmpSlacks[tmpCount] = NEG;
+                        tmpBounds[tmpCount++] = lower[b];
+                    }
+                    if (tmpUpperSet) {
+                        tmpKeys[tmpCount] = b + b + 1;
+                        tmpTerms[tmpStarts[tmpCount]] = tmpVariable;
+                        tmpCoefficients[tmpStarts[tmpCount]] = ONE;
+                        tmpStarts[tmpCount + 1] = tmpStarts[tmpCount] + 1;
+                        tmpSlacks[tmpCount] = ONE;
+                        tmpBounds[tmpCount++] = upper[b];
+                    }
+                }
+            }
+            final int tmpCountBounds = tmpCount;
+            for (int c = 0; c < tmpNumberOfCuts; c++) {
+                final Cut tmpCut = cuts.get(c);
+                tmpKeys[tmpCount] = tmpNumberOfBounds + tmpCut.getId();
+                this.describe(tmpCut, tmpCount++, tmpStarts, tmpTerms, tmpCoefficients, tmpSlacks, tmpBounds);
+            }
+
+            final int tmpRootRows = myNumberOfConstraints;
+            final int tmpRootColumns = myNumberOfVariables;
+            final int tmpColumns = tmpRootColumns + tmpCount;
+
+            final Primitive64Array tmpSolution = Primitive64Array.make(myFixedValues.length);
+
+            if (tmpInfeasible) {
+                for (int i = 0; i < myFixedValues.length; i++) {
+                    tmpSolution.set(i, myFixedValues[i]);
+                }
+                final Optimisation.Result tmpResult = new Optimisation.Result(State.INFEASIBLE, myObjective.invoke(tmpSolution), tmpSolution);
+                return new Solution(tmpResult, Arrays.copyOf(tmpKeys, tmpCount), new int[0], new int[0], tmpRootColumns, 0);
+            }
+
+            final Extended tmpBody = this.extend(tmpCount, tmpStarts, tmpTerms, tmpCoefficients, tmpSlacks, tmpBounds);
+
+            final RevisedSimplexSolver tmpSolver = new RevisedSimplexSolver(tmpBody.pointers, tmpBody.indices, tmpBody.values,
+                    tmpCount != 0 ? Arrays.copyOf(myCost, tmpColumns) : myCost, tmpBody.rhs, myOptions);
+
+            for (int j = 0; j < tmpRootColumns; j++) {
+                if ((tmpLower[j] != ZERO) || (tmpUpper[j] != POSITIVE_INFINITY)) {
+                    tmpSolver.setBounds(j, tmpLower[j], tmpUpper[j]);
+                }
+            }
+
+            if (parent != null) {
+
+                final int[] tmpColumnOfKey = new int[tmpNumberOfBounds];
+                Arrays.fill(tmpColumnOfKey, -1);
+                for (int t = 0; t < tmpCountBounds; t++) {
+                    tmpColumnOfKey[tmpKeys[t]] = tmpRootColumns + t;
+                }
+                final Map<Integer, Integer> tmpColumnOfCut = new HashMap<>();
+                for (int t = tmpCountBounds; t < tmpCount; t++) {
+                    tmpColumnOfCut.put(tmpKeys[t], tmpRootColumns + t);
+                }
+                final IntUnaryOperator tmpColumnOf = key -> {
+                    if (key < tmpNumberOfBounds) {
+                        return tmpColumnOfKey[key];
+                    } else {
+                        return tmpColumnOfCut.getOrDefault(key, -1);
+                    }
+                };
+
+                final int[] tmpBasis = new int[tmpRootRows + tmpCount];
+                int tmpBasisSize = 0;
+
+                // The slack variables of new rows, and of root rows added after the parent was solved, are basic
+                final boolean[] tmpIncluded = new boolean[tmpColumns];
+                for (int j = Math.min(parent.myColumns, tmpRootColumns); j < tmpColumns; j++) {
+                    tmpIncluded[j] = true;
+                }
+                for (int k = 0; k < parent.myRows.length; k++) {
+                    final int tmpColumn = tmpColumnOf.applyAsInt(parent.myRows[k]);
+                    if (tmpColumn >= 0) {
+                        tmpIncluded[tmpColumn] = false;
+                    }
+                }
+                for (int j = 0; j < tmpColumns; j++) {
+                    if (tmpIncluded[j]) {
+                        tmpBasis[tmpBasisSize++] = j;
+                    }
+                }
+
+                for (int k = 0; (k < parent.myBasis.length) && (tmpBasisSize < tmpBasis.length); k++) {
+                    final int tmpKey = parent.myBasis[k];
+                    final int tmpColumn = tmpKey < parent.myColumns ? tmpKey : tmpColumnOf.applyAsInt(tmpKey - parent.myColumns);
+                    if ((tmpColumn >= 0) && !tmpIncluded[tmpColumn]) {
+                        tmpIncluded[tmpColumn] = true;
+                        tmpBasis[tmpBasisSize++] = tmpColumn;
+                    }
+                }
+
+                tmpSolver.setInitialBasis(Arrays.copyOf(tmpBasis, tmpBasisSize), parent.myUpper);
+            }
+
+            final Optimisation.Result tmpResult = tmpSolver.solve();
+
+            for (int i = 0; i < myFixedValues.length; i++) {
+                double tmpValue = myFixedValues[i];
+                if (myPositiveColumns[i] >= 0) {
+                    tmpValue += tmpResult.doubleValue(myPositiveColumns[i]);
+                }
+                if (myNegativeColumns[i] >= 0) {
+                    tmpValue -= tmpResult.doubleValue(myNegativeColumns[i]);
+                }
+                tmpSolution.set(i, tmpValue);
+            }
+
+            final int[] tmpBasis = tmpSolver.getBasicVariables();
+            for (int k = 0; k < tmpBasis.length; k++) {
+                if (tmpBasis[k] >= tmpRootColumns) {
+                    tmpBasis[k] = tmpRootColumns + tmpKeys[tmpBasis[k] - tmpRootColumns];
+                }
+            }
+
+            final double tmpValue = myObjective.invoke(tmpSolution);
+
+            final int[] tmpAtUpper = tmpSolver.getUpperVariables();
+
+            return new Solution(new Optimisation.Result(tmpResult.getState(), tmpValue, tmpSolution), Arrays.copyOf(tmpKeys, tmpCount), tmpBasis,
+                    tmpAtUpper, tmpRootColumns, tmpSolver.countIterations());
+        }
+
+        /**
+         * @param lower Lower bounds, one per branch variable
+         * @param upper Upper bounds, one per branch variable
+         * @param parent The solution of the parent node, or null to solve from scratch
+         */
+        public Relaxation.Solution solve(final int[] lower, final int[] upper, final Relaxation.Solution parent) {
+            return this.solve(lower, upper, null, parent);
+        }
+
+        /**
+         * Describe the cut as row number index: terms, (+1) slack coefficient and right hand side.
+         */
+        private void describe(final Cut cut, final int index, final int[] starts, final int[] terms, final double[] coefficients, final double[] slacks,
+                final double[] rhs) {
+            final int tmpStart = starts[index];
+            final int tmpCount = cut.count();
+            for (int k = 0; k < tmpCount; k++) {
+                terms[tmpStart + k] = cut.index(k);
+                coefficients[tmpStart + k] = cut.value(k);
+            }
+            starts[index + 1] = tmpStart + tmpCount;
+            slacks[index] = ONE;
+            rhs[index] = cut.getUpper();
+        }
+
+        /**
+         * Append rows to the root problem. Row r is <code>&Sigma; coefficients[k] * x[terms[k]] + slacks[r] * s
+         * = rhs[r]</code> (k from starts[r] to starts[r+1]) in model variables. Each row gets a new slack column,
+         * fixed variables are moved to the right hand side, and the row is negated if necessary to keep the
+         * right hand side non-negative. With no rows to append the root arrays are shared, not copied.
+         */
+        private Extended extend(final int count, final int[] starts, final int[] terms, final double[] coefficients, final double[] slacks,
+                final double[] rhs) {
+
+            if (count == 0) {
+                return new Extended(myPointers, myIndices, myValues, myRHS);
+            }
+
+            final int tmpRootRows = myNumberOfConstraints;
+            final int tmpRootColumns = myNumberOfVariables;
+            final int tmpColumns = tmpRootColumns + count;
+
+            final int[] tmpPointers = new int[tmpColumns + 1];
+            for (int j = 0; j < tmpRootColumns; j++) {
+                tmpPointers[j + 1] = myPointers[j + 1] - myPointers[j];
+            }
+            for (int r = 0; r < count; r++) {
+                for (int k = starts[r]; k < starts[r + 1]; k++) {
+                    if (myPositiveColumns[terms[k]] >= 0) {
+                        tmpPointers[myPositiveColumns[terms[k]] + 1]++;
+                    }
+                    if (myNegativeColumns[terms[k]] >= 0) {
+                        tmpPointers[myNegativeColumns[terms[k]] + 1]++;
+                    }
+                }
+                tmpPointers[tmpRootColumns + r + 1] = 1;
+            }
+            for (int j = 0; j < tmpColumns; j++) {
+                tmpPointers[j + 1] += tmpPointers[j];
+            }
+
+            final int[] tmpIndices = new int[tmpPointers[tmpColumns]];
+            final double[] tmpValues = new double[tmpIndices.length];
+            final int[] tmpNext = new int[tmpRootColumns];
+            for (int j = 0; j < tmpRootColumns; j++) {
+                final int tmpLength = myPointers[j + 1] - myPointers[j];
+                System.arraycopy(myIndices, myPointers[j], tmpIndices, tmpPointers[j], tmpLength);
+                System.arraycopy(myValues, myPointers[j], tmpValues, tmpPointers[j], tmpLength);
+                tmpNext[j] = tmpPointers[j] + tmpLength;
+            }
+
+            final double[] tmpRHS = Arrays.copyOf(myRHS, tmpRootRows + count);
+            for (int r = 0; r < count; r++) {
+
+                final int tmpRow = tmpRootRows + r;
+
+                double tmpBound = rhs[r];
+                for (int k = starts[r]; k < starts[r + 1]; k++) {
+                    tmpBound -= coefficients[k] * myFixedValues[terms[k]];
+                }
+                // Rows are negated when necessary to keep the right hand side non-negative
+                final double tmpSign = tmpBound < ZERO ? NEG : ONE;
+
+                for (int k = starts[r]; k < starts[r + 1]; k++) {
+                    final int tmpPositive = myPositiveColumns[terms[k]];
+                    if (tmpPositive >= 0) {
+                        tmpIndices[tmpNext[tmpPositive]] = tmpRow;
+                        tmpValues[tmpNext[tmpPositive]++] = tmpSign * coefficients[k];
+                    }
+                    final int tmpNegative = myNegativeColumns[terms[k]];
+                    if (tmpNegative >= 0) {
+                        tmpIndices[tmpNext[tmpNegative]] = tmpRow;
+                        tmpValues[tmpNext[tmpNegative]++] = -tmpSign * coefficients[k];
+                    }
+                }
+
+                tmpIndices[tmpPointers[tmpRootColumns + r]] = tmpRow;
+                tmpValues[tmpPointers[tmpRootColumns + r]] = tmpSign * slacks[r];
+
+                tmpRHS[tmpRow] = tmpSign * tmpBound;
+            }
+
+            return new Extended(tmpPointers, tmpIndices, tmpValues, tmpRHS);
+        }
+
+    }
+
+    /**
+     * Collects the LP standard form data, with the constraints body in a {@link SparseStore.Builder}, and
+     * then compresses it column-wise.
+     */
+    static final class StandardForm implements AlgorithmStore {
+
+        private final SparseStore.Builder<Double> myBody;
+        private final int myNumberOfConstraints;
+        private final int myNumberOfVariables;
+        private final double[] myObjective;
+        private final double[] myRHS;
+
+        StandardForm(final int numberOfConstraints, final int numberOfProblemVariables, final int numberOfSlackVariables) {
+
+            super();
+
+            myNumberOfConstraints = numberOfConstraints;
+            myNumberOfVariables = numberOfProblemVariables + numberOfSlackVariables;
+
+            myBody = SparseStore.builder(PrimitiveDenseStore.FACTORY, myNumberOfConstraints, myNumberOfVariables, myNumberOfVariables);
+            myObjective = new double[myNumberOfVariables];
+            myRHS = new double[myNumberOfConstraints];
+        }
+
+        public Mutate2D constraintsBody() {
+            return new Mutate2D() {
+
+                public void add(final long row, final long col, final double addend) {
+                    myBody.add(row, col, addend);
+                }
+
+                public void add(final long row, final long col, final Number addend) {
+                    myBody.add(row, col, addend);
+                }
+
+                public long countColumns() {
+                    return myNumberOfVariables;
+                }
+
+                public long countRows() {
+                    return myNumberOfConstraints;
+                }
+
+                public void set(final long row, final long col, final double value) {
+                    myBody.set(row, col, value);
+                }
+
+                public void set(final long row, final long col, final Number value) {
+                    myBody.set(row, col, value);
+                }
+
+            };
+        }
+
+        public Mutate1D constraintsRHS() {
+            return StandardForm.wrap(myRHS);
+        }
+
+        public Mutate1D objective() {
+            return StandardForm.wrap(myObjective);
+        }
+
+        private static Mutate1D wrap(final double[] array) {
+            return new Mutate1D() {
+
+                public void add(final long index, final double addend) {
+                    array[(int) index] += addend;
+                }
+
+                public void add(final long index, final Number addend) {
+                    this.add(index, addend.doubleValue());
+                }
+
+                public long count() {
+                    return array.length;
+                }
+
+                public void set(final long index, final double value) {
+                    array[(int) index] = value;
+                }
+
+                public void set(final long index, final Number value) {
+                    this.set(index, value.doubleValue());
+                }
+
+            };
+        }
+
+        PrimitiveCSC compress() {
+            final PrimitiveCSC retVal = PrimitiveCSC.make(myBody.make());
+            myBody.reset();
+            return retVal;
+        }
+
+    }
+
+    /**
+     * The number of basis updates (iterations) between refactorisations
+     */
+    public static int REFACTORISATION_INTERVAL = 100;
+
+    /**
+     * Returned by {@link #ratio()} when the entering variable reaches its opposite bound before any basic
+     * variable reaches one of its bounds - the iteration is a bound flip, and the basis does not change.
+     */
+    static final int BOUND_FLIP = -2;
+
+    /**
+     * Switch to Bland's rule after this many consecutive degenerate iterations
+     */
+    static final int DEGENERATE_LIMIT = 50;
+
+    static final double PIVOT_TOLERANCE = 1E-9;
+
+    private final double[] myAlpha;
+    /**
+     * Nonbasic variables at their upper bound (rather than at their lower bound)
+     */
+    private final boolean[] myAtUpper;
+    /**
+     * Variable index (structural variables 0..n-1, artificial variables n+i) of the basic variable at each
+     * position. A basic artificial variable n+i always sits at position i.
+     */
+    private final int[] myBasis;
+    private boolean myBland = false;
+    private final double[] myCost;
+    private int myDegenerateCount = 0;
+    /**
+     * 1 if the entering variable increases from its lower bound, -1 if it decreases from its upper bound
+     */
+    private double myDirection = ONE;
+    private int myEntering = -1;
+    private final MarkowitzLU myFactor;
+    private final int[] myIndices;
+    private final ProductForm myInverse;
+    private int myLeaving = -1;
+    /**
+     * The leaving variable becomes nonbasic at its upper bound
+     */
+    private boolean myLeavingAtUpper = false;
+    private final double[] myLower;
+    private final int myNumberOfConstraints;
+    private final int myNumberOfVariables;
+    private boolean myPhase1 = true;
+    private final int[] myPointers;
+    /**
+     * The basis position of each variable, or -1 if not basic
+     */
+    private final int[] myPositions;
+    private final double[] myRHS;
+    /**
+     * The artificial variable of row i has the column mySigns[i] * e<sub>i</sub>, chosen so that its (initial)
+     * value is non-negative
+     */
+    private final double[] mySigns;
+    /**
+     * The change of the entering variable's value
+     */
+    private double myStep = ZERO;
+    private int myUpdates = 0;
+    private final double[] myUpper;
+    private final double[] myValues;
+    /**
+     * Variables (column indices) that should make up the initial basis, or null for a cold start
+     */
+    private int[] myWarmStart = null;
+    /**
+     * Nonbasic variables (column indices) that should initially be at their upper bounds
+     */
+    private int[] myWarmStartUpper = null;
+    private final double[] myX;
+    private final double[] myY;
+
+    RevisedSimplexSolver(final int[] pointers, final int[] indices, final double[] values, final double[] cost, final double[] rhs,
+            final Optimisation.Options solverOptions) {
+
+        super(solverOptions);
+
+        myNumberOfConstraints = rhs.length;
+        myNumberOfVariables = cost.length;
+
+        myPointers = pointers;
+        myIndices = indices;
+        myValues = values;
+
+        myCost = cost;
+        myRHS = rhs;
+
+        myLower = new double[myNumberOfVariables];
+        myUpper = new double[myNumberOfVariables];
+        Arrays.fill(myUpper, POSITIVE_INFINITY);
+        myAtUpper = new boolean[myNumberOfVariables];
+
+        myBasis = new int[myNumberOfConstraints];
+        myPositions = new int[myNumberOfVariables + myNumberOfConstraints];
+        mySigns = new double[myNumberOfConstraints];
+        Arrays.fill(mySigns, ONE);
+
+        myFactor = new MarkowitzLU(pointers, indices, values, myNumberOfConstraints);
+        myInverse = new ProductForm(myNumberOfConstraints);
+
+        myX = new double[myNumberOfConstraints];
+        myY = new double[myNumberOfConstraints];
+        myAlpha = new double[myNumberOfConstraints];
+    }
+
+    RevisedSimplexSolver(final PrimitiveCSC body, final double[] cost, final double[] rhs, final Optimisation.Options solverOptions) {
+        this(body.getPointers(), body.getIndices(), body.getValues(), cost, rhs, solverOptions);
+    }
+
+    RevisedSimplexSolver(final StandardForm problem, final Optimisation.Options solverOptions) {
+        this(problem.compress(), problem.myObjective, problem.myRHS, solverOptions);
+    }
+
+    public Result solve(final Result kickStarter) {
+
+        this.resetIterationsCount();
+
+        if ((myWarmStart == null) || !this.warmStart()) {
+            this.coldStart();
+        }
+
+        if (!this.getState().isFailure()) {
+            while (this.needsAnotherIteration()) {
+
+                this.performIteration();
+
+                this.incrementIterationsCount();
+            }
+        }
+
+        return this.buildResult();
+    }
+
+    /**
+     * vector<sup>T</sup> = vector<sup>T</sup> B<sup>-1</sup> (in place)
+     */
+    private void btran(final double[] vector) {
+        myInverse.btran(vector);
+        myFactor.btran(vector);
+    }
+
+    /**
+     * Reset to the all-artificial basis, with all structural variables at their lower bounds, and phase 1.
+     */
+    private void coldStart() {
+
+        Arrays.fill(myAtUpper, false);
+
+        Arrays.fill(myPositions, -1);
+        for (int i = 0; i < myNumberOfConstraints; i++) {
+            myBasis[i] = myNumberOfVariables + i;
+            myPositions[myNumberOfVariables + i] = i;
+        }
+
+        myFactor.reset();
+        myInverse.reset();
+        this.calculateBasicValues();
+
+        // The artificial variables' columns are signed to make their initial values non-negative
+        for (int i = 0; i < myNumberOfConstraints; i++) {
+            mySigns[i] = myX[i] < ZERO ? NEG : ONE;
+        }
+        this.refactorise(new int[0], 0, new boolean[myNumberOfConstraints]);
+
+        myPhase1 = true;
+        myBland = false;
+        myDegenerateCount = 0;
+
+        this.logProgress("Cold start");
+    }
+
+    /**
+     * Pivot (zero level) artificial variables out of the basis, replacing them with structural variables. An
+     * artificial variable that can't be replaced corresponds to a redundant constraint.
+     */
+    private void driveOutArtificials() {
+
+        final double[] tmpRho = new double[myNumberOfConstraints];
+
+        for (int i = 0; i < myNumberOfConstraints; i++) {
+            if (this.isArtificial(myBasis[i])) {
+
+                Arrays.fill(tmpRho, ZERO);
+                tmpRho[i] = ONE;
+                this.btran(tmpRho);
+
+                myEntering = -1;
+                double tmpLargest = PIVOT_TOLERANCE * 1_000;
+                for (int j = 0; j < myNumberOfVariables; j++) {
+                    if (myPositions[j] < 0) {
+                        double tmpValue = ZERO;
+                        for (int p = myPointers[j], limit = myPointers[j + 1]; p < limit; p++) {
+                            tmpValue += tmpRho[myIndices[p]] * myValues[p];
+                        }
+                        if (Math.abs(tmpValue) > tmpLargest) {
+                            myEntering = j;
+                            tmpLargest = Math.abs(tmpValue);
+                        }
+                    }
+                }
+
+                if (myEntering >= 0) {
+                    this.calculateColumn(myEntering);
+                    this.pivot(i, myX[i] / myAlpha[i], false, false);
+                }
+            }
+        }
+    }
+
+    /**
+     * vector = B<sup>-1</sup> vector (in place)
+     */
+    private void ftran(final double[] vector) {
+        myFactor.ftran(vector);
+        myInverse.ftran(vector);
+    }
+
+    /**
+     * @return The lower bound of the (basic) variable
+     */
+    private double getLower(final int variable) {
+        return this.isArtificial(variable) ? ZERO : myLower[variable];
+    }
+
+    /**
+     * @return The value of the nonbasic (structural) variable - its lower or upper bound
+     */
+    private double getNonbasicValue(final int variable) {
+        return myAtUpper[variable] ? myUpper[variable] : myLower[variable];
+    }
+
+    /**
+     * @return The upper bound of the (basic) variable - artificial variables must be zero in phase 2
+     */
+    private double getUpper(final int variable) {
+        if (this.isArtificial(variable)) {
+            return myPhase1 ? POSITIVE_INFINITY : ZERO;
+        } else {
+            return myUpper[variable];
+        }
+    }
+
+    private boolean isArtificial(final int variable) {
+        return variable >= myNumberOfVariables;
+    }
+
+    /**
+     * In phase 1 basic artificial variables must not be negative, and in phase 2 they must be zero. That
+     * always holds for the simplex iterations themselves, but not necessarily after a singular basis has
+     * been repaired with artificial variables.
+     */
+    private boolean isArtificialFeasible() {
+
+        final double tmpFeasibility = options.feasibility.epsilon();
+
+        for (int i = 0; i < myNumberOfConstraints; i++) {
+            if (this.isArtificial(myBasis[i])) {
+                final double tmpValue = myX[i];
+                if ((tmpValue < -tmpFeasibility) || (!myPhase1 && (tmpValue > tmpFeasibility))) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private void logProgress(final String message) {
+        if (this.isDebug()) {
+            this.log("{} Phase={} Iterations={} Etas={} Objective={}", message, myPhase1 ? 1 : 2, this.countIterations(), myInverse.count(),
+                    this.evaluateFunction(null));
+        }
+    }
+
+    /**
+     * Dual simplex iterations, starting from a dual feasible basis, until the basis is also primal feasible
+     * (optimal) or the problem is found to be infeasible. Dantzig's rule (the basic variable furthest outside
+     * its bounds) picks the leaving variable, and a two-pass (Harris) ratio test the entering.
+     *
+     * @return false if the iterations were abandoned - a cold start is needed
+     */
+    private boolean iterateDual() {
+
+        final double tmpFeasibility = options.feasibility.epsilon();
+        final int tmpLimit = DEGENERATE_LIMIT + (2 * (myNumberOfConstraints + myNumberOfVariables));
+
+        final double[] tmpRho = new double[myNumberOfConstraints];
+        final double[] tmpRow = new double[myNumberOfVariables];
+        final double[] tmpReducedCosts = new double[myNumberOfVariables];
+
+        for (int k = 0; k < tmpLimit; k++) {
+
+            int tmpLeaving = -1;
+            boolean tmpToUpper = false;
+            double tmpLargestInfeasibility = tmpFeasibility;
+            for (int i = 0; i < myNumberOfConstraints; i++) {
+                final int tmpVariable = myBasis[i];
+                if (!this.isArtificial(tmpVariable)) {
+                    final double tmpBelow = myLower[tmpVariable] - myX[i];
+                    final double tmpAbove = myX[i] - myUpper[tmpVariable];
+                    if (tmpBelow > tmpLargestInfeasibility) {
+                        tmpLeaving = i;
+                        tmpToUpper = false;
+                        tmpLargestInfeasibility = tmpBelow;
+                    } else if (tmpAbove > tmpLargestInfeasibility) {
+                        tmpLeaving = i;
+                        tmpToUpper = true;
+                        tmpLargestInfeasibility = tmpAbove;
+                    }
+                }
+            }
+
+            if (tmpLeaving < 0) {
+                this.logProgress("Primal feasible");
+                return true;
+            }
+
+            if (!this.isIterationAllowed()) {
+                return false;
+            }
+
+            this.calculateDuals(false);
+
+            Arrays.fill(tmpRho, ZERO);
+            tmpRho[tmpLeaving] = ONE;
+            this.btran(tmpRho);
+
+            // The leaving variable moves towards the violated bound, the entering away from its current bound
+            final double tmpSign = tmpToUpper ? ONE : NEG;
+
+            double tmpBound = MACHINE_LARGEST;
+            for (int j = 0; j < myNumberOfVariables; j++) {
+                if ((myPositions[j] < 0) && (myUpper[j] > myLower[j])) {
+
+                    double tmpValue = ZERO;
+                    double tmpReducedCost = myCost[j];
+                    for (int p = myPointers[j], limit = myPointers[j + 1]; p < limit; p++) {
+                        tmpValue += tmpRho[myIndices[p]] * myValues[p];
+                        tmpReducedCost -= myY[myIndices[p]] * myValues[p];
+                    }
+
+                    if (myAtUpper[j]) {
+                        tmpRow[j] = -tmpSign * tmpValue;
+                        tmpReducedCosts[j] = Math.max(-tmpReducedCost, ZERO);
+                    } else {
+                        tmpRow[j] = tmpSign * tmpValue;
+                        tmpReducedCosts[j] = Math.max(tmpReducedCost, ZERO);
+                    }
+
+                    if (tmpRow[j] > PIVOT_TOLERANCE) {
+                        tmpBound = Math.min(tmpBound, (tmpReducedCosts[j] + tmpFeasibility) / tmpRow[j]);
+                    }
+
+                } else {
+                    tmpRow[j] = ZERO;
+                }
+            }
+
+            myEntering = -1;
+            double tmpLargest = ZERO;
+            for (int j = 0; j < myNumberOfVariables; j++) {
+                final double tmpValue = tmpRow[j];
+                if ((tmpValue > PIVOT_TOLERANCE) && ((tmpReducedCosts[j] / tmpValue) <= tmpBound) && (tmpValue > tmpLargest)) {
+                    myEntering = j;
+                    tmpLargest = tmpValue;
+                }
+            }
+
+            if (myEntering < 0) {
+                this.logProgress("Infeasible");
+                this.setState(State.INFEASIBLE);
+                return true;
+            }
+
+            this.calculateColumn(myEntering);
+
+            final double tmpPivot = myAlpha[tmpLeaving];
+            final double tmpExpected = myAtUpper[myEntering] ? -tmpSign * tmpRow[myEntering] : tmpSign * tmpRow[myEntering];
+            if ((Math.abs(tmpPivot) <= PIVOT_TOLERANCE) || ((tmpPivot * tmpExpected) <= ZERO)) {
+                // Numerical trouble - the updated column does not match the pivot row
+                return false;
+            }
+            for (int i = 0; i < myNumberOfConstraints; i++) {
+                if (this.isArtificial(myBasis[i]) && (Math.abs(myAlpha[i]) > PIVOT_TOLERANCE)) {
+                    // Would move an artificial variable away from zero
+                    return false;
+                }
+            }
+
+            final int tmpVariable = myBasis[tmpLeaving];
+            final double tmpTarget = tmpToUpper ? myUpper[tmpVariable] : myLower[tmpVariable];
+
+            this.pivot(tmpLeaving, (myX[tmpLeaving] - tmpTarget) / tmpPivot, tmpToUpper, false);
+
+            this.incrementIterationsCount();
+        }
+
+        return false;
+    }
+
+    /**
+     * Dantzig's rule (the largest reduced cost) or, when cycling is suspected, Bland's rule (the first
+     * eligible variable). A variable at its lower bound is eligible if its reduced cost is negative, and a
+     * variable at its upper bound if it is positive. Sets the entering variable's direction.
+     *
+     * @return The index of the entering variable, or -1 if the current basis is optimal (for the current
+     *         phase).
+     */
+    private int price() {
+
+        this.calculateDuals(myPhase1);
+
+        final double tmpTolerance = options.feasibility.epsilon();
+
+        int retVal = -1;
+        double tmpLargest = tmpTolerance;
+
+        for (int j = 0; j < myNumberOfVariables; j++) {
+            if ((myPositions[j] < 0) && (myUpper[j] > myLower[j])) {
+
+                double tmpReducedCost = myPhase1 ? ZERO : myCost[j];
+                for (int p = myPointers[j], limit = myPointers[j + 1]; p < limit; p++) {
+                    tmpReducedCost -= myY[myIndices[p]] * myValues[p];
+                }
+
+                final double tmpImprovement = myAtUpper[j] ? tmpReducedCost : -tmpReducedCost;
+
+                if (tmpImprovement > tmpLargest) {
+                    retVal = j;
+                    myDirection = myAtUpper[j] ? NEG : ONE;
+                    if (myBland) {
+                        break;
+                    }
+                    tmpLargest = tmpImprovement;
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Harris' two-pass ratio test. The basic variables change by -step * alpha, where the step has the sign
+     * of the entering variable's direction. Sets the step and how the leaving variable leaves.
+     *
+     * @return The leaving basis position, {@link #BOUND_FLIP}, or -1 if unbounded.
+     */
+    private int ratio() {
+
+        final double tmpFeasibility = options.feasibility.epsilon();
+
+        final double tmpRange = myUpper[myEntering] - myLower[myEntering];
+
+        double tmpBound = tmpRange;
+        for (int i = 0; i < myNumberOfConstraints; i++) {
+            final int tmpVariable = myBasis[i];
+            final double tmpAlpha = myDirection * myAlpha[i];
+            if (!myPhase1 && this.isArtificial(tmpVariable) && (Math.abs(tmpAlpha) > PIVOT_TOLERANCE)) {
+                // Phase 2 with an artificial variable (at zero level) still in the basis - drive it out
+                tmpBound = ZERO;
+            } else if (tmpAlpha > PIVOT_TOLERANCE) {
+                tmpBound = Math.min(tmpBound, (Math.max(myX[i] - this.getLower(tmpVariable), ZERO) + tmpFeasibility) / tmpAlpha);
+            } else if ((tmpAlpha < -PIVOT_TOLERANCE) && (this.getUpper(tmpVariable) < POSITIVE_INFINITY)) {
+                tmpBound = Math.min(tmpBound, (Math.max(this.getUpper(tmpVariable) - myX[i], ZERO) + tmpFeasibility) / -tmpAlpha);
+            }
+        }
+
+        int retVal = -1;
+        double tmpLargest = ZERO;
+        int tmpSmallestVariable = Integer.MAX_VALUE;
+
+        for (int i = 0; i < myNumberOfConstraints; i++) {
+
+            final int tmpVariable = myBasis[i];
+            final double tmpAlpha = myDirection * myAlpha[i];
+
+            final double tmpRatio;
+            if (!myPhase1 && this.isArtificial(tmpVariable) && (Math.abs(tmpAlpha) > PIVOT_TOLERANCE)) {
+                tmpRatio = ZERO;
+            } else if (tmpAlpha > PIVOT_TOLERANCE) {
+                tmpRatio = Math.max(myX[i] - this.getLower(tmpVariable), ZERO) / tmpAlpha;
+            } else if ((tmpAlpha < -PIVOT_TOLERANCE) && (this.getUpper(tmpVariable) < POSITIVE_INFINITY)) {
+                tmpRatio = Math.max(this.getUpper(tmpVariable) - myX[i], ZERO) / -tmpAlpha;
+            } else {
+                continue;
+            }
+
+            if (tmpRatio <= tmpBound) {
+                if (myBland) {
+                    if (tmpVariable < tmpSmallestVariable) {
+                        retVal = i;
+                        tmpSmallestVariable = tmpVariable;
+                        myStep = myDirection * tmpRatio;
+                        myLeavingAtUpper = tmpAlpha < ZERO;
+                    }
+                } else if (Math.abs(tmpAlpha) > tmpLargest) {
+                    retVal = i;
+                    tmpLargest = Math.abs(tmpAlpha);
+                    myStep = myDirection * tmpRatio;
+                    myLeavingAtUpper = tmpAlpha < ZERO;
+                }
+            }
+        }
+
+        if ((retVal < 0) && (tmpRange < POSITIVE_INFINITY)) {
+            myStep = myDirection * tmpRange;
+            retVal = BOUND_FLIP;
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Refactorise using the warm start basis, and then (when necessary) restore primal feasibility with dual
+     * simplex iterations. This works as long as the basis is dual feasible (optimal for a problem that only
+     * differed in the right hand side or the variable bounds) or already primal feasible.
+     *
+     * @return false if the warm start basis could not be used
+     */
+    private boolean warmStart() {
+
+        final int[] tmpVariables = myWarmStart;
+        myWarmStart = null;
+
+        Arrays.fill(myAtUpper, false);
+        if (myWarmStartUpper != null) {
+            for (final int tmpVariable : myWarmStartUpper) {
+                myAtUpper[tmpVariable] = myUpper[tmpVariable] < POSITIVE_INFINITY;
+            }
+            myWarmStartUpper = null;
+        }
+
+        final boolean[] tmpAvailable = new boolean[myNumberOfConstraints];
+        Arrays.fill(tmpAvailable, true);
+
+        myPhase1 = true;
+        this.refactorise(tmpVariables, Math.min(tmpVariables.length, myNumberOfConstraints), tmpAvailable);
+        this.driveOutArtificials();
+
+        final double tmpFeasibility = options.feasibility.epsilon();
+
+        boolean tmpPrimalFeasible = true;
+        for (int i = 0; i < myNumberOfConstraints; i++) {
+            final int tmpVariable = myBasis[i];
+            if (this.isArtificial(tmpVariable)) {
+                if (Math.abs(myX[i]) > tmpFeasibility) {
+                    return false;
+                }
+            } else if ((myX[i] < (myLower[tmpVariable] - tmpFeasibility)) || (myX[i] > (myUpper[tmpVariable] + tmpFeasibility))) {
+                tmpPrimalFeasible = false;
+            }
+        }
+
+        myPhase1 = false;
+        myBland = false;
+        myDegenerateCount = 0;
+
+        if (tmpPrimalFeasible) {
+            this.logProgress("Warm start - primal feasible");
+            return true;
+        } else if (this.price() < 0) {
+            this.logProgress("Warm start - dual feasible");
+            return this.iterateDual();
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    protected Result buildResult() {
+
+        this.calculateDuals(false);
+
+        return super.buildResult().multipliers(Access1D.wrap(myY.clone()));
+    }
+
+    @Override
+    protected double evaluateFunction(final Access1D<?> solution) {
+        double retVal = ZERO;
+        for (int j = 0; j < myNumberOfVariables; j++) {
+            if (myPositions[j] < 0) {
+                retVal += myCost[j] * this.getNonbasicValue(j);
+            }
+        }
+        for (int i = 0; i < myNumberOfConstraints; i++) {
+            final int tmpVariable = myBasis[i];
+            if (!this.isArtificial(tmpVariable)) {
+                retVal += myCost[tmpVariable] * myX[i];
+            }
+        }
+        return retVal;
+    }
+
+    @Override
+    protected PhysicalStore<Double> extractSolution() {
+
+        final PrimitiveDenseStore retVal = PrimitiveDenseStore.FACTORY.makeZero(myNumberOfVariables, 1);
+
+        for (int j = 0; j < myNumberOfVariables; j++) {
+            if (myPositions[j] < 0) {
+                retVal.set(j, this.getNonbasicValue(j));
+            }
+        }
+        // Basic variables within the feasibility tolerance of a bound are set to that bound
+        final double tmpFeasibility = options.feasibility.epsilon();
+
+        for (int i = 0; i < myNumberOfConstraints; i++) {
+            final int tmpVariable = myBasis[i];
+            if (!this.isArtificial(tmpVariable)) {
+                final double tmpValue = myX[i];
+                if ((tmpValue - myLower[tmpVariable]) <= tmpFeasibility) {
+                    retVal.set(tmpVariable, myLower[tmpVariable]);
+                } else if ((myUpper[tmpVariable] - tmpValue) <= tmpFeasibility) {
+                    retVal.set(tmpVariable, myUpper[tmpVariable]);
+                } else {
+                    retVal.set(tmpVariable, tmpValue);
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    @Override
+    protected boolean initialise(final Result kickStarter) {
+        return false;
+    }
+
+    @Override
+    protected boolean needsAnotherIteration() {
+
+        myEntering = -1;
+        myLeaving = -1;
+
+        if (!this.isIterationAllowed()) {
+            this.setState(myPhase1 ? State.FAILED : State.FEASIBLE);
+            return false;
+        }
+
+        if (!this.isArtificialFeasible()) {
+            // A singular basis was repaired with artificial variables that are not at a feasible level
+            this.coldStart();
+        }
+
+        myEntering = this.price();
+
+        if (myPhase1 && (myEntering < 0)) {
+
+            double tmpInfeasibility = ZERO;
+            for (int i = 0; i < myNumberOfConstraints; i++) {
+                if (this.isArtificial(myBasis[i])) {
+                    tmpInfeasibility += myX[i];
+                }
+            }
+
+            if (!options.feasibility.isZero(tmpInfeasibility)) {
+                this.logProgress("Infeasible");
+                this.setState(State.INFEASIBLE);
+                return false;
+            }
+
+            this.logProgress("Switching to phase 2");
+            this.driveOutArtificials();
+            myPhase1 = false;
+            myBland = false;
+            myDegenerateCount = 0;
+
+            myEntering = this.price();
+        }
+
+        if (myEntering < 0) {
+            this.logProgress("Optimal");
+            this.setState(State.OPTIMAL);
+            return false;
+        }
+
+        this.calculateColumn(myEntering);
+
+        myLeaving = this.ratio();
+
+        if (myLeaving == -1) {
+            this.logProgress("Unbounded");
+            this.setState(myPhase1 ? State.INFEASIBLE : State.UNBOUNDED);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * x<sub>B</sub> = B<sup>-1</sup> (b - N x<sub>N</sub>) - with the nonbasic variables at their bounds
+     */
+    void calculateBasicValues() {
+        System.arraycopy(myRHS, 0, myX, 0, myNumberOfConstraints);
+        for (int j = 0; j < myNumberOfVariables; j++) {
+            if (myPositions[j] < 0) {
+                final double tmpValue = this.getNonbasicValue(j);
+                if (tmpValue != ZERO) {
+                    for (int p = myPointers[j], limit = myPointers[j + 1]; p < limit; p++) {
+                        myX[myIndices[p]] -= myValues[p] * tmpValue;
+                    }
+                }
+            }
+        }
+        this.ftran(myX);
+    }
+
+    /**
+     * alpha = B<sup>-1</sup> A<sub>j</sub>
+     */
+    void calculateColumn(final int variable) {
+        Arrays.fill(myAlpha, ZERO);
+        for (int p = myPointers[variable], limit = myPointers[variable + 1]; p < limit; p++) {
+            myAlpha[myIndices[p]] = myValues[p];
+        }
+        this.ftran(myAlpha);
+    }
+
+    /**
+     * y<sup>T</sup> = c<sub>B</sub><sup>T</sup> B<sup>-1</sup> - the phase 1 costs are 1 for the artificial
+     * variables and 0 for everything else.
+     */
+    void calculateDuals(final boolean phase1) {
+        for (int i = 0; i < myNumberOfConstraints; i++) {
+            final int tmpVariable = myBasis[i];
+            if (this.isArtificial(tmpVariable)) {
+                myY[i] = phase1 ? ONE : ZERO;
+            } else {
+                myY[i] = phase1 ? ZERO : myCost[tmpVariable];
+            }
+        }
+        this.btran(myY);
+    }
+
+    /**
+     * Row position of the simplex tableau, B<sup>-1</sup>A, calculated as (e<sub>i</sub><sup>T</sup>
+     * B<sup>-1</sup>) A.
+     */
+    void calculateTableauRow(final int position, final double[] row) {
+
+        final double[] tmpRho = new double[myNumberOfConstraints];
+        tmpRho[position] = ONE;
+        this.btran(tmpRho);
+
+        for (int j = 0; j < myNumberOfVariables; j++) {
+            double tmpValue = ZERO;
+            for (int p = myPointers[j], limit = myPointers[j + 1]; p < limit; p++) {
+                tmpValue += tmpRho[myIndices[p]] * myValues[p];
+            }
+            row[j] = tmpValue;
+        }
+    }
+
+    /**
+     * @return The value of the basic variable at position
+     */
+    double getBasicValue(final int position) {
+        return myX[position];
+    }
+
+    /**
+     * @return The variable (column index) at position of the basis - artificial if not less than the number
+     *         of columns
+     */
+    int getBasicVariable(final int position) {
+        return myBasis[position];
+    }
+
+    /**
+     * @return The variables (column indices) currently in the basis, excluding any artificial variables
+     */
+    int[] getBasicVariables() {
+        int tmpCount = 0;
+        final int[] retVal = new int[myNumberOfConstraints];
+        for (int i = 0; i < myNumberOfConstraints; i++) {
+            if (!this.isArtificial(myBasis[i])) {
+                retVal[tmpCount++] = myBasis[i];
+            }
+        }
+        return Arrays.copyOf(retVal, tmpCount);
+    }
+
+    /**
+     * @return The nonbasic variables (column indices) currently at their upper bounds
+     */
+    int[] getUpperVariables() {
+        int tmpCount = 0;
+        final int[] retVal = new int[myNumberOfVariables];
+        for (int j = 0; j < myNumberOfVariables; j++) {
+            if ((myPositions[j] < 0) && myAtUpper[j]) {
+                retVal[tmpCount++] = j;
+            }
+        }
+        return Arrays.copyOf(retVal, tmpCount);
+    }
+
+    /**
+     * Either pivot the entering variable into the basis at the leaving position, or flip it to its opposite
+     * bound (primal simplex).
+     */
+    void performIteration() {
+
+        final double tmpStep = myStep;
+
+        if (tmpStep == ZERO) {
+            if (++myDegenerateCount >= DEGENERATE_LIMIT) {
+                myBland = true;
+            }
+        } else {
+            myDegenerateCount = 0;
+            myBland = false;
+        }
+
+        if (myLeaving == BOUND_FLIP) {
+            this.update(tmpStep, true);
+            myAtUpper[myEntering] = !myAtUpper[myEntering];
+        } else {
+            this.pivot(myLeaving, tmpStep, myLeavingAtUpper, true);
+        }
+    }
+
+    /**
+     * Update the basic variable values, replace the basic variable at position with the entering variable,
+     * and update the basis inverse. Expects {@link #calculateColumn(int)} to have been called for the entering
+     * variable.
+     *
+     * @param step The change of the entering variable's value
+     * @param leavingAtUpper The leaving variable becomes nonbasic at its upper (rather than lower) bound
+     * @param primal Primal feasibility is maintained, small bound violations are truncated
+     */
+    void pivot(final int position, final double step, final boolean leavingAtUpper, final boolean primal) {
+
+        final double tmpValue = this.getNonbasicValue(myEntering) + step;
+
+        this.update(step, primal);
+        myX[position] = tmpValue;
+
+        final int tmpLeaving = myBasis[position];
+        myPositions[tmpLeaving] = -1;
+        if (!this.isArtificial(tmpLeaving)) {
+            myAtUpper[tmpLeaving] = leavingAtUpper;
+        }
+        myBasis[position] = myEntering;
+        myPositions[myEntering] = position;
+        myAtUpper[myEntering] = false;
+
+        if (++myUpdates >= REFACTORISATION_INTERVAL) {
+            this.refactorise();
+        } else {
+            myInverse.append(position, myAlpha);
+        }
+    }
+
+    /**
+     * Recreate the basis factorisation from scratch, then recalculate the basic variable values.
+     */
+    void refactorise() {
+
+        final int tmpDim = myNumberOfConstraints;
+
+        // The positions not held by artificial variables, structural basic variables may pivot there
+        final boolean[] tmpAvailable = new boolean[tmpDim];
+        int tmpCount = 0;
+        final int[] tmpColumns = new int[tmpDim];
+        for (int i = 0; i < tmpDim; i++) {
+            final int tmpVariable = myBasis[i];
+            if (!this.isArtificial(tmpVariable)) {
+                tmpAvailable[i] = true;
+                tmpColumns[tmpCount++] = tmpVariable;
+            }
+        }
+
+        this.refactorise(tmpColumns, tmpCount, tmpAvailable);
+    }
+
+    /**
+     * If the basis is (numerically) singular some of the variables are replaced by artificial variables.
+     * Those are not necessarily at zero level, which is checked by {@link #needsAnotherIteration()}.
+     *
+     * @param columns The (structural) variables to make up the new basis
+     * @param count The number of variables
+     * @param available The positions those variables may pivot on - all other positions are given to
+     *        artificial variables
+     */
+    void refactorise(final int[] columns, final int count, final boolean[] available) {
+
+        myInverse.reset();
+        myUpdates = 0;
+
+        final int tmpDropped = myFactor.decompose(columns, count, available, mySigns, myBasis);
+
+        Arrays.fill(myPositions, -1);
+        for (int i = 0; i < myNumberOfConstraints; i++) {
+            myPositions[myBasis[i]] = i;
+        }
+
+        this.calculateBasicValues();
+
+        if (this.isDebug()) {
+            this.log("Refactorised with {} nonzeros, {} variables dropped from a singular basis", myFactor.countNonzeros(), tmpDropped);
+        }
+    }
+
+    /**
+     * Set the bounds of a (structural) variable. Without this all variables are non-negative and have no
+     * upper bound.
+     */
+    void setBounds(final int variable, final double lower, final double upper) {
+        myLower[variable] = lower;
+        myUpper[variable] = upper;
+    }
+
+    /**
+     * Set the variables (column indices) that should make up the initial basis. If that basis can't be used
+     * the solver falls back to a cold start.
+     */
+    void setInitialBasis(final int[] variables) {
+        this.setInitialBasis(variables, null);
+    }
+
+    /**
+     * @param variables The variables (column indices) that should make up the initial basis
+     * @param upper The nonbasic variables that should initially be at their upper bounds (rather than at
+     *        their lower bounds), or null
+     */
+    void setInitialBasis(final int[] variables, final int[] upper) {
+        myWarmStart = variables;
+        myWarmStartUpper = upper;
+    }
+
+    /**
+     * x<sub>B</sub> = x<sub>B</sub> - step * alpha
+     *
+     * @param primal Primal feasibility is maintained, small bound violations are truncated
+     */
+    void update(final double step, final boolean primal) {
+        for (int i = 0; i < myNumberOfConstraints; i++) {
+            final double tmpAlpha = myAlpha[i];
+            if (tmpAlpha != ZERO) {
+                final double tmpValue = myX[i] - (step * tmpAlpha);
+                if (primal) {
+                    final int tmpVariable = myBasis[i];
+                    myX[i] = Math.min(Math.max(tmpValue, this.getLower(tmpVariable)), this.getUpper(tmpVariable));
+                } else {
+                    myX[i] = tmpValue;
+                }
+            }
+        }
+    }
+
+}
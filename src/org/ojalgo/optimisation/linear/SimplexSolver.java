@@ -78,17 +78,38 @@ import org.ojalgo.type.context.NumberContext;
  */
 public final class SimplexSolver extends LinearSolver {
 
+    /**
+     * The LP standard form data: objective, constraints body and (nonnegative) right hand side. The artificial
+     * variables, one per constraint, are implicit.
+     */
     interface AlgorithmStore {
 
+        @FunctionalInterface
+        interface Factory<AS extends AlgorithmStore> {
+
+            AS make(int numberOfConstraints, int numberOfProblemVariables, int numberOfSlackVariables);
+
+        }
+
+        Mutate2D constraintsBody();
+
+        Mutate1D constraintsRHS();
+
+        Mutate1D objective();
+
     }
 
     static SimplexTableau build(final ConvexSolver.Builder convex) {
+        return SimplexSolver.build(convex, SimplexTableau::make);
+    }
+
+    static <AS extends AlgorithmStore> AS build(final ConvexSolver.Builder convex, final AlgorithmStore.Factory<AS> factory) {
 
         final int numbVars = convex.countVariables();
         final int numbEqus = convex.countEqualityConstraints();
         final int numbInes = convex.countInequalityConstraints();
 
-        final SimplexTableau retVal = SimplexTableau.make(numbEqus + numbInes, numbVars + numbVars, numbInes);
+        final AS retVal = factory.make(numbEqus + numbInes, numbVars + numbVars, numbInes);
 
         final Mutate1D obj = retVal.objective();
 
@@ -136,6 +157,20 @@ public final class SimplexSolver extends LinearSolver {
 
     static SimplexTableau build(final ExpressionsBasedModel model) {
 
+        final SimplexTableau retVal = SimplexSolver.build(model, SimplexTableau::make);
+
+        //        BasicLogger.DEBUG.printmtrx("Sparse", retVal);
+        //        BasicLogger.DEBUG.printmtrx("Dense", retVal.toDense());
+
+        if (retVal.getOvercapacity() <= OjAlgoUtils.ENVIRONMENT.getCacheElements(8L)) {
+            return retVal.toDense();
+        } else {
+            return retVal;
+        }
+    }
+
+    static <AS extends AlgorithmStore> AS build(final ExpressionsBasedModel model, final AlgorithmStore.Factory<AS> factory) {
+
         final List<Variable> tmpPosVariables = model.getPositiveVariables();
         final List<Variable> tmpNegVariables = model.getNegativeVariables();
         final Set<IntIndex> tmpFixVariables = model.getFixedVariables();
@@ -164,7 +199,7 @@ public final class SimplexSolver extends LinearSolver {
         final int tmpProblVarCount = tmpPosVariables.size() + tmpNegVariables.size();
         final int tmpSlackVarCount = tmpExprsLo.size() + tmpExprsUp.size() + tmpVarsPosLo.size() + tmpVarsPosUp.size() + tmpVarsNegLo.size()
                 + tmpVarsNegUp.size();
-        final SimplexTableau retVal = SimplexTableau.make(tmpConstraiCount, tmpProblVarCount, tmpSlackVarCount);
+        final AS retVal = factory.make(tmpConstraiCount, tmpProblVarCount, tmpSlackVarCount);
 
         final int tmpPosVarsBaseIndex = 0;
         final int tmpNegVarsBaseIndex = tmpPosVarsBaseIndex + tmpPosVariables.size();
@@ -433,14 +468,7 @@ public final class SimplexSolver extends LinearSolver {
         }
         tmpConstrBaseIndex += tmpVarsNegUpLength;
 
-        //        BasicLogger.DEBUG.printmtrx("Sparse", retVal);
-        //        BasicLogger.DEBUG.printmtrx("Dense", retVal.toDense());
-
-        if (retVal.getOvercapacity() <= OjAlgoUtils.ENVIRONMENT.getCacheElements(8L)) {
-            return retVal.toDense();
-        } else {
-            return retVal;
-        }
+        return retVal;
     }
 
     private final IterationPoint myPoint;
@@ -32,7 +32,6 @@ import org.ojalgo.access.Mutate2D;
 import org.ojalgo.array.Array1D;
 import org.ojalgo.array.BasicArray;
 import org.ojalgo.array.DenseArray;
-import org.ojalgo.array.DenseArray.Factory;
 import org.ojalgo.array.Primitive64Array;
 import org.ojalgo.array.SparseArray;
 import org.ojalgo.array.SparseArray.NonzeroView;
@@ -356,7 +355,7 @@ abstract class SimplexTableau implements AlgorithmStore, Access2D<Double> {
             // Including artificial variables
             final int totNumbVars = this.countVariablesTotally();
 
-            final Factory<Double> denseFactory = Primitive64Array.FACTORY;
+            final DenseArray.Factory<Double> denseFactory = Primitive64Array.FACTORY;
             final SparseFactory<Double> sparseFactory = SparseArray.factory(denseFactory, totNumbVars).initial(3).limit(totNumbVars);
             final Array1D.Factory<Double> factory1D = Array1D.factory(denseFactory);
 
@@ -686,14 +685,14 @@ abstract class SimplexTableau implements AlgorithmStore, Access2D<Double> {
         myBasis = BasicArray.makeIncreasingRange(-numberOfConstraints, numberOfConstraints);
     }
 
-    protected final Mutate2D constraintsBody() {
+    public final Mutate2D constraintsBody() {
         if (myConstraintsBody == null) {
             myConstraintsBody = this.newConstraintsBody();
         }
         return myConstraintsBody;
     }
 
-    protected final Mutate1D constraintsRHS() {
+    public final Mutate1D constraintsRHS() {
         if (myConstraintsRHS == null) {
             myConstraintsRHS = this.newConstraintsRHS();
         }
@@ -763,7 +762,7 @@ abstract class SimplexTableau implements AlgorithmStore, Access2D<Double> {
         return false;
     }
 
-    protected final Mutate1D objective() {
+    public final Mutate1D objective() {
         if (myObjective == null) {
             myObjective = this.newObjective();
         }
@@ -0,0 +1,149 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.array;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.scalar.ComplexNumber;
+
+/**
+ * A {@link SparseArray.Builder} should produce the exact same array as making the same calls, in the same
+ * order, directly on the array.
+ */
+public class SparseBuilderTest {
+
+    private static final int COUNT = 5000;
+
+    private static <N extends Number> void doTest(final DenseArray.Factory<N> denseFactory) {
+
+        final Random tmpRandom = new Random(123L);
+
+        final SparseArray<N> tmpExpected = SparseArray.factory(denseFactory, COUNT).make();
+        final SparseArray.Builder<N> tmpBuilder = SparseArray.factory(denseFactory, COUNT).builder(8);
+
+        for (int k = 0; k < 2000; k++) {
+
+            final long tmpIndex = tmpRandom.nextInt(COUNT / 5);
+            final double tmpValue = tmpRandom.nextInt(100) - 50;
+
+            if (tmpRandom.nextBoolean()) {
+                tmpExpected.add(tmpIndex, tmpValue);
+                tmpBuilder.add(tmpIndex, tmpValue);
+            } else {
+                tmpExpected.set(tmpIndex, tmpValue);
+                tmpBuilder.set(tmpIndex, tmpValue);
+            }
+        }
+
+        TestUtils.assertEquals(2000, tmpBuilder.countPairs());
+
+        final SparseArray<N> tmpActual = tmpBuilder.make();
+
+        for (long i = 0L; i < COUNT; i++) {
+            TestUtils.assertEquals(tmpExpected.doubleValue(i), tmpActual.doubleValue(i));
+        }
+
+        TestUtils.assertTrue(tmpActual.countNonzeros() <= tmpExpected.countNonzeros());
+
+        final SparseArray.NonzeroView<N> tmpNonzeros = tmpActual.nonzeros();
+        long tmpPrevious = -1L;
+        while (tmpNonzeros.hasNext()) {
+            final long tmpIndex = tmpNonzeros.next().index();
+            TestUtils.assertTrue(tmpIndex > tmpPrevious);
+            tmpPrevious = tmpIndex;
+        }
+
+        tmpBuilder.reset();
+        TestUtils.assertEquals(0, tmpBuilder.countPairs());
+        TestUtils.assertEquals(0L, tmpBuilder.make().countNonzeros());
+    }
+
+    @Test
+    public void testBig() {
+        SparseBuilderTest.doTest(BigArray.FACTORY);
+    }
+
+    /**
+     * Complex values must survive the builder - imaginary parts included, also when merged.
+     */
+    @Test
+    public void testComplex() {
+
+        final Random tmpRandom = new Random(321L);
+
+        final SparseArray<ComplexNumber> tmpExpected = SparseArray.factory(ComplexArray.FACTORY, 100).make();
+        final SparseArray.Builder<ComplexNumber> tmpBuilder = SparseArray.factory(ComplexArray.FACTORY, 100).builder(4);
+
+        for (int k = 0; k < 300; k++) {
+
+            final long tmpIndex = tmpRandom.nextInt(100);
+            final ComplexNumber tmpValue = ComplexNumber.of(tmpRandom.nextInt(10) - 5, tmpRandom.nextInt(10) - 5);
+
+            if (tmpRandom.nextBoolean()) {
+                tmpExpected.add(tmpIndex, tmpValue);
+                tmpBuilder.add(tmpIndex, tmpValue);
+            } else {
+                tmpExpected.set(tmpIndex, tmpValue);
+                tmpBuilder.set(tmpIndex, tmpValue);
+            }
+        }
+
+        final SparseArray<ComplexNumber> tmpActual = tmpBuilder.make();
+
+        boolean tmpImaginary = false;
+        for (long i = 0L; i < 100L; i++) {
+            TestUtils.assertEquals(tmpExpected.get(i), tmpActual.get(i));
+            tmpImaginary |= tmpActual.get(i).i != 0.0;
+        }
+        TestUtils.assertTrue(tmpImaginary);
+    }
+
+    @Test
+    public void testPrimitive() {
+        SparseBuilderTest.doTest(Primitive64Array.FACTORY);
+    }
+
+    @Test
+    public void testSumAndReplace() {
+
+        final SparseArray.Builder<BigDecimal> tmpBuilder = SparseArray.factory(BigArray.FACTORY, 10).builder(4);
+
+        tmpBuilder.add(7, 1.0);
+        tmpBuilder.add(3, 2.0);
+        tmpBuilder.add(7, 3.0);
+        tmpBuilder.set(3, 5.0);
+        tmpBuilder.add(3, 1.0);
+        tmpBuilder.set(9, 1.0);
+        tmpBuilder.add(9, -1.0);
+
+        final SparseArray<BigDecimal> tmpArray = tmpBuilder.make();
+
+        TestUtils.assertEquals(2L, tmpArray.countNonzeros());
+        TestUtils.assertEquals(4.0, tmpArray.doubleValue(7));
+        TestUtils.assertEquals(6.0, tmpArray.doubleValue(3));
+        TestUtils.assertEquals(0.0, tmpArray.doubleValue(9));
+    }
+
+}
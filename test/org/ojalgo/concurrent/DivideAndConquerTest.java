@@ -0,0 +1,93 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.concurrent;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ojalgo.OjAlgoUtils;
+import org.ojalgo.TestUtils;
+import org.ojalgo.machine.Hardware;
+import org.ojalgo.machine.VirtualMachine;
+
+public class DivideAndConquerTest {
+
+    private static void doTest(final DivideAndConquer.Mode mode) {
+
+        final int tmpCount = 1000;
+
+        final AtomicIntegerArray tmpVisits = new AtomicIntegerArray(tmpCount);
+
+        final DivideAndConquer tmpInner = new DivideAndConquer() {
+
+            @Override
+            protected void conquer(final int first, final int limit) {
+                for (int i = first; i < limit; i++) {
+                    tmpVisits.incrementAndGet(i);
+                }
+            }
+
+        };
+
+        final DivideAndConquer tmpOuter = new DivideAndConquer() {
+
+            @Override
+            protected void conquer(final int first, final int limit) {
+                // Nested parallel execution must neither deadlock nor lose any parts
+                tmpInner.invoke(first, limit, 4, mode);
+            }
+
+        };
+
+        tmpOuter.invoke(0, tmpCount, 16, mode);
+
+        for (int i = 0; i < tmpCount; i++) {
+            TestUtils.assertEquals(1, tmpVisits.get(i));
+        }
+    }
+
+    private VirtualMachine myEnvironment;
+
+    @BeforeEach
+    public void makeMultiThreaded() {
+        myEnvironment = OjAlgoUtils.ENVIRONMENT;
+        OjAlgoUtils.ENVIRONMENT = Hardware.makeSimple(VirtualMachine.getArchitecture(), VirtualMachine.getMemory(), 8).virtualise();
+    }
+
+    @AfterEach
+    public void restoreEnvironment() {
+        OjAlgoUtils.ENVIRONMENT = myEnvironment;
+    }
+
+    @Test
+    public void testDaemonPool() {
+        DivideAndConquerTest.doTest(DivideAndConquer.Mode.DAEMON_POOL);
+    }
+
+    @Test
+    public void testForkJoin() {
+        DivideAndConquerTest.doTest(DivideAndConquer.Mode.FORK_JOIN);
+    }
+
+}
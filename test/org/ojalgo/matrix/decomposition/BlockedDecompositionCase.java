@@ -0,0 +1,176 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.store.operation.ApplyCholesky;
+import org.ojalgo.matrix.store.operation.ApplyLU;
+import org.ojalgo.matrix.store.operation.HouseholderBlock;
+import org.ojalgo.random.Normal;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * The blocked (panel + trailing update) Cholesky, LU and QR decompositions should give the same results as the
+ * unblocked ones. The dimensions are chosen so that they are not multiples of the panel width.
+ *
+ * @author apete
+ */
+public class BlockedDecompositionCase extends MatrixDecompositionTests {
+
+    private static final int BLOCK_CHOLESKY = ApplyCholesky.BLOCK;
+    private static final int BLOCK_LU = ApplyLU.BLOCK;
+    private static final int BLOCK_QR = HouseholderBlock.BLOCK;
+    private static final NumberContext PRECISION = new NumberContext(10, 8);
+    private static final NumberContext RECONSTRUCTION = new NumberContext(7, 6);
+
+    private static PrimitiveDenseStore makeSPD(final int dim) {
+        final PrimitiveDenseStore tmpRandom = PrimitiveDenseStore.FACTORY.makeFilled(dim, dim, new Normal());
+        final PrimitiveDenseStore retVal = PrimitiveDenseStore.FACTORY.makeZero(dim, dim);
+        retVal.fillByMultiplying(tmpRandom, tmpRandom.transpose());
+        return retVal;
+    }
+
+    @AfterEach
+    public void resetBlockSize() {
+        ApplyCholesky.BLOCK = BLOCK_CHOLESKY;
+        ApplyLU.BLOCK = BLOCK_LU;
+        HouseholderBlock.BLOCK = BLOCK_QR;
+    }
+
+    @Test
+    public void testCholesky() {
+
+        final PrimitiveDenseStore tmpMatrix = BlockedDecompositionCase.makeSPD(301);
+
+        ApplyCholesky.BLOCK = 0;
+        final Cholesky<Double> tmpUnblocked = Cholesky.PRIMITIVE.make(tmpMatrix);
+        TestUtils.assertTrue(tmpUnblocked.decompose(tmpMatrix));
+
+        ApplyCholesky.BLOCK = 32;
+        final Cholesky<Double> tmpBlocked = Cholesky.PRIMITIVE.make(tmpMatrix);
+        TestUtils.assertTrue(tmpBlocked.decompose(tmpMatrix));
+
+        TestUtils.assertTrue(tmpBlocked.isSPD());
+        TestUtils.assertEquals(tmpUnblocked.getL(), tmpBlocked.getL(), PRECISION);
+        TestUtils.assertEquals(tmpMatrix, tmpBlocked, RECONSTRUCTION);
+    }
+
+    @Test
+    public void testCholeskyNotPositiveDefinite() {
+
+        final PrimitiveDenseStore tmpMatrix = BlockedDecompositionCase.makeSPD(301);
+        // Negative diagonal element in the third panel
+        tmpMatrix.set(200, 200, -tmpMatrix.doubleValue(200, 200));
+
+        ApplyCholesky.BLOCK = 32;
+        final Cholesky<Double> tmpBlocked = Cholesky.PRIMITIVE.make(tmpMatrix);
+        tmpBlocked.decompose(tmpMatrix);
+
+        TestUtils.assertFalse(tmpBlocked.isSPD());
+    }
+
+    @Test
+    public void testLU() {
+
+        for (final int[] tmpShape : new int[][] { { 301, 301 }, { 301, 197 }, { 197, 301 } }) {
+
+            final PrimitiveDenseStore tmpMatrix = PrimitiveDenseStore.FACTORY.makeFilled(tmpShape[0], tmpShape[1], new Normal());
+
+            ApplyLU.BLOCK = 0;
+            final LU<Double> tmpUnblocked = LU.PRIMITIVE.make(tmpMatrix);
+            tmpUnblocked.decompose(tmpMatrix);
+
+            ApplyLU.BLOCK = 32;
+            final LU<Double> tmpBlocked = LU.PRIMITIVE.make(tmpMatrix);
+            tmpBlocked.decompose(tmpMatrix);
+
+            TestUtils.assertEquals(tmpUnblocked.getPivotOrder(), tmpBlocked.getPivotOrder());
+            TestUtils.assertEquals(tmpUnblocked.getL(), tmpBlocked.getL(), PRECISION);
+            TestUtils.assertEquals(tmpUnblocked.getU(), tmpBlocked.getU(), PRECISION);
+            TestUtils.assertEquals(tmpMatrix, tmpBlocked, RECONSTRUCTION);
+        }
+    }
+
+    @Test
+    public void testLUSingular() {
+
+        final PrimitiveDenseStore tmpMatrix = PrimitiveDenseStore.FACTORY.makeFilled(301, 301, new Normal());
+        // An all zero column in the middle of the fourth panel
+        tmpMatrix.fillColumn(0, 100, 0.0);
+
+        ApplyLU.BLOCK = 0;
+        final LU<Double> tmpUnblocked = LU.PRIMITIVE.make(tmpMatrix);
+        tmpUnblocked.decompose(tmpMatrix);
+
+        ApplyLU.BLOCK = 32;
+        final LU<Double> tmpBlocked = LU.PRIMITIVE.make(tmpMatrix);
+        tmpBlocked.decompose(tmpMatrix);
+
+        TestUtils.assertFalse(tmpBlocked.isSolvable());
+        TestUtils.assertEquals(300, tmpBlocked.getRank());
+        TestUtils.assertEquals(tmpUnblocked.getPivotOrder(), tmpBlocked.getPivotOrder());
+        TestUtils.assertEquals(tmpUnblocked.getU(), tmpBlocked.getU(), PRECISION);
+        TestUtils.assertEquals(tmpMatrix, tmpBlocked, RECONSTRUCTION);
+    }
+
+    @Test
+    public void testQR() {
+
+        for (final int[] tmpShape : new int[][] { { 301, 301 }, { 401, 150 }, { 150, 301 } }) {
+
+            final PrimitiveDenseStore tmpMatrix = PrimitiveDenseStore.FACTORY.makeFilled(tmpShape[0], tmpShape[1], new Normal());
+            if (tmpShape[0] <= tmpShape[1]) {
+                // Not full rank
+                tmpMatrix.fillColumn(0, 100, 0.0);
+            }
+            final PrimitiveDenseStore tmpVectorRHS = PrimitiveDenseStore.FACTORY.makeFilled(tmpShape[0], 1, new Normal());
+            final PrimitiveDenseStore tmpMatrixRHS = PrimitiveDenseStore.FACTORY.makeFilled(tmpShape[0], 20, new Normal());
+
+            HouseholderBlock.BLOCK = 0;
+            final QR<Double> tmpUnblocked = QR.PRIMITIVE.make(tmpMatrix);
+            tmpUnblocked.decompose(tmpMatrix);
+
+            HouseholderBlock.BLOCK = 32;
+            final QR<Double> tmpBlocked = QR.PRIMITIVE.make(tmpMatrix);
+            tmpBlocked.decompose(tmpMatrix);
+
+            TestUtils.assertEquals(tmpUnblocked.getRank(), tmpBlocked.getRank());
+            TestUtils.assertEquals(tmpMatrix, tmpBlocked, RECONSTRUCTION);
+
+            final MatrixStore<Double> tmpQ = tmpBlocked.getQ();
+            final int tmpDim = (int) tmpQ.countColumns();
+            TestUtils.assertEquals(PrimitiveDenseStore.FACTORY.makeEye(tmpDim, tmpDim), tmpQ.transpose().multiply(tmpQ), PRECISION);
+
+            if (tmpUnblocked.isSolvable()) {
+                TestUtils.assertEquals(tmpUnblocked.getSolution(tmpVectorRHS), tmpBlocked.getSolution(tmpVectorRHS), PRECISION);
+                TestUtils.assertEquals(tmpUnblocked.getSolution(tmpMatrixRHS), tmpBlocked.getSolution(tmpMatrixRHS), PRECISION);
+            } else {
+                TestUtils.assertFalse(tmpBlocked.isSolvable());
+            }
+        }
+    }
+
+}
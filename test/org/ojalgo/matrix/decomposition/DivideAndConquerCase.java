@@ -0,0 +1,187 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.array.Array1D;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.random.Normal;
+import org.ojalgo.scalar.ComplexNumber;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * The divide-and-conquer symmetric eigensolver should give the same results as the implicit QL iterations.
+ * The leaf size is set small to get several levels of merging.
+ *
+ * @author apete
+ */
+public class DivideAndConquerCase extends MatrixDecompositionTests {
+
+    private static final int LEAF = TridiagonalEvD.LEAF;
+    private static final int MINIMUM = TridiagonalEvD.MINIMUM;
+    private static final NumberContext PRECISION = new NumberContext(12, 10);
+    private static final NumberContext RECONSTRUCTION = new NumberContext(7, 6);
+
+    private static void doTestTridiagonal(final double[] diagonal, final double[] offDiagonal) {
+
+        final int tmpDim = diagonal.length;
+
+        final double[] tmpExpected = diagonal.clone();
+        HermitianEvD.tql2(tmpExpected, offDiagonal.clone(), (low, high, cos, sin) -> {
+        });
+        Arrays.sort(tmpExpected);
+
+        final double[] tmpActual = diagonal.clone();
+        final PrimitiveDenseStore tmpVectors = PrimitiveDenseStore.FACTORY.makeEye(tmpDim, tmpDim);
+        TridiagonalEvD.divideAndConquer(tmpActual, offDiagonal.clone(), tmpVectors.data);
+
+        for (int i = 0; i < tmpDim; i++) {
+            TestUtils.assertEquals(tmpExpected[i], tmpActual[i], PRECISION);
+        }
+
+        TestUtils.assertEquals(PrimitiveDenseStore.FACTORY.makeEye(tmpDim, tmpDim), tmpVectors.transpose().multiply(tmpVectors), PRECISION);
+
+        final PrimitiveDenseStore tmpTridiagonal = PrimitiveDenseStore.FACTORY.makeZero(tmpDim, tmpDim);
+        for (int i = 0; i < tmpDim; i++) {
+            tmpTridiagonal.set(i, i, diagonal[i]);
+            if ((i + 1) < tmpDim) {
+                tmpTridiagonal.set(i, i + 1, offDiagonal[i]);
+                tmpTridiagonal.set(i + 1, i, offDiagonal[i]);
+            }
+        }
+        final PrimitiveDenseStore tmpScaled = tmpVectors.copy();
+        for (int j = 0; j < tmpDim; j++) {
+            tmpScaled.modifyColumn(0, j, PrimitiveFunction.MULTIPLY.second(tmpActual[j]));
+        }
+        TestUtils.assertEquals(tmpScaled, tmpTridiagonal.multiply(tmpVectors), PRECISION);
+    }
+
+    @AfterEach
+    public void resetSizes() {
+        TridiagonalEvD.LEAF = LEAF;
+        TridiagonalEvD.MINIMUM = MINIMUM;
+    }
+
+    /**
+     * Lots of equal and almost equal eigenvalues - most of them will be deflated.
+     */
+    @Test
+    public void testDeflation() {
+
+        TridiagonalEvD.LEAF = 4;
+
+        final int tmpDim = 101;
+        final double[] tmpDiagonal = new double[tmpDim];
+        final double[] tmpOffDiagonal = new double[tmpDim];
+
+        // Wilkinson's matrix - pairs of (very) close eigenvalues
+        for (int i = 0; i < tmpDim; i++) {
+            tmpDiagonal[i] = Math.abs((tmpDim / 2) - i);
+            tmpOffDiagonal[i] = (i + 1) < tmpDim ? 1.0 : 0.0;
+        }
+        DivideAndConquerCase.doTestTridiagonal(tmpDiagonal, tmpOffDiagonal);
+
+        // Block diagonal, with repeated blocks
+        for (int i = 0; i < tmpDim; i++) {
+            tmpDiagonal[i] = 2.0;
+            tmpOffDiagonal[i] = ((i % 5) != 4) && ((i + 1) < tmpDim) ? -1.0 : 0.0;
+        }
+        DivideAndConquerCase.doTestTridiagonal(tmpDiagonal, tmpOffDiagonal);
+
+        // Already diagonal
+        Arrays.fill(tmpOffDiagonal, 0.0);
+        DivideAndConquerCase.doTestTridiagonal(tmpDiagonal, tmpOffDiagonal);
+    }
+
+    @Test
+    public void testEigenvalueFactory() {
+
+        TridiagonalEvD.LEAF = 8;
+
+        final PrimitiveDenseStore tmpRandom = PrimitiveDenseStore.FACTORY.makeFilled(150, 150, new Normal());
+        final PrimitiveDenseStore tmpMatrix = PrimitiveDenseStore.FACTORY.makeZero(150, 150);
+        tmpMatrix.fillByMultiplying(tmpRandom, tmpRandom.transpose());
+
+        final Eigenvalue<Double> tmpExpected = new RawEigenvalue.Symmetric();
+        tmpExpected.decompose(tmpMatrix);
+
+        final Eigenvalue<Double> tmpActual = Eigenvalue.DIVIDE_AND_CONQUER.make(tmpMatrix);
+        tmpActual.decompose(tmpMatrix);
+
+        TestUtils.assertTrue(tmpActual.isOrdered());
+        TestUtils.assertEquals(tmpMatrix, tmpActual, RECONSTRUCTION);
+
+        final Array1D<ComplexNumber> tmpExpectedValues = tmpExpected.getEigenvalues();
+        final Array1D<ComplexNumber> tmpActualValues = tmpActual.getEigenvalues();
+        for (int i = 0; i < 150; i++) {
+            TestUtils.assertEquals(tmpExpectedValues.doubleValue(i), tmpActualValues.doubleValue(i), RECONSTRUCTION);
+        }
+
+        final MatrixStore<Double> tmpV = tmpActual.getV();
+        TestUtils.assertEquals(PrimitiveDenseStore.FACTORY.makeEye(150, 150), tmpV.transpose().multiply(tmpV), PRECISION);
+
+        TestUtils.assertFalse(Eigenvalue.DIVIDE_AND_CONQUER.make(tmpRandom).isHermitian());
+    }
+
+    @Test
+    public void testHermitianEvD() {
+
+        TridiagonalEvD.LEAF = 8;
+        TridiagonalEvD.MINIMUM = 0;
+
+        final PrimitiveDenseStore tmpRandom = PrimitiveDenseStore.FACTORY.makeFilled(99, 99, new Normal());
+        final PrimitiveDenseStore tmpMatrix = PrimitiveDenseStore.FACTORY.makeZero(99, 99);
+        tmpMatrix.fillByMultiplying(tmpRandom, tmpRandom.transpose());
+
+        for (final Eigenvalue<Double> tmpDecomposition : new Eigenvalue[] { new HermitianEvD.DeferredPrimitive(), new HermitianEvD.SimultaneousPrimitive() }) {
+            tmpDecomposition.decompose(tmpMatrix);
+            TestUtils.assertEquals(tmpMatrix, tmpDecomposition, RECONSTRUCTION);
+        }
+    }
+
+    @Test
+    public void testRandomTridiagonal() {
+
+        TridiagonalEvD.LEAF = 6;
+
+        final Normal tmpNormal = new Normal();
+
+        for (final int tmpDim : new int[] { 7, 50, 301 }) {
+
+            final double[] tmpDiagonal = new double[tmpDim];
+            final double[] tmpOffDiagonal = new double[tmpDim];
+            for (int i = 0; i < tmpDim; i++) {
+                tmpDiagonal[i] = tmpNormal.doubleValue();
+                tmpOffDiagonal[i] = (i + 1) < tmpDim ? tmpNormal.doubleValue() : 0.0;
+            }
+
+            DivideAndConquerCase.doTestTridiagonal(tmpDiagonal, tmpOffDiagonal);
+        }
+    }
+
+}
@@ -30,8 +30,10 @@ import org.ojalgo.matrix.P20061119Case;
 import org.ojalgo.matrix.RationalMatrix;
 import org.ojalgo.matrix.store.BigDenseStore;
 import org.ojalgo.matrix.store.ComplexDenseStore;
+import org.ojalgo.matrix.store.MatrixStore;
 import org.ojalgo.matrix.store.PrimitiveDenseStore;
 import org.ojalgo.netio.BasicLogger;
+import org.ojalgo.random.Normal;
 import org.ojalgo.scalar.ComplexNumber;
 import org.ojalgo.type.context.NumberContext;
 
@@ -88,4 +90,41 @@ public class LUTest {
 
     }
 
+    /**
+     * {@link LU#reconstruct(LU)} must apply the inverse of the pivot order. Using the pivot order itself only
+     * works when the permutation is its own inverse - typically not the case for random matrices larger than
+     * a few rows.
+     */
+    @Test
+    public void testReconstruct() {
+
+        final NumberContext tmpPrecision = NumberContext.getGeneral(8);
+
+        boolean tmpNonInvolutive = false;
+
+        for (int t = 0; t < 10; t++) {
+
+            final PrimitiveDenseStore tmpMatrix = PrimitiveDenseStore.FACTORY.makeFilled(6, 6, new Normal());
+
+            final LU<Double> tmpPrimitive = LU.PRIMITIVE.make();
+            tmpPrimitive.decompose(tmpMatrix);
+
+            final int[] tmpPivotOrder = tmpPrimitive.getPivotOrder();
+            for (int i = 0; i < tmpPivotOrder.length; i++) {
+                tmpNonInvolutive |= tmpPivotOrder[tmpPivotOrder[i]] != i;
+            }
+
+            TestUtils.assertEquals(tmpMatrix, tmpPrimitive.reconstruct(), tmpPrecision);
+
+            final MatrixStore<BigDecimal> tmpBigMatrix = BigDenseStore.FACTORY.copy(tmpMatrix);
+
+            final LU<BigDecimal> tmpBig = LU.BIG.make();
+            tmpBig.decompose(tmpBigMatrix);
+
+            TestUtils.assertEquals(tmpBigMatrix, tmpBig.reconstruct(), tmpPrecision);
+        }
+
+        TestUtils.assertTrue(tmpNonInvolutive);
+    }
+
 }
@@ -0,0 +1,180 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.random.Normal;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Modifying an already computed Cholesky or LU decomposition should give the same result as decomposing the
+ * modified matrix.
+ *
+ * @author apete
+ */
+public class LowRankUpdateCase extends MatrixDecompositionTests {
+
+    private static final NumberContext PRECISION = new NumberContext(10, 8);
+
+    private static void doTestCholesky(final Cholesky<Double> decomposition, final int dim) {
+
+        final PrimitiveDenseStore tmpBody = LowRankUpdateCase.makeSPD(dim);
+        final PrimitiveDenseStore tmpVectors = PrimitiveDenseStore.FACTORY.makeFilled(dim, 3, new Normal());
+
+        TestUtils.assertTrue(decomposition.decompose(tmpBody));
+
+        final MatrixStore<Double> tmpUpdated = tmpBody.add(tmpVectors.multiply(tmpVectors.transpose())).copy();
+        TestUtils.assertTrue(decomposition.update(tmpVectors));
+        LowRankUpdateCase.assertCholesky(tmpUpdated, decomposition);
+
+        final MatrixStore<Double> tmpColumn = tmpVectors.logical().column(1).get();
+        TestUtils.assertTrue(decomposition.downdate(tmpColumn));
+        final MatrixStore<Double> tmpDowndated = tmpUpdated.subtract(tmpColumn.multiply(tmpColumn.transpose())).copy();
+        LowRankUpdateCase.assertCholesky(tmpDowndated, decomposition);
+
+        // Not positive definite - no change
+        final PrimitiveDenseStore tmpLarge = PrimitiveDenseStore.FACTORY.makeZero(dim, 1);
+        tmpLarge.set(dim / 2, 0, 1000.0);
+        TestUtils.assertFalse(decomposition.downdate(tmpLarge));
+        TestUtils.assertTrue(decomposition.isSolvable());
+        LowRankUpdateCase.assertCholesky(tmpDowndated, decomposition);
+
+        // Insert and remove
+        final PrimitiveDenseStore tmpLarger = LowRankUpdateCase.makeSPD(dim + 1);
+        final MatrixStore<Double> tmpSmaller = tmpLarger.logical().offsets(1, 1).get().copy();
+        TestUtils.assertTrue(decomposition.decompose(tmpSmaller));
+        TestUtils.assertTrue(decomposition.addRowAndColumn(0, tmpLarger.logical().column(0).get()));
+        LowRankUpdateCase.assertCholesky(tmpLarger, decomposition);
+
+        for (final int tmpIndex : new int[] { 0, dim / 3, dim }) {
+
+            final int[] tmpKeep = new int[dim];
+            for (int i = 0, k = 0; i <= dim; i++) {
+                if (i != tmpIndex) {
+                    tmpKeep[k++] = i;
+                }
+            }
+            final MatrixStore<Double> tmpRemoved = tmpLarger.logical().row(tmpKeep).column(tmpKeep).get().copy();
+
+            TestUtils.assertTrue(decomposition.decompose(tmpLarger));
+            TestUtils.assertTrue(decomposition.removeRowAndColumn(tmpIndex));
+            LowRankUpdateCase.assertCholesky(tmpRemoved, decomposition);
+
+            TestUtils.assertTrue(decomposition.addRowAndColumn(tmpIndex, tmpLarger.logical().column(tmpIndex).get()));
+            LowRankUpdateCase.assertCholesky(tmpLarger, decomposition);
+        }
+    }
+
+    private static void doTestLU(final LU<Double> decomposition, final int dim) {
+
+        final PrimitiveDenseStore tmpBody = PrimitiveDenseStore.FACTORY.makeFilled(dim, dim, new Normal());
+        final PrimitiveDenseStore tmpLeft = PrimitiveDenseStore.FACTORY.makeFilled(dim, 2, new Normal());
+        final PrimitiveDenseStore tmpRight = PrimitiveDenseStore.FACTORY.makeFilled(dim, 2, new Normal());
+
+        TestUtils.assertTrue(decomposition.decompose(tmpBody));
+
+        final MatrixStore<Double> tmpUpdated = tmpBody.add(tmpLeft.multiply(tmpRight.transpose())).copy();
+        TestUtils.assertTrue(decomposition.update(tmpLeft, tmpRight));
+        LowRankUpdateCase.assertLU(tmpUpdated, decomposition);
+
+        TestUtils.assertTrue(decomposition.downdate(tmpLeft, tmpRight));
+        LowRankUpdateCase.assertLU(tmpBody, decomposition);
+
+        // Cancel the first pivot - needs a different pivot order, decomposed again
+        final int tmpFirst = decomposition.getPivotOrder()[0];
+        final PrimitiveDenseStore tmpCancel = PrimitiveDenseStore.FACTORY.makeZero(dim, 1);
+        tmpCancel.set(tmpFirst, 0, tmpBody.doubleValue(tmpFirst, 0));
+        final PrimitiveDenseStore tmpUnit = PrimitiveDenseStore.FACTORY.makeZero(dim, 1);
+        tmpUnit.set(0, 0, 1.0);
+
+        final MatrixStore<Double> tmpCancelled = tmpBody.subtract(tmpCancel.multiply(tmpUnit.transpose())).copy();
+        TestUtils.assertTrue(decomposition.downdate(tmpCancel, tmpUnit));
+        LowRankUpdateCase.assertLU(tmpCancelled, decomposition);
+    }
+
+    private static void assertCholesky(final MatrixStore<Double> expected, final Cholesky<Double> decomposition) {
+
+        TestUtils.assertEquals(expected, decomposition.reconstruct(), PRECISION);
+
+        final PrimitiveDenseStore tmpRHS = PrimitiveDenseStore.FACTORY.makeFilled(expected.countRows(), 1, new Normal());
+        TestUtils.assertEquals(tmpRHS, expected.multiply(decomposition.getSolution(tmpRHS)), PRECISION);
+    }
+
+    private static void assertLU(final MatrixStore<Double> expected, final LU<Double> decomposition) {
+
+        TestUtils.assertEquals(expected, decomposition.reconstruct(), PRECISION);
+
+        final LU<Double> tmpFresh = LU.PRIMITIVE.make(expected);
+        tmpFresh.decompose(expected);
+        TestUtils.assertEquals(tmpFresh.getDeterminant(), decomposition.getDeterminant(), PRECISION);
+
+        final PrimitiveDenseStore tmpRHS = PrimitiveDenseStore.FACTORY.makeFilled(expected.countRows(), 1, new Normal());
+        TestUtils.assertEquals(tmpRHS, expected.multiply(decomposition.getSolution(tmpRHS)), PRECISION);
+    }
+
+    private static PrimitiveDenseStore makeSPD(final int dim) {
+        final PrimitiveDenseStore tmpRandom = PrimitiveDenseStore.FACTORY.makeFilled(dim, dim, new Normal());
+        final PrimitiveDenseStore retVal = (PrimitiveDenseStore) tmpRandom.multiply(tmpRandom.transpose());
+        for (int ij = 0; ij < dim; ij++) {
+            retVal.add(ij, ij, dim);
+        }
+        return retVal;
+    }
+
+    @Test
+    public void testCholeskyPrimitive() {
+        LowRankUpdateCase.doTestCholesky(new CholeskyDecomposition.Primitive(), 100);
+    }
+
+    @Test
+    public void testCholeskyRaw() {
+        LowRankUpdateCase.doTestCholesky(new RawCholesky(), 20);
+    }
+
+    @Test
+    public void testLUNotSquare() {
+
+        final PrimitiveDenseStore tmpBody = PrimitiveDenseStore.FACTORY.makeFilled(9, 7, new Normal());
+        final PrimitiveDenseStore tmpLeft = PrimitiveDenseStore.FACTORY.makeFilled(9, 1, new Normal());
+        final PrimitiveDenseStore tmpRight = PrimitiveDenseStore.FACTORY.makeFilled(7, 1, new Normal());
+
+        for (final LU<Double> tmpDecomposition : MatrixDecompositionTests.getLUPrimitive()) {
+            TestUtils.assertTrue(tmpDecomposition.decompose(tmpBody));
+            TestUtils.assertTrue(tmpDecomposition.update(tmpLeft, tmpRight));
+            TestUtils.assertEquals(tmpBody.add(tmpLeft.multiply(tmpRight.transpose())), tmpDecomposition.reconstruct(), PRECISION);
+        }
+    }
+
+    @Test
+    public void testLUPrimitive() {
+        LowRankUpdateCase.doTestLU(new LUDecomposition.Primitive(), 100);
+    }
+
+    @Test
+    public void testLURaw() {
+        LowRankUpdateCase.doTestLU(new RawLU(), 20);
+    }
+
+}
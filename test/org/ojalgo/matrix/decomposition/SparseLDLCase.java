@@ -0,0 +1,189 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.random.Normal;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Sparse LDL compared to the dense decompositions.
+ *
+ * @author apete
+ */
+public class SparseLDLCase extends MatrixDecompositionTests {
+
+    private static final NumberContext PRECISION = new NumberContext(10, 8);
+
+    /**
+     * 2D Laplacian (5-point stencil) on a size x size grid, SPD
+     */
+    private static SparseStore<Double> makeGrid(final int size, final double shift) {
+        final int tmpDim = size * size;
+        final SparseStore<Double> retVal = SparseStore.PRIMITIVE.make(tmpDim, tmpDim);
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                final int i = (x * size) + y;
+                retVal.set(i, i, 4.0 + shift);
+                if (x > 0) {
+                    retVal.set(i, i - size, -1.0);
+                    retVal.set(i - size, i, -1.0);
+                }
+                if (y > 0) {
+                    retVal.set(i, i - 1, -1.0);
+                    retVal.set(i - 1, i, -1.0);
+                }
+            }
+        }
+        return retVal;
+    }
+
+    private static void assertSolution(final MatrixStore<Double> body, final SparseLDL decomposition) {
+
+        TestUtils.assertEquals(body, decomposition.reconstruct(), PRECISION);
+
+        final PrimitiveDenseStore tmpRHS = PrimitiveDenseStore.FACTORY.makeFilled(body.countRows(), 3, new Normal());
+        TestUtils.assertEquals(tmpRHS, body.multiply(decomposition.getSolution(tmpRHS)), PRECISION);
+
+        final LU<Double> tmpDense = LU.PRIMITIVE.make(body);
+        tmpDense.decompose(body);
+        TestUtils.assertEquals(tmpDense.getDeterminant(), decomposition.getDeterminant(), PRECISION);
+    }
+
+    @Test
+    public void testArrowFill() {
+
+        final int tmpDim = 50;
+
+        // Dense first row/column - natural order fills in everything
+        final SparseStore<Double> tmpArrow = SparseStore.PRIMITIVE.make(tmpDim, tmpDim);
+        tmpArrow.set(0, 0, tmpDim);
+        for (int i = 1; i < tmpDim; i++) {
+            tmpArrow.set(i, i, 2.0);
+            tmpArrow.set(i, 0, 1.0);
+            tmpArrow.set(0, i, 1.0);
+        }
+
+        final SparseLDL tmpDecomposition = (SparseLDL) LDL.SPARSE.make(tmpArrow);
+        TestUtils.assertTrue(tmpDecomposition.decompose(tmpArrow));
+        TestUtils.assertEquals(tmpDim - 1, tmpDecomposition.countNonzeros());
+
+        SparseLDLCase.assertSolution(tmpArrow, tmpDecomposition);
+    }
+
+    @Test
+    public void testGrid() {
+
+        final SparseStore<Double> tmpGrid = SparseLDLCase.makeGrid(15, 0.0);
+
+        final SparseLDL tmpDecomposition = new SparseLDL();
+        TestUtils.assertTrue(tmpDecomposition.decompose(tmpGrid));
+        TestUtils.assertTrue(tmpDecomposition.isSolvable());
+        TestUtils.assertTrue(tmpDecomposition.isFullRank());
+
+        // Natural (banded) order would give about size^3 nonzeros
+        TestUtils.assertTrue(tmpDecomposition.countNonzeros() < (15 * 15 * 15));
+
+        SparseLDLCase.assertSolution(tmpGrid, tmpDecomposition);
+
+        // Dense input
+        final PrimitiveDenseStore tmpDense = PrimitiveDenseStore.FACTORY.copy(tmpGrid);
+        TestUtils.assertTrue(tmpDecomposition.decompose(tmpDense));
+        TestUtils.assertTrue(tmpDecomposition.isSymbolicReused());
+        SparseLDLCase.assertSolution(tmpDense, tmpDecomposition);
+    }
+
+    @Test
+    public void testQuasiDefinite() {
+
+        final int tmpVariables = 40;
+        final int tmpConstraints = 15;
+        final int tmpDim = tmpVariables + tmpConstraints;
+
+        final Uniform tmpUniform = new Uniform();
+
+        // [H A^T ; A -D] with H and D positive definite (diagonal), A sparse
+        final SparseStore<Double> tmpKKT = SparseStore.PRIMITIVE.make(tmpDim, tmpDim);
+        for (int j = 0; j < tmpVariables; j++) {
+            tmpKKT.set(j, j, 1.0 + tmpUniform.doubleValue());
+        }
+        for (int i = 0; i < tmpConstraints; i++) {
+            final int tmpRow = tmpVariables + i;
+            tmpKKT.set(tmpRow, tmpRow, -1E-2);
+            for (int j = i; j < tmpVariables; j += 7) {
+                final double tmpValue = tmpUniform.doubleValue() - 0.5;
+                tmpKKT.set(tmpRow, j, tmpValue);
+                tmpKKT.set(j, tmpRow, tmpValue);
+            }
+        }
+
+        final SparseLDL tmpDecomposition = new SparseLDL();
+        TestUtils.assertTrue(tmpDecomposition.decompose(tmpKKT));
+
+        SparseLDLCase.assertSolution(tmpKKT, tmpDecomposition);
+
+        int tmpNegative = 0;
+        final MatrixStore<Double> tmpD = tmpDecomposition.getD();
+        for (int k = 0; k < tmpDim; k++) {
+            if (tmpD.doubleValue(k, k) < 0.0) {
+                tmpNegative++;
+            }
+        }
+        TestUtils.assertEquals(tmpConstraints, tmpNegative);
+    }
+
+    @Test
+    public void testSymbolicReuse() {
+
+        final SparseLDL tmpDecomposition = new SparseLDL();
+
+        TestUtils.assertTrue(tmpDecomposition.decompose(SparseLDLCase.makeGrid(10, 0.0)));
+        TestUtils.assertFalse(tmpDecomposition.isSymbolicReused());
+
+        // Same pattern, different values
+        final SparseStore<Double> tmpShifted = SparseLDLCase.makeGrid(10, 1.5);
+        TestUtils.assertTrue(tmpDecomposition.decompose(tmpShifted));
+        TestUtils.assertTrue(tmpDecomposition.isSymbolicReused());
+        SparseLDLCase.assertSolution(tmpShifted, tmpDecomposition);
+
+        // Different pattern
+        final SparseStore<Double> tmpOther = SparseLDLCase.makeGrid(10, 0.0);
+        tmpOther.set(0, 99, -0.5);
+        tmpOther.set(99, 0, -0.5);
+        TestUtils.assertTrue(tmpDecomposition.decompose(tmpOther));
+        TestUtils.assertFalse(tmpDecomposition.isSymbolicReused());
+        SparseLDLCase.assertSolution(tmpOther, tmpDecomposition);
+
+        // Zero pivot
+        final SparseStore<Double> tmpSingular = SparseStore.PRIMITIVE.make(2, 2);
+        tmpSingular.set(0, 1, 1.0);
+        tmpSingular.set(1, 0, 1.0);
+        TestUtils.assertFalse(tmpDecomposition.decompose(tmpSingular));
+        TestUtils.assertFalse(tmpDecomposition.isSolvable());
+    }
+
+}
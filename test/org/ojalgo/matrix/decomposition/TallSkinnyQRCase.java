@@ -0,0 +1,134 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.OjAlgoUtils;
+import org.ojalgo.TestUtils;
+import org.ojalgo.machine.Hardware;
+import org.ojalgo.machine.VirtualMachine;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.random.Normal;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * {@link TallSkinnyQR} should reproduce the results of an ordinary QR decomposition. The number of leaves is
+ * chosen so that the reduction tree is not balanced (one node is passed through a level unpaired).
+ *
+ * @author apete
+ */
+public class TallSkinnyQRCase extends MatrixDecompositionTests {
+
+    private static final NumberContext PRECISION = new NumberContext(10, 8);
+    private static final NumberContext RECONSTRUCTION = new NumberContext(7, 6);
+
+    /**
+     * With several threads, {@link QR#PRIMITIVE} should only choose {@link TallSkinnyQR} when each leaf has
+     * enough work.
+     */
+    @Test
+    public void testFactory() {
+
+        final VirtualMachine tmpEnvironment = OjAlgoUtils.ENVIRONMENT;
+        OjAlgoUtils.ENVIRONMENT = Hardware.makeSimple(VirtualMachine.getArchitecture(), VirtualMachine.getMemory(), 8).virtualise();
+
+        try {
+
+            TestUtils.assertTrue(QR.PRIMITIVE.make(16, 2) instanceof RawQR);
+            TestUtils.assertTrue(QR.PRIMITIVE.make(100, 10) instanceof RawQR);
+            TestUtils.assertTrue(QR.PRIMITIVE.make(1000, 20) instanceof RawQR);
+
+            TestUtils.assertTrue(QR.PRIMITIVE.make(100000, 10) instanceof TallSkinnyQR);
+            TestUtils.assertTrue(TallSkinnyQR.countLeaves(100000, 10) > 1);
+
+        } finally {
+            OjAlgoUtils.ENVIRONMENT = tmpEnvironment;
+        }
+    }
+
+    @Test
+    public void testFullSize() {
+
+        final PrimitiveDenseStore tmpMatrix = PrimitiveDenseStore.FACTORY.makeFilled(2003, 20, new Normal());
+
+        final QR<Double> tmpExpected = new QRDecomposition.Primitive();
+        tmpExpected.setFullSize(true);
+        tmpExpected.decompose(tmpMatrix);
+
+        final TallSkinnyQR tmpActual = new TallSkinnyQR(5);
+        tmpActual.setFullSize(true);
+        tmpActual.decompose(tmpMatrix);
+
+        // Full size Q can't be assembled from the tree - a single leaf
+        TestUtils.assertEquals(1, tmpActual.countLeaves());
+        TestUtils.assertEquals(2003, tmpActual.getQ().countColumns());
+        TestUtils.assertEquals(tmpExpected.getR(), tmpActual.getR(), PRECISION);
+    }
+
+    @Test
+    public void testNotFullRank() {
+
+        final PrimitiveDenseStore tmpMatrix = PrimitiveDenseStore.FACTORY.makeFilled(2003, 20, new Normal());
+        tmpMatrix.fillColumn(0, 7, 0.0);
+
+        final TallSkinnyQR tmpDecomposition = new TallSkinnyQR(5);
+        tmpDecomposition.decompose(tmpMatrix);
+
+        TestUtils.assertEquals(19, tmpDecomposition.getRank());
+        TestUtils.assertFalse(tmpDecomposition.isSolvable());
+        TestUtils.assertEquals(tmpMatrix, tmpDecomposition, RECONSTRUCTION);
+    }
+
+    @Test
+    public void testTallSkinny() {
+
+        final PrimitiveDenseStore tmpMatrix = PrimitiveDenseStore.FACTORY.makeFilled(2003, 20, new Normal());
+        final PrimitiveDenseStore tmpVectorRHS = PrimitiveDenseStore.FACTORY.makeFilled(2003, 1, new Normal());
+        final PrimitiveDenseStore tmpMatrixRHS = PrimitiveDenseStore.FACTORY.makeFilled(2003, 7, new Normal());
+
+        final QR<Double> tmpExpected = new QRDecomposition.Primitive();
+        tmpExpected.decompose(tmpMatrix);
+
+        final TallSkinnyQR tmpActual = new TallSkinnyQR(5);
+        tmpActual.decompose(tmpMatrix);
+
+        TestUtils.assertEquals(5, tmpActual.countLeaves());
+        TestUtils.assertEquals(20, tmpActual.getRank());
+        TestUtils.assertTrue(tmpActual.isSolvable());
+        TestUtils.assertEquals(tmpMatrix, tmpActual, RECONSTRUCTION);
+
+        final MatrixStore<Double> tmpQ = tmpActual.getQ();
+        TestUtils.assertEquals(2003, tmpQ.countRows());
+        TestUtils.assertEquals(20, tmpQ.countColumns());
+        TestUtils.assertEquals(PrimitiveDenseStore.FACTORY.makeEye(20, 20), tmpQ.transpose().multiply(tmpQ), PRECISION);
+
+        // R is unique up to the signs of its rows
+        final MatrixStore<Double> tmpExpectedR = tmpExpected.getR();
+        final MatrixStore<Double> tmpActualR = tmpActual.getR();
+        TestUtils.assertEquals(tmpExpectedR.transpose().multiply(tmpExpectedR), tmpActualR.transpose().multiply(tmpActualR), PRECISION);
+
+        TestUtils.assertEquals(tmpExpected.getSolution(tmpVectorRHS), tmpActual.getSolution(tmpVectorRHS), PRECISION);
+        TestUtils.assertEquals(tmpExpected.getSolution(tmpMatrixRHS), tmpActual.getSolution(tmpMatrixRHS), PRECISION);
+    }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.decomposition;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.array.Array1D;
+import org.ojalgo.function.PrimitiveFunction;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.random.Normal;
+import org.ojalgo.scalar.ComplexNumber;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * The truncated (top k) eigenvalue and singular value decompositions should agree with the leading part of
+ * the full decompositions. The matrices have decaying spectra.
+ *
+ * @author apete
+ */
+public class TruncatedDecompositionCase extends MatrixDecompositionTests {
+
+    private static final NumberContext PRECISION = new NumberContext(7, 8);
+
+    private static void doTestEigenvalue(final MatrixStore<Double> matrix, final int k) {
+
+        final Eigenvalue<Double> tmpFull = new RawEigenvalue.Symmetric();
+        tmpFull.computeValuesOnly(matrix);
+        final Array1D<ComplexNumber> tmpAll = tmpFull.getEigenvalues();
+        final double[] tmpExpected = new double[(int) tmpAll.count()];
+        for (int i = 0; i < tmpExpected.length; i++) {
+            tmpExpected[i] = tmpAll.doubleValue(i);
+        }
+        Arrays.sort(tmpExpected);
+
+        final Eigenvalue<Double> tmpTruncated = Eigenvalue.truncated(k).make(matrix, true);
+        TestUtils.assertTrue(tmpTruncated.decompose(matrix));
+
+        final MatrixStore<Double> tmpV = tmpTruncated.getV();
+        final MatrixStore<Double> tmpD = tmpTruncated.getD();
+
+        TestUtils.assertEquals(matrix.countRows(), tmpV.countRows());
+        TestUtils.assertEquals(k, tmpV.countColumns());
+        TestUtils.assertEquals(k, tmpD.countRows());
+
+        // Largest in magnitude, from either end of the spectrum
+        int tmpLow = 0;
+        int tmpHigh = tmpExpected.length - 1;
+        for (int i = 0; i < k; i++) {
+            final double tmpValue;
+            if (Math.abs(tmpExpected[tmpLow]) > Math.abs(tmpExpected[tmpHigh])) {
+                tmpValue = tmpExpected[tmpLow++];
+            } else {
+                tmpValue = tmpExpected[tmpHigh--];
+            }
+            TestUtils.assertEquals(tmpValue, tmpD.doubleValue(i, i), PRECISION);
+        }
+
+        TestUtils.assertEquals(PrimitiveDenseStore.FACTORY.makeEye(k, k), tmpV.transpose().multiply(tmpV), PRECISION);
+        TestUtils.assertEquals(tmpV.multiply(tmpD), matrix.multiply(tmpV), PRECISION);
+    }
+
+    private static void doTestSingularValue(final MatrixStore<Double> matrix, final int k) {
+
+        final SingularValue<Double> tmpFull = new RawSingularValue();
+        tmpFull.computeValuesOnly(matrix);
+        final Array1D<Double> tmpExpected = tmpFull.getSingularValues();
+
+        final SingularValue<Double> tmpTruncated = SingularValue.truncated(k).make(matrix);
+        TestUtils.assertTrue(tmpTruncated.decompose(matrix));
+
+        final MatrixStore<Double> tmpQ1 = tmpTruncated.getQ1();
+        final MatrixStore<Double> tmpD = tmpTruncated.getD();
+        final MatrixStore<Double> tmpQ2 = tmpTruncated.getQ2();
+
+        TestUtils.assertEquals(matrix.countRows(), tmpQ1.countRows());
+        TestUtils.assertEquals(matrix.countColumns(), tmpQ2.countRows());
+        TestUtils.assertEquals(k, tmpQ1.countColumns());
+        TestUtils.assertEquals(k, tmpQ2.countColumns());
+
+        for (int i = 0; i < k; i++) {
+            TestUtils.assertEquals(tmpExpected.doubleValue(i), tmpD.doubleValue(i, i), PRECISION);
+        }
+
+        TestUtils.assertEquals(PrimitiveDenseStore.FACTORY.makeEye(k, k), tmpQ1.transpose().multiply(tmpQ1), PRECISION);
+        TestUtils.assertEquals(PrimitiveDenseStore.FACTORY.makeEye(k, k), tmpQ2.transpose().multiply(tmpQ2), PRECISION);
+        TestUtils.assertEquals(tmpQ1.multiply(tmpD), matrix.multiply(tmpQ2), PRECISION);
+        TestUtils.assertEquals(tmpQ2.multiply(tmpD), matrix.transpose().multiply(tmpQ1), PRECISION);
+
+        final SingularValue<Double> tmpValuesOnly = SingularValue.truncated(k).make(matrix);
+        TestUtils.assertTrue(tmpValuesOnly.computeValuesOnly(matrix));
+        TestUtils.assertEquals(tmpTruncated.getSingularValues(), tmpValuesOnly.getSingularValues(), PRECISION);
+    }
+
+    /**
+     * [U][diag(values)][V]<sup>T</sup> with random orthonormal [U] and [V]
+     */
+    private static PrimitiveDenseStore makeMatrix(final int rows, final int columns, final double[] values) {
+
+        final PrimitiveDenseStore tmpU = TruncatedDecompositionCase.makeOrthonormal(rows, values.length);
+        final PrimitiveDenseStore tmpV = TruncatedDecompositionCase.makeOrthonormal(columns, values.length);
+
+        for (int j = 0; j < values.length; j++) {
+            tmpU.modifyColumn(0, j, PrimitiveFunction.MULTIPLY.second(values[j]));
+        }
+
+        return (PrimitiveDenseStore) tmpU.multiply(tmpV.transpose());
+    }
+
+    private static PrimitiveDenseStore makeOrthonormal(final int rows, final int columns) {
+        final QR<Double> tmpQR = QR.PRIMITIVE.make(rows, columns);
+        tmpQR.decompose(PrimitiveDenseStore.FACTORY.makeFilled(rows, columns, new Normal()));
+        return PrimitiveDenseStore.FACTORY.copy(tmpQR.getQ());
+    }
+
+    @Test
+    public void testLanczosDense() {
+
+        final int tmpDim = 300;
+
+        final double[] tmpValues = new double[tmpDim];
+        for (int i = 0; i < tmpDim; i++) {
+            tmpValues[i] = ((i % 3) == 0 ? -100.0 : 100.0) * Math.pow(0.9, i);
+        }
+
+        final PrimitiveDenseStore tmpU = TruncatedDecompositionCase.makeOrthonormal(tmpDim, tmpDim);
+        final PrimitiveDenseStore tmpScaled = tmpU.copy();
+        for (int j = 0; j < tmpDim; j++) {
+            tmpScaled.modifyColumn(0, j, PrimitiveFunction.MULTIPLY.second(tmpValues[j]));
+        }
+        final PrimitiveDenseStore tmpMatrix = (PrimitiveDenseStore) tmpScaled.multiply(tmpU.transpose());
+        // Exactly symmetric
+        final MatrixStore<Double> tmpSymmetric = tmpMatrix.add(tmpMatrix.transpose()).multiply(0.5).copy();
+
+        TruncatedDecompositionCase.doTestEigenvalue(tmpSymmetric, 1);
+        TruncatedDecompositionCase.doTestEigenvalue(tmpSymmetric, 10);
+        // Logical store
+        TruncatedDecompositionCase.doTestEigenvalue(tmpSymmetric.logical().transpose().get(), 5);
+    }
+
+    @Test
+    public void testLanczosSmall() {
+
+        // Fewer rows than the default subspace size, and an invariant subspace
+        final PrimitiveDenseStore tmpMatrix = PrimitiveDenseStore.FACTORY.makeZero(12, 12);
+        for (int i = 0; i < 12; i++) {
+            tmpMatrix.set(i, i, i % 4);
+        }
+
+        TruncatedDecompositionCase.doTestEigenvalue(tmpMatrix, 5);
+        TruncatedDecompositionCase.doTestEigenvalue(tmpMatrix, 12);
+    }
+
+    @Test
+    public void testLanczosSparse() {
+
+        final int tmpDim = 1000;
+
+        final SparseStore<Double> tmpSparse = SparseStore.PRIMITIVE.make(tmpDim, tmpDim);
+        for (int i = 0; i < tmpDim; i++) {
+            tmpSparse.set(i, i, 10.0 * Math.pow(0.99, i));
+            if ((i + 7) < tmpDim) {
+                tmpSparse.set(i, i + 7, 0.01);
+                tmpSparse.set(i + 7, i, 0.01);
+            }
+        }
+
+        TruncatedDecompositionCase.doTestEigenvalue(tmpSparse, 3);
+    }
+
+    @Test
+    public void testRandomisedSVD() {
+
+        final double[] tmpValues = new double[60];
+        for (int i = 0; i < tmpValues.length; i++) {
+            tmpValues[i] = 10.0 * Math.pow(0.7, i);
+        }
+
+        final PrimitiveDenseStore tmpTall = TruncatedDecompositionCase.makeMatrix(400, 150, tmpValues);
+
+        TruncatedDecompositionCase.doTestSingularValue(tmpTall, 1);
+        TruncatedDecompositionCase.doTestSingularValue(tmpTall, 10);
+        // Wide, as a logical store
+        TruncatedDecompositionCase.doTestSingularValue(tmpTall.logical().transpose().get(), 10);
+        // Not enough columns for the oversampling
+        TruncatedDecompositionCase.doTestSingularValue(TruncatedDecompositionCase.makeMatrix(200, 15, new double[] { 5.0, 4.0, 3.0, 2.0, 1.0 }), 5);
+    }
+
+    @Test
+    public void testRandomisedSVDSparse() {
+
+        final SparseStore<Double> tmpSparse = SparseStore.PRIMITIVE.make(800, 500);
+        for (int j = 0; j < 500; j++) {
+            tmpSparse.set((3 * j) % 800, j, 100.0 * Math.pow(0.6, j));
+            tmpSparse.set((3 * j + 1) % 800, j, 0.001);
+        }
+
+        TruncatedDecompositionCase.doTestSingularValue(tmpSparse, 8);
+    }
+
+}
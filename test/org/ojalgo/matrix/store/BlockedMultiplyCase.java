@@ -0,0 +1,117 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.array.blas.GEMM;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Products large enough to be handled by the cache blocked {@link GEMM} kernel, compared to a plain triple
+ * loop. The dimensions are chosen so that none of them is a multiple of the micro-kernel tile size, and the
+ * complexity is larger than one depth block.
+ */
+public class BlockedMultiplyCase extends AbstractMatrixStoreTest {
+
+    private static final NumberContext PRECISION = new NumberContext(12, 10);
+
+    private static PrimitiveDenseStore expected(final MatrixStore<Double> left, final MatrixStore<Double> right) {
+
+        final int rows = (int) left.countRows();
+        final int complexity = (int) left.countColumns();
+        final int columns = (int) right.countColumns();
+
+        final PrimitiveDenseStore retVal = PrimitiveDenseStore.FACTORY.makeZero(rows, columns);
+
+        for (int j = 0; j < columns; j++) {
+            for (int i = 0; i < rows; i++) {
+                double value = 0.0;
+                for (int c = 0; c < complexity; c++) {
+                    value += left.doubleValue(i, c) * right.doubleValue(c, j);
+                }
+                retVal.set(i, j, value);
+            }
+        }
+
+        return retVal;
+    }
+
+    @Test
+    public void testMultiplyBoth() {
+
+        final PrimitiveDenseStore left = PrimitiveDenseStore.FACTORY.makeFilled(401, 97, new Uniform());
+        final PrimitiveDenseStore right = PrimitiveDenseStore.FACTORY.makeFilled(83, 401, new Uniform());
+
+        final MatrixStore<Double> tmpLeft = left.logical().transpose().get();
+        final MatrixStore<Double> tmpRight = right.logical().transpose().get();
+
+        final PrimitiveDenseStore actual = PrimitiveDenseStore.FACTORY.makeZero(97, 83);
+        actual.fillByMultiplying(tmpLeft, tmpRight);
+
+        TestUtils.assertEquals(BlockedMultiplyCase.expected(tmpLeft, tmpRight), actual, PRECISION);
+    }
+
+    @Test
+    public void testMultiplyLeft() {
+
+        final PrimitiveDenseStore left = PrimitiveDenseStore.FACTORY.makeFilled(401, 97, new Uniform());
+        final PrimitiveDenseStore right = PrimitiveDenseStore.FACTORY.makeFilled(401, 83, new Uniform());
+
+        final MatrixStore<Double> tmpLeft = left.logical().transpose().get();
+
+        final PrimitiveDenseStore actual = PrimitiveDenseStore.FACTORY.makeZero(97, 83);
+        actual.fillByMultiplying(tmpLeft, right);
+
+        TestUtils.assertEquals(BlockedMultiplyCase.expected(tmpLeft, right), actual, PRECISION);
+    }
+
+    @Test
+    public void testMultiplyNeither() {
+
+        final PrimitiveDenseStore left = PrimitiveDenseStore.FACTORY.makeFilled(97, 401, new Uniform());
+        final PrimitiveDenseStore right = PrimitiveDenseStore.FACTORY.makeFilled(401, 83, new Uniform());
+
+        TestUtils.assertEquals(BlockedMultiplyCase.expected(left, right), left.multiply(right), PRECISION);
+
+        final PrimitiveDenseStore actual = PrimitiveDenseStore.FACTORY.makeFilled(97, 83, new Uniform());
+        actual.fillByMultiplying(left, right);
+
+        TestUtils.assertEquals(BlockedMultiplyCase.expected(left, right), actual, PRECISION);
+    }
+
+    @Test
+    public void testMultiplyRight() {
+
+        final PrimitiveDenseStore left = PrimitiveDenseStore.FACTORY.makeFilled(97, 401, new Uniform());
+        final PrimitiveDenseStore right = PrimitiveDenseStore.FACTORY.makeFilled(83, 401, new Uniform());
+
+        final MatrixStore<Double> tmpRight = right.logical().transpose().get();
+
+        final PrimitiveDenseStore actual = PrimitiveDenseStore.FACTORY.makeZero(97, 83);
+        actual.fillByMultiplying(left, tmpRight);
+
+        TestUtils.assertEquals(BlockedMultiplyCase.expected(left, tmpRight), actual, PRECISION);
+    }
+
+}
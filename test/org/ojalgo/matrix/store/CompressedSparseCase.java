@@ -0,0 +1,126 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.random.Uniform;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * {@link PrimitiveCSR} and {@link PrimitiveCSC} compared to the equivalent dense calculations. The matrices
+ * are large enough (with the branch limits minimised) to have the products calculated in parallel.
+ */
+public class CompressedSparseCase extends AbstractMatrixStoreTest {
+
+    private static final NumberContext PRECISION = new NumberContext(12, 10);
+
+    private static SparseStore<Double> sparse(final int rows, final int columns) {
+
+        final Random tmpRandom = new Random(rows * columns);
+
+        final SparseStore<Double> retVal = SparseStore.PRIMITIVE.make(rows, columns);
+        for (int i = 0; i < (rows * 3); i++) {
+            retVal.set(tmpRandom.nextInt(rows), tmpRandom.nextInt(columns), tmpRandom.nextGaussian());
+        }
+
+        return retVal;
+    }
+
+    @Test
+    public void testElements() {
+
+        final SparseStore<Double> tmpSource = CompressedSparseCase.sparse(57, 43);
+
+        final PrimitiveCSR tmpCSR = PrimitiveCSR.make(tmpSource);
+        final PrimitiveCSC tmpCSC = PrimitiveCSC.make(tmpSource);
+
+        TestUtils.assertEquals(tmpSource, tmpCSR);
+        TestUtils.assertEquals(tmpSource, tmpCSC);
+        TestUtils.assertEquals(tmpSource.transpose(), tmpCSR.transpose());
+        TestUtils.assertEquals(tmpSource.transpose(), tmpCSC.transpose());
+
+        TestUtils.assertEquals(tmpCSR.countNonzeros(), tmpCSC.countNonzeros());
+
+        for (int i = 0; i < 57; i++) {
+            TestUtils.assertEquals(tmpSource.firstInRow(i), tmpCSR.firstInRow(i));
+            TestUtils.assertEquals(tmpSource.limitOfRow(i), tmpCSR.limitOfRow(i));
+        }
+        for (int j = 0; j < 43; j++) {
+            TestUtils.assertEquals(tmpSource.firstInColumn(j), tmpCSC.firstInColumn(j));
+            TestUtils.assertEquals(tmpSource.limitOfColumn(j), tmpCSC.limitOfColumn(j));
+        }
+
+        final PrimitiveDenseStore tmpCopy = PrimitiveDenseStore.FACTORY.makeZero(57, 43);
+        tmpCSR.supplyTo(tmpCopy);
+        TestUtils.assertEquals(tmpSource, tmpCopy);
+        tmpCSC.supplyTo(tmpCopy);
+        TestUtils.assertEquals(tmpSource, tmpCopy);
+    }
+
+    @Test
+    public void testMultiply() {
+
+        final SparseStore<Double> tmpSource = CompressedSparseCase.sparse(1000, 700);
+        final PrimitiveDenseStore tmpDense = PrimitiveDenseStore.FACTORY.copy(tmpSource);
+
+        final PrimitiveDenseStore tmpVector = PrimitiveDenseStore.FACTORY.makeFilled(700, 1, new Uniform());
+        final PrimitiveDenseStore tmpMatrix = PrimitiveDenseStore.FACTORY.makeFilled(700, 9, new Uniform());
+
+        final MatrixStore<Double> tmpExpectedVector = tmpDense.multiply(tmpVector);
+        final MatrixStore<Double> tmpExpectedMatrix = tmpDense.multiply(tmpMatrix);
+
+        TestUtils.assertEquals(tmpExpectedVector, PrimitiveCSR.make(tmpSource).multiply(tmpVector), PRECISION);
+        TestUtils.assertEquals(tmpExpectedMatrix, PrimitiveCSR.make(tmpSource).multiply(tmpMatrix), PRECISION);
+        TestUtils.assertEquals(tmpExpectedVector, PrimitiveCSC.make(tmpSource).multiply(tmpVector), PRECISION);
+        TestUtils.assertEquals(tmpExpectedMatrix, PrimitiveCSC.make(tmpSource).multiply(tmpMatrix), PRECISION);
+
+        TestUtils.assertEquals(tmpExpectedVector, tmpSource.multiply(tmpVector), PRECISION);
+        TestUtils.assertEquals(tmpExpectedMatrix, tmpSource.multiply(tmpMatrix), PRECISION);
+
+        final SparseStore<Double> tmpSparseTarget = SparseStore.PRIMITIVE.make(1000, 9);
+        PrimitiveCSR.make(tmpSource).multiply(tmpMatrix, tmpSparseTarget);
+        TestUtils.assertEquals(tmpExpectedMatrix, tmpSparseTarget, PRECISION);
+        PrimitiveCSC.make(tmpSource).multiply(tmpMatrix, tmpSparseTarget);
+        TestUtils.assertEquals(tmpExpectedMatrix, tmpSparseTarget, PRECISION);
+
+        TestUtils.assertEquals(tmpDense.multiply(2.5), PrimitiveCSR.make(tmpSource).multiply(2.5), PRECISION);
+        TestUtils.assertEquals(tmpDense.multiply(2.5), PrimitiveCSC.make(tmpSource).multiply(2.5), PRECISION);
+    }
+
+    @Test
+    public void testPremultiply() {
+
+        final SparseStore<Double> tmpSource = CompressedSparseCase.sparse(700, 1000);
+        final PrimitiveDenseStore tmpDense = PrimitiveDenseStore.FACTORY.copy(tmpSource);
+
+        final PrimitiveDenseStore tmpLeft = PrimitiveDenseStore.FACTORY.makeFilled(9, 700, new Uniform());
+
+        final MatrixStore<Double> tmpExpected = tmpLeft.multiply(tmpDense);
+
+        TestUtils.assertEquals(tmpExpected, PrimitiveCSC.make(tmpSource).premultiply(tmpLeft), PRECISION);
+        TestUtils.assertEquals(tmpExpected.transpose(), PrimitiveCSC.make(tmpSource).transpose().multiply(tmpLeft.transpose()), PRECISION);
+    }
+
+}
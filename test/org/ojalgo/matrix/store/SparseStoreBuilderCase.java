@@ -0,0 +1,88 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.scalar.ComplexNumber;
+
+public class SparseStoreBuilderCase {
+
+    @Test
+    public void testBuilder() {
+
+        final Random tmpRandom = new Random(456L);
+
+        final SparseStore<Double> tmpExpected = SparseStore.PRIMITIVE.make(50, 40);
+        final SparseStore.Builder<Double> tmpBuilder = SparseStore.builder(PrimitiveDenseStore.FACTORY, 50, 40, 100);
+
+        for (int k = 0; k < 300; k++) {
+
+            final int tmpRow = tmpRandom.nextInt(50);
+            final int tmpCol = tmpRandom.nextInt(40);
+            final double tmpValue = tmpRandom.nextGaussian();
+
+            if (tmpRandom.nextBoolean()) {
+                tmpExpected.add(tmpRow, tmpCol, tmpValue);
+                tmpBuilder.add(tmpRow, tmpCol, tmpValue);
+            } else {
+                tmpExpected.set(tmpRow, tmpCol, tmpValue);
+                tmpBuilder.set(tmpRow, tmpCol, tmpValue);
+            }
+        }
+
+        final SparseStore<Double> tmpActual = tmpBuilder.make();
+
+        TestUtils.assertEquals(tmpExpected, tmpActual);
+
+        for (int i = 0; i < 50; i++) {
+            TestUtils.assertEquals(tmpExpected.firstInRow(i), tmpActual.firstInRow(i));
+            TestUtils.assertEquals(tmpExpected.limitOfRow(i), tmpActual.limitOfRow(i));
+        }
+
+        TestUtils.assertEquals(PrimitiveCSR.make(tmpExpected), PrimitiveCSR.make(tmpActual));
+    }
+
+
+    @Test
+    public void testComplex() {
+
+        final SparseStore<ComplexNumber> tmpExpected = SparseStore.makeComplex(5, 4);
+        final SparseStore.Builder<ComplexNumber> tmpBuilder = SparseStore.builder(ComplexDenseStore.FACTORY, 5, 4, 4);
+
+        tmpExpected.set(3, 2, ComplexNumber.of(1.0, 2.0));
+        tmpBuilder.set(3, 2, ComplexNumber.of(1.0, 2.0));
+        tmpExpected.add(3, 2, ComplexNumber.of(0.5, -3.0));
+        tmpBuilder.add(3, 2, ComplexNumber.of(0.5, -3.0));
+        tmpExpected.set(0, 1, ComplexNumber.I);
+        tmpBuilder.set(0, 1, ComplexNumber.I);
+
+        final SparseStore<ComplexNumber> tmpActual = tmpBuilder.make();
+
+        TestUtils.assertEquals(tmpExpected, tmpActual);
+        TestUtils.assertEquals(ComplexNumber.of(1.5, -1.0), tmpActual.get(3, 2));
+        TestUtils.assertEquals(ComplexNumber.I, tmpActual.get(0, 1));
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.store.operation;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+
+public class ThresholdProfileTest {
+
+    @Test
+    public void testCalibrate() {
+
+        final ThresholdProfile tmpCurrent = ThresholdProfile.current();
+
+        final ThresholdProfile tmpCalibrated = ThresholdProfile.calibrate(32);
+
+        for (final String tmpOperation : tmpCalibrated.getThresholds().keySet()) {
+            final int tmpThreshold = tmpCalibrated.get(tmpOperation);
+            TestUtils.assertTrue(tmpOperation, tmpThreshold > 0);
+        }
+
+        // Calibrating must not change the active thresholds
+        TestUtils.assertEquals(tmpCurrent.getThresholds(), ThresholdProfile.current().getThresholds());
+    }
+
+    @Test
+    public void testSaveLoadApply() throws IOException {
+
+        final ThresholdProfile tmpOriginal = ThresholdProfile.current();
+
+        final File tmpFile = File.createTempFile("thresholds", ".properties");
+        tmpFile.deleteOnExit();
+
+        try {
+
+            MatrixOperation.setAllOperationThresholds(123);
+            ThresholdProfile.current().save(tmpFile);
+
+            tmpOriginal.apply();
+            TestUtils.assertEquals(tmpOriginal.get("MultiplyBoth"), MultiplyBoth.THRESHOLD);
+
+            final ThresholdProfile tmpLoaded = ThresholdProfile.load(tmpFile);
+            TestUtils.assertEquals(123, tmpLoaded.get("MultiplyBoth"));
+            TestUtils.assertEquals(123, tmpLoaded.get("SubstituteBackwards"));
+
+            tmpLoaded.apply();
+            TestUtils.assertEquals(123, MultiplyBoth.THRESHOLD);
+            TestUtils.assertEquals(123, ApplyLU.THRESHOLD);
+
+        } finally {
+            tmpOriginal.apply();
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.access.Access2D;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PrimitiveCSR;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.matrix.task.iterative.BiCGSTABSolver;
+import org.ojalgo.matrix.task.iterative.GMRESSolver;
+import org.ojalgo.matrix.task.iterative.MINRESSolver;
+import org.ojalgo.matrix.task.iterative.Preconditioner;
+import org.ojalgo.random.Normal;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * GMRES and BiCGSTAB on a nonsymmetric convection-diffusion system, and MINRES on a symmetric indefinite
+ * system.
+ *
+ * @author apete
+ */
+public class KrylovSolverTest extends AbstractMatrixDecompositionTaskTest {
+
+    private static final NumberContext ACCURACY = new NumberContext(12, 12);
+    private static final NumberContext PRECISION = new NumberContext(8, 8);
+    private static final int SIZE = 20;
+
+    private static void assertSolution(final Access2D<?> body, final MatrixStore<Double> rhs, final MatrixStore<Double> solution) {
+        final PrimitiveDenseStore tmpBody = PrimitiveDenseStore.FACTORY.copy(body);
+        TestUtils.assertEquals(rhs, tmpBody.multiply(solution), PRECISION);
+    }
+
+    /**
+     * 5-point Laplacian on a grid, plus first order upwind convection, minus a diagonal shift
+     */
+    private static SparseStore<Double> makeGrid(final double convection, final double shift) {
+        final int tmpDim = SIZE * SIZE;
+        final SparseStore<Double> retVal = SparseStore.PRIMITIVE.make(tmpDim, tmpDim);
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                final int i = (x * SIZE) + y;
+                retVal.set(i, i, (4.0 + convection) - shift);
+                if (x > 0) {
+                    retVal.set(i, i - SIZE, -1.0 - convection);
+                    retVal.set(i - SIZE, i, -1.0);
+                }
+                if (y > 0) {
+                    retVal.set(i, i - 1, -1.0);
+                    retVal.set(i - 1, i, -1.0);
+                }
+            }
+        }
+        return retVal;
+    }
+
+    @Test
+    public void testBiCGSTAB() {
+
+        final SparseStore<Double> tmpBody = KrylovSolverTest.makeGrid(2.0, 0.0);
+        final MatrixStore<Double> tmpRHS = PrimitiveDenseStore.FACTORY.makeFilled(tmpBody.countRows(), 1L, new Normal());
+
+        final BiCGSTABSolver tmpSolver = new BiCGSTABSolver();
+        tmpSolver.configurator().accuracy(ACCURACY).iterations(1000);
+        KrylovSolverTest.assertSolution(tmpBody, tmpRHS, tmpSolver.solve(tmpBody, tmpRHS).get());
+
+        tmpSolver.setPreconditioner(Preconditioner.incompleteLU());
+        KrylovSolverTest.assertSolution(tmpBody, tmpRHS, tmpSolver.solve(PrimitiveCSR.make(tmpBody), tmpRHS).get());
+    }
+
+    @Test
+    public void testGMRES() {
+
+        final SparseStore<Double> tmpBody = KrylovSolverTest.makeGrid(2.0, 0.0);
+        final MatrixStore<Double> tmpRHS = PrimitiveDenseStore.FACTORY.makeFilled(tmpBody.countRows(), 1L, new Normal());
+
+        final GMRESSolver tmpSolver = new GMRESSolver();
+        tmpSolver.configurator().accuracy(ACCURACY).iterations(2000);
+        KrylovSolverTest.assertSolution(tmpBody, tmpRHS, tmpSolver.solve(tmpBody, tmpRHS).get());
+
+        tmpSolver.setPreconditioner(Preconditioner.incompleteLU());
+        tmpSolver.setRestart(10);
+        KrylovSolverTest.assertSolution(tmpBody, tmpRHS, tmpSolver.solve(PrimitiveCSR.make(tmpBody), tmpRHS).get());
+
+        // Dense body
+        final PrimitiveDenseStore tmpDense = PrimitiveDenseStore.FACTORY.copy(tmpBody);
+        KrylovSolverTest.assertSolution(tmpBody, tmpRHS, tmpSolver.solve(tmpDense, tmpRHS).get());
+    }
+
+    @Test
+    public void testMINRES() {
+
+        // Eigenvalues in (0, 8) shifted by -1 - indefinite
+        final SparseStore<Double> tmpBody = KrylovSolverTest.makeGrid(0.0, 1.0);
+        final MatrixStore<Double> tmpRHS = PrimitiveDenseStore.FACTORY.makeFilled(tmpBody.countRows(), 1L, new Normal());
+
+        final MINRESSolver tmpSolver = new MINRESSolver();
+        tmpSolver.configurator().accuracy(ACCURACY).iterations(2000);
+        KrylovSolverTest.assertSolution(tmpBody, tmpRHS, tmpSolver.solve(tmpBody, tmpRHS).get());
+
+        // SPD system with a SPD preconditioner
+        final SparseStore<Double> tmpDefinite = KrylovSolverTest.makeGrid(0.0, 0.0);
+        tmpSolver.setPreconditioner(Preconditioner.incompleteCholesky());
+        KrylovSolverTest.assertSolution(tmpDefinite, tmpRHS, tmpSolver.solve(tmpDefinite, tmpRHS).get());
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.matrix.task.iterative.ConjugateGradientSolver;
+import org.ojalgo.matrix.task.iterative.GaussSeidelSolver;
+import org.ojalgo.random.Normal;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Systems large enough to be iterated in parallel (partitioned rows and reductions for conjugate gradient,
+ * multicoloured Gauss-Seidel).
+ *
+ * @author apete
+ */
+public class ParallelIterativeTest extends AbstractMatrixDecompositionTaskTest {
+
+    private static final NumberContext ACCURACY = new NumberContext(12, 12);
+    private static final NumberContext PRECISION = new NumberContext(8, 8);
+    private static final int SIZE = 80;
+
+    private static SparseStore<Double> makeGrid(final double diagonal) {
+        final int tmpDim = SIZE * SIZE;
+        final SparseStore<Double> retVal = SparseStore.PRIMITIVE.make(tmpDim, tmpDim);
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                final int i = (x * SIZE) + y;
+                retVal.set(i, i, diagonal);
+                if (x > 0) {
+                    retVal.set(i, i - SIZE, -1.0);
+                    retVal.set(i - SIZE, i, -1.0);
+                }
+                if (y > 0) {
+                    retVal.set(i, i - 1, -1.0);
+                    retVal.set(i - 1, i, -1.0);
+                }
+            }
+        }
+        return retVal;
+    }
+
+    @Test
+    public void testConjugateGradient() {
+
+        final SparseStore<Double> tmpBody = ParallelIterativeTest.makeGrid(4.0);
+        final MatrixStore<Double> tmpRHS = PrimitiveDenseStore.FACTORY.makeFilled(tmpBody.countRows(), 1L, new Normal());
+
+        final ConjugateGradientSolver tmpSolver = new ConjugateGradientSolver();
+        tmpSolver.configurator().accuracy(ACCURACY).iterations(2000);
+
+        final MatrixStore<Double> tmpSolution = tmpSolver.solve(tmpBody, tmpRHS).get();
+        TestUtils.assertEquals(tmpRHS, tmpBody.multiply(tmpSolution), PRECISION);
+
+        // Reproducible
+        TestUtils.assertEquals(tmpSolution, tmpSolver.solve(tmpBody, tmpRHS).get(), new NumberContext(15, 15));
+    }
+
+    @Test
+    public void testGaussSeidel() {
+
+        final SparseStore<Double> tmpBody = ParallelIterativeTest.makeGrid(6.0);
+        final MatrixStore<Double> tmpRHS = PrimitiveDenseStore.FACTORY.makeFilled(tmpBody.countRows(), 1L, new Normal());
+
+        final GaussSeidelSolver tmpSolver = new GaussSeidelSolver();
+        tmpSolver.configurator().accuracy(ACCURACY).iterations(2000);
+
+        final MatrixStore<Double> tmpSolution = tmpSolver.solve(tmpBody, tmpRHS).get();
+        TestUtils.assertEquals(tmpRHS, tmpBody.multiply(tmpSolution), PRECISION);
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.matrix.task;
+
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.matrix.store.MatrixStore;
+import org.ojalgo.matrix.store.PrimitiveDenseStore;
+import org.ojalgo.matrix.store.SparseStore;
+import org.ojalgo.matrix.task.iterative.ConjugateGradientSolver;
+import org.ojalgo.matrix.task.iterative.Preconditioner;
+import org.ojalgo.random.Normal;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Preconditioned conjugate gradient on a 2D Laplacian (poorly conditioned, and with a constant diagonal so
+ * Jacobi preconditioning does nothing).
+ *
+ * @author apete
+ */
+public class PreconditionerTest extends AbstractMatrixDecompositionTaskTest {
+
+    private static final NumberContext ACCURACY = new NumberContext(12, 12);
+    private static final NumberContext PRECISION = new NumberContext(8, 8);
+    private static final int SIZE = 30;
+
+    private static SparseStore<Double> makeGrid() {
+        final int tmpDim = SIZE * SIZE;
+        final SparseStore<Double> retVal = SparseStore.PRIMITIVE.make(tmpDim, tmpDim);
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                final int i = (x * SIZE) + y;
+                retVal.set(i, i, 4.0);
+                if (x > 0) {
+                    retVal.set(i, i - SIZE, -1.0);
+                    retVal.set(i - SIZE, i, -1.0);
+                }
+                if (y > 0) {
+                    retVal.set(i, i - 1, -1.0);
+                    retVal.set(i - 1, i, -1.0);
+                }
+            }
+        }
+        return retVal;
+    }
+
+    private static void doTest(final Supplier<Preconditioner> preconditioner, final int iterations) {
+
+        final SparseStore<Double> tmpBody = PreconditionerTest.makeGrid();
+        final MatrixStore<Double> tmpRHS = PrimitiveDenseStore.FACTORY.makeFilled(tmpBody.countRows(), 1L, new Normal());
+
+        final ConjugateGradientSolver tmpSolver = new ConjugateGradientSolver();
+        tmpSolver.setPreconditioner(preconditioner.get());
+        tmpSolver.configurator().accuracy(ACCURACY).iterations(iterations);
+
+        final MatrixStore<Double> tmpSolution = tmpSolver.solve(tmpBody, tmpRHS).get();
+        TestUtils.assertEquals(tmpRHS, tmpBody.multiply(tmpSolution), PRECISION);
+
+        // Jacobi with the same iterations limit does not converge
+        if (iterations < 60) {
+            final ConjugateGradientSolver tmpJacobi = new ConjugateGradientSolver();
+            tmpJacobi.configurator().accuracy(ACCURACY).iterations(iterations);
+            final MatrixStore<Double> tmpNotConverged = tmpJacobi.solve(tmpBody, tmpRHS).get();
+            TestUtils.assertFalse(tmpRHS.equals(tmpBody.multiply(tmpNotConverged), PRECISION));
+        }
+    }
+
+    @Test
+    public void testBlockJacobi() {
+        PreconditionerTest.doTest(() -> Preconditioner.blockJacobi(SIZE), 80);
+    }
+
+    @Test
+    public void testIncompleteCholesky() {
+        PreconditionerTest.doTest(Preconditioner::incompleteCholesky, 45);
+    }
+
+    @Test
+    public void testIncompleteLU() {
+        PreconditionerTest.doTest(Preconditioner::incompleteLU, 45);
+    }
+
+    @Test
+    public void testJacobi() {
+        PreconditionerTest.doTest(Preconditioner::jacobi, 200);
+    }
+
+    @Test
+    public void testSSOR() {
+        PreconditionerTest.doTest(() -> Preconditioner.ssor(1.5), 45);
+    }
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * {@link BinaryModelFile} - write and read back.
+ *
+ * @author apete
+ */
+public class BinaryModelFileTest {
+
+    private static final String PATH = "./test/org/ojalgo/optimisation/";
+
+    private static String describe(final ExpressionsBasedModel model) {
+
+        final StringBuilder retVal = new StringBuilder();
+
+        retVal.append(model.isMaximisation()).append('\n');
+
+        for (final Variable tmpVariable : model.getVariables()) {
+            retVal.append(tmpVariable.getName()).append(' ').append(BinaryModelFileTest.toDouble(tmpVariable.getLowerLimit())).append(' ')
+                    .append(BinaryModelFileTest.toDouble(tmpVariable.getUpperLimit())).append(' ')
+                    .append(BinaryModelFileTest.toDouble(tmpVariable.getContributionWeight())).append(' ')
+                    .append(BinaryModelFileTest.toDouble(tmpVariable.getValue())).append(' ').append(tmpVariable.isInteger()).append('\n');
+        }
+
+        final TreeMap<String, String> tmpExpressions = new TreeMap<>();
+        for (final Expression tmpExpression : model.getExpressions()) {
+            final TreeMap<String, Double> tmpFactors = new TreeMap<>();
+            for (final Map.Entry<?, BigDecimal> tmpEntry : tmpExpression.getLinear().entrySet()) {
+                tmpFactors.put(tmpEntry.getKey().toString(), tmpEntry.getValue().doubleValue());
+            }
+            for (final Map.Entry<?, BigDecimal> tmpEntry : tmpExpression.getQuadratic().entrySet()) {
+                tmpFactors.put(tmpEntry.getKey().toString(), tmpEntry.getValue().doubleValue());
+            }
+            tmpExpressions.put(tmpExpression.getName(),
+                    BinaryModelFileTest.toDouble(tmpExpression.getLowerLimit()) + " " + BinaryModelFileTest.toDouble(tmpExpression.getUpperLimit()) + " "
+                            + BinaryModelFileTest.toDouble(tmpExpression.getContributionWeight()) + " " + tmpFactors);
+        }
+        retVal.append(tmpExpressions);
+
+        return retVal.toString();
+    }
+
+    private static ExpressionsBasedModel roundTrip(final ExpressionsBasedModel model) throws IOException {
+        final ByteArrayOutputStream tmpOutput = new ByteArrayOutputStream();
+        BinaryModelFile.write(model, tmpOutput);
+        return BinaryModelFile.read(new ByteArrayInputStream(tmpOutput.toByteArray()), model.options);
+    }
+
+    private static Double toDouble(final BigDecimal value) {
+        return value != null ? value.doubleValue() : null;
+    }
+
+    @Test
+    public void testCorrupt() throws IOException {
+
+        final ByteArrayOutputStream tmpOutput = new ByteArrayOutputStream();
+        BinaryModelFile.write(MathProgSysModel.make(new File(PATH + "linear/afiro.mps")).getExpressionsBasedModel(), tmpOutput);
+        final byte[] tmpBytes = tmpOutput.toByteArray();
+
+        final byte[] tmpTruncated = Arrays.copyOf(tmpBytes, tmpBytes.length / 2);
+        final byte[] tmpWrongMagic = tmpBytes.clone();
+        tmpWrongMagic[0]++;
+        final byte[] tmpWrongVersion = tmpBytes.clone();
+        tmpWrongVersion[4]++;
+
+        // Header counts that are negative, or that imply more data than there is, must not be allocated
+        final byte[] tmpHugeCount = tmpBytes.clone();
+        ByteBuffer.wrap(tmpHugeCount).order(ByteOrder.LITTLE_ENDIAN).putInt(12, Integer.MAX_VALUE - 8);
+        final byte[] tmpNegativeCount = tmpBytes.clone();
+        ByteBuffer.wrap(tmpNegativeCount).order(ByteOrder.LITTLE_ENDIAN).putInt(20, -1);
+        final byte[] tmpLargerCount = tmpBytes.clone();
+        ByteBuffer.wrap(tmpLargerCount).order(ByteOrder.LITTLE_ENDIAN).putInt(28, tmpBytes.length);
+
+        for (final byte[] tmpCorrupt : new byte[][] { tmpTruncated, tmpWrongMagic, tmpWrongVersion, new byte[0], tmpHugeCount, tmpNegativeCount,
+                tmpLargerCount }) {
+            try {
+                BinaryModelFile.read(new ByteArrayInputStream(tmpCorrupt), new Optimisation.Options());
+                TestUtils.fail("Should not be possible to read!");
+            } catch (final IOException expected) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void testFile() throws IOException {
+
+        final ExpressionsBasedModel tmpModel = new ExpressionsBasedModel();
+
+        final Variable[] tmpVariables = new Variable[] { tmpModel.addVariable("X").lower(0).upper(5), tmpModel.addVariable("Y").lower(-2),
+                tmpModel.addVariable("Z").integer(true).lower(0).upper(10).weight(-1) };
+        tmpVariables[0].setValue(1.5);
+
+        final Expression tmpObjective = tmpModel.addExpression("Objective").weight(1);
+        tmpObjective.set(tmpVariables[0], tmpVariables[0], 2.0);
+        tmpObjective.set(tmpVariables[1], tmpVariables[1], 1.0);
+        tmpObjective.set(tmpVariables[0], tmpVariables[1], 0.5);
+        tmpObjective.set(tmpVariables[1], tmpVariables[0], 0.5);
+        tmpObjective.set(tmpVariables[0], -3.0);
+
+        tmpModel.addExpression("Budget").upper(8).set(tmpVariables[0], 1).set(tmpVariables[1], 1).set(tmpVariables[2], 0.75);
+        tmpModel.addExpression("Balance").level(1).set(tmpVariables[0], 1).set(tmpVariables[1], -1);
+
+        final File tmpFile = File.createTempFile("model", ".ojmb");
+        tmpFile.deleteOnExit();
+
+        BinaryModelFile.write(tmpModel, tmpFile);
+        final ExpressionsBasedModel tmpRead = BinaryModelFile.read(tmpFile);
+
+        TestUtils.assertEquals(BinaryModelFileTest.describe(tmpModel), BinaryModelFileTest.describe(tmpRead));
+
+        final Optimisation.Result tmpExpected = tmpModel.minimise();
+        final Optimisation.Result tmpActual = tmpRead.minimise();
+        TestUtils.assertStateNotLessThanOptimal(tmpActual);
+        TestUtils.assertEquals(tmpExpected, tmpActual, NumberContext.getGeneral(8, 10));
+
+        TestUtils.assertTrue(tmpFile.delete());
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+
+        final Optimisation.Options tmpPrimitive = new Optimisation.Options();
+        tmpPrimitive.exact = false;
+
+        for (final String tmpName : new String[] { "integer/lpsolve_sc_org.mps", "integer/markshare_5_0.mps", "linear/afiro.mps", "linear/blend.mps",
+                "linear/share2b.mps" }) {
+
+            final File tmpFile = new File(PATH + tmpName);
+
+            for (final Optimisation.Options tmpOptions : new Optimisation.Options[] { new Optimisation.Options(), tmpPrimitive }) {
+
+                final MathProgSysModel tmpMPS = MathProgSysModel.make(tmpFile, tmpOptions);
+                tmpMPS.getExpressionsBasedModel().setMaximisation();
+
+                final ExpressionsBasedModel tmpRead = BinaryModelFileTest.roundTrip(tmpMPS.getExpressionsBasedModel());
+
+                TestUtils.assertEquals(tmpName, BinaryModelFileTest.describe(tmpMPS.getExpressionsBasedModel()), BinaryModelFileTest.describe(tmpRead));
+                TestUtils.assertEquals(tmpOptions.exact, !(tmpRead.getExpressions().iterator().next().getLinear() instanceof PrimitiveFactors));
+            }
+        }
+    }
+
+}
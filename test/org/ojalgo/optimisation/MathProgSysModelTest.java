@@ -0,0 +1,160 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * {@link MathProgSysModel} - fixed and free format, plain and gzip compressed, exact and primitive.
+ *
+ * @author apete
+ */
+public class MathProgSysModelTest {
+
+    private static final String[] FILES = new String[] { "integer/lpsolve_sc_org.mps", "integer/markshare_5_0.mps", "linear/adlittle.mps",
+            "linear/afiro.mps", "linear/blend.mps", "linear/boeing2.mps", "linear/share2b.mps" };
+    private static final String PATH = "./test/org/ojalgo/optimisation/";
+
+    private static String describe(final MathProgSysModel model) {
+
+        final ExpressionsBasedModel tmpModel = model.getExpressionsBasedModel();
+
+        final StringBuilder retVal = new StringBuilder();
+
+        retVal.append(model.isMaximisation()).append('\n');
+
+        for (final Variable tmpVariable : tmpModel.getVariables()) {
+            retVal.append(tmpVariable.getName()).append(' ').append(tmpVariable.getLowerLimit()).append(' ').append(tmpVariable.getUpperLimit())
+                    .append(' ').append(tmpVariable.isInteger()).append('\n');
+        }
+
+        final TreeMap<String, String> tmpExpressions = new TreeMap<>();
+        for (final Expression tmpExpression : tmpModel.getExpressions()) {
+            tmpExpressions.put(tmpExpression.getName(), tmpExpression.getLowerLimit() + " " + tmpExpression.getUpperLimit() + " "
+                    + tmpExpression.getContributionWeight() + " " + new TreeMap<>(tmpExpression.getLinear()));
+        }
+        retVal.append(tmpExpressions);
+
+        return retVal.toString();
+    }
+
+    /**
+     * Whitespace separated fields, and (optionally) no indentation of the data lines.
+     */
+    private static byte[] toFreeFormat(final File file, final boolean indent) throws IOException {
+
+        final StringBuilder retVal = new StringBuilder();
+
+        for (final String tmpLine : Files.readAllLines(file.toPath(), StandardCharsets.ISO_8859_1)) {
+            if (indent && tmpLine.startsWith(" ")) {
+                retVal.append(' ');
+            }
+            retVal.append(tmpLine.trim().replaceAll("\\s+", " ")).append("\r\n");
+        }
+
+        return retVal.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    public void testFreeFormat() throws IOException {
+
+        for (final String tmpName : FILES) {
+
+            final File tmpFile = new File(PATH + tmpName);
+            final String tmpExpected = MathProgSysModelTest.describe(MathProgSysModel.make(tmpFile));
+
+            TestUtils.assertEquals(tmpName, tmpExpected,
+                    MathProgSysModelTest.describe(MathProgSysModel.make(new ByteArrayInputStream(MathProgSysModelTest.toFreeFormat(tmpFile, true)))));
+            TestUtils.assertEquals(tmpName, tmpExpected,
+                    MathProgSysModelTest.describe(MathProgSysModel.make(new ByteArrayInputStream(MathProgSysModelTest.toFreeFormat(tmpFile, false)))));
+        }
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+
+        for (final String tmpName : FILES) {
+
+            final File tmpFile = new File(PATH + tmpName);
+
+            final ByteArrayOutputStream tmpCompressed = new ByteArrayOutputStream();
+            try (OutputStream tmpOutput = new GZIPOutputStream(tmpCompressed)) {
+                Files.copy(tmpFile.toPath(), tmpOutput);
+            }
+
+            TestUtils.assertEquals(tmpName, MathProgSysModelTest.describe(MathProgSysModel.make(tmpFile)),
+                    MathProgSysModelTest.describe(MathProgSysModel.make(new ByteArrayInputStream(tmpCompressed.toByteArray()))));
+        }
+    }
+
+    @Test
+    public void testNumbers() throws IOException {
+
+        final String[] tmpNumbers = new String[] { "0", "-0", "+1", "1.", ".5", "-.5", "1.50", "0.1", "-123.456", "1e5", "1E-5", "2.5D+03", "-7.25d-2",
+                "1e22", "1e23", "1e-22", "1e-23", "1E+30", "-1e-300", "4.9e-324", "1.7976931348623157E308", "9007199254740993", "123456789012345678",
+                "1234567890123456789", "0.1234567890123456789", "0.000000000000000000001234", "3.141592653589793238462643383279" };
+
+        for (final String tmpNumber : tmpNumbers) {
+
+            final MathProgSysModel.Tokenizer tmpLine = new MathProgSysModel.Tokenizer(
+                    new ByteArrayInputStream((" " + tmpNumber + "\n").getBytes(StandardCharsets.ISO_8859_1)));
+            TestUtils.assertTrue(tmpLine.next());
+            TestUtils.assertTrue(tmpLine.map(0b000001));
+
+            final String tmpStandard = tmpNumber.replace('D', 'E').replace('d', 'e');
+            TestUtils.assertEquals(tmpNumber, Double.doubleToLongBits(Double.parseDouble(tmpStandard)), Double.doubleToLongBits(tmpLine.number(0)));
+            TestUtils.assertEquals(tmpNumber, new BigDecimal(tmpStandard), tmpLine.decimal(0));
+        }
+    }
+
+    @Test
+    public void testPrimitive() {
+
+        final Optimisation.Options tmpOptions = new Optimisation.Options();
+        tmpOptions.exact = false;
+
+        for (final String tmpName : new String[] { "linear/adlittle.mps", "linear/afiro.mps", "linear/share2b.mps" }) {
+
+            final File tmpFile = new File(PATH + tmpName);
+
+            final MathProgSysModel tmpExact = MathProgSysModel.make(tmpFile);
+            final MathProgSysModel tmpPrimitive = MathProgSysModel.make(tmpFile, tmpOptions);
+
+            TestUtils.assertTrue(tmpPrimitive.getExpressionsBasedModel().getExpressions().stream().allMatch(e -> e.getLinear() instanceof PrimitiveFactors));
+            TestUtils.assertEquals(tmpExact.solve().getValue(), tmpPrimitive.solve().getValue(), new NumberContext(7, 6));
+        }
+    }
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * {@link ModelPresolver} - the whole model reductions and the postsolve that undoes them.
+ *
+ * @author apete
+ */
+public class ModelPresolverTest {
+
+    /**
+     * Everything that the presolve may modify, but must restore
+     */
+    private static String describe(final ExpressionsBasedModel model) {
+
+        final StringBuilder retVal = new StringBuilder();
+
+        for (final Variable tmpVariable : model.getVariables()) {
+            retVal.append(tmpVariable.getName()).append(' ').append(tmpVariable.getLowerLimit()).append(' ').append(tmpVariable.getUpperLimit())
+                    .append(' ').append(tmpVariable.getContributionWeight()).append('\n');
+        }
+
+        final TreeMap<String, String> tmpExpressions = new TreeMap<>();
+        for (final Expression tmpExpression : model.getExpressions()) {
+            tmpExpressions.put(tmpExpression.getName(),
+                    tmpExpression.getLowerLimit() + " " + tmpExpression.getUpperLimit() + " " + new TreeMap<>(tmpExpression.getLinear()));
+        }
+        retVal.append(tmpExpressions);
+
+        return retVal.toString();
+    }
+
+    @Test
+    public void testColumnSingleton() {
+
+        final ExpressionsBasedModel tmpModel = new ExpressionsBasedModel();
+        tmpModel.options.presolve = true;
+        final Variable tmpX = tmpModel.addVariable("X").lower(0).upper(10).weight(1);
+        final Variable tmpY = tmpModel.addVariable("Y").lower(0).upper(10).weight(1);
+        final Variable tmpZ = tmpModel.addVariable("Z").weight(2);
+        final Variable tmpW = tmpModel.addVariable("W").lower(0).upper(10).weight(1);
+
+        final Expression tmpBalance = tmpModel.addExpression("Balance").level(10);
+        tmpBalance.set(tmpX, 1);
+        tmpBalance.set(tmpY, 1);
+        tmpBalance.set(tmpZ, 1);
+
+        final Expression tmpOther = tmpModel.addExpression("Other").lower(2);
+        tmpOther.set(tmpX, 1);
+        tmpOther.set(tmpY, -1);
+        tmpOther.set(tmpW, 1);
+
+        final String tmpBefore = ModelPresolverTest.describe(tmpModel);
+
+        final ModelPresolver tmpPresolver = new ModelPresolver(tmpModel, Collections.emptySet());
+        tmpPresolver.reduce();
+        TestUtils.assertTrue(tmpPresolver.countReductions() > 0);
+        TestUtils.assertTrue(tmpBalance.isRedundant());
+        TestUtils.assertTrue(tmpZ.isFixed());
+        tmpPresolver.postsolve(null);
+
+        TestUtils.assertEquals(tmpBefore, ModelPresolverTest.describe(tmpModel));
+
+        final Optimisation.Result tmpResult = tmpModel.minimise();
+
+        TestUtils.assertStateNotLessThanOptimal(tmpResult);
+        TestUtils.assertTrue(tmpModel.validate(tmpResult));
+        TestUtils.assertEquals(2.0, tmpResult.getValue(), 1E-9);
+
+        TestUtils.assertEquals(tmpBefore, ModelPresolverTest.describe(tmpModel));
+    }
+
+    @Test
+    public void testDuplicateConstraints() {
+
+        final ExpressionsBasedModel tmpModel = new ExpressionsBasedModel();
+        tmpModel.options.presolve = true;
+        final Variable tmpX = tmpModel.addVariable("X").lower(0).upper(10).weight(3);
+        final Variable tmpY = tmpModel.addVariable("Y").lower(0).upper(10).weight(2);
+
+        final Expression tmpFirst = tmpModel.addExpression("First").upper(10);
+        tmpFirst.set(tmpX, 2);
+        tmpFirst.set(tmpY, 4);
+
+        final Expression tmpSecond = tmpModel.addExpression("Second").lower(-4);
+        tmpSecond.set(tmpX, -1);
+        tmpSecond.set(tmpY, -2);
+
+        final Expression tmpThird = tmpModel.addExpression("Third").upper(6);
+        tmpThird.set(tmpX, 1);
+        tmpThird.set(tmpY, 1);
+
+        final String tmpBefore = ModelPresolverTest.describe(tmpModel);
+
+        final ModelPresolver tmpPresolver = new ModelPresolver(tmpModel, Collections.emptySet());
+        tmpPresolver.reduce();
+        TestUtils.assertTrue(tmpFirst.isRedundant() != tmpSecond.isRedundant());
+        tmpPresolver.postsolve(null);
+
+        TestUtils.assertEquals(tmpBefore, ModelPresolverTest.describe(tmpModel));
+
+        final Optimisation.Result tmpResult = tmpModel.maximise();
+
+        TestUtils.assertStateNotLessThanOptimal(tmpResult);
+        TestUtils.assertTrue(tmpModel.validate(tmpResult));
+        TestUtils.assertEquals(12.0, tmpResult.getValue(), 1E-9);
+
+        TestUtils.assertEquals(tmpBefore, ModelPresolverTest.describe(tmpModel));
+    }
+
+    /**
+     * Small random integer models, compared to complete enumeration
+     */
+    @Test
+    public void testRandomIntegerModels() {
+
+        final Random tmpRandom = new Random(789L);
+
+        final int tmpNumberOfVariables = 4;
+        final int tmpUpper = 3;
+
+        for (int m = 0; m < 100; m++) {
+
+            final ExpressionsBasedModel tmpModel = new ExpressionsBasedModel();
+            tmpModel.options.presolve = true;
+
+            final double[] tmpWeights = new double[tmpNumberOfVariables];
+            for (int v = 0; v < tmpNumberOfVariables; v++) {
+                tmpWeights[v] = tmpRandom.nextInt(11) - 3;
+                final boolean tmpBinary = tmpRandom.nextBoolean();
+                tmpModel.addVariable("X" + v).integer(true).lower(0).upper(tmpBinary ? 1 : tmpUpper).weight(tmpWeights[v]);
+            }
+
+            final int tmpNumberOfConstraints = 3;
+            final double[][] tmpFactors = new double[tmpNumberOfConstraints][tmpNumberOfVariables];
+            final double[] tmpLower = new double[tmpNumberOfConstraints];
+            final double[] tmpUpperLimits = new double[tmpNumberOfConstraints];
+
+            for (int c = 0; c < tmpNumberOfConstraints; c++) {
+                final Expression tmpExpression = tmpModel.addExpression("C" + c);
+                for (int v = 0; v < tmpNumberOfVariables; v++) {
+                    if (tmpRandom.nextInt(4) != 0) {
+                        tmpFactors[c][v] = tmpRandom.nextInt(11) - 3;
+                        tmpExpression.set(v, tmpFactors[c][v]);
+                    }
+                }
+                tmpLower[c] = Double.NEGATIVE_INFINITY;
+                tmpUpperLimits[c] = Double.POSITIVE_INFINITY;
+                final int tmpType = tmpRandom.nextInt(3);
+                if (tmpType != 1) {
+                    tmpUpperLimits[c] = tmpRandom.nextInt(12);
+                    tmpExpression.upper(tmpUpperLimits[c]);
+                }
+                if (tmpType != 0) {
+                    tmpLower[c] = tmpRandom.nextInt(6) - 3;
+                    tmpExpression.lower(tmpLower[c]);
+                }
+            }
+
+            double tmpExpected = Double.NEGATIVE_INFINITY;
+            final int[] tmpPoint = new int[tmpNumberOfVariables];
+            for (int p = 0, limit = (int) Math.pow(tmpUpper + 1, tmpNumberOfVariables); p < limit; p++) {
+                int tmpRemaining = p;
+                boolean tmpFeasible = true;
+                for (int v = 0; v < tmpNumberOfVariables; v++) {
+                    tmpPoint[v] = tmpRemaining % (tmpUpper + 1);
+                    tmpRemaining /= tmpUpper + 1;
+                    tmpFeasible &= tmpPoint[v] <= tmpModel.getVariable(v).getUpperLimit().intValue();
+                }
+                for (int c = 0; tmpFeasible && (c < tmpNumberOfConstraints); c++) {
+                    double tmpActivity = 0.0;
+                    for (int v = 0; v < tmpNumberOfVariables; v++) {
+                        tmpActivity += tmpFactors[c][v] * tmpPoint[v];
+                    }
+                    tmpFeasible &= (tmpActivity >= tmpLower[c]) && (tmpActivity <= tmpUpperLimits[c]);
+                }
+                if (tmpFeasible) {
+                    double tmpValue = 0.0;
+                    for (int v = 0; v < tmpNumberOfVariables; v++) {
+                        tmpValue += tmpWeights[v] * tmpPoint[v];
+                    }
+                    tmpExpected = Math.max(tmpExpected, tmpValue);
+                }
+            }
+
+            final Optimisation.Result tmpResult = tmpModel.maximise();
+
+            if (Double.isInfinite(tmpExpected)) {
+                TestUtils.assertFalse(tmpResult.getState().isFeasible());
+            } else {
+                TestUtils.assertStateNotLessThanOptimal(tmpResult);
+                TestUtils.assertTrue(tmpModel.validate(tmpResult, new NumberContext(7, 6)));
+                TestUtils.assertEquals(tmpExpected, tmpResult.getValue(), 1E-6);
+            }
+        }
+    }
+
+}
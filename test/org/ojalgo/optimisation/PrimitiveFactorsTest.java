@@ -0,0 +1,140 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.access.Structure1D.IntIndex;
+import org.ojalgo.access.Structure2D.IntRowColumn;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Expressions storing their factors as primitive double, {@link Optimisation.Options#exact} false.
+ *
+ * @author apete
+ */
+public class PrimitiveFactorsTest {
+
+    private static ExpressionsBasedModel makeModel(final boolean exact) {
+
+        final Optimisation.Options tmpOptions = new Optimisation.Options();
+        tmpOptions.exact = exact;
+
+        final ExpressionsBasedModel retVal = new ExpressionsBasedModel(tmpOptions);
+
+        final Random tmpRandom = new Random(123L);
+
+        final int tmpCount = 20;
+        for (int v = 0; v < tmpCount; v++) {
+            retVal.addVariable("X" + v).lower(0).upper(10);
+        }
+
+        final Expression tmpObjective = retVal.addExpression("Objective").weight(1);
+        for (int v = 0; v < tmpCount; v++) {
+            tmpObjective.set(v, v, 1.0 + tmpRandom.nextDouble());
+            tmpObjective.set(v, -10.0 * tmpRandom.nextDouble());
+        }
+
+        for (int c = 0; c < 5; c++) {
+            final Expression tmpConstraint = retVal.addExpression("C" + c).upper(5.0 + tmpRandom.nextInt(10));
+            for (int v = 0; v < tmpCount; v++) {
+                if (tmpRandom.nextBoolean()) {
+                    tmpConstraint.set(v, 0.1 + tmpRandom.nextDouble());
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    @Test
+    public void testExpression() {
+
+        final ExpressionsBasedModel tmpModel = PrimitiveFactorsTest.makeModel(false);
+        final Expression tmpConstraint = tmpModel.getExpression("C0");
+
+        TestUtils.assertTrue(tmpConstraint.getLinear() instanceof PrimitiveFactors.Linear);
+        TestUtils.assertTrue(tmpModel.getExpression("Objective").getQuadratic() instanceof PrimitiveFactors.Quadratic);
+
+        tmpConstraint.set(3, 0.0);
+        TestUtils.assertFalse(tmpConstraint.getLinearKeySet().contains(new IntIndex(3)));
+        TestUtils.assertEquals(BigDecimal.ZERO, tmpConstraint.get(new IntIndex(3)));
+
+        tmpConstraint.set(3, 0.25);
+        tmpConstraint.add(new IntIndex(3), 0.5);
+        TestUtils.assertEquals(0.75, tmpConstraint.get(new IntIndex(3)).doubleValue());
+        TestUtils.assertEquals(0.75, tmpConstraint.getAdjustedLinearFactor(3) / tmpConstraint.getAdjustmentFactor());
+
+        final Expression tmpCopy = tmpConstraint.copy(tmpModel, true);
+        tmpCopy.set(3, 0.0);
+        TestUtils.assertTrue(tmpConstraint.getLinearKeySet().contains(new IntIndex(3)));
+        TestUtils.assertFalse(tmpCopy.getLinearKeySet().contains(new IntIndex(3)));
+    }
+
+    @Test
+    public void testRandomOperations() {
+
+        final Random tmpRandom = new Random(456L);
+
+        final PrimitiveFactors.Quadratic tmpActual = new PrimitiveFactors.Quadratic();
+        final HashMap<IntRowColumn, BigDecimal> tmpExpected = new HashMap<>();
+
+        for (int i = 0; i < 20_000; i++) {
+
+            final IntRowColumn tmpKey = new IntRowColumn(tmpRandom.nextInt(60), tmpRandom.nextInt(60));
+
+            if (tmpRandom.nextInt(3) == 0) {
+                TestUtils.assertEquals((Object) tmpExpected.remove(tmpKey), (Object) tmpActual.remove(tmpKey));
+            } else {
+                final BigDecimal tmpValue = BigDecimal.valueOf(tmpRandom.nextGaussian());
+                TestUtils.assertEquals((Object) tmpExpected.put(tmpKey, tmpValue), (Object) tmpActual.put(tmpKey, tmpValue));
+            }
+
+            TestUtils.assertEquals(tmpExpected.size(), tmpActual.size());
+        }
+
+        TestUtils.assertEquals(tmpExpected, tmpActual);
+        TestUtils.assertEquals(tmpExpected.keySet(), tmpActual.keySet());
+
+        for (final IntRowColumn tmpKey : tmpExpected.keySet()) {
+            TestUtils.assertTrue(tmpActual.containsKey(tmpKey));
+            TestUtils.assertEquals(tmpExpected.get(tmpKey).doubleValue(), tmpActual.doubleValue(PrimitiveFactors.Quadratic.pack(tmpKey.row, tmpKey.column)));
+        }
+    }
+
+    @Test
+    public void testSameSolution() {
+
+        final Optimisation.Result tmpExpected = PrimitiveFactorsTest.makeModel(true).minimise();
+        final Optimisation.Result tmpActual = PrimitiveFactorsTest.makeModel(false).minimise();
+
+        TestUtils.assertStateNotLessThanOptimal(tmpExpected);
+        TestUtils.assertStateNotLessThanOptimal(tmpActual);
+
+        TestUtils.assertEquals(tmpExpected, tmpActual, NumberContext.getGeneral(8, 10));
+    }
+
+}
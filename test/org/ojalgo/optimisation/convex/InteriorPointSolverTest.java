@@ -0,0 +1,176 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.convex;
+
+import java.io.File;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.optimisation.Expression;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.MathProgSysModel;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.Variable;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Solves the same models with and without {@link InteriorPointSolver.ModelIntegration} registered, and
+ * compares the results.
+ */
+public class InteriorPointSolverTest extends OptimisationConvexTests {
+
+    private static final InteriorPointSolver.ModelIntegration INTEGRATION = new InteriorPointSolver.ModelIntegration();
+    private static final String PATH = "./test/org/ojalgo/optimisation/linear/";
+    private static final NumberContext PRECISION = new NumberContext(7, 6);
+
+    private static void compare(final ExpressionsBasedModel model, final boolean minimise) {
+
+        ExpressionsBasedModel.removeIntegration(INTEGRATION);
+        final Optimisation.Result tmpExpected = minimise ? model.minimise() : model.maximise();
+
+        ExpressionsBasedModel.addIntegration(INTEGRATION);
+        final Optimisation.Result tmpActual = minimise ? model.minimise() : model.maximise();
+
+        if (tmpExpected.getState().isOptimal()) {
+            TestUtils.assertStateNotLessThanOptimal(tmpActual);
+            TestUtils.assertEquals(tmpExpected.getValue(), tmpActual.getValue(), PRECISION);
+            TestUtils.assertTrue(model.validate(tmpActual, PRECISION));
+        } else {
+            TestUtils.assertEquals(tmpExpected.getState(), tmpActual.getState());
+        }
+    }
+
+    private static void compare(final String name) {
+        final ExpressionsBasedModel tmpModel = MathProgSysModel.make(new File(PATH + name)).getExpressionsBasedModel();
+        InteriorPointSolverTest.compare(tmpModel, true);
+    }
+
+    /**
+     * Minimise risk, with a penalty for (negative) expected return, fully invested and no short selling.
+     * With few factors the covariance matrix is dense.
+     */
+    private static ExpressionsBasedModel makePortfolio(final int assets, final int factors, final boolean sectors) {
+
+        final Random tmpRandom = new Random(assets);
+
+        final double[][] tmpExposures = new double[assets][factors];
+        for (int a = 0; a < assets; a++) {
+            for (int f = 0; f < factors; f++) {
+                tmpExposures[a][f] = tmpRandom.nextGaussian() / 10.0;
+            }
+        }
+
+        final ExpressionsBasedModel retVal = new ExpressionsBasedModel();
+
+        final Variable[] tmpWeights = new Variable[assets];
+        for (int a = 0; a < assets; a++) {
+            tmpWeights[a] = retVal.addVariable("W" + a).lower(0).upper(0.2).weight(-tmpRandom.nextDouble() / 10.0);
+        }
+
+        final Expression tmpRisk = retVal.addExpression("Risk").weight(1);
+        for (int i = 0; i < assets; i++) {
+            for (int j = 0; j < assets; j++) {
+                double tmpCovariance = i == j ? 0.01 + (0.01 * tmpRandom.nextDouble()) : 0.0;
+                for (int f = 0; f < factors; f++) {
+                    tmpCovariance += tmpExposures[i][f] * tmpExposures[j][f];
+                }
+                tmpRisk.set(tmpWeights[i], tmpWeights[j], tmpCovariance);
+            }
+        }
+
+        final Expression tmpBudget = retVal.addExpression("Budget").level(1);
+        for (int a = 0; a < assets; a++) {
+            tmpBudget.set(tmpWeights[a], 1);
+        }
+
+        if (sectors) {
+            for (int s = 0; s < 5; s++) {
+                final Expression tmpSector = retVal.addExpression("Sector" + s).upper(0.3);
+                for (int a = s; a < assets; a += 5) {
+                    tmpSector.set(tmpWeights[a], 1);
+                }
+            }
+        }
+
+        return retVal;
+    }
+
+    @AfterEach
+    public void restore() {
+        ExpressionsBasedModel.removeIntegration(INTEGRATION);
+    }
+
+    @Test
+    public void testNetlib() {
+        InteriorPointSolverTest.compare("afiro.mps");
+        InteriorPointSolverTest.compare("adlittle.mps");
+        InteriorPointSolverTest.compare("blend.mps");
+        InteriorPointSolverTest.compare("kb2.mps");
+        InteriorPointSolverTest.compare("sc50b.mps");
+        InteriorPointSolverTest.compare("share2b.mps");
+    }
+
+    @Test
+    public void testPortfolio() {
+        InteriorPointSolverTest.compare(InteriorPointSolverTest.makePortfolio(50, 3, false), true);
+        InteriorPointSolverTest.compare(InteriorPointSolverTest.makePortfolio(100, 5, true), true);
+    }
+
+    @Test
+    public void testSparseAndDense() {
+
+        final ExpressionsBasedModel tmpModel = InteriorPointSolverTest.makePortfolio(60, 4, true);
+
+        final double tmpDensity = InteriorPointSolver.DENSITY;
+        try {
+
+            ExpressionsBasedModel.addIntegration(INTEGRATION);
+
+            InteriorPointSolver.DENSITY = 0.0;
+            final Optimisation.Result tmpDense = tmpModel.minimise();
+
+            InteriorPointSolver.DENSITY = 2.0;
+            final Optimisation.Result tmpSparse = tmpModel.minimise();
+
+            TestUtils.assertStateNotLessThanOptimal(tmpDense);
+            TestUtils.assertStateNotLessThanOptimal(tmpSparse);
+            TestUtils.assertEquals(tmpDense, tmpSparse, PRECISION);
+
+        } finally {
+            InteriorPointSolver.DENSITY = tmpDensity;
+        }
+    }
+
+    @Test
+    public void testUnboundedAndInfeasible() {
+
+        InteriorPointSolverTest.compare(MathProgSysModel.make(new File(PATH + "empstest.mps")).getExpressionsBasedModel(), true);
+        InteriorPointSolverTest.compare(MathProgSysModel.make(new File(PATH + "nazareth.mps")).getExpressionsBasedModel(), true);
+
+        final ExpressionsBasedModel tmpModel = InteriorPointSolverTest.makePortfolio(10, 2, false);
+        tmpModel.addExpression("Impossible").lower(3).set(0, 1).set(1, 1);
+        InteriorPointSolverTest.compare(tmpModel, true);
+    }
+
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.integer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.array.Primitive64Array;
+import org.ojalgo.netio.BasicLogger;
+import org.ojalgo.optimisation.Cut;
+import org.ojalgo.optimisation.Expression;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.Variable;
+import org.ojalgo.optimisation.linear.RevisedSimplexSolver;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Cuts (Gomory, knapsack cover and MIR) must never cut off an integer feasible solution - checked by
+ * enumerating all integer points of small models. With cuts the branch &amp; bound must find the same optimal
+ * value as without.
+ */
+public class CuttingPlaneCase extends OptimisationIntegerTests {
+
+    private static final NumberContext PRECISION = new NumberContext(7, 6);
+    private static final double TOLERANCE = 1.0E-6;
+
+    /**
+     * Integer variables, with different bounds, and one (bounded) continuous variable. The constraints have
+     * both positive and negative coefficients, and there is one equality constraint.
+     */
+    static ExpressionsBasedModel makeMixed(final long seed) {
+
+        final Random tmpRandom = new Random(seed);
+
+        final ExpressionsBasedModel retVal = new ExpressionsBasedModel();
+
+        final Variable[] tmpVariables = new Variable[7];
+        for (int i = 0; i < 6; i++) {
+            final int tmpLower = i == 5 ? -1 : 0;
+            final int tmpUpper = (i % 2) == 0 ? 1 : 2;
+            tmpVariables[i] = retVal.addVariable("X" + i).integer(true).lower(tmpLower).upper(tmpUpper).weight(-1 - tmpRandom.nextInt(9));
+        }
+        tmpVariables[6] = retVal.addVariable("Y").lower(0).upper(2.5).weight(-1.5);
+
+        for (int k = 0; k < 3; k++) {
+            final Expression tmpRow = retVal.addExpression("C" + k);
+            for (int i = 0; i < tmpVariables.length; i++) {
+                final int tmpFactor = tmpRandom.nextInt(11) - 3;
+                if (tmpFactor != 0) {
+                    tmpRow.set(tmpVariables[i], tmpFactor + (i == 6 ? 0.5 : 0.0));
+                }
+            }
+            tmpRow.upper(4 + tmpRandom.nextInt(10) + 0.5);
+        }
+
+        final Expression tmpEquality = retVal.addExpression("E");
+        tmpEquality.set(tmpVariables[0], 2).set(tmpVariables[1], 3).set(tmpVariables[5], -1).set(tmpVariables[6], 1);
+        tmpEquality.level(3.5);
+
+        final Expression tmpLower = retVal.addExpression("L").lower(1);
+        tmpLower.set(tmpVariables[2], 1).set(tmpVariables[3], 1).set(tmpVariables[4], 1);
+
+        return retVal;
+    }
+
+    /**
+     * Separate cuts, for 2 rounds at the root node, from the first integer constraint (or all if null).
+     */
+    private static List<Cut> separate(final ExpressionsBasedModel model, final int[] integers) {
+
+        final RevisedSimplexSolver.Relaxation tmpRelaxation = new RevisedSimplexSolver.Relaxation(model, integers);
+        final CutGenerator tmpGenerator = new CutGenerator(model);
+
+        final int[] tmpLower = new int[integers.length];
+        final int[] tmpUpper = new int[integers.length];
+        for (int b = 0; b < integers.length; b++) {
+            tmpLower[b] = model.getVariable(integers[b]).getLowerLimit().intValue();
+            tmpUpper[b] = model.getVariable(integers[b]).getUpperLimit().intValue();
+        }
+
+        final List<Cut> retVal = new ArrayList<>();
+
+        RevisedSimplexSolver.Relaxation tmpCurrent = tmpRelaxation;
+        RevisedSimplexSolver.Relaxation.Solution tmpSolution = null;
+        for (int r = 0; r < 2; r++) {
+
+            tmpSolution = tmpCurrent.solve(tmpLower, tmpUpper, tmpSolution);
+            if (!tmpSolution.getResult().getState().isOptimal()) {
+                break;
+            }
+
+            final List<Cut> tmpCuts = tmpGenerator.separate(tmpSolution.getResult());
+            tmpCuts.addAll(tmpCurrent.gomory(tmpSolution, 100));
+            if (tmpCuts.isEmpty()) {
+                break;
+            }
+
+            for (final Cut tmpCut : tmpCuts) {
+                TestUtils.assertTrue(tmpCut.toString(), tmpCut.getViolation(tmpSolution.getResult()) > -TOLERANCE);
+            }
+
+            retVal.addAll(tmpCuts);
+            tmpCurrent = tmpCurrent.add(tmpCuts);
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Enumerates all integer points. For each the (single) continuous variable's feasible interval is
+     * calculated, and each cut is checked at both ends of that interval.
+     *
+     * @return The number of feasible integer points
+     */
+    private static int validate(final ExpressionsBasedModel model, final List<Cut> cuts) {
+
+        final int tmpCount = model.countVariables();
+        final int tmpContinuous = model.getVariable(tmpCount - 1).isInteger() ? -1 : tmpCount - 1;
+
+        final int[] tmpLower = new int[tmpCount];
+        final int[] tmpUpper = new int[tmpCount];
+        for (int i = 0; i < tmpCount; i++) {
+            if (i != tmpContinuous) {
+                tmpLower[i] = model.getVariable(i).getLowerLimit().intValue();
+                tmpUpper[i] = model.getVariable(i).getUpperLimit().intValue();
+            }
+        }
+
+        final Primitive64Array tmpPoint = Primitive64Array.make(tmpCount);
+        final int[] tmpValues = tmpLower.clone();
+        int tmpFeasible = 0;
+
+        boolean tmpMore = true;
+        while (tmpMore) {
+
+            for (int i = 0; i < tmpCount; i++) {
+                tmpPoint.set(i, tmpValues[i]);
+            }
+
+            final double[] tmpInterval = CuttingPlaneCase.interval(model, tmpPoint, tmpContinuous);
+            if (tmpInterval != null) {
+                tmpFeasible++;
+                for (final double tmpEnd : tmpInterval) {
+                    if (tmpContinuous >= 0) {
+                        tmpPoint.set(tmpContinuous, tmpEnd);
+                    }
+                    for (final Cut tmpCut : cuts) {
+                        TestUtils.assertTrue(tmpCut.toString() + " cuts off " + tmpPoint, tmpCut.getViolation(tmpPoint) <= TOLERANCE);
+                    }
+                }
+            }
+
+            tmpMore = false;
+            for (int i = 0; !tmpMore && (i < tmpCount); i++) {
+                if ((i != tmpContinuous) && (tmpValues[i] < tmpUpper[i])) {
+                    tmpValues[i]++;
+                    tmpMore = true;
+                } else {
+                    tmpValues[i] = tmpLower[i];
+                }
+            }
+        }
+
+        return tmpFeasible;
+    }
+
+    /**
+     * @return The feasible interval of the continuous variable (or a single dummy value if there is none),
+     *         or null if the integer point is infeasible
+     */
+    private static double[] interval(final ExpressionsBasedModel model, final Primitive64Array point, final int continuous) {
+
+        double tmpMin = continuous >= 0 ? model.getVariable(continuous).getLowerLimit().doubleValue() : 0.0;
+        double tmpMax = continuous >= 0 ? model.getVariable(continuous).getUpperLimit().doubleValue() : 0.0;
+
+        for (final Expression tmpConstraint : model.constraints().toArray(Expression[]::new)) {
+
+            double tmpRest = 0.0;
+            double tmpFactor = 0.0;
+            for (final Variable tmpVariable : model.getVariables()) {
+                final int tmpIndex = model.indexOf(tmpVariable);
+                final double tmpValue = tmpConstraint.get(tmpVariable).doubleValue();
+                if (tmpIndex == continuous) {
+                    tmpFactor = tmpValue;
+                } else {
+                    tmpRest += tmpValue * point.doubleValue(tmpIndex);
+                }
+            }
+
+            final double tmpUpper = tmpConstraint.isUpperLimitSet() ? tmpConstraint.getUpperLimit().doubleValue() - tmpRest : Double.POSITIVE_INFINITY;
+            final double tmpLower = tmpConstraint.isLowerLimitSet() ? tmpConstraint.getLowerLimit().doubleValue() - tmpRest : Double.NEGATIVE_INFINITY;
+
+            if (tmpFactor > 0.0) {
+                tmpMax = Math.min(tmpMax, tmpUpper / tmpFactor);
+                tmpMin = Math.max(tmpMin, tmpLower / tmpFactor);
+            } else if (tmpFactor < 0.0) {
+                tmpMax = Math.min(tmpMax, tmpLower / tmpFactor);
+                tmpMin = Math.max(tmpMin, tmpUpper / tmpFactor);
+            } else if ((tmpUpper < -TOLERANCE) || (tmpLower > TOLERANCE)) {
+                return null;
+            }
+        }
+
+        return tmpMin <= (tmpMax + TOLERANCE) ? new double[] { tmpMin, tmpMax } : null;
+    }
+
+    private static int[] integers(final ExpressionsBasedModel model) {
+        return model.getIntegerVariables().stream().mapToInt(model::indexOf).toArray();
+    }
+
+    private static Optimisation.Result solve(final ExpressionsBasedModel model, final int rounds, final boolean pool) {
+
+        final IntegerStrategy tmpStrategy = new IntegerStrategy();
+        tmpStrategy.cut_rounds = rounds;
+        tmpStrategy.cut_pool = pool;
+
+        model.options.setConfigurator(tmpStrategy);
+        model.options.mip_gap = 1.0E-9;
+
+        return model.minimise();
+    }
+
+    /**
+     * Nothing configured - the default strategy, and a plain minimise(), must run the root cut loop.
+     */
+    @Test
+    public void testDefaultSeparatesCuts() {
+
+        final ExpressionsBasedModel tmpModel = OptimisationIntegerData.buildKnapsacks(20, 3, 1L);
+
+        final StringBuffer tmpLog = new StringBuffer();
+        tmpModel.options.logger_appender = new BasicLogger.AppendablePrinter(tmpLog);
+        tmpModel.options.logger_solver = IntegerSolver.class;
+
+        final Optimisation.Result tmpResult = tmpModel.minimise();
+
+        TestUtils.assertStateNotLessThanOptimal(tmpResult);
+        TestUtils.assertTrue(tmpModel.validate(tmpResult));
+        TestUtils.assertTrue("No cuts added", tmpLog.indexOf("Cut round 0") >= 0);
+    }
+
+    @Test
+    public void testGenerateCut() {
+
+        final ExpressionsBasedModel tmpModel = new ExpressionsBasedModel();
+        final Variable[] tmpVariables = new Variable[4];
+        for (int i = 0; i < tmpVariables.length; i++) {
+            tmpVariables[i] = tmpModel.addVariable("X" + i).binary().weight(-1);
+        }
+        final Expression tmpKnapsack = tmpModel.addExpression("K").upper(10);
+        tmpKnapsack.set(tmpVariables[0], 4).set(tmpVariables[1], 4).set(tmpVariables[2], 4).set(tmpVariables[3], 7);
+
+        // 0.5 * 4 + 1 * 4 + 1 * 4 = 10 - violates the cover cut x0 + x1 + x2 <= 2
+        final Primitive64Array tmpPoint = Primitive64Array.make(4);
+        tmpPoint.set(0, 0.5);
+        tmpPoint.set(1, 1.0);
+        tmpPoint.set(2, 1.0);
+        final Optimisation.Result tmpRelaxed = new Optimisation.Result(Optimisation.State.FEASIBLE, -2.5, tmpPoint);
+
+        final Expression tmpCut = tmpModel.generateCut(tmpKnapsack, tmpRelaxed);
+
+        TestUtils.assertTrue(tmpCut != null);
+        double tmpValue = 0.0;
+        for (int i = 0; i < tmpVariables.length; i++) {
+            tmpValue += tmpCut.get(tmpVariables[i]).doubleValue() * tmpPoint.doubleValue(i);
+        }
+        TestUtils.assertTrue(tmpValue > tmpCut.getUpperLimit().doubleValue());
+
+        final List<Cut> tmpCuts = new CutGenerator(tmpModel).separate(tmpRelaxed);
+        CuttingPlaneCase.validate(tmpModel, tmpCuts);
+    }
+
+    @Test
+    public void testKnapsacksWithCuts() {
+
+        for (long seed = 1L; seed <= 4L; seed++) {
+
+            final ExpressionsBasedModel tmpModel = OptimisationIntegerData.buildKnapsacks(20, 3, seed);
+
+            final Optimisation.Result tmpExpected = CuttingPlaneCase.solve(tmpModel, 0, false);
+            TestUtils.assertStateNotLessThanOptimal(tmpExpected);
+
+            for (final boolean tmpPool : new boolean[] { false, true }) {
+
+                final Optimisation.Result tmpActual = CuttingPlaneCase.solve(tmpModel, 10, tmpPool);
+
+                TestUtils.assertStateNotLessThanOptimal(tmpActual);
+                TestUtils.assertEquals(tmpExpected.getValue(), tmpActual.getValue(), PRECISION);
+                TestUtils.assertTrue(tmpModel.validate(tmpActual));
+            }
+        }
+    }
+
+    @Test
+    public void testMixedWithCuts() {
+
+        for (long seed = 1L; seed <= 10L; seed++) {
+
+            final ExpressionsBasedModel tmpModel = CuttingPlaneCase.makeMixed(seed);
+
+            final Optimisation.Result tmpExpected = CuttingPlaneCase.solve(tmpModel, 0, false);
+            final Optimisation.Result tmpActual = CuttingPlaneCase.solve(tmpModel, 10, true);
+
+            TestUtils.assertEquals(tmpExpected.getState().isFeasible(), tmpActual.getState().isFeasible());
+            if (tmpExpected.getState().isFeasible()) {
+                TestUtils.assertEquals(tmpExpected.getValue(), tmpActual.getValue(), PRECISION);
+                TestUtils.assertTrue(tmpModel.validate(tmpActual));
+            }
+        }
+    }
+
+    @Test
+    public void testValidCuts() {
+
+        int tmpCount = 0;
+
+        for (long seed = 1L; seed <= 10L; seed++) {
+
+            final ExpressionsBasedModel tmpMixed = CuttingPlaneCase.makeMixed(seed);
+            final List<Cut> tmpMixedCuts = CuttingPlaneCase.separate(tmpMixed, CuttingPlaneCase.integers(tmpMixed));
+            if (CuttingPlaneCase.validate(tmpMixed, tmpMixedCuts) > 0) {
+                tmpCount += tmpMixedCuts.size();
+            }
+
+            final ExpressionsBasedModel tmpKnapsacks = OptimisationIntegerData.buildKnapsacks(8, 2, seed);
+            final List<Cut> tmpKnapsackCuts = CuttingPlaneCase.separate(tmpKnapsacks, CuttingPlaneCase.integers(tmpKnapsacks));
+            if (CuttingPlaneCase.validate(tmpKnapsacks, tmpKnapsackCuts) > 0) {
+                tmpCount += tmpKnapsackCuts.size();
+            }
+        }
+
+        // Make sure the test actually tests something - cuts from (integer) feasible models
+        TestUtils.assertTrue("Only " + tmpCount + " cuts", tmpCount > 20);
+    }
+
+}
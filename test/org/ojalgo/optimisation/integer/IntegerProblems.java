@@ -345,4 +345,40 @@ public class IntegerProblems {
         P20160701.main(new String[0]);
     }
 
+    /**
+     * A feasible (but not optimal) kick-start solution, and a root node without a parent objective value,
+     * made the objective limit of the root node equal to that of the kick-start. The kick-start solution was
+     * returned as optimal.
+     */
+    @Test
+    public void testP20261018() {
+
+        final ExpressionsBasedModel tmpModel = new ExpressionsBasedModel();
+        final Variable tmpX = tmpModel.addVariable("X").lower(-5).upper(-2).weight(4);
+        final Variable tmpY = tmpModel.addVariable("Y").level(2).weight(1);
+        final Variable tmpZ = tmpModel.addVariable("Z").level(2).weight(2).integer(true);
+
+        final Expression tmpFirst = tmpModel.addExpression("First").level(8);
+        tmpFirst.set(tmpY, 1);
+        tmpFirst.set(tmpZ, 3);
+
+        final Expression tmpSecond = tmpModel.addExpression("Second").lower(0);
+        tmpSecond.set(tmpX, -5);
+        tmpSecond.set(tmpZ, -5);
+
+        final Expression tmpThird = tmpModel.addExpression("Third").lower(-5);
+        tmpThird.set(tmpX, 3);
+        tmpThird.set(tmpY, 5);
+
+        tmpX.setValue(BigDecimal.valueOf(-5));
+        tmpY.setValue(TWO);
+        tmpZ.setValue(TWO);
+
+        final Optimisation.Result tmpResult = tmpModel.maximise();
+
+        TestUtils.assertStateNotLessThanOptimal(tmpResult);
+        TestUtils.assertTrue(tmpModel.validate(tmpResult));
+        TestUtils.assertEquals(-2.0, tmpResult.getValue(), 1E-9);
+    }
+
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.integer;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Variable;
+
+/**
+ * Nodes only store the bound introduced by the branch; the complete bounds, derived from the chain of parent
+ * nodes, must match those of explicitly tracked bounds.
+ */
+public class NodeKeyCase extends OptimisationIntegerTests {
+
+    @Test
+    public void testBoundsAlongBranches() {
+
+        final Random tmpRandom = new Random(123L);
+
+        final ExpressionsBasedModel tmpModel = new ExpressionsBasedModel();
+        tmpModel.addVariable("A").integer(true).lower(0).upper(20);
+        tmpModel.addVariable("B").integer(true).lower(-10);
+        tmpModel.addVariable("C").integer(true).upper(10);
+        tmpModel.addVariable("D").integer(true);
+        tmpModel.addVariable("E").lower(0).upper(1);
+
+        final int tmpIntegers = tmpModel.getIntegerVariables().size();
+        TestUtils.assertEquals(4, tmpIntegers);
+
+        final int[] tmpLower = { 0, -10, Integer.MIN_VALUE, Integer.MIN_VALUE };
+        final int[] tmpUpper = { 20, Integer.MAX_VALUE, 10, Integer.MAX_VALUE };
+
+        NodeKey tmpKey = new NodeKey(tmpModel);
+
+        for (int d = 1; d <= 30; d++) {
+
+            final int tmpIndex = tmpRandom.nextInt(tmpIntegers);
+
+            final double tmpMin = Math.max(tmpLower[tmpIndex], -50);
+            final double tmpMax = Math.min(tmpUpper[tmpIndex], 50);
+            final double tmpValue = tmpMin + ((tmpMax - tmpMin) * tmpRandom.nextDouble());
+
+            final int tmpFloor = (int) Math.floor(tmpValue);
+            final int tmpCeil = (int) Math.ceil(tmpValue);
+
+            if (tmpRandom.nextBoolean()) {
+                tmpKey = tmpKey.createLowerBranch(tmpIndex, tmpValue, d);
+                tmpUpper[tmpIndex] = ((tmpFloor >= tmpUpper[tmpIndex]) && (tmpFloor > tmpLower[tmpIndex])) ? tmpFloor - 1 : tmpFloor;
+            } else {
+                tmpKey = tmpKey.createUpperBranch(tmpIndex, tmpValue, d);
+                tmpLower[tmpIndex] = ((tmpCeil <= tmpLower[tmpIndex]) && (tmpCeil < tmpUpper[tmpIndex])) ? tmpCeil + 1 : tmpCeil;
+            }
+
+            TestUtils.assertEquals(d, tmpKey.getDepth());
+            TestUtils.assertEquals(tmpIndex, tmpKey.index);
+
+            final int[] tmpActualLower = tmpKey.getLowerBounds();
+            final int[] tmpActualUpper = tmpKey.getUpperBounds();
+
+            for (int i = 0; i < tmpIntegers; i++) {
+
+                TestUtils.assertEquals(tmpLower[i], tmpActualLower[i]);
+                TestUtils.assertEquals(tmpUpper[i], tmpActualUpper[i]);
+
+                final BigDecimal tmpLowerBound = tmpKey.getLowerBound(i);
+                if (tmpLower[i] != Integer.MIN_VALUE) {
+                    TestUtils.assertEquals(tmpLower[i], tmpLowerBound.intValue());
+                } else {
+                    TestUtils.assertTrue(tmpLowerBound == null);
+                }
+
+                final BigDecimal tmpUpperBound = tmpKey.getUpperBound(i);
+                if (tmpUpper[i] != Integer.MAX_VALUE) {
+                    TestUtils.assertEquals(tmpUpper[i], tmpUpperBound.intValue());
+                } else {
+                    TestUtils.assertTrue(tmpUpperBound == null);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBoundModel() {
+
+        final ExpressionsBasedModel tmpModel = new ExpressionsBasedModel();
+        tmpModel.addVariable("A").integer(true).lower(0).upper(9);
+        tmpModel.addVariable("B").integer(true).lower(0).upper(9);
+
+        final NodeKey tmpRoot = new NodeKey(tmpModel);
+        final NodeKey tmpNode = tmpRoot.createLowerBranch(0, 4.5, 0.0).createUpperBranch(1, 2.5, 0.0).createUpperBranch(0, 1.2, 0.0);
+
+        final ExpressionsBasedModel tmpNodeModel = tmpModel.relax(false);
+        tmpNode.bound(tmpNodeModel, new int[] { 0, 1 });
+
+        final Variable tmpA = tmpNodeModel.getVariable(0);
+        final Variable tmpB = tmpNodeModel.getVariable(1);
+
+        TestUtils.assertEquals(2, tmpA.getLowerLimit().intValue());
+        TestUtils.assertEquals(4, tmpA.getUpperLimit().intValue());
+        TestUtils.assertEquals(3, tmpB.getLowerLimit().intValue());
+        TestUtils.assertEquals(9, tmpB.getUpperLimit().intValue());
+
+        TestUtils.assertEquals(9, tmpRoot.getUpperBounds()[0]);
+        TestUtils.assertEquals(3L * 7L, tmpNode.calculateTreeSize());
+    }
+
+}
@@ -23,12 +23,43 @@ package org.ojalgo.optimisation.integer;
 
 import static org.ojalgo.constant.BigMath.*;
 
+import java.util.Random;
+
 import org.ojalgo.optimisation.Expression;
 import org.ojalgo.optimisation.ExpressionsBasedModel;
 import org.ojalgo.optimisation.Variable;
 
 public abstract class OptimisationIntegerData {
 
+    /**
+     * Random multiple knapsack problems, with general (not only binary) integer variables
+     */
+    public static ExpressionsBasedModel buildKnapsacks(final int items, final int knapsacks, final long seed) {
+
+        final Random tmpRandom = new Random(seed);
+
+        final ExpressionsBasedModel retVal = new ExpressionsBasedModel();
+
+        final Variable[] tmpVariables = new Variable[items];
+        for (int i = 0; i < items; i++) {
+            tmpVariables[i] = retVal.addVariable("X" + i).integer(true).lower(0).upper(1 + tmpRandom.nextInt(3)).weight(-1 - tmpRandom.nextInt(20));
+        }
+
+        for (int k = 0; k < knapsacks; k++) {
+            final Expression tmpCapacity = retVal.addExpression("K" + k).upper(10 + tmpRandom.nextInt(4 * items));
+            for (int i = 0; i < items; i++) {
+                tmpCapacity.set(tmpVariables[i], 1 + tmpRandom.nextInt(10));
+            }
+        }
+
+        final Expression tmpMinimum = retVal.addExpression("Min").lower(1);
+        for (int i = 0; i < items; i += 2) {
+            tmpMinimum.set(tmpVariables[i], 1);
+        }
+
+        return retVal;
+    }
+
     public static ExpressionsBasedModel buildModelForP20100412() {
 
         final KnapsackItem[] tmpItems = { new KnapsackItem(20, 2), new KnapsackItem(30, 4) };
@@ -0,0 +1,119 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.integer;
+
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * The different {@link IntegerStrategy} configurations, with several threads working on the tree, must all
+ * find the same optimal value. In deterministic mode repeated runs must return identical solutions.
+ */
+public class ParallelBranchAndBoundCase extends OptimisationIntegerTests {
+
+    private static final NumberContext PRECISION = new NumberContext(7, 6);
+
+    private static Optimisation.Result solve(final ExpressionsBasedModel model, final IntegerStrategy.NodeSelection selection, final int parallelism,
+            final boolean deterministic) {
+
+        final IntegerStrategy tmpStrategy = new IntegerStrategy();
+        tmpStrategy.node_selection = selection;
+        tmpStrategy.parallelism = parallelism;
+        tmpStrategy.deterministic = deterministic;
+
+        model.options.setConfigurator(tmpStrategy);
+        // The weights are integers - with a small enough gap the (unique) optimal value must be found
+        model.options.mip_gap = 1.0E-9;
+
+        return model.minimise();
+    }
+
+    @Test
+    public void testDeterministic() {
+
+        for (long seed = 1L; seed <= 3L; seed++) {
+
+            final ExpressionsBasedModel tmpModel = OptimisationIntegerData.buildKnapsacks(25, 3, seed);
+
+            final Optimisation.Result tmpFirst = ParallelBranchAndBoundCase.solve(tmpModel, IntegerStrategy.NodeSelection.BEST_BOUND, 4, true);
+            TestUtils.assertStateNotLessThanOptimal(tmpFirst);
+
+            for (int r = 0; r < 3; r++) {
+
+                final Optimisation.Result tmpRepeated = ParallelBranchAndBoundCase.solve(tmpModel, IntegerStrategy.NodeSelection.BEST_BOUND, 4, true);
+
+                TestUtils.assertEquals(tmpFirst.getState(), tmpRepeated.getState());
+                TestUtils.assertEquals(tmpFirst.getValue(), tmpRepeated.getValue(), NumberContext.getMath(16));
+                for (int i = 0; i < tmpFirst.count(); i++) {
+                    TestUtils.assertEquals(tmpFirst.doubleValue(i), tmpRepeated.doubleValue(i), NumberContext.getMath(16));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNodeSelection() {
+
+        for (long seed = 1L; seed <= 3L; seed++) {
+
+            final ExpressionsBasedModel tmpModel = OptimisationIntegerData.buildKnapsacks(25, 3, seed);
+
+            final Optimisation.Result tmpExpected = ParallelBranchAndBoundCase.solve(tmpModel, IntegerStrategy.NodeSelection.DEPTH_FIRST, 1, false);
+            TestUtils.assertStateNotLessThanOptimal(tmpExpected);
+
+            for (final IntegerStrategy.NodeSelection tmpSelection : IntegerStrategy.NodeSelection.values()) {
+                for (final boolean tmpDeterministic : new boolean[] { false, true }) {
+
+                    final Optimisation.Result tmpActual = ParallelBranchAndBoundCase.solve(tmpModel, tmpSelection, 4, tmpDeterministic);
+
+                    TestUtils.assertStateNotLessThanOptimal(tmpActual);
+                    TestUtils.assertEquals(tmpExpected.getValue(), tmpActual.getValue(), PRECISION);
+                    TestUtils.assertTrue(tmpModel.validate(tmpActual));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testQuadraticObjective() {
+
+        // Not linear - the node problems are solved as (relaxed) models rather than with the shared relaxation
+
+        final ExpressionsBasedModel tmpModel = OptimisationIntegerData.buildKnapsacks(10, 2, 7L);
+        tmpModel.addExpression("Q").weight(0.5).set(0, 0, 1.0).set(1, 1, 1.0).set(2, 2, 1.0);
+
+        final Optimisation.Result tmpExpected = ParallelBranchAndBoundCase.solve(tmpModel, IntegerStrategy.NodeSelection.DEPTH_FIRST, 1, false);
+        TestUtils.assertStateNotLessThanOptimal(tmpExpected);
+
+        for (final IntegerStrategy.NodeSelection tmpSelection : IntegerStrategy.NodeSelection.values()) {
+
+            final Optimisation.Result tmpActual = ParallelBranchAndBoundCase.solve(tmpModel, tmpSelection, 4, false);
+
+            TestUtils.assertStateNotLessThanOptimal(tmpActual);
+            TestUtils.assertEquals(tmpExpected.getValue(), tmpActual.getValue(), PRECISION);
+        }
+    }
+
+}
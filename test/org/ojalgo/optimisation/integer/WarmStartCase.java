@@ -0,0 +1,148 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.integer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.Variable;
+import org.ojalgo.optimisation.linear.RevisedSimplexSolver;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Branch&bound node relaxations solved warm started from the parent node's basis, compared to solving them
+ * from scratch.
+ */
+public class WarmStartCase extends OptimisationIntegerTests {
+
+    private static final NumberContext PRECISION = new NumberContext(7, 6);
+
+    private boolean myWarmStart;
+
+    @BeforeEach
+    public void store() {
+        myWarmStart = IntegerSolver.WARM_START;
+    }
+
+    @AfterEach
+    public void restore() {
+        IntegerSolver.WARM_START = myWarmStart;
+    }
+
+    /**
+     * Dive down the branch&bound tree, always branching on the first fractional variable, and solve each
+     * node both with and without warm start.
+     */
+    @Test
+    public void testDive() {
+
+        for (long seed = 1L; seed <= 5L; seed++) {
+
+            final ExpressionsBasedModel tmpModel = OptimisationIntegerData.buildKnapsacks(30, 4, seed);
+            final ExpressionsBasedModel tmpRelaxed = tmpModel.relax(false);
+
+            final int[] tmpIntegers = new int[tmpModel.countVariables()];
+            final int[] tmpLower = new int[tmpIntegers.length];
+            final int[] tmpUpper = new int[tmpIntegers.length];
+            for (int i = 0; i < tmpIntegers.length; i++) {
+                final Variable tmpVariable = tmpModel.getVariable(i);
+                tmpIntegers[i] = i;
+                tmpLower[i] = tmpVariable.getLowerLimit().intValue();
+                tmpUpper[i] = tmpVariable.getUpperLimit().intValue();
+            }
+
+            final RevisedSimplexSolver.Relaxation tmpRelaxation = new RevisedSimplexSolver.Relaxation(tmpRelaxed, tmpIntegers);
+
+            RevisedSimplexSolver.Relaxation.Solution tmpParent = tmpRelaxation.solve(tmpLower, tmpUpper, null);
+            TestUtils.assertStateNotLessThanOptimal(tmpParent.getResult());
+            TestUtils.assertEquals(tmpRelaxed.minimise().getValue(), tmpParent.getResult().getValue(), PRECISION);
+
+            int tmpWarmIterations = 0;
+            int tmpColdIterations = 0;
+
+            for (int depth = 0; depth < tmpIntegers.length; depth++) {
+
+                int tmpBranch = -1;
+                for (int i = 0; (i < tmpIntegers.length) && (tmpBranch < 0); i++) {
+                    final double tmpValue = tmpParent.getResult().doubleValue(i);
+                    if (!PRECISION.isZero(tmpValue - Math.rint(tmpValue))) {
+                        tmpBranch = i;
+                        if ((depth % 2) == 0) {
+                            tmpUpper[i] = (int) Math.floor(tmpValue);
+                        } else {
+                            tmpLower[i] = (int) Math.ceil(tmpValue);
+                        }
+                    }
+                }
+                if (tmpBranch < 0) {
+                    break;
+                }
+
+                final RevisedSimplexSolver.Relaxation.Solution tmpWarm = tmpRelaxation.solve(tmpLower, tmpUpper, tmpParent);
+                final RevisedSimplexSolver.Relaxation.Solution tmpCold = tmpRelaxation.solve(tmpLower, tmpUpper, null);
+
+                TestUtils.assertEquals(tmpCold.getResult().getState().isFeasible(), tmpWarm.getResult().getState().isFeasible());
+                if (!tmpCold.getResult().getState().isFeasible()) {
+                    break;
+                }
+                TestUtils.assertEquals(tmpCold.getResult().getValue(), tmpWarm.getResult().getValue(), PRECISION);
+
+                final ExpressionsBasedModel tmpNode = tmpRelaxed.copy();
+                for (int i = 0; i < tmpIntegers.length; i++) {
+                    tmpNode.getVariable(i).lower(tmpLower[i]).upper(tmpUpper[i]);
+                }
+                TestUtils.assertTrue(tmpNode.validate(tmpWarm.getResult(), PRECISION));
+
+                tmpWarmIterations += tmpWarm.countIterations();
+                tmpColdIterations += tmpCold.countIterations();
+
+                tmpParent = tmpWarm;
+            }
+
+            TestUtils.assertTrue(tmpWarmIterations <= tmpColdIterations);
+        }
+    }
+
+    @Test
+    public void testIntegerSolver() {
+
+        for (long seed = 1L; seed <= 5L; seed++) {
+
+            final ExpressionsBasedModel tmpModel = OptimisationIntegerData.buildKnapsacks(20, 3, seed);
+
+            IntegerSolver.WARM_START = false;
+            final Optimisation.Result tmpCold = tmpModel.minimise();
+
+            IntegerSolver.WARM_START = true;
+            final Optimisation.Result tmpWarm = tmpModel.minimise();
+
+            TestUtils.assertStateNotLessThanOptimal(tmpCold);
+            TestUtils.assertStateNotLessThanOptimal(tmpWarm);
+            TestUtils.assertEquals(tmpCold.getValue(), tmpWarm.getValue(), PRECISION);
+            TestUtils.assertTrue(tmpModel.validate(tmpWarm));
+        }
+    }
+
+}
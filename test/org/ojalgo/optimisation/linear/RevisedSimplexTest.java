@@ -0,0 +1,208 @@
+/*
+ * Copyright 1997-2018 Optimatika
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.ojalgo.optimisation.linear;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ojalgo.TestUtils;
+import org.ojalgo.optimisation.Expression;
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.MathProgSysModel;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.Variable;
+import org.ojalgo.type.context.NumberContext;
+
+/**
+ * Solves the same models with and without {@link RevisedSimplexSolver.ModelIntegration} registered, and
+ * compares the results.
+ */
+public class RevisedSimplexTest extends OptimisationLinearTests {
+
+    private static final RevisedSimplexSolver.ModelIntegration INTEGRATION = new RevisedSimplexSolver.ModelIntegration();
+    private static final String PATH = "./test/org/ojalgo/optimisation/linear/";
+    private static final NumberContext PRECISION = new NumberContext(7, 6);
+
+    private static ExpressionsBasedModel makeTransportation(final int supplies, final int demands) {
+
+        final Random tmpRandom = new Random(supplies * demands);
+
+        final ExpressionsBasedModel retVal = new ExpressionsBasedModel();
+
+        final Variable[][] tmpFlows = new Variable[supplies][demands];
+        for (int s = 0; s < supplies; s++) {
+            for (int d = 0; d < demands; d++) {
+                tmpFlows[s][d] = retVal.addVariable("F" + s + "_" + d).lower(0).weight(1 + tmpRandom.nextInt(50));
+            }
+        }
+
+        for (int s = 0; s < supplies; s++) {
+            final Expression tmpSupply = retVal.addExpression("S" + s).upper(10 + tmpRandom.nextInt(20));
+            for (int d = 0; d < demands; d++) {
+                tmpSupply.set(tmpFlows[s][d], 1);
+            }
+        }
+
+        for (int d = 0; d < demands; d++) {
+            final Expression tmpDemand = retVal.addExpression("D" + d).lower(1 + tmpRandom.nextInt(10));
+            for (int s = 0; s < supplies; s++) {
+                tmpDemand.set(tmpFlows[s][d], 1);
+            }
+        }
+
+        return retVal;
+    }
+
+    private static void compare(final ExpressionsBasedModel model, final boolean minimise) {
+
+        ExpressionsBasedModel.removeIntegration(INTEGRATION);
+        final Optimisation.Result tmpExpected = minimise ? model.minimise() : model.maximise();
+
+        ExpressionsBasedModel.addIntegration(INTEGRATION);
+        final Optimisation.Result tmpActual = minimise ? model.minimise() : model.maximise();
+
+        TestUtils.assertEquals(tmpExpected.getState(), tmpActual.getState());
+        if (tmpActual.getState().isOptimal()) {
+            TestUtils.assertEquals(tmpExpected.getValue(), tmpActual.getValue(), PRECISION);
+            TestUtils.assertTrue(model.validate(tmpActual, PRECISION));
+        }
+    }
+
+    private static void compare(final String name) {
+        final ExpressionsBasedModel tmpModel = MathProgSysModel.make(new File(PATH + name)).getExpressionsBasedModel();
+        RevisedSimplexTest.compare(tmpModel, true);
+    }
+
+    private int myInterval;
+
+    @AfterEach
+    public void restore() {
+        ExpressionsBasedModel.removeIntegration(INTEGRATION);
+        RevisedSimplexSolver.REFACTORISATION_INTERVAL = myInterval;
+    }
+
+    @BeforeEach
+    public void store() {
+        myInterval = RevisedSimplexSolver.REFACTORISATION_INTERVAL;
+    }
+
+    @Test
+    public void testNetlib() {
+        RevisedSimplexTest.compare("afiro.mps");
+        RevisedSimplexTest.compare("adlittle.mps");
+        RevisedSimplexTest.compare("blend.mps");
+        RevisedSimplexTest.compare("boeing2.mps");
+        RevisedSimplexTest.compare("kb2.mps");
+        RevisedSimplexTest.compare("sc50b.mps");
+        RevisedSimplexTest.compare("share2b.mps");
+    }
+
+    @Test
+    public void testRefactorisation() {
+        RevisedSimplexSolver.REFACTORISATION_INTERVAL = 3;
+        RevisedSimplexTest.compare("adlittle.mps");
+        RevisedSimplexTest.compare("share2b.mps");
+    }
+
+    /**
+     * Node bounds are column bounds. Solve with random bounds, from scratch and warm started from the root
+     * solution, and compare with the bounded model.
+     */
+    @Test
+    public void testRelaxationBounds() {
+
+        final ExpressionsBasedModel tmpModel = RevisedSimplexTest.makeTransportation(5, 6);
+        final int tmpCount = tmpModel.countVariables();
+
+        final int[] tmpVariables = new int[tmpCount];
+        for (int v = 0; v < tmpCount; v++) {
+            tmpVariables[v] = v;
+        }
+
+        final RevisedSimplexSolver.Relaxation tmpRelaxation = new RevisedSimplexSolver.Relaxation(tmpModel, tmpVariables);
+
+        final int[] tmpLower = new int[tmpCount];
+        final int[] tmpUpper = new int[tmpCount];
+        Arrays.fill(tmpLower, Integer.MIN_VALUE);
+        Arrays.fill(tmpUpper, Integer.MAX_VALUE);
+
+        final RevisedSimplexSolver.Relaxation.Solution tmpRoot = tmpRelaxation.solve(tmpLower, tmpUpper, null);
+
+        final Random tmpRandom = new Random(123);
+
+        for (int k = 0; k < 20; k++) {
+
+            final ExpressionsBasedModel tmpBounded = tmpModel.copy();
+
+            for (int v = 0; v < tmpCount; v++) {
+                tmpLower[v] = Integer.MIN_VALUE;
+                tmpUpper[v] = Integer.MAX_VALUE;
+                switch (tmpRandom.nextInt(4)) {
+                case 0:
+                    tmpLower[v] = 1 + tmpRandom.nextInt(3);
+                    tmpBounded.getVariable(v).lower(tmpLower[v]);
+                    break;
+                case 1:
+                    tmpUpper[v] = tmpRandom.nextInt(3);
+                    tmpBounded.getVariable(v).upper(tmpUpper[v]);
+                    break;
+                default:
+                    break;
+                }
+            }
+
+            final Optimisation.Result tmpExpected = tmpBounded.minimise();
+
+            final Optimisation.Result tmpCold = tmpRelaxation.solve(tmpLower, tmpUpper, null).getResult();
+            final Optimisation.Result tmpWarm = tmpRelaxation.solve(tmpLower, tmpUpper, tmpRoot).getResult();
+
+            TestUtils.assertEquals(tmpExpected.getState().isOptimal(), tmpCold.getState().isOptimal());
+            TestUtils.assertEquals(tmpExpected.getState().isOptimal(), tmpWarm.getState().isOptimal());
+            if (tmpExpected.getState().isOptimal()) {
+                TestUtils.assertEquals(tmpExpected.getValue(), tmpCold.getValue(), PRECISION);
+                TestUtils.assertEquals(tmpExpected.getValue(), tmpWarm.getValue(), PRECISION);
+                TestUtils.assertTrue(tmpBounded.validate(tmpWarm, PRECISION));
+            }
+        }
+    }
+
+    @Test
+    public void testTransportation() {
+        final ExpressionsBasedModel tmpModel = RevisedSimplexTest.makeTransportation(20, 30);
+        RevisedSimplexTest.compare(tmpModel, true);
+    }
+
+    @Test
+    public void testUnboundedAndInfeasible() {
+
+        RevisedSimplexTest.compare(MathProgSysModel.make(new File(PATH + "nazareth.mps")).getExpressionsBasedModel(), true);
+
+        final ExpressionsBasedModel tmpModel = RevisedSimplexTest.makeTransportation(3, 4);
+        tmpModel.getExpression("D0").lower(1000);
+        RevisedSimplexTest.compare(tmpModel, true);
+    }
+
+}